@@ -0,0 +1,207 @@
+package org.freedesktop.jaccall.compiletime;
+
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import org.freedesktop.jaccall.Async;
+import org.freedesktop.jaccall.Batch;
+import org.freedesktop.jaccall.NativeExecutor;
+
+import javax.annotation.Generated;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes a class with an asynchronous variant of every {@code Async} method of a {@code Lib} class. A variant records
+ * the call in a batch and submits it to a native executor, so the calling thread does not block.
+ */
+final class AsyncWriter {
+
+    static final String ASYNC_SUFFIX = "_Async";
+
+    private static final String SYMBOLS  = "SYMBOLS";
+    private static final String EXECUTOR = "executor";
+    private static final String FUNCTION = "FUNCTION_";
+
+    private final Messager messager;
+    private final Filer    filer;
+
+    public AsyncWriter(final Messager messager,
+                       final Filer filer) {
+        this.messager = messager;
+        this.filer = filer;
+    }
+
+    public void process(final TypeElement typeElement) {
+
+        final MethodParser methodParser = new MethodParser(this.messager);
+
+        final ClassName symbolsClassName = ClassName.get(ClassName.get(typeElement)
+                                                                  .packageName(),
+                                                         typeElement.getSimpleName() + "_Symbols");
+
+        final AnnotationSpec annotationSpec = AnnotationSpec.builder(Generated.class)
+                                                            .addMember("value",
+                                                                       "$S",
+                                                                       JaccallGenerator.class.getName())
+                                                            .build();
+        final TypeSpec.Builder typeSpecBuilder = TypeSpec.classBuilder(typeElement.getSimpleName() + ASYNC_SUFFIX)
+                                                         .addAnnotation(annotationSpec)
+                                                         .addModifiers(Modifier.PUBLIC,
+                                                                       Modifier.FINAL)
+                                                         .addField(FieldSpec.builder(symbolsClassName,
+                                                                                     SYMBOLS,
+                                                                                     Modifier.PRIVATE,
+                                                                                     Modifier.STATIC,
+                                                                                     Modifier.FINAL)
+                                                                            .initializer("new $T()",
+                                                                                         symbolsClassName)
+                                                                            .build())
+                                                         .addField(FieldSpec.builder(NativeExecutor.class,
+                                                                                     EXECUTOR,
+                                                                                     Modifier.PRIVATE,
+                                                                                     Modifier.FINAL)
+                                                                            .build())
+                                                         .addMethod(MethodSpec.constructorBuilder()
+                                                                              .addModifiers(Modifier.PUBLIC)
+                                                                              .addParameter(NativeExecutor.class,
+                                                                                            EXECUTOR,
+                                                                                            Modifier.FINAL)
+                                                                              .addStatement("this.$L = $L",
+                                                                                            EXECUTOR,
+                                                                                            EXECUTOR)
+                                                                              .build());
+
+        boolean async = false;
+        int     i     = 0;
+        for (final ExecutableElement executableElement : ElementFilter.methodsIn(typeElement.getEnclosedElements())) {
+            if (!executableElement.getModifiers()
+                                  .contains(Modifier.NATIVE)) {
+                continue;
+            }
+            if (executableElement.getAnnotation(Async.class) != null) {
+                final String methodName = methodParser.parseMethodName(executableElement);
+                //named by symbol index, overloads have their own function
+                final String functionName = FUNCTION + i;
+
+                typeSpecBuilder.addField(FieldSpec.builder(Batch.Function.class,
+                                                           functionName,
+                                                           Modifier.PRIVATE,
+                                                           Modifier.STATIC,
+                                                           Modifier.FINAL)
+                                                  .initializer("$L.function($S, $S)",
+                                                               SYMBOLS,
+                                                               methodName,
+                                                               methodParser.parseJniSignature(executableElement))
+                                                  .build());
+                typeSpecBuilder.addMethod(asyncMethod(executableElement,
+                                                      methodName,
+                                                      functionName));
+                async = true;
+            }
+            i++;
+        }
+
+        if (!async) {
+            return;
+        }
+
+        final TypeSpec typeSpec = typeSpecBuilder.build();
+
+        for (final PackageElement packageElement : ElementFilter.packagesIn(Collections.singletonList(typeElement.getEnclosingElement()))) {
+            final JavaFile javaFile = JavaFile.builder(packageElement.getQualifiedName()
+                                                                     .toString(),
+                                                       typeSpec)
+                                              .skipJavaLangImports(true)
+                                              .build();
+            try {
+                javaFile.writeTo(this.filer);
+            }
+            catch (final IOException e) {
+                this.messager.printMessage(Diagnostic.Kind.ERROR,
+                                           "Could not set async source file: \n" + javaFile.toString(),
+                                           typeElement);
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private MethodSpec asyncMethod(final ExecutableElement executableElement,
+                                   final String methodName,
+                                   final String functionName) {
+        final TypeName returnType = TypeName.get(executableElement.getReturnType());
+        final boolean  isVoid     = executableElement.getReturnType()
+                                                     .getKind() == TypeKind.VOID;
+
+        final MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(methodName)
+                                                           .addModifiers(Modifier.PUBLIC)
+                                                           .returns(ParameterizedTypeName.get(ClassName.get(CompletableFuture.class),
+                                                                                              isVoid ? ClassName.get(Void.class) : returnType.box()));
+
+        final CodeBlock.Builder call = CodeBlock.builder()
+                                                .add("batch.call($L)",
+                                                     functionName);
+        for (final VariableElement parameter : executableElement.getParameters()) {
+            final String parameterName = parameter.getSimpleName()
+                                                  .toString();
+            methodBuilder.addParameter(ParameterSpec.builder(TypeName.get(parameter.asType()),
+                                                             parameterName,
+                                                             Modifier.FINAL)
+                                                    .build());
+            call.add(".arg($L)",
+                     parameterName);
+        }
+
+        methodBuilder.addStatement("final $T batch = new $T($L)",
+                                   Batch.class,
+                                   Batch.class,
+                                   isVoid ? "false" : "")
+                     .addStatement("$L",
+                                   call.build())
+                     .addStatement("return this.$L.submit(batch)\n.thenApply(done -> $L)\n.whenComplete((result, throwable) -> batch.close())",
+                                   EXECUTOR,
+                                   result(executableElement.getReturnType()
+                                                           .getKind(),
+                                          returnType));
+
+        return methodBuilder.build();
+    }
+
+    private CodeBlock result(final TypeKind returnKind,
+                             final TypeName returnType) {
+        switch (returnKind) {
+            case VOID:
+                return CodeBlock.of("($T) null",
+                                    Void.class);
+            case FLOAT:
+                return CodeBlock.of("done.resultFloat(0)");
+            case DOUBLE:
+                return CodeBlock.of("done.resultDouble(0)");
+            case LONG:
+                return CodeBlock.of("done.result(0)");
+            default:
+                return CodeBlock.of("($T) done.result(0)",
+                                    returnType);
+        }
+    }
+}
@@ -30,6 +30,7 @@ final class CheckWellFormedFunctor {
         for (final ExecutableElement executableElement : ElementFilter.methodsIn(typeElement.getEnclosedElements())) {
             hasDollarAsName(executableElement);
             methodValidator.validate(executableElement);
+            methodValidator.validateNoRet(executableElement);
         }
 
         this.error |= methodValidator.errorRaised();
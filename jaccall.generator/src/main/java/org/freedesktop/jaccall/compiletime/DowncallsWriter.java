@@ -0,0 +1,222 @@
+package org.freedesktop.jaccall.compiletime;
+
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import org.freedesktop.jaccall.Blocking;
+import org.freedesktop.jaccall.BlockingCalls;
+
+import javax.annotation.Generated;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes a class with a static method for every native method of a {@code Lib} class. The static methods invoke the
+ * method handles of the symbols, so calls can go through the Foreign Function and Memory API when it's available.
+ * <p>
+ * Calls made from a virtual thread are counted as pinned calls, unless the method is {@code Blocking}, then the call
+ * is handed off to a platform thread.
+ */
+final class DowncallsWriter {
+
+    static final String DOWNCALLS_SUFFIX = "_Downcalls";
+
+    private static final String HANDLES = "HANDLES";
+    private static final String HANDLE  = "HANDLE_";
+    private static final String PINNED  = "PINNED_";
+
+    private final Messager messager;
+    private final Filer    filer;
+
+    public DowncallsWriter(final Messager messager,
+                           final Filer filer) {
+        this.messager = messager;
+        this.filer = filer;
+    }
+
+    public void process(final TypeElement typeElement) {
+
+        final MethodParser methodParser = new MethodParser(this.messager);
+
+        final ClassName symbolsClassName = ClassName.get(ClassName.get(typeElement)
+                                                                  .packageName(),
+                                                         typeElement.getSimpleName() + "_Symbols");
+
+        final AnnotationSpec annotationSpec = AnnotationSpec.builder(Generated.class)
+                                                            .addMember("value",
+                                                                       "$S",
+                                                                       JaccallGenerator.class.getName())
+                                                            .build();
+        final TypeSpec.Builder typeSpecBuilder = TypeSpec.classBuilder(typeElement.getSimpleName() + DOWNCALLS_SUFFIX)
+                                                         .addAnnotation(annotationSpec)
+                                                         .addModifiers(Modifier.PUBLIC,
+                                                                       Modifier.FINAL)
+                                                         .addField(FieldSpec.builder(ArrayTypeName.of(MethodHandle.class),
+                                                                                     HANDLES,
+                                                                                     Modifier.PRIVATE,
+                                                                                     Modifier.STATIC,
+                                                                                     Modifier.FINAL)
+                                                                            .initializer("new $T().downcalls()",
+                                                                                         symbolsClassName)
+                                                                            .build())
+                                                         .addMethod(MethodSpec.constructorBuilder()
+                                                                              .addModifiers(Modifier.PRIVATE)
+                                                                              .build());
+
+        final List<ExecutableElement> methodsIn = ElementFilter.methodsIn(typeElement.getEnclosedElements());
+
+        int i = 0;
+        for (final ExecutableElement executableElement : methodsIn) {
+            if (executableElement.getModifiers()
+                                 .contains(Modifier.NATIVE)) {
+                final String methodName = methodParser.parseMethodName(executableElement);
+                final String handleName = HANDLE + i;
+
+                //a constant method handle per symbol so the jit can inline the call, named by index for overloads
+                typeSpecBuilder.addField(FieldSpec.builder(MethodHandle.class,
+                                                           handleName,
+                                                           Modifier.PRIVATE,
+                                                           Modifier.STATIC,
+                                                           Modifier.FINAL)
+                                                  .initializer("$L[$L]",
+                                                               HANDLES,
+                                                               i)
+                                                  .build());
+
+                final MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(methodName)
+                                                                   .addModifiers(Modifier.PUBLIC,
+                                                                                 Modifier.STATIC)
+                                                                   .returns(TypeName.get(executableElement.getReturnType()));
+                final CodeBlock.Builder               arguments  = CodeBlock.builder();
+                final List<? extends VariableElement> parameters = executableElement.getParameters();
+                for (int j = 0; j < parameters.size(); j++) {
+                    final String parameterName = parameters.get(j)
+                                                           .getSimpleName()
+                                                           .toString();
+                    methodBuilder.addParameter(ParameterSpec.builder(TypeName.get(parameters.get(j)
+                                                                                            .asType()),
+                                                                     parameterName)
+                                                            .build());
+                    if (j != 0) {
+                        arguments.add(", ");
+                    }
+                    arguments.add("$L",
+                                  parameterName);
+                }
+
+                final boolean isVoid = executableElement.getReturnType()
+                                                        .getKind() == TypeKind.VOID;
+                final CodeBlock invocation;
+                if (isVoid) {
+                    invocation = CodeBlock.of("$L.invokeExact($L)",
+                                              handleName,
+                                              arguments.build());
+                }
+                else {
+                    invocation = CodeBlock.of("($T) $L.invokeExact($L)",
+                                              TypeName.get(executableElement.getReturnType()),
+                                              handleName,
+                                              arguments.build());
+                }
+
+                if (executableElement.getAnnotation(Blocking.class) == null) {
+                    //count calls that pin the carrier of a virtual thread, overloads share the counter of their symbol
+                    final String pinnedName = PINNED + i;
+                    typeSpecBuilder.addField(FieldSpec.builder(LongAdder.class,
+                                                               pinnedName,
+                                                               Modifier.PRIVATE,
+                                                               Modifier.STATIC,
+                                                               Modifier.FINAL)
+                                                      .initializer("$T.pinnedCounter($T.class, $S)",
+                                                                   BlockingCalls.class,
+                                                                   ClassName.get(typeElement),
+                                                                   methodName)
+                                                      .build());
+                    methodBuilder.beginControlFlow("if ($T.isVirtualThread())",
+                                                   BlockingCalls.class)
+                                 .addStatement("$L.increment()",
+                                               pinnedName)
+                                 .endControlFlow()
+                                 .beginControlFlow("try")
+                                 .addStatement(isVoid ? "$L" : "return $L",
+                                               invocation);
+                }
+                else {
+                    //hand off to a platform thread so the carrier of a virtual thread is released
+                    methodBuilder.beginControlFlow("try")
+                                 .beginControlFlow("if ($T.isVirtualThread())",
+                                                   BlockingCalls.class);
+                    if (isVoid) {
+                        methodBuilder.addStatement("$T.offload(() -> {\n$>$L;\nreturn null;$<\n})",
+                                                   BlockingCalls.class,
+                                                   invocation)
+                                     .nextControlFlow("else")
+                                     .addStatement("$L",
+                                                   invocation)
+                                     .endControlFlow();
+                    }
+                    else {
+                        methodBuilder.addStatement("return $T.offload(() -> $L)",
+                                                   BlockingCalls.class,
+                                                   invocation)
+                                     .endControlFlow()
+                                     .addStatement("return $L",
+                                                   invocation);
+                    }
+                }
+                methodBuilder.nextControlFlow("catch ($T | $T e)",
+                                              RuntimeException.class,
+                                              Error.class)
+                             .addStatement("throw e")
+                             .nextControlFlow("catch ($T t)",
+                                              Throwable.class)
+                             .addStatement("throw new $T(t)",
+                                           Error.class)
+                             .endControlFlow();
+
+                typeSpecBuilder.addMethod(methodBuilder.build());
+                i++;
+            }
+        }
+
+        final TypeSpec typeSpec = typeSpecBuilder.build();
+
+        for (final PackageElement packageElement : ElementFilter.packagesIn(Collections.singletonList(typeElement.getEnclosingElement()))) {
+            final JavaFile javaFile = JavaFile.builder(packageElement.getQualifiedName()
+                                                                     .toString(),
+                                                       typeSpec)
+                                              .skipJavaLangImports(true)
+                                              .build();
+            try {
+                javaFile.writeTo(this.filer);
+            }
+            catch (final IOException e) {
+                this.messager.printMessage(Diagnostic.Kind.ERROR,
+                                           "Could not set downcalls source file: \n" + javaFile.toString(),
+                                           typeElement);
+                e.printStackTrace();
+            }
+        }
+    }
+}
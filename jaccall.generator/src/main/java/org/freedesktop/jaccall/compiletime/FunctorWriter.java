@@ -11,6 +11,7 @@ import com.squareup.javapoet.ParameterSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFactory;
@@ -186,8 +187,7 @@ final class FunctorWriter {
         final MethodSpec constructor = MethodSpec.constructorBuilder()
                                                  .addParameter(ClassName.get(element),
                                                                "function")
-                                                 .addStatement("super($T.ffi_closure(FFI_CIF, function, JNI_METHOD_ID))",
-                                                               JNI.class)
+                                                 .addStatement("super(CLOSURE_POOL, function)")
                                                  .addStatement("this.function = function")
                                                  .build();
 
@@ -203,12 +203,22 @@ final class FunctorWriter {
                                                             new MethodParser(this.messager).parseJniSignature(executableElement))
                                                .build();
 
+        final FieldSpec closurePool = FieldSpec.builder(ClosurePool.class,
+                                                        "CLOSURE_POOL",
+                                                        Modifier.PRIVATE,
+                                                        Modifier.STATIC,
+                                                        Modifier.FINAL)
+                                               .initializer("new $T(FFI_CIF, JNI_METHOD_ID)",
+                                                            ClosurePool.class)
+                                               .build();
+
         final TypeSpec typeSpec = TypeSpec.classBuilder(javaFunctorName)
                                           .addAnnotation(annotationSpec)
                                           .addModifiers(Modifier.FINAL)
                                           .superclass(ClassName.get(packageName,
                                                                     factoryName))
                                           .addField(jniMethodId)
+                                          .addField(closurePool)
                                           .addField(ClassName.get(element),
                                                     "function",
                                                     Modifier.PRIVATE,
@@ -366,6 +376,15 @@ final class FunctorWriter {
                                                                ClassName.get(element))
                                                  .build();
 
+        final MethodSpec closureConstructor = MethodSpec.constructorBuilder()
+                                                        .addParameter(ClosurePool.class,
+                                                                      "closurePool")
+                                                        .addParameter(ClassName.get(element),
+                                                                      "function")
+                                                        .addStatement("super($T.class, closurePool, function)",
+                                                                      ClassName.get(element))
+                                                        .build();
+
         final MethodSpec nref = MethodSpec.methodBuilder("nref")
                                           .addModifiers(Modifier.PUBLIC,
                                                         Modifier.STATIC)
@@ -394,6 +413,7 @@ final class FunctorWriter {
                                           .addSuperinterface(TypeName.get(element.asType()))
                                           .addField(ffiCif)
                                           .addMethod(constructor)
+                                          .addMethod(closureConstructor)
                                           .addMethod(nref)
                                           .build();
 
@@ -12,6 +12,7 @@ import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.util.ElementFilter;
@@ -22,11 +23,27 @@ import java.util.Set;
 @SupportedAnnotationTypes({"org.freedesktop.jaccall.Struct",
                            "org.freedesktop.jaccall.Functor",
                            "org.freedesktop.jaccall.Lib"})
+@SupportedOptions({JaccallGenerator.OPTION_STUBS,
+                   JaccallGenerator.OPTION_LAZY})
 public class JaccallGenerator extends AbstractProcessor {
 
+    /**
+     * When set to true, an ahead-of-time compiled JNI stub is generated for every native method of a
+     * {@link Lib} class, together with a CMake fragment to build the stubs into a companion library.
+     */
+    public static final String OPTION_STUBS = "jaccall.stubs";
+
+    /**
+     * When set to true, the native methods of a {@link Lib} class are linked on their first call, and their call
+     * interfaces are created when they're needed.
+     */
+    public static final String OPTION_LAZY = "jaccall.lazy";
+
     private Messager messager;
     private Filer    filer;
     private Elements elementUtils;
+    private boolean  stubs;
+    private boolean  lazy;
 
     @Override
     public SourceVersion getSupportedSourceVersion() {
@@ -39,6 +56,10 @@ public class JaccallGenerator extends AbstractProcessor {
         this.elementUtils = processingEnv.getElementUtils();
         this.messager = processingEnv.getMessager();
         this.filer = processingEnv.getFiler();
+        this.stubs = Boolean.parseBoolean(processingEnv.getOptions()
+                                                       .get(OPTION_STUBS));
+        this.lazy = Boolean.parseBoolean(processingEnv.getOptions()
+                                                      .get(OPTION_LAZY));
     }
 
     @Override
@@ -58,7 +79,17 @@ public class JaccallGenerator extends AbstractProcessor {
         for (final TypeElement typeElement : typeElements) {
             if (!new CheckWellFormedLib(this.messager).hasErrors(typeElement)) {
                 new SymbolsWriter(this.messager,
-                                  this.filer).process(typeElement);
+                                  this.filer,
+                                  this.stubs,
+                                  this.lazy).process(typeElement);
+                new DowncallsWriter(this.messager,
+                                    this.filer).process(typeElement);
+                new AsyncWriter(this.messager,
+                                this.filer).process(typeElement);
+                if (this.stubs) {
+                    new StubsWriter(this.messager,
+                                    this.filer).process(typeElement);
+                }
             }
         }
     }
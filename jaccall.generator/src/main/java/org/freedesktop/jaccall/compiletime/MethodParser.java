@@ -7,6 +7,7 @@ import org.freedesktop.jaccall.ByVal;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Lng;
 import org.freedesktop.jaccall.Ptr;
+import org.freedesktop.jaccall.Ret;
 import org.freedesktop.jaccall.Unsigned;
 
 import javax.annotation.processing.Messager;
@@ -15,6 +16,7 @@ import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeKind;
@@ -97,8 +99,11 @@ public final class MethodParser {
         codeBlockBuilder.add(parseFfiString(executableElement.getReturnType(),
                                             executableElement));
 
-        //arguments
+        //arguments, a struct by value is returned in the memory of a @Ret argument, so it's not passed to C
         for (final VariableElement variableElement : executableElement.getParameters()) {
+            if (variableElement.getAnnotation(Ret.class) != null) {
+                continue;
+            }
             codeBlockBuilder.add(", ");
             codeBlockBuilder.add(parseFfiString(variableElement.asType(),
                                                 variableElement));
@@ -223,6 +228,91 @@ public final class MethodParser {
         return builder.build();
     }
 
+    /**
+     * Parse the C type that corresponds to the given java type and its annotations.
+     *
+     * @param typeMirror the java type.
+     * @param element    the annotated method or parameter.
+     *
+     * @return A C type declaration. A struct that is passed by value is declared by the simple name of its struct type.
+     */
+    public String parseCType(final TypeMirror typeMirror,
+                             final Element element) {
+        final boolean unsigned = element.getAnnotation(Unsigned.class) != null;
+        final boolean lng      = element.getAnnotation(Lng.class) != null;
+        final boolean ptr      = element.getAnnotation(Ptr.class) != null;
+
+        final TypeKind kind = typeMirror.getKind();
+        switch (kind) {
+            case BYTE:
+                return unsigned ? "unsigned char" : "signed char";
+            case SHORT:
+                return unsigned ? "unsigned short" : "short";
+            case INT:
+                return unsigned ? "unsigned int" : "int";
+            case LONG: {
+                final TypeElement byVal = parseByValStruct(element);
+                if (ptr) {
+                    return "void *";
+                }
+                else if (byVal != null) {
+                    return byVal.getSimpleName()
+                                .toString();
+                }
+                else if (lng) {
+                    return unsigned ? "unsigned long long" : "long long";
+                }
+                else {
+                    return unsigned ? "unsigned long" : "long";
+                }
+            }
+            case FLOAT:
+                return "float";
+            case DOUBLE:
+                return "double";
+            case VOID:
+                return "void";
+            default:
+                this.messager.printMessage(Diagnostic.Kind.ERROR,
+                                           "Unsupported type " + typeMirror,
+                                           element);
+                return null;
+        }
+    }
+
+    /**
+     * Parse the struct type of a method or parameter that is annotated with {@link ByVal}.
+     *
+     * @param element the annotated method or parameter.
+     *
+     * @return the struct type, or null if the element is not annotated with {@link ByVal}.
+     */
+    public TypeElement parseByValStruct(final Element element) {
+        for (final AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            if (!annotationMirror.getAnnotationType()
+                                 .asElement()
+                                 .getSimpleName()
+                                 .toString()
+                                 .equals(BY_VAL)) {
+                continue;
+            }
+
+            for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> annotationEntry : annotationMirror.getElementValues()
+                                                                                                                          .entrySet()) {
+                if (annotationEntry.getKey()
+                                   .getSimpleName()
+                                   .toString()
+                                   .equals("value")) {
+                    final TypeMirror structClass = (TypeMirror) annotationEntry.getValue()
+                                                                               .getValue();
+                    return (TypeElement) ((DeclaredType) structClass).asElement();
+                }
+            }
+        }
+
+        return null;
+    }
+
     private CodeBlock parseByVal(final Map<? extends ExecutableElement, ? extends AnnotationValue> byVal) {
         final CodeBlock.Builder builder = CodeBlock.builder();
         for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> annotationEntry : byVal.entrySet()) {
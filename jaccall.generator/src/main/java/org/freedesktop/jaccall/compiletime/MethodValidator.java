@@ -1,9 +1,12 @@
 package org.freedesktop.jaccall.compiletime;
 
 
+import org.freedesktop.jaccall.Async;
+import org.freedesktop.jaccall.Blocking;
 import org.freedesktop.jaccall.ByVal;
 import org.freedesktop.jaccall.Lng;
 import org.freedesktop.jaccall.Ptr;
+import org.freedesktop.jaccall.Ret;
 import org.freedesktop.jaccall.Unsigned;
 
 import javax.annotation.processing.Messager;
@@ -14,6 +17,7 @@ import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.tools.Diagnostic;
+import java.util.List;
 
 public class MethodValidator {
 
@@ -48,6 +52,78 @@ public class MethodValidator {
         if (executableElement.getModifiers()
                              .contains(Modifier.NATIVE)) {
             validate(executableElement);
+            hasWellPlacedRet(executableElement);
+        }
+        hasWellPlacedAsync(executableElement);
+        hasWellPlacedBlocking(executableElement);
+    }
+
+    public void validateNoRet(final ExecutableElement executableElement) {
+        for (final VariableElement variableElement : executableElement.getParameters()) {
+            if (variableElement.getAnnotation(Ret.class) != null) {
+                this.messager.printMessage(Diagnostic.Kind.ERROR,
+                                           "@Ret annotation can only be placed on a parameter of a native method.",
+                                           variableElement);
+                raiseError();
+            }
+        }
+    }
+
+    private void hasWellPlacedAsync(final ExecutableElement executableElement) {
+        if (executableElement.getAnnotation(Async.class) == null) {
+            return;
+        }
+
+        if (!executableElement.getModifiers()
+                              .contains(Modifier.NATIVE)) {
+            this.messager.printMessage(Diagnostic.Kind.ERROR,
+                                       "@Async annotation can only be placed on a native method.",
+                                       executableElement);
+            raiseError();
+        }
+        for (final VariableElement variableElement : executableElement.getParameters()) {
+            if (variableElement.getAnnotation(Ret.class) != null) {
+                this.messager.printMessage(Diagnostic.Kind.ERROR,
+                                           "@Async annotation can not be placed in conjunction with @Ret annotation.",
+                                           executableElement);
+                raiseError();
+            }
+        }
+    }
+
+    private void hasWellPlacedBlocking(final ExecutableElement executableElement) {
+        if (executableElement.getAnnotation(Blocking.class) != null && !executableElement.getModifiers()
+                                                                                          .contains(Modifier.NATIVE)) {
+            this.messager.printMessage(Diagnostic.Kind.ERROR,
+                                       "@Blocking annotation can only be placed on a native method.",
+                                       executableElement);
+            raiseError();
+        }
+    }
+
+    private void hasWellPlacedRet(final ExecutableElement executableElement) {
+        final List<? extends VariableElement> parameters = executableElement.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            final VariableElement variableElement = parameters.get(i);
+            if (variableElement.getAnnotation(Ret.class) != null) {
+                if (i != 0) {
+                    this.messager.printMessage(Diagnostic.Kind.ERROR,
+                                               "@Ret annotation can only be placed on the first parameter.",
+                                               variableElement);
+                    raiseError();
+                }
+                isLong(variableElement,
+                       variableElement.asType(),
+                       "@Ret annotation can only be placed on primitive type 'long'.");
+                isNotByVal(variableElement,
+                           "@Ret annotation can not be placed in conjunction with @ByVal annotation.");
+                if (executableElement.getAnnotation(ByVal.class) == null) {
+                    this.messager.printMessage(Diagnostic.Kind.ERROR,
+                                               "@Ret annotation can only be placed on a parameter of a method that returns a struct with @ByVal.",
+                                               variableElement);
+                    raiseError();
+                }
+            }
         }
     }
 
@@ -242,6 +318,20 @@ public class MethodValidator {
 
         hasWellPlacedPtr(executableElement.getReturnType(),
                          executableElement);
+
+        if (executableElement.getAnnotation(Async.class) != null) {
+            this.messager.printMessage(Diagnostic.Kind.ERROR,
+                                       "Symbol should not be annotated with @Async.",
+                                       executableElement);
+            raiseError();
+        }
+
+        if (executableElement.getAnnotation(Blocking.class) != null) {
+            this.messager.printMessage(Diagnostic.Kind.ERROR,
+                                       "Symbol should not be annotated with @Blocking.",
+                                       executableElement);
+            raiseError();
+        }
     }
 
     public boolean errorRaised() {
@@ -16,6 +16,7 @@ import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.Size;
 import org.freedesktop.jaccall.Struct;
+import org.freedesktop.jaccall.StructFactory;
 import org.freedesktop.jaccall.StructType;
 import org.freedesktop.jaccall.Types;
 
@@ -186,6 +187,19 @@ final class StructWriter {
                                                           JNI.class)
                                              .build();
 
+        final ClassName structTypeName = ClassName.get(element);
+        final FieldSpec factoryField = FieldSpec.builder(ParameterizedTypeName.get(ClassName.get(StructFactory.class),
+                                                                                   structTypeName),
+                                                         "FACTORY",
+                                                         Modifier.PUBLIC,
+                                                         Modifier.STATIC,
+                                                         Modifier.FINAL)
+                                                .initializer("$T.register($T.class, SIZE, $T::new)",
+                                                             StructFactory.class,
+                                                             structTypeName,
+                                                             structTypeName)
+                                                .build();
+
         final MethodSpec constructor = MethodSpec.constructorBuilder()
                                                  .addStatement("super(SIZE)")
                                                  .build();
@@ -204,6 +218,7 @@ final class StructWriter {
                                           .addField(ffiTypeField)
                                           .addField(sizeField)
                                           .addFields(offsetFields)
+                                          .addField(factoryField)
                                           .addMethod(constructor)
                                           .addMethods(accessors)
                                           .build();
@@ -821,6 +836,31 @@ final class StructWriter {
                                                   i,
                                                   fieldName)
                                     .build());
+            if (javaType.equals(CLong.class)) {
+                //raw get, does not allocate a CLong
+                accessors.add(MethodSpec.methodBuilder(toGetterName(fieldName + "Value"))
+                                        .addModifiers(Modifier.PUBLIC,
+                                                      Modifier.FINAL)
+                                        .returns(TypeName.LONG)
+                                        .addStatement("return getCLongValue(OFFSET_$L)",
+                                                      i)
+                                        .build());
+                //raw set
+                accessors.add(MethodSpec.methodBuilder(toSetterName(fieldName + "Value"))
+                                        .addModifiers(Modifier.PUBLIC,
+                                                      Modifier.FINAL)
+                                        .addParameter(TypeName.LONG,
+                                                      CodeBlock.builder()
+                                                               .add("$N",
+                                                                    fieldName)
+                                                               .build()
+                                                               .toString(),
+                                                      Modifier.FINAL)
+                                        .addStatement("setCLongValue(OFFSET_$L, $N)",
+                                                      i,
+                                                      fieldName)
+                                        .build());
+            }
         }
 
         return new FieldDefinition(ffiTypeCode,
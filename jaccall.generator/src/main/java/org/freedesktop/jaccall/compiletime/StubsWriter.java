@@ -0,0 +1,477 @@
+package org.freedesktop.jaccall.compiletime;
+
+
+import org.freedesktop.jaccall.CType;
+import org.freedesktop.jaccall.Lib;
+import org.freedesktop.jaccall.Ptr;
+import org.freedesktop.jaccall.Ret;
+import org.freedesktop.jaccall.Struct;
+import org.freedesktop.jaccall.Symbol;
+import org.freedesktop.jaccall.Symbols;
+
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a C source file with an ahead-of-time compiled JNI stub for each native method of a {@link Lib} class, and a
+ * CMake fragment that compiles the stubs into a companion library.
+ */
+final class StubsWriter {
+
+    static final String STUBS_SUFFIX = "_Stubs";
+
+    private static final String STRUCT = Struct.class.getSimpleName();
+    private static final String SYMBOL = Symbol.class.getSimpleName();
+
+    private final Messager messager;
+    private final Filer    filer;
+
+    StubsWriter(final Messager messager,
+                final Filer filer) {
+        this.messager = messager;
+        this.filer = filer;
+    }
+
+    public void process(final TypeElement typeElement) {
+        final MethodParser methodParser = new MethodParser(this.messager);
+
+        final String stubsName = typeElement.getSimpleName() + STUBS_SUFFIX;
+
+        final Set<TypeElement> structs    = new LinkedHashSet<>();
+        final Set<String>      declared   = new HashSet<>();
+        final Set<String>      overloaded = new HashSet<>();
+        final StringBuilder    stubs      = new StringBuilder();
+
+        final List<ExecutableElement> nativeMethods = new ArrayList<>();
+        final Set<String>             methodNames   = new HashSet<>();
+        for (final ExecutableElement executableElement : ElementFilter.methodsIn(typeElement.getEnclosedElements())) {
+            if (executableElement.getModifiers()
+                                 .contains(Modifier.NATIVE)) {
+                nativeMethods.add(executableElement);
+                final String methodName = methodParser.parseMethodName(executableElement);
+                if (!methodNames.add(methodName)) {
+                    overloaded.add(methodName);
+                }
+            }
+        }
+
+        for (final ExecutableElement executableElement : nativeMethods) {
+            writeStub(methodParser,
+                      typeElement,
+                      executableElement,
+                      overloaded.contains(methodParser.parseMethodName(executableElement)),
+                      declared,
+                      structs,
+                      stubs);
+        }
+
+        final StringBuilder source = new StringBuilder();
+        source.append("/* Generated by ")
+              .append(JaccallGenerator.class.getName())
+              .append(" */\n");
+        source.append("#include <jni.h>\n");
+        source.append("#include <stdint.h>\n");
+        source.append('\n');
+
+        final Set<TypeElement> writtenStructs = new LinkedHashSet<>();
+        for (final TypeElement struct : structs) {
+            writeStructDefinition(struct,
+                                  writtenStructs,
+                                  source);
+        }
+        source.append(stubs);
+
+        final String libName = typeElement.getAnnotation(Lib.class)
+                                          .value();
+        final StringBuilder cmake = new StringBuilder();
+        cmake.append("# Generated by ")
+             .append(JaccallGenerator.class.getName())
+             .append('\n');
+        cmake.append("# Companion library with the JNI stubs of ")
+             .append(typeElement.getQualifiedName())
+             .append(".\n");
+        cmake.append("# The stubs are not linked against lib")
+             .append(libName)
+             .append(", its symbols are resolved when jaccall loads the stubs after the library itself.\n");
+        cmake.append("find_package(JNI REQUIRED)\n");
+        cmake.append("include_directories(${JAVA_INCLUDE_PATH} ${JAVA_INCLUDE_PATH2})\n");
+        cmake.append("add_library(")
+             .append(stubsName)
+             .append(" MODULE ${CMAKE_CURRENT_LIST_DIR}/")
+             .append(stubsName)
+             .append(".c)\n");
+        cmake.append("set_target_properties(")
+             .append(stubsName)
+             .append(" PROPERTIES COMPILE_FLAGS \"-fno-builtin\")\n");
+
+        for (final PackageElement packageElement : ElementFilter.packagesIn(Collections.singletonList(typeElement.getEnclosingElement()))) {
+            final String packageName = packageElement.getQualifiedName()
+                                                     .toString();
+            writeResource(typeElement,
+                          packageName,
+                          stubsName + ".c",
+                          source);
+            writeResource(typeElement,
+                          packageName,
+                          stubsName + ".cmake",
+                          cmake);
+        }
+    }
+
+    private void writeStub(final MethodParser methodParser,
+                           final TypeElement typeElement,
+                           final ExecutableElement executableElement,
+                           final boolean overloaded,
+                           final Set<String> declared,
+                           final Set<TypeElement> structs,
+                           final StringBuilder stubs) {
+        final String methodName = methodParser.parseMethodName(executableElement);
+        final TypeMirror returnType = executableElement.getReturnType();
+        final String jniReturnType = jniType(returnType.getKind());
+
+        stubs.append("/* ")
+             .append(methodName)
+             .append(" */\n");
+
+        boolean symbol = false;
+        for (final AnnotationMirror annotationMirror : executableElement.getAnnotationMirrors()) {
+            if (annotationMirror.getAnnotationType()
+                                .asElement()
+                                .getSimpleName()
+                                .toString()
+                                .equals(SYMBOL)) {
+                symbol = true;
+                break;
+            }
+        }
+
+        final StringBuilder jniParameters = new StringBuilder("JNIEnv *env, jobject object");
+        final StringBuilder cParameters   = new StringBuilder();
+        final StringBuilder cArguments    = new StringBuilder();
+        String              retArg        = null;
+
+        final List<? extends VariableElement> parameters = executableElement.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            final VariableElement parameter = parameters.get(i);
+            final TypeMirror      type      = parameter.asType();
+            final String          cType     = methodParser.parseCType(type,
+                                                                      parameter);
+            final String arg = "arg" + i;
+
+            jniParameters.append(", ")
+                         .append(jniType(type.getKind()))
+                         .append(' ')
+                         .append(arg);
+
+            if (parameter.getAnnotation(Ret.class) != null) {
+                //memory of the struct returned by value, not an argument of the C function
+                retArg = arg;
+                continue;
+            }
+
+            if (cParameters.length() != 0) {
+                cParameters.append(", ");
+                cArguments.append(", ");
+            }
+            cParameters.append(cType);
+
+            final TypeElement byVal = methodParser.parseByValStruct(parameter);
+            if (byVal != null) {
+                structs.add(byVal);
+                cArguments.append(String.format("*((%s *) (intptr_t) %s)",
+                                                cType,
+                                                arg));
+            }
+            else if (parameter.getAnnotation(Ptr.class) != null) {
+                cArguments.append(String.format("(void *) (intptr_t) %s",
+                                                arg));
+            }
+            else {
+                cArguments.append(String.format("(%s) %s",
+                                                cType,
+                                                arg));
+            }
+        }
+        if (cParameters.length() == 0) {
+            cParameters.append("void");
+        }
+
+        final String stubName = Symbols.stubName(typeElement.getQualifiedName()
+                                                           .toString(),
+                                                 methodName,
+                                                 methodParser.parseJniSignature(executableElement),
+                                                 overloaded);
+
+        //every target is declared as a plain symbol so it can not conflict with overloads or with declarations
+        //from system headers, the call casts the symbol to the function type of the native method instead
+        if (declared.add(methodName)) {
+            stubs.append(String.format("extern char %s;\n",
+                                       methodName));
+        }
+
+        if (symbol) {
+            stubs.append(String.format("JNIEXPORT jlong JNICALL %s(%s) {\n",
+                                       stubName,
+                                       jniParameters));
+            stubs.append(String.format("    return (jlong) (intptr_t) &%s;\n",
+                                       methodName));
+            stubs.append("}\n\n");
+            return;
+        }
+
+        final String cReturnType = methodParser.parseCType(returnType,
+                                                           executableElement);
+        final String call = String.format("((%s (*)(%s)) (void *) &%s)(%s)",
+                                          cReturnType,
+                                          cParameters,
+                                          methodName,
+                                          cArguments);
+        stubs.append(String.format("JNIEXPORT %s JNICALL %s(%s) {\n",
+                                   jniReturnType,
+                                   stubName,
+                                   jniParameters));
+
+        final TypeElement byValReturn = methodParser.parseByValStruct(executableElement);
+        if (byValReturn != null && retArg != null) {
+            structs.add(byValReturn);
+            stubs.append(String.format("    *((%s *) (intptr_t) %s) = %s;\n",
+                                       cReturnType,
+                                       retArg,
+                                       call));
+            stubs.append(String.format("    return %s;\n",
+                                       retArg));
+        }
+        else if (byValReturn != null) {
+            structs.add(byValReturn);
+            //the caller is responsible for freeing the returned struct, just like with libffi closures. The builtin
+            //needs no declaration so a target named malloc does not conflict.
+            stubs.append(String.format("    %s *rval = __builtin_malloc(sizeof(%s));\n",
+                                       cReturnType,
+                                       cReturnType));
+            stubs.append(String.format("    *rval = %s;\n",
+                                       call));
+            stubs.append("    return (jlong) (intptr_t) rval;\n");
+        }
+        else if (returnType.getKind() == TypeKind.VOID) {
+            stubs.append(String.format("    %s;\n",
+                                       call));
+        }
+        else if (executableElement.getAnnotation(Ptr.class) != null) {
+            stubs.append(String.format("    return (jlong) (intptr_t) %s;\n",
+                                       call));
+        }
+        else {
+            stubs.append(String.format("    return (%s) %s;\n",
+                                       jniReturnType,
+                                       call));
+        }
+        stubs.append("}\n\n");
+    }
+
+    private void writeStructDefinition(final TypeElement structElement,
+                                       final Set<TypeElement> writtenStructs,
+                                       final StringBuilder source) {
+        if (!writtenStructs.add(structElement)) {
+            return;
+        }
+
+        boolean                         union  = false;
+        List<? extends AnnotationValue> fields = Collections.emptyList();
+        for (final AnnotationMirror annotationMirror : structElement.getAnnotationMirrors()) {
+            if (!annotationMirror.getAnnotationType()
+                                 .asElement()
+                                 .getSimpleName()
+                                 .toString()
+                                 .equals(STRUCT)) {
+                continue;
+            }
+
+            for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> structAttribute : annotationMirror.getElementValues()
+                                                                                                                           .entrySet()) {
+                final String attributeName = structAttribute.getKey()
+                                                            .getSimpleName()
+                                                            .toString();
+                if (attributeName.equals("union")) {
+                    union = (Boolean) structAttribute.getValue()
+                                                     .getValue();
+                }
+                else if (attributeName.equals("value")) {
+                    fields = (List<? extends AnnotationValue>) structAttribute.getValue()
+                                                                              .getValue();
+                }
+            }
+        }
+
+        final StringBuilder definition = new StringBuilder();
+        definition.append(union ? "typedef union {\n" : "typedef struct {\n");
+
+        for (final AnnotationValue field : fields) {
+            CType      cType       = null;
+            int        cardinality = 1;
+            TypeMirror dataType    = null;
+            String     name        = null;
+
+            for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> fieldAttribute : ((AnnotationMirror) field.getValue()).getElementValues()
+                                                                                                                                                .entrySet()) {
+                final Object value = fieldAttribute.getValue()
+                                                   .getValue();
+                switch (fieldAttribute.getKey()
+                                      .getSimpleName()
+                                      .toString()) {
+                    case "type":
+                        cType = CType.valueOf(((Element) value).getSimpleName()
+                                                               .toString());
+                        break;
+                    case "cardinality":
+                        cardinality = (Integer) value;
+                        break;
+                    case "dataType":
+                        dataType = (TypeMirror) value;
+                        break;
+                    case "name":
+                        name = (String) value;
+                        break;
+                }
+            }
+
+            if (cType == null || name == null) {
+                this.messager.printMessage(Diagnostic.Kind.ERROR,
+                                           "Struct field requires a type and a name.",
+                                           structElement);
+                return;
+            }
+
+            final String fieldType;
+            if (cType == CType.STRUCT) {
+                final TypeElement fieldStruct = (TypeElement) ((DeclaredType) dataType).asElement();
+                //nested structs have to be defined first
+                writeStructDefinition(fieldStruct,
+                                      writtenStructs,
+                                      source);
+                fieldType = fieldStruct.getSimpleName()
+                                       .toString();
+            }
+            else {
+                fieldType = cType(cType);
+            }
+
+            definition.append("    ")
+                      .append(fieldType);
+            if (!fieldType.endsWith("*")) {
+                definition.append(' ');
+            }
+            definition.append(name);
+            if (cardinality == 0) {
+                definition.append("[]");
+            }
+            else if (cardinality > 1) {
+                definition.append('[')
+                          .append(cardinality)
+                          .append(']');
+            }
+            definition.append(";\n");
+        }
+
+        definition.append("} ")
+                  .append(structElement.getSimpleName())
+                  .append(";\n\n");
+        source.append(definition);
+    }
+
+    private void writeResource(final TypeElement typeElement,
+                               final String packageName,
+                               final String name,
+                               final CharSequence content) {
+        try {
+            final FileObject fileObject = this.filer.createResource(StandardLocation.SOURCE_OUTPUT,
+                                                                    packageName,
+                                                                    name,
+                                                                    typeElement);
+            try (final Writer writer = fileObject.openWriter()) {
+                writer.append(content);
+            }
+        }
+        catch (final IOException e) {
+            this.messager.printMessage(Diagnostic.Kind.ERROR,
+                                       "Could not write stubs file: " + name,
+                                       typeElement);
+            e.printStackTrace();
+        }
+    }
+
+    private static String jniType(final TypeKind kind) {
+        switch (kind) {
+            case BYTE:
+                return "jbyte";
+            case SHORT:
+                return "jshort";
+            case INT:
+                return "jint";
+            case LONG:
+                return "jlong";
+            case FLOAT:
+                return "jfloat";
+            case DOUBLE:
+                return "jdouble";
+            default:
+                return "void";
+        }
+    }
+
+    private static String cType(final CType cType) {
+        switch (cType) {
+            case CHAR:
+                return "signed char";
+            case UNSIGNED_CHAR:
+                return "unsigned char";
+            case SHORT:
+                return "short";
+            case UNSIGNED_SHORT:
+                return "unsigned short";
+            case INT:
+                return "int";
+            case UNSIGNED_INT:
+                return "unsigned int";
+            case LONG:
+                return "long";
+            case UNSIGNED_LONG:
+                return "unsigned long";
+            case LONG_LONG:
+                return "long long";
+            case UNSIGNED_LONG_LONG:
+                return "unsigned long long";
+            case FLOAT:
+                return "float";
+            case DOUBLE:
+                return "double";
+            case POINTER:
+                return "void *";
+            default:
+                return "void";
+        }
+    }
+}
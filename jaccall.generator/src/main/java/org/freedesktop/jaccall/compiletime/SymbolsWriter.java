@@ -30,11 +30,17 @@ final class SymbolsWriter {
 
     private final Messager messager;
     private final Filer    filer;
+    private final boolean  stubs;
+    private final boolean  lazy;
 
     public SymbolsWriter(final Messager messager,
-                         final Filer filer) {
+                         final Filer filer,
+                         final boolean stubs,
+                         final boolean lazy) {
         this.messager = messager;
         this.filer = filer;
+        this.stubs = stubs;
+        this.lazy = lazy;
     }
 
     public void process(final TypeElement typeElement) {
@@ -45,6 +51,7 @@ final class SymbolsWriter {
         final CodeBlock.Builder argSizesArray      = CodeBlock.builder();
         final CodeBlock.Builder ffiSignaturesArray = CodeBlock.builder();
         final CodeBlock.Builder jniSignaturesArray = CodeBlock.builder();
+        final CodeBlock.Builder ffiSignaturesCases = CodeBlock.builder();
 
         final List<ExecutableElement> methodsIn = ElementFilter.methodsIn(typeElement.getEnclosedElements());
 
@@ -85,10 +92,18 @@ final class SymbolsWriter {
                 }
                 else {
                     //function
+                    final CodeBlock ffiSignature = methodParser.parseFfiSignature(executableElement);
                     ffiSignaturesArray.add("/*$L*/ $T.ffi_callInterface($L)",
                                            methodName,
                                            JNI.class,
-                                           methodParser.parseFfiSignature(executableElement));
+                                           ffiSignature);
+                    ffiSignaturesCases.add("case $L: /*$L*/\n$>",
+                                           i,
+                                           methodName)
+                                      .addStatement("return $T.ffi_callInterface($L)",
+                                                    JNI.class,
+                                                    ffiSignature)
+                                      .add("$<");
                 }
 
 
@@ -99,36 +114,80 @@ final class SymbolsWriter {
             }
         }
 
-        final MethodSpec constructor = MethodSpec.constructorBuilder()
-                                                 .addModifiers(Modifier.PUBLIC)
-                                                 .addStatement("super($T.class,\n" +
-                                                               "new $T{ /*method name*/\n $L\n },\n" +
-                                                               "new $T{ /*number of arguments*/\n $L\n },\n" +
-                                                               "new $T{ /*FFI call interface*/\n $L\n },\n" +
-                                                               "new $T{ /*JNI method signature*/\n $L\n })",
-                                                               ClassName.get(typeElement),
-                                                               ArrayTypeName.of(String.class),
-                                                               methodNamesArray.build(),
-                                                               ArrayTypeName.of(byte.class),
-                                                               argSizesArray.build(),
-                                                               ArrayTypeName.of(long.class),
-                                                               ffiSignaturesArray.build(),
-                                                               ArrayTypeName.of(String.class),
-                                                               jniSignaturesArray.build())
-                                                 .build();
+        final String symbolsName = typeElement.getSimpleName() + "_Symbols";
+
+        final MethodSpec.Builder constructorBuilder = MethodSpec.constructorBuilder()
+                                                                .addModifiers(Modifier.PUBLIC);
+        if (this.lazy) {
+            constructorBuilder.addStatement("super($T.class,\n" +
+                                            "new $T{ /*method name*/\n $L\n },\n" +
+                                            "new $T{ /*number of arguments*/\n $L\n },\n" +
+                                            "new $T{ /*JNI method signature*/\n $L\n },\n" +
+                                            "$L::ffiCallInterface)",
+                                            ClassName.get(typeElement),
+                                            ArrayTypeName.of(String.class),
+                                            methodNamesArray.build(),
+                                            ArrayTypeName.of(byte.class),
+                                            argSizesArray.build(),
+                                            ArrayTypeName.of(String.class),
+                                            jniSignaturesArray.build(),
+                                            symbolsName);
+        }
+        else {
+            constructorBuilder.addStatement("super($T.class,\n" +
+                                            "new $T{ /*method name*/\n $L\n },\n" +
+                                            "new $T{ /*number of arguments*/\n $L\n },\n" +
+                                            "new $T{ /*FFI call interface*/\n $L\n },\n" +
+                                            "new $T{ /*JNI method signature*/\n $L\n })",
+                                            ClassName.get(typeElement),
+                                            ArrayTypeName.of(String.class),
+                                            methodNamesArray.build(),
+                                            ArrayTypeName.of(byte.class),
+                                            argSizesArray.build(),
+                                            ArrayTypeName.of(long.class),
+                                            ffiSignaturesArray.build(),
+                                            ArrayTypeName.of(String.class),
+                                            jniSignaturesArray.build());
+        }
+        final MethodSpec constructor = constructorBuilder.build();
 
         final AnnotationSpec annotationSpec = AnnotationSpec.builder(Generated.class)
                                                             .addMember("value",
                                                                        "$S",
                                                                        JaccallGenerator.class.getName())
                                                             .build();
-        final TypeSpec typeSpec = TypeSpec.classBuilder(typeElement.getSimpleName() + "_Symbols")
-                                          .addAnnotation(annotationSpec)
-                                          .addModifiers(Modifier.PUBLIC)
-                                          .addModifiers(Modifier.FINAL)
-                                          .superclass(Symbols.class)
-                                          .addMethod(constructor)
-                                          .build();
+        final TypeSpec.Builder typeSpecBuilder = TypeSpec.classBuilder(symbolsName)
+                                                         .addAnnotation(annotationSpec)
+                                                         .addModifiers(Modifier.PUBLIC)
+                                                         .addModifiers(Modifier.FINAL)
+                                                         .superclass(Symbols.class)
+                                                         .addMethod(constructor);
+        if (this.lazy) {
+            typeSpecBuilder.addMethod(MethodSpec.methodBuilder("ffiCallInterface")
+                                                .addModifiers(Modifier.PRIVATE,
+                                                              Modifier.STATIC)
+                                                .returns(long.class)
+                                                .addParameter(int.class,
+                                                              "index",
+                                                              Modifier.FINAL)
+                                                .beginControlFlow("switch (index)")
+                                                .addCode(ffiSignaturesCases.build())
+                                                .addCode("default:\n$>")
+                                                .addStatement("return 0L")
+                                                .addCode("$<")
+                                                .endControlFlow()
+                                                .build());
+        }
+        if (this.stubs) {
+            typeSpecBuilder.addMethod(MethodSpec.methodBuilder("stubsLibrary")
+                                                .addAnnotation(Override.class)
+                                                .addModifiers(Modifier.PROTECTED)
+                                                .returns(String.class)
+                                                .addStatement("return $S",
+                                                              typeElement.getSimpleName() + StubsWriter.STUBS_SUFFIX)
+                                                .build());
+        }
+        final TypeSpec typeSpec = typeSpecBuilder.build();
 
         for (final PackageElement packageElement : ElementFilter.packagesIn(Collections.singletonList(typeElement.getEnclosingElement()))) {
             final JavaFile javaFile = JavaFile.builder(packageElement.getQualifiedName()
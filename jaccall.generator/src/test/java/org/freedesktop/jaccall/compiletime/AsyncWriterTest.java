@@ -0,0 +1,140 @@
+package org.freedesktop.jaccall.compiletime;
+
+
+import com.google.testing.compile.CompileTester;
+import com.google.testing.compile.JavaFileObjects;
+import org.junit.Test;
+
+import javax.tools.JavaFileObject;
+
+import static com.google.common.truth.Truth.assert_;
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+
+public class AsyncWriterTest {
+
+    @Test
+    public void testAsyncGeneration() {
+        //given
+        final JavaFileObject fileObject = JavaFileObjects.forSourceString("Testing",
+                                                                          "package org.freedesktop.libtest;\n" +
+                                                                          "import org.freedesktop.jaccall.Async;\n" +
+                                                                          "import org.freedesktop.jaccall.Lib;\n" +
+                                                                          "import org.freedesktop.jaccall.Ptr;\n" +
+                                                                          "\n" +
+                                                                          "@Lib(\"testing\")\n" +
+                                                                          "public class Testing {\n" +
+                                                                          "    @Async\n" +
+                                                                          "    public native int intTest(int value);\n" +
+                                                                          "    public native float floatTest(float value);\n" +
+                                                                          "    @Async\n" +
+                                                                          "    public static native void doStaticTest(@Ptr long field0, byte field1);\n" +
+                                                                          "}");
+        //when
+        final CompileTester compileTester = assert_().about(javaSource())
+                                                     .that(fileObject)
+                                                     .processedWith(new JaccallGenerator());
+        //then
+        compileTester.compilesWithoutError()
+                     .and()
+                     .generatesSources(JavaFileObjects.forSourceString("Testing_Async",
+                                                                       "package org.freedesktop.libtest;\n" +
+                                                                       "\n" +
+                                                                       "import java.util.concurrent.CompletableFuture;\n" +
+                                                                       "import javax.annotation.Generated;\n" +
+                                                                       "import org.freedesktop.jaccall.Batch;\n" +
+                                                                       "import org.freedesktop.jaccall.NativeExecutor;\n" +
+                                                                       "\n" +
+                                                                       "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
+                                                                       "public final class Testing_Async {\n" +
+                                                                       "  private static final Testing_Symbols SYMBOLS = new Testing_Symbols();\n" +
+                                                                       "\n" +
+                                                                       "  private static final Batch.Function FUNCTION_0 = SYMBOLS.function(\"intTest\", \"(I)I\");\n" +
+                                                                       "\n" +
+                                                                       "  private static final Batch.Function FUNCTION_2 = SYMBOLS.function(\"doStaticTest\", \"(JB)V\");\n" +
+                                                                       "\n" +
+                                                                       "  private final NativeExecutor executor;\n" +
+                                                                       "\n" +
+                                                                       "  public Testing_Async(final NativeExecutor executor) {\n" +
+                                                                       "    this.executor = executor;\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
+                                                                       "  public CompletableFuture<Integer> intTest(final int value) {\n" +
+                                                                       "    final Batch batch = new Batch();\n" +
+                                                                       "    batch.call(FUNCTION_0).arg(value);\n" +
+                                                                       "    return this.executor.submit(batch)\n" +
+                                                                       "        .thenApply(done -> (int) done.result(0))\n" +
+                                                                       "        .whenComplete((result, throwable) -> batch.close());\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
+                                                                       "  public CompletableFuture<Void> doStaticTest(final long field0, final byte field1) {\n" +
+                                                                       "    final Batch batch = new Batch(false);\n" +
+                                                                       "    batch.call(FUNCTION_2).arg(field0).arg(field1);\n" +
+                                                                       "    return this.executor.submit(batch)\n" +
+                                                                       "        .thenApply(done -> (Void) null)\n" +
+                                                                       "        .whenComplete((result, throwable) -> batch.close());\n" +
+                                                                       "  }\n" +
+                                                                       "}"));
+    }
+
+    @Test
+    public void testOverloadedAsyncGeneration() {
+        //given
+        final JavaFileObject fileObject = JavaFileObjects.forSourceString("Testing",
+                                                                          "package org.freedesktop.libtest;\n" +
+                                                                          "import org.freedesktop.jaccall.Async;\n" +
+                                                                          "import org.freedesktop.jaccall.Lib;\n" +
+                                                                          "\n" +
+                                                                          "@Lib(\"testing\")\n" +
+                                                                          "public class Testing {\n" +
+                                                                          "    @Async\n" +
+                                                                          "    public native int overloadTest(int value);\n" +
+                                                                          "    @Async\n" +
+                                                                          "    public native int overloadTest(double value);\n" +
+                                                                          "}");
+        //when
+        final CompileTester compileTester = assert_().about(javaSource())
+                                                     .that(fileObject)
+                                                     .processedWith(new JaccallGenerator());
+        //then
+        compileTester.compilesWithoutError()
+                     .and()
+                     .generatesSources(JavaFileObjects.forSourceString("Testing_Async",
+                                                                       "package org.freedesktop.libtest;\n" +
+                                                                       "\n" +
+                                                                       "import java.util.concurrent.CompletableFuture;\n" +
+                                                                       "import javax.annotation.Generated;\n" +
+                                                                       "import org.freedesktop.jaccall.Batch;\n" +
+                                                                       "import org.freedesktop.jaccall.NativeExecutor;\n" +
+                                                                       "\n" +
+                                                                       "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
+                                                                       "public final class Testing_Async {\n" +
+                                                                       "  private static final Testing_Symbols SYMBOLS = new Testing_Symbols();\n" +
+                                                                       "\n" +
+                                                                       "  private static final Batch.Function FUNCTION_0 = SYMBOLS.function(\"overloadTest\", \"(I)I\");\n" +
+                                                                       "\n" +
+                                                                       "  private static final Batch.Function FUNCTION_1 = SYMBOLS.function(\"overloadTest\", \"(D)I\");\n" +
+                                                                       "\n" +
+                                                                       "  private final NativeExecutor executor;\n" +
+                                                                       "\n" +
+                                                                       "  public Testing_Async(final NativeExecutor executor) {\n" +
+                                                                       "    this.executor = executor;\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
+                                                                       "  public CompletableFuture<Integer> overloadTest(final int value) {\n" +
+                                                                       "    final Batch batch = new Batch();\n" +
+                                                                       "    batch.call(FUNCTION_0).arg(value);\n" +
+                                                                       "    return this.executor.submit(batch)\n" +
+                                                                       "        .thenApply(done -> (int) done.result(0))\n" +
+                                                                       "        .whenComplete((result, throwable) -> batch.close());\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
+                                                                       "  public CompletableFuture<Integer> overloadTest(final double value) {\n" +
+                                                                       "    final Batch batch = new Batch();\n" +
+                                                                       "    batch.call(FUNCTION_1).arg(value);\n" +
+                                                                       "    return this.executor.submit(batch)\n" +
+                                                                       "        .thenApply(done -> (int) done.result(0))\n" +
+                                                                       "        .whenComplete((result, throwable) -> batch.close());\n" +
+                                                                       "  }\n" +
+                                                                       "}"));
+    }
+}
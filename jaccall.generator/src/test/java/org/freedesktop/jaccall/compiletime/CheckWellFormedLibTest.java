@@ -400,4 +400,126 @@ public class CheckWellFormedLibTest {
                      .withErrorContaining("Symbol should be annotated with @Ptr.")
                      .in(fileObject);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRetAnnotationNotOnFirstParameter() {
+        //given
+        final JavaFileObject fileObject = JavaFileObjects.forSourceString("Testing",
+                                                                          "package org.freedesktop.libtest;\n" +
+                                                                          "import org.freedesktop.jaccall.Lib;\n" +
+                                                                          "import org.freedesktop.jaccall.ByVal;\n" +
+                                                                          "import org.freedesktop.jaccall.Ret;\n" +
+                                                                          "import org.freedesktop.jaccall.compiletime.TestStruct;\n" +
+                                                                          "\n" +
+                                                                          "@Lib(\"testing\")\n" +
+                                                                          "public class Testing {\n" +
+                                                                          "    @ByVal(TestStruct.class)\n" +
+                                                                          "    public static native long doStaticTest(int field0, @Ret long rval);\n" +
+                                                                          "}");
+        //when
+        final CompileTester compileTester = assert_().about(javaSource())
+                                                     .that(fileObject)
+                                                     .processedWith(new JaccallGenerator());
+        //then
+        compileTester.failsToCompile()
+                     .withErrorContaining("@Ret annotation can only be placed on the first parameter.")
+                     .in(fileObject);
+    }
+
+    @Test
+    public void testRetAnnotationNotOnByValReturn() {
+        //given
+        final JavaFileObject fileObject = JavaFileObjects.forSourceString("Testing",
+                                                                          "package org.freedesktop.libtest;\n" +
+                                                                          "import org.freedesktop.jaccall.Lib;\n" +
+                                                                          "import org.freedesktop.jaccall.ByVal;\n" +
+                                                                          "import org.freedesktop.jaccall.Ret;\n" +
+                                                                          "import org.freedesktop.jaccall.compiletime.TestStruct;\n" +
+                                                                          "\n" +
+                                                                          "@Lib(\"testing\")\n" +
+                                                                          "public class Testing {\n" +
+                                                                          "    public static native long doStaticTest(@Ret long rval, int field0);\n" +
+                                                                          "}");
+        //when
+        final CompileTester compileTester = assert_().about(javaSource())
+                                                     .that(fileObject)
+                                                     .processedWith(new JaccallGenerator());
+        //then
+        compileTester.failsToCompile()
+                     .withErrorContaining("@Ret annotation can only be placed on a parameter of a method that returns a struct with @ByVal.")
+                     .in(fileObject);
+    }
+
+    @Test
+    public void testAsyncAnnotationOnNonNativeMethod() {
+        //given
+        final JavaFileObject fileObject = JavaFileObjects.forSourceString("Testing",
+                                                                          "package org.freedesktop.libtest;\n" +
+                                                                          "import org.freedesktop.jaccall.Lib;\n" +
+                                                                          "import org.freedesktop.jaccall.Async;\n" +
+                                                                          "\n" +
+                                                                          "@Lib(\"testing\")\n" +
+                                                                          "public class Testing {\n" +
+                                                                          "    @Async\n" +
+                                                                          "    public int doTest(int field0) { return field0; }\n" +
+                                                                          "}");
+        //when
+        final CompileTester compileTester = assert_().about(javaSource())
+                                                     .that(fileObject)
+                                                     .processedWith(new JaccallGenerator());
+        //then
+        compileTester.failsToCompile()
+                     .withErrorContaining("@Async annotation can only be placed on a native method.")
+                     .in(fileObject);
+    }
+
+    @Test
+    public void testAsyncAnnotationWithRet() {
+        //given
+        final JavaFileObject fileObject = JavaFileObjects.forSourceString("Testing",
+                                                                          "package org.freedesktop.libtest;\n" +
+                                                                          "import org.freedesktop.jaccall.Lib;\n" +
+                                                                          "import org.freedesktop.jaccall.Async;\n" +
+                                                                          "import org.freedesktop.jaccall.ByVal;\n" +
+                                                                          "import org.freedesktop.jaccall.Ret;\n" +
+                                                                          "import org.freedesktop.jaccall.compiletime.TestStruct;\n" +
+                                                                          "\n" +
+                                                                          "@Lib(\"testing\")\n" +
+                                                                          "public class Testing {\n" +
+                                                                          "    @Async\n" +
+                                                                          "    @ByVal(TestStruct.class)\n" +
+                                                                          "    public static native long doStaticTest(@Ret long rval, int field0);\n" +
+                                                                          "}");
+        //when
+        final CompileTester compileTester = assert_().about(javaSource())
+                                                     .that(fileObject)
+                                                     .processedWith(new JaccallGenerator());
+        //then
+        compileTester.failsToCompile()
+                     .withErrorContaining("@Async annotation can not be placed in conjunction with @Ret annotation.")
+                     .in(fileObject);
+    }
+
+    @Test
+    public void testBlockingAnnotationOnNonNativeMethod() {
+        //given
+        final JavaFileObject fileObject = JavaFileObjects.forSourceString("Testing",
+                                                                          "package org.freedesktop.libtest;\n" +
+                                                                          "import org.freedesktop.jaccall.Lib;\n" +
+                                                                          "import org.freedesktop.jaccall.Blocking;\n" +
+                                                                          "\n" +
+                                                                          "@Lib(\"testing\")\n" +
+                                                                          "public class Testing {\n" +
+                                                                          "    @Blocking\n" +
+                                                                          "    public int doTest(int field0) { return field0; }\n" +
+                                                                          "}");
+        //when
+        final CompileTester compileTester = assert_().about(javaSource())
+                                                     .that(fileObject)
+                                                     .processedWith(new JaccallGenerator());
+        //then
+        compileTester.failsToCompile()
+                     .withErrorContaining("@Blocking annotation can only be placed on a native method.")
+                     .in(fileObject);
+    }
+}
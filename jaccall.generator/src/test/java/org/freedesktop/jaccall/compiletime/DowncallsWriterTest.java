@@ -0,0 +1,194 @@
+package org.freedesktop.jaccall.compiletime;
+
+
+import com.google.testing.compile.CompileTester;
+import com.google.testing.compile.JavaFileObjects;
+import org.junit.Test;
+
+import javax.tools.JavaFileObject;
+
+import static com.google.common.truth.Truth.assert_;
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+
+public class DowncallsWriterTest {
+
+    @Test
+    public void testDowncallsGeneration() {
+        //given
+        final JavaFileObject fileObject = JavaFileObjects.forSourceString("Testing",
+                                                                          "package org.freedesktop.libtest;\n" +
+                                                                          "import org.freedesktop.jaccall.Blocking;\n" +
+                                                                          "import org.freedesktop.jaccall.Lib;\n" +
+                                                                          "import org.freedesktop.jaccall.Ptr;\n" +
+                                                                          "\n" +
+                                                                          "@Lib(\"testing\")\n" +
+                                                                          "public class Testing {\n" +
+                                                                          "    public native int intTest(int value);\n" +
+                                                                          "    public static native void doStaticTest(@Ptr long field0, byte field1);\n" +
+                                                                          "    @Blocking\n" +
+                                                                          "    public native long blockingTest(@Ptr long buffer);\n" +
+                                                                          "    @Blocking\n" +
+                                                                          "    public native void blockingVoidTest(int value);\n" +
+                                                                          "}");
+        //when
+        final CompileTester compileTester = assert_().about(javaSource())
+                                                     .that(fileObject)
+                                                     .processedWith(new JaccallGenerator());
+        //then
+        compileTester.compilesWithoutError()
+                     .and()
+                     .generatesSources(JavaFileObjects.forSourceString("Testing_Downcalls",
+                                                                       "package org.freedesktop.libtest;\n" +
+                                                                       "\n" +
+                                                                       "import java.lang.invoke.MethodHandle;\n" +
+                                                                       "import java.util.concurrent.atomic.LongAdder;\n" +
+                                                                       "import javax.annotation.Generated;\n" +
+                                                                       "import org.freedesktop.jaccall.BlockingCalls;\n" +
+                                                                       "\n" +
+                                                                       "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
+                                                                       "public final class Testing_Downcalls {\n" +
+                                                                       "  private static final MethodHandle[] HANDLES = new Testing_Symbols().downcalls();\n" +
+                                                                       "\n" +
+                                                                       "  private static final MethodHandle HANDLE_0 = HANDLES[0];\n" +
+                                                                       "\n" +
+                                                                       "  private static final LongAdder PINNED_0 = BlockingCalls.pinnedCounter(Testing.class, \"intTest\");\n" +
+                                                                       "\n" +
+                                                                       "  private static final MethodHandle HANDLE_1 = HANDLES[1];\n" +
+                                                                       "\n" +
+                                                                       "  private static final LongAdder PINNED_1 = BlockingCalls.pinnedCounter(Testing.class, \"doStaticTest\");\n" +
+                                                                       "\n" +
+                                                                       "  private static final MethodHandle HANDLE_2 = HANDLES[2];\n" +
+                                                                       "\n" +
+                                                                       "  private static final MethodHandle HANDLE_3 = HANDLES[3];\n" +
+                                                                       "\n" +
+                                                                       "  private Testing_Downcalls() {\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
+                                                                       "  public static int intTest(int value) {\n" +
+                                                                       "    if (BlockingCalls.isVirtualThread()) {\n" +
+                                                                       "      PINNED_0.increment();\n" +
+                                                                       "    }\n" +
+                                                                       "    try {\n" +
+                                                                       "      return (int) HANDLE_0.invokeExact(value);\n" +
+                                                                       "    } catch (RuntimeException | Error e) {\n" +
+                                                                       "      throw e;\n" +
+                                                                       "    } catch (Throwable t) {\n" +
+                                                                       "      throw new Error(t);\n" +
+                                                                       "    }\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
+                                                                       "  public static void doStaticTest(long field0, byte field1) {\n" +
+                                                                       "    if (BlockingCalls.isVirtualThread()) {\n" +
+                                                                       "      PINNED_1.increment();\n" +
+                                                                       "    }\n" +
+                                                                       "    try {\n" +
+                                                                       "      HANDLE_1.invokeExact(field0, field1);\n" +
+                                                                       "    } catch (RuntimeException | Error e) {\n" +
+                                                                       "      throw e;\n" +
+                                                                       "    } catch (Throwable t) {\n" +
+                                                                       "      throw new Error(t);\n" +
+                                                                       "    }\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
+                                                                       "  public static long blockingTest(long buffer) {\n" +
+                                                                       "    try {\n" +
+                                                                       "      if (BlockingCalls.isVirtualThread()) {\n" +
+                                                                       "        return BlockingCalls.offload(() -> (long) HANDLE_2.invokeExact(buffer));\n" +
+                                                                       "      }\n" +
+                                                                       "      return (long) HANDLE_2.invokeExact(buffer);\n" +
+                                                                       "    } catch (RuntimeException | Error e) {\n" +
+                                                                       "      throw e;\n" +
+                                                                       "    } catch (Throwable t) {\n" +
+                                                                       "      throw new Error(t);\n" +
+                                                                       "    }\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
+                                                                       "  public static void blockingVoidTest(int value) {\n" +
+                                                                       "    try {\n" +
+                                                                       "      if (BlockingCalls.isVirtualThread()) {\n" +
+                                                                       "        BlockingCalls.offload(() -> {\n" +
+                                                                       "          HANDLE_3.invokeExact(value);\n" +
+                                                                       "          return null;\n" +
+                                                                       "        });\n" +
+                                                                       "      } else {\n" +
+                                                                       "        HANDLE_3.invokeExact(value);\n" +
+                                                                       "      }\n" +
+                                                                       "    } catch (RuntimeException | Error e) {\n" +
+                                                                       "      throw e;\n" +
+                                                                       "    } catch (Throwable t) {\n" +
+                                                                       "      throw new Error(t);\n" +
+                                                                       "    }\n" +
+                                                                       "  }\n" +
+                                                                       "}"));
+    }
+
+    @Test
+    public void testOverloadedDowncallsGeneration() {
+        //given
+        final JavaFileObject fileObject = JavaFileObjects.forSourceString("Testing",
+                                                                          "package org.freedesktop.libtest;\n" +
+                                                                          "import org.freedesktop.jaccall.Lib;\n" +
+                                                                          "\n" +
+                                                                          "@Lib(\"testing\")\n" +
+                                                                          "public class Testing {\n" +
+                                                                          "    public native int overloadTest(int value);\n" +
+                                                                          "    public native int overloadTest(double value);\n" +
+                                                                          "}");
+        //when
+        final CompileTester compileTester = assert_().about(javaSource())
+                                                     .that(fileObject)
+                                                     .processedWith(new JaccallGenerator());
+        //then
+        compileTester.compilesWithoutError()
+                     .and()
+                     .generatesSources(JavaFileObjects.forSourceString("Testing_Downcalls",
+                                                                       "package org.freedesktop.libtest;\n" +
+                                                                       "\n" +
+                                                                       "import java.lang.invoke.MethodHandle;\n" +
+                                                                       "import java.util.concurrent.atomic.LongAdder;\n" +
+                                                                       "import javax.annotation.Generated;\n" +
+                                                                       "import org.freedesktop.jaccall.BlockingCalls;\n" +
+                                                                       "\n" +
+                                                                       "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
+                                                                       "public final class Testing_Downcalls {\n" +
+                                                                       "  private static final MethodHandle[] HANDLES = new Testing_Symbols().downcalls();\n" +
+                                                                       "\n" +
+                                                                       "  private static final MethodHandle HANDLE_0 = HANDLES[0];\n" +
+                                                                       "\n" +
+                                                                       "  private static final LongAdder PINNED_0 = BlockingCalls.pinnedCounter(Testing.class, \"overloadTest\");\n" +
+                                                                       "\n" +
+                                                                       "  private static final MethodHandle HANDLE_1 = HANDLES[1];\n" +
+                                                                       "\n" +
+                                                                       "  private static final LongAdder PINNED_1 = BlockingCalls.pinnedCounter(Testing.class, \"overloadTest\");\n" +
+                                                                       "\n" +
+                                                                       "  private Testing_Downcalls() {\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
+                                                                       "  public static int overloadTest(int value) {\n" +
+                                                                       "    if (BlockingCalls.isVirtualThread()) {\n" +
+                                                                       "      PINNED_0.increment();\n" +
+                                                                       "    }\n" +
+                                                                       "    try {\n" +
+                                                                       "      return (int) HANDLE_0.invokeExact(value);\n" +
+                                                                       "    } catch (RuntimeException | Error e) {\n" +
+                                                                       "      throw e;\n" +
+                                                                       "    } catch (Throwable t) {\n" +
+                                                                       "      throw new Error(t);\n" +
+                                                                       "    }\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
+                                                                       "  public static int overloadTest(double value) {\n" +
+                                                                       "    if (BlockingCalls.isVirtualThread()) {\n" +
+                                                                       "      PINNED_1.increment();\n" +
+                                                                       "    }\n" +
+                                                                       "    try {\n" +
+                                                                       "      return (int) HANDLE_1.invokeExact(value);\n" +
+                                                                       "    } catch (RuntimeException | Error e) {\n" +
+                                                                       "      throw e;\n" +
+                                                                       "    } catch (Throwable t) {\n" +
+                                                                       "      throw new Error(t);\n" +
+                                                                       "    }\n" +
+                                                                       "  }\n" +
+                                                                       "}"));
+    }
+}
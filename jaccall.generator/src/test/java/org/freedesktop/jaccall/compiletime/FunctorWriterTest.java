@@ -34,6 +34,7 @@ public class FunctorWriterTest {
                                                                        "package org.freedesktop.libtest;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
+                                                                       "import org.freedesktop.jaccall.ClosurePool;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
                                                                        "import org.freedesktop.jaccall.Pointer;\n" +
                                                                        "import org.freedesktop.jaccall.PointerFunc;\n" +
@@ -46,6 +47,10 @@ public class FunctorWriterTest {
                                                                        "    super(CharFunc.class, address);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
+                                                                       "  PointerCharFunc(ClosurePool closurePool, CharFunc function) {\n" +
+                                                                       "    super(CharFunc.class, closurePool, function);\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
                                                                        "  public static Pointer<CharFunc> nref(CharFunc function) {\n" +
                                                                        "    if(function instanceof PointerCharFunc) {\n" +
                                                                        "      return (PointerCharFunc)function;\n" +
@@ -80,16 +85,19 @@ public class FunctorWriterTest {
                                                                        "package org.freedesktop.libtest;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
+                                                                       "import org.freedesktop.jaccall.ClosurePool;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
                                                                        "final class CharFunc_Jaccall_J extends PointerCharFunc {\n" +
                                                                        "  private static final long JNI_METHOD_ID = JNI.GetMethodID(CharFunc.class, \"invoke\", \"(B)B\");\n" +
                                                                        "\n" +
+                                                                       "  private static final ClosurePool CLOSURE_POOL = new ClosurePool(FFI_CIF, JNI_METHOD_ID);\n" +
+                                                                       "\n" +
                                                                        "  private final CharFunc function;\n" +
                                                                        "\n" +
                                                                        "  CharFunc_Jaccall_J(CharFunc function) {\n" +
-                                                                       "    super(JNI.ffi_closure(FFI_CIF, function, JNI_METHOD_ID));\n" +
+                                                                       "    super(CLOSURE_POOL, function);\n" +
                                                                        "    this.function = function;\n" +
                                                                        "  }\n" +
                                                                        "\n" +
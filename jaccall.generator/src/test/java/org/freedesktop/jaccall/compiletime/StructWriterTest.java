@@ -27,7 +27,7 @@ public class StructWriterTest {
                                                                           "@Struct(value = {\n" +
                                                                           "             @Field(type = CHAR,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructChar extends TestStructChar_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructChar extends Struct_TestStructChar{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -37,30 +37,33 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructChar_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructChar",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructChar_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructChar extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_SINT8);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
                                                                        "\n" +
-                                                                       "  TestStruct_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<TestStructChar> FACTORY = StructFactory.register(TestStructChar.class, SIZE, TestStructChar::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_TestStructChar() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final byte field0() {\n" +
+                                                                       "  public final byte getField0() {\n" +
                                                                        "    return getByte(OFFSET_0);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void field0(final byte field0) {\n" +
+                                                                       "  public final void setField0(final byte field0) {\n" +
                                                                        "    setByte(OFFSET_0, field0);\n" +
                                                                        "  }\n" +
                                                                        "}"));
@@ -81,7 +84,7 @@ public class StructWriterTest {
                                                                           "@Struct(value = {\n" +
                                                                           "             @Field(type = UNSIGNED_CHAR,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructUnsignedChar extends TestStructUnsignedChar_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructUnsignedChar extends Struct_TestStructUnsignedChar{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -91,30 +94,33 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructUnsignedChar_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructUnsignedChar",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructUnsignedChar_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructUnsignedChar extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_UINT8);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
                                                                        "\n" +
-                                                                       "  TestStructUnsignedChar_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<TestStructUnsignedChar> FACTORY = StructFactory.register(TestStructUnsignedChar.class, SIZE, TestStructUnsignedChar::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_TestStructUnsignedChar() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final byte field0() {\n" +
+                                                                       "  public final byte getField0() {\n" +
                                                                        "    return getByte(OFFSET_0);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void field0(final byte field0) {\n" +
+                                                                       "  public final void setField0(final byte field0) {\n" +
                                                                        "    setByte(OFFSET_0, field0);\n" +
                                                                        "  }\n" +
                                                                        "}"));
@@ -135,7 +141,7 @@ public class StructWriterTest {
                                                                           "@Struct(value = {\n" +
                                                                           "             @Field(type = SHORT,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructShort extends TestStructShort_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructShort extends Struct_TestStructShort{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -145,30 +151,33 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructShort_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructShort",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructShort_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructShort extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_SINT16);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
                                                                        "\n" +
-                                                                       "  TestStructShort_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<TestStructShort> FACTORY = StructFactory.register(TestStructShort.class, SIZE, TestStructShort::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_TestStructShort() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final short field0() {\n" +
+                                                                       "  public final short getField0() {\n" +
                                                                        "    return getShort(OFFSET_0);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void field0(final short field0) {\n" +
+                                                                       "  public final void setField0(final short field0) {\n" +
                                                                        "    setShort(OFFSET_0, field0);\n" +
                                                                        "  }\n" +
                                                                        "}"));
@@ -190,7 +199,7 @@ public class StructWriterTest {
                                                                           "@Struct(value = {\n" +
                                                                           "             @Field(type = UNSIGNED_SHORT,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructUnsignedShort extends TestStructUnsignedShort_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructUnsignedShort extends Struct_TestStructUnsignedShort{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -200,30 +209,33 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructUnsignedShort_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructUnsignedShort",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructUnsignedShort_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructUnsignedShort extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_UINT16);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
                                                                        "\n" +
-                                                                       "  TestStructUnsignedShort_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<TestStructUnsignedShort> FACTORY = StructFactory.register(TestStructUnsignedShort.class, SIZE, TestStructUnsignedShort::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_TestStructUnsignedShort() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final short field0() {\n" +
+                                                                       "  public final short getField0() {\n" +
                                                                        "    return getShort(OFFSET_0);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void field0(final short field0) {\n" +
+                                                                       "  public final void setField0(final short field0) {\n" +
                                                                        "    setShort(OFFSET_0, field0);\n" +
                                                                        "  }\n" +
                                                                        "}"));
@@ -245,7 +257,7 @@ public class StructWriterTest {
                                                                           "@Struct(value = {\n" +
                                                                           "             @Field(type = INT,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructInteger extends TestStructInteger_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructInteger extends Struct_TestStructInteger{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -255,30 +267,33 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructInteger_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructInteger",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructInteger_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructInteger extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_SINT32);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
                                                                        "\n" +
-                                                                       "  TestStructInteger_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<TestStructInteger> FACTORY = StructFactory.register(TestStructInteger.class, SIZE, TestStructInteger::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_TestStructInteger() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final int field0() {\n" +
+                                                                       "  public final int getField0() {\n" +
                                                                        "    return getInteger(OFFSET_0);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void field0(final int field0) {\n" +
+                                                                       "  public final void setField0(final int field0) {\n" +
                                                                        "    setInteger(OFFSET_0, field0);\n" +
                                                                        "  }\n" +
                                                                        "}"));
@@ -300,7 +315,7 @@ public class StructWriterTest {
                                                                           "@Struct(value = {\n" +
                                                                           "             @Field(type = UNSIGNED_INT,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructUnsignedInteger extends TestStructUnsignedInteger_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructUnsignedInteger extends Struct_TestStructUnsignedInteger{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -310,30 +325,33 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructUnsignedInteger_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructUnsignedInteger",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructUnsignedInteger_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructUnsignedInteger extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_UINT32);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
                                                                        "\n" +
-                                                                       "  TestStructUnsignedInteger_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<TestStructUnsignedInteger> FACTORY = StructFactory.register(TestStructUnsignedInteger.class, SIZE, TestStructUnsignedInteger::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_TestStructUnsignedInteger() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final int field0() {\n" +
+                                                                       "  public final int getField0() {\n" +
                                                                        "    return getInteger(OFFSET_0);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void field0(final int field0) {\n" +
+                                                                       "  public final void setField0(final int field0) {\n" +
                                                                        "    setInteger(OFFSET_0, field0);\n" +
                                                                        "  }\n" +
                                                                        "}"));
@@ -354,7 +372,7 @@ public class StructWriterTest {
                                                                           "@Struct(value = {\n" +
                                                                           "             @Field(type = LONG,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructLong extends TestStructLong_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructLong extends Struct_TestStructLong{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -364,33 +382,44 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructLong_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructLong",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.CLong;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructLong_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructLong extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_SLONG);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
                                                                        "\n" +
-                                                                       "  TestStructLong_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<TestStructLong> FACTORY = StructFactory.register(TestStructLong.class, SIZE, TestStructLong::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_TestStructLong() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final CLong field0() {\n" +
+                                                                       "  public final CLong getField0() {\n" +
                                                                        "    return getCLong(OFFSET_0);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void field0(final CLong field0) {\n" +
+                                                                       "  public final void setField0(final CLong field0) {\n" +
                                                                        "    setCLong(OFFSET_0, field0);\n" +
                                                                        "  }\n" +
+                                                                       "\n" +
+                                                                       "  public final long getField0Value() {\n" +
+                                                                       "    return getCLongValue(OFFSET_0);\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
+                                                                       "  public final void setField0Value(final long field0) {\n" +
+                                                                       "    setCLongValue(OFFSET_0, field0);\n" +
+                                                                       "  }\n" +
                                                                        "}"));
     }
 
@@ -409,7 +438,7 @@ public class StructWriterTest {
                                                                           "@Struct(value = {\n" +
                                                                           "             @Field(type = UNSIGNED_LONG,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructUnsignedLong extends TestStructUnsignedLong_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructUnsignedLong extends Struct_TestStructUnsignedLong{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -419,33 +448,44 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructUnsignedLong_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructUnsignedLong",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.CLong;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructUnsignedLong_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructUnsignedLong extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_ULONG);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
                                                                        "\n" +
-                                                                       "  TestStructUnsignedLong_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<TestStructUnsignedLong> FACTORY = StructFactory.register(TestStructUnsignedLong.class, SIZE, TestStructUnsignedLong::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_TestStructUnsignedLong() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final CLong field0() {\n" +
+                                                                       "  public final CLong getField0() {\n" +
                                                                        "    return getCLong(OFFSET_0);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void field0(final CLong field0) {\n" +
+                                                                       "  public final void setField0(final CLong field0) {\n" +
                                                                        "    setCLong(OFFSET_0, field0);\n" +
                                                                        "  }\n" +
+                                                                       "\n" +
+                                                                       "  public final long getField0Value() {\n" +
+                                                                       "    return getCLongValue(OFFSET_0);\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
+                                                                       "  public final void setField0Value(final long field0) {\n" +
+                                                                       "    setCLongValue(OFFSET_0, field0);\n" +
+                                                                       "  }\n" +
                                                                        "}"));
     }
 
@@ -464,7 +504,7 @@ public class StructWriterTest {
                                                                           "@Struct(value = {\n" +
                                                                           "             @Field(type = LONG_LONG,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructLongLong extends TestStructLongLong_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructLongLong extends Struct_TestStructLongLong{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -474,30 +514,33 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructLongLong_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructLongLong",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructLongLong_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructLongLong extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_SINT64);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
                                                                        "\n" +
-                                                                       "  TestStructLongLong_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<TestStructLongLong> FACTORY = StructFactory.register(TestStructLongLong.class, SIZE, TestStructLongLong::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_TestStructLongLong() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final long field0() {\n" +
+                                                                       "  public final long getField0() {\n" +
                                                                        "    return getLong(OFFSET_0);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void field0(final long field0) {\n" +
+                                                                       "  public final void setField0(final long field0) {\n" +
                                                                        "    setLong(OFFSET_0, field0);\n" +
                                                                        "  }\n" +
                                                                        "}"));
@@ -518,7 +561,7 @@ public class StructWriterTest {
                                                                           "@Struct(value = {\n" +
                                                                           "             @Field(type = UNSIGNED_LONG_LONG,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructUnsignedLongLong extends TestStructUnsignedLongLong_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructUnsignedLongLong extends Struct_TestStructUnsignedLongLong{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -528,30 +571,33 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructUnsignedLongLong_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructUnsignedLongLong",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructUnsignedLongLong_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructUnsignedLongLong extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_UINT64);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
                                                                        "\n" +
-                                                                       "  TestStructUnsignedLongLong_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<TestStructUnsignedLongLong> FACTORY = StructFactory.register(TestStructUnsignedLongLong.class, SIZE, TestStructUnsignedLongLong::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_TestStructUnsignedLongLong() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final long field0() {\n" +
+                                                                       "  public final long getField0() {\n" +
                                                                        "    return getLong(OFFSET_0);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void field0(final long field0) {\n" +
+                                                                       "  public final void setField0(final long field0) {\n" +
                                                                        "    setLong(OFFSET_0, field0);\n" +
                                                                        "  }\n" +
                                                                        "}"));
@@ -572,7 +618,7 @@ public class StructWriterTest {
                                                                           "@Struct(value = {\n" +
                                                                           "             @Field(type = FLOAT,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructFloat extends TestStructFloat_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructFloat extends Struct_TestStructFloat{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -582,30 +628,33 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructFloat_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructFloat",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructFloat_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructFloat extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_FLOAT);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
                                                                        "\n" +
-                                                                       "  TestStructFloat_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<TestStructFloat> FACTORY = StructFactory.register(TestStructFloat.class, SIZE, TestStructFloat::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_TestStructFloat() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final float field0() {\n" +
+                                                                       "  public final float getField0() {\n" +
                                                                        "    return getFloat(OFFSET_0);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void field0(final float field0) {\n" +
+                                                                       "  public final void setField0(final float field0) {\n" +
                                                                        "    setFloat(OFFSET_0, field0);\n" +
                                                                        "  }\n" +
                                                                        "}"));
@@ -626,7 +675,7 @@ public class StructWriterTest {
                                                                           "@Struct(value = {\n" +
                                                                           "             @Field(type = DOUBLE,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructDouble extends TestStructDouble_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructDouble extends Struct_TestStructDouble{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -636,30 +685,33 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructDouble_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructDouble",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructDouble_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructDouble extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_DOUBLE);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
                                                                        "\n" +
-                                                                       "  TestStructDouble_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<TestStructDouble> FACTORY = StructFactory.register(TestStructDouble.class, SIZE, TestStructDouble::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_TestStructDouble() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final double field0() {\n" +
+                                                                       "  public final double getField0() {\n" +
                                                                        "    return getDouble(OFFSET_0);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void field0(final double field0) {\n" +
+                                                                       "  public final void setField0(final double field0) {\n" +
                                                                        "    setDouble(OFFSET_0, field0);\n" +
                                                                        "  }\n" +
                                                                        "}"));
@@ -680,7 +732,7 @@ public class StructWriterTest {
                                                                           "@Struct(value = {\n" +
                                                                           "             @Field(type = POINTER,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructPointer extends TestStructPointer_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructPointer extends Struct_TestStructPointer{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -690,32 +742,35 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructPointer_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructPointer",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import java.lang.Void;\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
                                                                        "import org.freedesktop.jaccall.Pointer;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructPointer_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructPointer extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_POINTER);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
                                                                        "\n" +
-                                                                       "  TestStructPointer_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<TestStructPointer> FACTORY = StructFactory.register(TestStructPointer.class, SIZE, TestStructPointer::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_TestStructPointer() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final Pointer<Void> field0() {\n" +
+                                                                       "  public final Pointer<Void> getField0() {\n" +
                                                                        "    return getPointer(OFFSET_0, Void.class);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void field0(final Pointer<Void> field0) {\n" +
+                                                                       "  public final void setField0(final Pointer<Void> field0) {\n" +
                                                                        "    setPointer(OFFSET_0, field0);\n" +
                                                                        "  }\n" +
                                                                        "}"));
@@ -738,7 +793,7 @@ public class StructWriterTest {
                                                                           "             @Field(type = POINTER,\n" +
                                                                           "                    pointerDepth = 2,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructPointer extends TestStructPointer_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructPointer extends Struct_TestStructPointer{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -748,32 +803,35 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructPointer_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructPointer",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import java.lang.Void;\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
                                                                        "import org.freedesktop.jaccall.Pointer;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructPointer_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructPointer extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_POINTER);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
                                                                        "\n" +
-                                                                       "  TestStructPointer_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<TestStructPointer> FACTORY = StructFactory.register(TestStructPointer.class, SIZE, TestStructPointer::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_TestStructPointer() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final Pointer<Pointer<Pointer<Void>>> field0() {\n" +
+                                                                       "  public final Pointer<Pointer<Pointer<Void>>> getField0() {\n" +
                                                                        "    return getPointer(OFFSET_0, Void.class).castpp().castpp();\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void field0(final Pointer<Pointer<Pointer<Void>>> field0) {\n" +
+                                                                       "  public final void setField0(final Pointer<Pointer<Pointer<Void>>> field0) {\n" +
                                                                        "    setPointer(OFFSET_0, field0);\n" +
                                                                        "  }\n" +
                                                                        "}"));
@@ -797,7 +855,7 @@ public class StructWriterTest {
                                                                           "             @Field(type = STRUCT,\n" +
                                                                           "                    dataType = TestStructEmbedded.class,\n" +
                                                                           "                    name = \"field0\")})\n" +
-                                                                          "public final class TestStructStruct extends TestStructStruct_Jaccall_StructType{\n" +
+                                                                          "public final class TestStructStruct extends Struct_TestStructStruct{\n" +
                                                                           " \n" +
                                                                           "}");
         //when
@@ -807,24 +865,27 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.TestStructStruct_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_TestStructStruct",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import javax.annotation.Generated;\n" +
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "import org.freedesktop.jaccall.compiletime.TestStructEmbedded;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class TestStructStruct_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_TestStructStruct extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(TestStructEmbedded.FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  private static final int OFFSET_0 = 0;\n" +
+                                                                       "\n" +
+                                                                       "  public static final StructFactory<TestStructStruct> FACTORY = StructFactory.register(TestStructStruct.class, SIZE, TestStructStruct::new);\n" +
                                                                        "  ;\n" +
                                                                        "\n" +
-                                                                       "  TestStructStruct_Jaccall_StructType() {\n" +
+                                                                       "  Struct_TestStructStruct() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
@@ -877,7 +938,7 @@ public class StructWriterTest {
                                                                           "                               dataType = TestStructEmbedded.class,\n" +
                                                                           "                               cardinality = 3),\n" +
                                                                           "                })\n" +
-                                                                          "        public final class FieldsTestStruct extends FieldsTestStruct_Jaccall_StructType {\n" +
+                                                                          "        public final class FieldsTestStruct extends Struct_FieldsTestStruct {\n" +
                                                                           "        }");
         //when
         final CompileTester compileTester = assert_().about(javaSource())
@@ -887,7 +948,7 @@ public class StructWriterTest {
         //then
         compileTester.compilesWithoutError()
                      .and()
-                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.FieldsTestStruct_Jaccall_StructType",
+                     .generatesSources(JavaFileObjects.forSourceString("org.freedesktop.libtest.struct.Struct_FieldsTestStruct",
                                                                        "package org.freedesktop.libtest.struct;\n" +
                                                                        "\n" +
                                                                        "import java.lang.Byte;\n" +
@@ -902,12 +963,13 @@ public class StructWriterTest {
                                                                        "import org.freedesktop.jaccall.JNI;\n" +
                                                                        "import org.freedesktop.jaccall.Pointer;\n" +
                                                                        "import org.freedesktop.jaccall.Size;\n" +
+                                                                       "import org.freedesktop.jaccall.StructFactory;\n" +
                                                                        "import org.freedesktop.jaccall.StructType;\n" +
                                                                        "import org.freedesktop.jaccall.Types;\n" +
                                                                        "import org.freedesktop.jaccall.compiletime.TestStructEmbedded;\n" +
                                                                        "\n" +
                                                                        "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
-                                                                       "abstract class FieldsTestStruct_Jaccall_StructType extends StructType {\n" +
+                                                                       "public abstract class Struct_FieldsTestStruct extends StructType {\n" +
                                                                        "  public static final long FFI_TYPE = JNI.ffi_type_struct(JNI.FFI_TYPE_SINT8, JNI.FFI_TYPE_SINT16, JNI.FFI_TYPE_SINT32, JNI.FFI_TYPE_SLONG, JNI.FFI_TYPE_SINT64, JNI.FFI_TYPE_FLOAT, JNI.FFI_TYPE_DOUBLE, JNI.FFI_TYPE_POINTER, JNI.FFI_TYPE_POINTER, JNI.FFI_TYPE_POINTER, JNI.FFI_TYPE_POINTER, TestStructEmbedded.FFI_TYPE, TestStructEmbedded.FFI_TYPE, TestStructEmbedded.FFI_TYPE, TestStructEmbedded.FFI_TYPE);\n" +
                                                                        "\n" +
                                                                        "  public static final int SIZE = JNI.ffi_type_struct_size(FFI_TYPE);\n" +
@@ -934,75 +996,85 @@ public class StructWriterTest {
                                                                        "\n" +
                                                                        "  private static final int OFFSET_10 = Types.newOffset(Types.alignment((Long) null), OFFSET_9 + (TestStructEmbedded.SIZE * 1));\n" +
                                                                        "\n" +
-                                                                       "  FieldsTestStruct_Jaccall_StructType() {\n" +
+                                                                       "  public static final StructFactory<FieldsTestStruct> FACTORY = StructFactory.register(FieldsTestStruct.class, SIZE, FieldsTestStruct::new);\n" +
+                                                                       "\n" +
+                                                                       "  Struct_FieldsTestStruct() {\n" +
                                                                        "    super(SIZE);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final byte charField() {\n" +
+                                                                       "  public final byte getCharField() {\n" +
                                                                        "    return getByte(OFFSET_0);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void charField(final byte charField) {\n" +
+                                                                       "  public final void setCharField(final byte charField) {\n" +
                                                                        "    setByte(OFFSET_0, charField);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final short shortField() {\n" +
+                                                                       "  public final short getShortField() {\n" +
                                                                        "    return getShort(OFFSET_1);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void shortField(final short shortField) {\n" +
+                                                                       "  public final void setShortField(final short shortField) {\n" +
                                                                        "    setShort(OFFSET_1, shortField);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final int intField() {\n" +
+                                                                       "  public final int getIntField() {\n" +
                                                                        "    return getInteger(OFFSET_2);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void intField(final int intField) {\n" +
+                                                                       "  public final void setIntField(final int intField) {\n" +
                                                                        "    setInteger(OFFSET_2, intField);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final CLong longField() {\n" +
+                                                                       "  public final CLong getLongField() {\n" +
                                                                        "    return getCLong(OFFSET_3);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void longField(final CLong longField) {\n" +
+                                                                       "  public final void setLongField(final CLong longField) {\n" +
                                                                        "    setCLong(OFFSET_3, longField);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final long longLongField() {\n" +
+                                                                       "  public final long getLongFieldValue() {\n" +
+                                                                       "    return getCLongValue(OFFSET_3);\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
+                                                                       "  public final void setLongFieldValue(final long longField) {\n" +
+                                                                       "    setCLongValue(OFFSET_3, longField);\n" +
+                                                                       "  }\n" +
+                                                                       "\n" +
+                                                                       "  public final long getLongLongField() {\n" +
                                                                        "    return getLong(OFFSET_4);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void longLongField(final long longLongField) {\n" +
+                                                                       "  public final void setLongLongField(final long longLongField) {\n" +
                                                                        "    setLong(OFFSET_4, longLongField);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final float floatField() {\n" +
+                                                                       "  public final float getFloatField() {\n" +
                                                                        "    return getFloat(OFFSET_5);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void floatField(final float floatField) {\n" +
+                                                                       "  public final void setFloatField(final float floatField) {\n" +
                                                                        "    setFloat(OFFSET_5, floatField);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final double doubleField() {\n" +
+                                                                       "  public final double getDoubleField() {\n" +
                                                                        "    return getDouble(OFFSET_6);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void doubleField(final double doubleField) {\n" +
+                                                                       "  public final void setDoubleField(final double doubleField) {\n" +
                                                                        "    setDouble(OFFSET_6, doubleField);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final Pointer<Void> pointerField() {\n" +
+                                                                       "  public final Pointer<Void> getPointerField() {\n" +
                                                                        "    return getPointer(OFFSET_7, Void.class);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final void pointerField(final Pointer<Void> pointerField) {\n" +
+                                                                       "  public final void setPointerField(final Pointer<Void> pointerField) {\n" +
                                                                        "    setPointer(OFFSET_7, pointerField);\n" +
                                                                        "  }\n" +
                                                                        "\n" +
-                                                                       "  public final Pointer<Pointer<Void>> pointerArrayField() {\n" +
+                                                                       "  public final Pointer<Pointer<Void>> getPointerArrayField() {\n" +
                                                                        "    return getArray(OFFSET_8, Void.class).castpp();\n" +
                                                                        "  }\n" +
                                                                        "\n" +
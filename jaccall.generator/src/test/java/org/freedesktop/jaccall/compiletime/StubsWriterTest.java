@@ -0,0 +1,200 @@
+package org.freedesktop.jaccall.compiletime;
+
+
+import com.google.testing.compile.CompileTester;
+import com.google.testing.compile.JavaFileObjects;
+import org.junit.Test;
+
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import static com.google.common.truth.Truth.assert_;
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class StubsWriterTest {
+
+    @Test
+    public void testStubsGeneration() {
+        //given
+        final JavaFileObject fileObject = JavaFileObjects.forSourceString("Testing",
+                                                                          "package org.freedesktop.libtest;\n" +
+                                                                          "import org.freedesktop.jaccall.Lib;\n" +
+                                                                          "import org.freedesktop.jaccall.Ptr;\n" +
+                                                                          "import org.freedesktop.jaccall.Unsigned;\n" +
+                                                                          "\n" +
+                                                                          "@Lib(\"testing\")\n" +
+                                                                          "public class Testing {\n" +
+                                                                          "    public native int intTest(int value);\n" +
+                                                                          "    @Unsigned\n" +
+                                                                          "    public native byte unsignedCharTest(@Unsigned byte value);\n" +
+                                                                          "    @Ptr\n" +
+                                                                          "    public native long pointerTest(@Ptr long value);\n" +
+                                                                          "}");
+        //when
+        final CompileTester compileTester = assert_().about(javaSource())
+                                                     .that(fileObject)
+                                                     .withCompilerOptions("-A" + JaccallGenerator.OPTION_STUBS + "=true")
+                                                     .processedWith(new JaccallGenerator());
+        //then
+        final CompileTester.SuccessfulCompilationClause successfulCompilationClause = compileTester.compilesWithoutError();
+        successfulCompilationClause.and()
+                                   .generatesSources(JavaFileObjects.forSourceString("Testing_Symbols",
+                                                                                     "package org.freedesktop.libtest;\n" +
+                                                                                     "\n" +
+                                                                                     "import javax.annotation.Generated;\n" +
+                                                                                     "import org.freedesktop.jaccall.JNI;\n" +
+                                                                                     "import org.freedesktop.jaccall.Symbols;\n" +
+                                                                                     "\n" +
+                                                                                     "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
+                                                                                     "public final class Testing_Symbols extends Symbols {\n" +
+                                                                                     "  public Testing_Symbols() {\n" +
+                                                                                     "    super(Testing.class,\n" +
+                                                                                     "        new String[]{ /*method name*/\n" +
+                                                                                     "         \"intTest\",\n" +
+                                                                                     "        \"unsignedCharTest\",\n" +
+                                                                                     "        \"pointerTest\"\n" +
+                                                                                     "         },\n" +
+                                                                                     "        new byte[]{ /*number of arguments*/\n" +
+                                                                                     "         /*intTest*/ 1,\n" +
+                                                                                     "        /*unsignedCharTest*/ 1,\n" +
+                                                                                     "        /*pointerTest*/ 1\n" +
+                                                                                     "         },\n" +
+                                                                                     "        new long[]{ /*FFI call interface*/\n" +
+                                                                                     "         /*intTest*/ JNI.ffi_callInterface(JNI.FFI_TYPE_SINT32, JNI.FFI_TYPE_SINT32),\n" +
+                                                                                     "        /*unsignedCharTest*/ JNI.ffi_callInterface(JNI.FFI_TYPE_UINT8, JNI.FFI_TYPE_UINT8),\n" +
+                                                                                     "        /*pointerTest*/ JNI.ffi_callInterface(JNI.FFI_TYPE_POINTER, JNI.FFI_TYPE_POINTER)\n" +
+                                                                                     "         },\n" +
+                                                                                     "        new String[]{ /*JNI method signature*/\n" +
+                                                                                     "         /*intTest*/ \"(I)I\",\n" +
+                                                                                     "        /*unsignedCharTest*/ \"(B)B\",\n" +
+                                                                                     "        /*pointerTest*/ \"(J)J\"\n" +
+                                                                                     "         });\n" +
+                                                                                     "  }\n" +
+                                                                                     "\n" +
+                                                                                     "  @Override\n" +
+                                                                                     "  protected String stubsLibrary() {\n" +
+                                                                                     "    return \"Testing_Stubs\";\n" +
+                                                                                     "  }\n" +
+                                                                                     "}"));
+        successfulCompilationClause.and()
+                                   .generatesFileNamed(StandardLocation.SOURCE_OUTPUT,
+                                                       "org.freedesktop.libtest",
+                                                       "Testing_Stubs.c")
+                                   .withStringContents(UTF_8,
+                                                       "/* Generated by org.freedesktop.jaccall.compiletime.JaccallGenerator */\n" +
+                                                       "#include <jni.h>\n" +
+                                                       "#include <stdint.h>\n" +
+                                                                                                              "\n" +
+                                                       "/* intTest */\n" +
+                                                       "extern char intTest;\n" +
+                                                       "JNIEXPORT jint JNICALL Java_org_freedesktop_libtest_Testing_intTest(JNIEnv *env, jobject object, jint arg0) {\n" +
+                                                       "    return (jint) ((int (*)(int)) (void *) &intTest)((int) arg0);\n" +
+                                                       "}\n" +
+                                                       "\n" +
+                                                       "/* unsignedCharTest */\n" +
+                                                       "extern char unsignedCharTest;\n" +
+                                                       "JNIEXPORT jbyte JNICALL Java_org_freedesktop_libtest_Testing_unsignedCharTest(JNIEnv *env, jobject object, jbyte arg0) {\n" +
+                                                       "    return (jbyte) ((unsigned char (*)(unsigned char)) (void *) &unsignedCharTest)((unsigned char) arg0);\n" +
+                                                       "}\n" +
+                                                       "\n" +
+                                                       "/* pointerTest */\n" +
+                                                       "extern char pointerTest;\n" +
+                                                       "JNIEXPORT jlong JNICALL Java_org_freedesktop_libtest_Testing_pointerTest(JNIEnv *env, jobject object, jlong arg0) {\n" +
+                                                       "    return (jlong) (intptr_t) ((void * (*)(void *)) (void *) &pointerTest)((void *) (intptr_t) arg0);\n" +
+                                                       "}\n" +
+                                                       "\n");
+        successfulCompilationClause.and()
+                                   .generatesFileNamed(StandardLocation.SOURCE_OUTPUT,
+                                                       "org.freedesktop.libtest",
+                                                       "Testing_Stubs.cmake")
+                                   .withStringContents(UTF_8,
+                                                       "# Generated by org.freedesktop.jaccall.compiletime.JaccallGenerator\n" +
+                                                       "# Companion library with the JNI stubs of org.freedesktop.libtest.Testing.\n" +
+                                                       "# The stubs are not linked against libtesting, its symbols are resolved when jaccall loads the stubs after the library itself.\n" +
+                                                       "find_package(JNI REQUIRED)\n" +
+                                                       "include_directories(${JAVA_INCLUDE_PATH} ${JAVA_INCLUDE_PATH2})\n" +
+                                                       "add_library(Testing_Stubs MODULE ${CMAKE_CURRENT_LIST_DIR}/Testing_Stubs.c)\n" +
+                                                       "set_target_properties(Testing_Stubs PROPERTIES COMPILE_FLAGS \"-fno-builtin\")\n");
+    }
+
+    @Test
+    public void testSymbolStubGeneration() {
+        //given
+        final JavaFileObject fileObject = JavaFileObjects.forSourceString("Testing",
+                                                                          "package org.freedesktop.libtest;\n" +
+                                                                          "import org.freedesktop.jaccall.Lib;\n" +
+                                                                          "import org.freedesktop.jaccall.Ptr;\n" +
+                                                                          "import org.freedesktop.jaccall.Symbol;\n" +
+                                                                          "\n" +
+                                                                          "@Lib(\"testing\")\n" +
+                                                                          "public class Testing {\n" +
+                                                                          "    @Symbol\n" +
+                                                                          "    @Ptr\n" +
+                                                                          "    public native long some_global();\n" +
+                                                                          "}");
+        //when
+        final CompileTester compileTester = assert_().about(javaSource())
+                                                     .that(fileObject)
+                                                     .withCompilerOptions("-A" + JaccallGenerator.OPTION_STUBS + "=true")
+                                                     .processedWith(new JaccallGenerator());
+        //then
+        compileTester.compilesWithoutError()
+                     .and()
+                     .generatesFileNamed(StandardLocation.SOURCE_OUTPUT,
+                                         "org.freedesktop.libtest",
+                                         "Testing_Stubs.c")
+                     .withStringContents(UTF_8,
+                                         "/* Generated by org.freedesktop.jaccall.compiletime.JaccallGenerator */\n" +
+                                         "#include <jni.h>\n" +
+                                         "#include <stdint.h>\n" +
+                                                                                  "\n" +
+                                         "/* some_global */\n" +
+                                         "extern char some_global;\n" +
+                                         "JNIEXPORT jlong JNICALL Java_org_freedesktop_libtest_Testing_some_1global(JNIEnv *env, jobject object) {\n" +
+                                         "    return (jlong) (intptr_t) &some_global;\n" +
+                                         "}\n" +
+                                         "\n");
+    }
+
+    @Test
+    public void testOverloadedStubsGeneration() {
+        //given
+        final JavaFileObject fileObject = JavaFileObjects.forSourceString("Testing",
+                                                                          "package org.freedesktop.libtest;\n" +
+                                                                          "import org.freedesktop.jaccall.Lib;\n" +
+                                                                          "\n" +
+                                                                          "@Lib(\"testing\")\n" +
+                                                                          "public class Testing {\n" +
+                                                                          "    public native int overloadTest(int value);\n" +
+                                                                          "    public native int overloadTest(double value);\n" +
+                                                                          "}");
+        //when
+        final CompileTester compileTester = assert_().about(javaSource())
+                                                     .that(fileObject)
+                                                     .withCompilerOptions("-A" + JaccallGenerator.OPTION_STUBS + "=true")
+                                                     .processedWith(new JaccallGenerator());
+        //then
+        compileTester.compilesWithoutError()
+                     .and()
+                     .generatesFileNamed(StandardLocation.SOURCE_OUTPUT,
+                                         "org.freedesktop.libtest",
+                                         "Testing_Stubs.c")
+                     .withStringContents(UTF_8,
+                                         "/* Generated by org.freedesktop.jaccall.compiletime.JaccallGenerator */\n" +
+                                         "#include <jni.h>\n" +
+                                         "#include <stdint.h>\n" +
+                                                                                  "\n" +
+                                         "/* overloadTest */\n" +
+                                         "extern char overloadTest;\n" +
+                                         "JNIEXPORT jint JNICALL Java_org_freedesktop_libtest_Testing_overloadTest__I(JNIEnv *env, jobject object, jint arg0) {\n" +
+                                         "    return (jint) ((int (*)(int)) (void *) &overloadTest)((int) arg0);\n" +
+                                         "}\n" +
+                                         "\n" +
+                                         "/* overloadTest */\n" +
+                                         "JNIEXPORT jint JNICALL Java_org_freedesktop_libtest_Testing_overloadTest__D(JNIEnv *env, jobject object, jdouble arg0) {\n" +
+                                         "    return (jint) ((int (*)(double)) (void *) &overloadTest)((double) arg0);\n" +
+                                         "}\n" +
+                                         "\n");
+    }
+}
@@ -1350,6 +1350,56 @@ public class SymbolsWriterTest {
                                                                                "}"));
     }
 
+    @Test
+    public void testStructByValReturnIntoRetGeneration() {
+        //given
+        final JavaFileObject fileObject = JavaFileObjects.forSourceString("Testing",
+                                                                          "package org.freedesktop.libtest;\n" +
+                                                                          "import org.freedesktop.jaccall.Lib;\n" +
+                                                                          "import org.freedesktop.jaccall.ByVal;\n" +
+                                                                          "import org.freedesktop.jaccall.Ret;\n" +
+                                                                          "import org.freedesktop.jaccall.compiletime.TestStruct;\n" +
+                                                                          "\n" +
+                                                                          "@Lib(\"testing\")\n" +
+                                                                          "public class Testing {\n" +
+                                                                          "    @ByVal(TestStruct.class)\n" +
+                                                                          "    public static native long doStaticTest(@Ret long rval, int field0);\n" +
+                                                                          "}");
+        //when
+        final CompileTester compileTester = assert_().about(javaSource())
+                                                     .that(fileObject)
+                                                     .processedWith(new JaccallGenerator());
+        //then
+        compileTester.compilesWithoutError()
+                     .and()
+                     .generatesSources(JavaFileObjects.forSourceString("Testing_Symbols",
+                                                                       "package org.freedesktop.libtest;\n" +
+                                                                               "\n" +
+                                                                               "import javax.annotation.Generated;\n" +
+                                                                               "import org.freedesktop.jaccall.JNI;\n" +
+                                                                               "import org.freedesktop.jaccall.Symbols;\n" +
+                                                                               "import org.freedesktop.jaccall.compiletime.TestStruct;\n" +
+                                                                               "\n" +
+                                                                               "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
+                                                                               "public final class Testing_Symbols extends Symbols {\n" +
+                                                                               "  public Testing_Symbols() {\n" +
+                                                                               "    super(Testing.class,\n" +
+                                                                               "        new String[]{ /*method name*/\n" +
+                                                                               "         \"doStaticTest\"\n" +
+                                                                               "         },\n" +
+                                                                               "        new byte[]{ /*number of arguments*/\n" +
+                                                                               "         /*doStaticTest*/ 2\n" +
+                                                                               "         },\n" +
+                                                                               "        new long[]{ /*FFI call interface*/\n" +
+                                                                               "         /*doStaticTest*/ JNI.ffi_callInterface(TestStruct.FFI_TYPE, JNI.FFI_TYPE_SINT32)\n" +
+                                                                               "         },\n" +
+                                                                               "        new String[]{ /*JNI method signature*/\n" +
+                                                                               "         /*doStaticTest*/ \"(JI)J\"\n" +
+                                                                               "         });\n" +
+                                                                               "  }\n" +
+                                                                               "}"));
+    }
+
     @Test
     public void testAllMixed() {
         //given
@@ -1456,4 +1506,65 @@ public class SymbolsWriterTest {
                                                                                "  }\n" +
                                                                                "}"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLazyGeneration() {
+        //given
+        final JavaFileObject fileObject = JavaFileObjects.forSourceString("Testing",
+                                                                          "package org.freedesktop.libtest;\n" +
+                                                                          "import org.freedesktop.jaccall.Lib;\n" +
+                                                                          "import org.freedesktop.jaccall.Ptr;\n" +
+                                                                          "import org.freedesktop.jaccall.Symbol;\n" +
+                                                                          "\n" +
+                                                                          "@Lib(\"testing\")\n" +
+                                                                          "public class Testing {\n" +
+                                                                          "    public static native void doStaticTest(byte field0);\n" +
+                                                                          "    @Symbol\n" +
+                                                                          "    @Ptr" +
+                                                                          "    public static native long globalVar();\n" +
+                                                                          "}");
+        //when
+        final CompileTester compileTester = assert_().about(javaSource())
+                                                     .that(fileObject)
+                                                     .withCompilerOptions("-A" + JaccallGenerator.OPTION_LAZY + "=true")
+                                                     .processedWith(new JaccallGenerator());
+        //then
+        compileTester.compilesWithoutError()
+                     .and()
+                     .generatesSources(JavaFileObjects.forSourceString("Testing_Symbols",
+                                                                       "package org.freedesktop.libtest;\n" +
+                                                                               "\n" +
+                                                                               "import javax.annotation.Generated;\n" +
+                                                                               "import org.freedesktop.jaccall.JNI;\n" +
+                                                                               "import org.freedesktop.jaccall.Symbols;\n" +
+                                                                               "\n" +
+                                                                               "@Generated(\"org.freedesktop.jaccall.compiletime.JaccallGenerator\")\n" +
+                                                                               "public final class Testing_Symbols extends Symbols {\n" +
+                                                                               "  public Testing_Symbols() {\n" +
+                                                                               "    super(Testing.class,\n" +
+                                                                               "        new String[]{ /*method name*/\n" +
+                                                                               "         \"doStaticTest\",\n" +
+                                                                               "        \"globalVar\"\n" +
+                                                                               "         },\n" +
+                                                                               "        new byte[]{ /*number of arguments*/\n" +
+                                                                               "         /*doStaticTest*/ 1,\n" +
+                                                                               "        /*globalVar*/ 0\n" +
+                                                                               "         },\n" +
+                                                                               "        new String[]{ /*JNI method signature*/\n" +
+                                                                               "         /*doStaticTest*/ \"(B)V\",\n" +
+                                                                               "        /*globalVar*/ \"()J\"\n" +
+                                                                               "         },\n" +
+                                                                               "        Testing_Symbols::ffiCallInterface);\n" +
+                                                                               "  }\n" +
+                                                                               "\n" +
+                                                                               "  private static long ffiCallInterface(final int index) {\n" +
+                                                                               "    switch (index) {\n" +
+                                                                               "      case 0: /*doStaticTest*/\n" +
+                                                                               "        return JNI.ffi_callInterface(JNI.FFI_TYPE_VOID, JNI.FFI_TYPE_SINT8);\n" +
+                                                                               "      default:\n" +
+                                                                               "        return 0L;\n" +
+                                                                               "    }\n" +
+                                                                               "  }\n" +
+                                                                               "}"));
+    }
+}
@@ -0,0 +1,177 @@
+#include <jni.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <pthread.h>
+
+#include "async.h"
+#include "batch.h"
+
+struct async_job {
+    const int64_t *commands;
+    int32_t count;
+    int64_t *results;
+    jlong id;
+    struct async_job *next;
+};
+
+struct async_worker {
+    struct async_pool *pool;
+    pthread_t thread;
+    char name[64];
+};
+
+struct async_pool {
+    JavaVM *vm;
+    /* global reference to the java executor */
+    jobject executor;
+    jmethodID complete;
+
+    pthread_mutex_t mutex;
+    pthread_cond_t cond;
+    /* queued jobs in order of submission */
+    struct async_job *head;
+    struct async_job *tail;
+    int shutdown;
+
+    /* workers that attached, or failed to attach, to the jvm */
+    pthread_cond_t started_cond;
+    int32_t started;
+    int attach_failed;
+
+    int32_t nworkers;
+    struct async_worker *workers;
+};
+
+static
+struct async_job *async_pool_take(struct async_pool *pool) {
+    pthread_mutex_lock(&pool->mutex);
+    while (!pool->head && !pool->shutdown) {
+        pthread_cond_wait(&pool->cond, &pool->mutex);
+    }
+    struct async_job *job = pool->head;
+    if (job) {
+        pool->head = job->next;
+        if (!pool->head) {
+            pool->tail = NULL;
+        }
+    }
+    pthread_mutex_unlock(&pool->mutex);
+
+    return job;
+}
+
+static
+void *async_worker_run(void *data) {
+    struct async_worker *worker = data;
+    struct async_pool *pool = worker->pool;
+
+    JNIEnv *env;
+    JavaVMAttachArgs args = {
+            .version = JNI_VERSION_1_6,
+            .name = worker->name,
+            .group = NULL
+    };
+    int attached = (*pool->vm)->AttachCurrentThreadAsDaemon(pool->vm, (void **) &env, &args) == JNI_OK;
+
+    /* a worker that can not attach would never complete its jobs, so the pool is not created at all */
+    pthread_mutex_lock(&pool->mutex);
+    pool->started++;
+    if (!attached) {
+        pool->attach_failed = 1;
+    }
+    pthread_cond_signal(&pool->started_cond);
+    pthread_mutex_unlock(&pool->mutex);
+    if (!attached) {
+        return NULL;
+    }
+
+    struct async_job *job;
+    while ((job = async_pool_take(pool))) {
+        batch_call(job->commands, job->count, job->results);
+        (*env)->CallVoidMethod(env, pool->executor, pool->complete, job->id);
+        if ((*env)->ExceptionCheck(env)) {
+            (*env)->ExceptionDescribe(env);
+            (*env)->ExceptionClear(env);
+        }
+        free(job);
+    }
+
+    (*pool->vm)->DetachCurrentThread(pool->vm);
+    return NULL;
+}
+
+struct async_pool *async_pool_create(JNIEnv *env, jobject executor, jmethodID complete, int32_t threads,
+                                     const char *name) {
+    struct async_pool *pool = calloc(1, sizeof(struct async_pool));
+    (*env)->GetJavaVM(env, &pool->vm);
+    pool->executor = (*env)->NewGlobalRef(env, executor);
+    pool->complete = complete;
+    pthread_mutex_init(&pool->mutex, NULL);
+    pthread_cond_init(&pool->cond, NULL);
+    pthread_cond_init(&pool->started_cond, NULL);
+    pool->workers = calloc((size_t) threads, sizeof(struct async_worker));
+
+    int32_t i = 0;
+    for (; i < threads; i++) {
+        struct async_worker *worker = &pool->workers[i];
+        worker->pool = pool;
+        snprintf(worker->name, sizeof(worker->name), "%s-%d", name, i);
+        if (pthread_create(&worker->thread, NULL, &async_worker_run, worker)) {
+            break;
+        }
+        pool->nworkers++;
+    }
+
+    pthread_mutex_lock(&pool->mutex);
+    while (pool->started != pool->nworkers) {
+        pthread_cond_wait(&pool->started_cond, &pool->mutex);
+    }
+    int attach_failed = pool->attach_failed;
+    pthread_mutex_unlock(&pool->mutex);
+
+    if (pool->nworkers != threads || attach_failed) {
+        async_pool_destroy(env, pool);
+        return NULL;
+    }
+
+    return pool;
+}
+
+void async_pool_submit(struct async_pool *pool, const int64_t *commands, int32_t count, int64_t *results, jlong id) {
+    struct async_job *job = malloc(sizeof(struct async_job));
+    job->commands = commands;
+    job->count = count;
+    job->results = results;
+    job->id = id;
+    job->next = NULL;
+
+    pthread_mutex_lock(&pool->mutex);
+    if (pool->tail) {
+        pool->tail->next = job;
+    } else {
+        pool->head = job;
+    }
+    pool->tail = job;
+    pthread_cond_signal(&pool->cond);
+    pthread_mutex_unlock(&pool->mutex);
+}
+
+void async_pool_destroy(JNIEnv *env, struct async_pool *pool) {
+    pthread_mutex_lock(&pool->mutex);
+    pool->shutdown = 1;
+    pthread_cond_broadcast(&pool->cond);
+    pthread_mutex_unlock(&pool->mutex);
+
+    int32_t i = 0;
+    for (; i < pool->nworkers; i++) {
+        pthread_join(pool->workers[i].thread, NULL);
+    }
+
+    (*env)->DeleteGlobalRef(env, pool->executor);
+    pthread_cond_destroy(&pool->cond);
+    pthread_cond_destroy(&pool->started_cond);
+    pthread_mutex_destroy(&pool->mutex);
+    free(pool->workers);
+    free(pool);
+}
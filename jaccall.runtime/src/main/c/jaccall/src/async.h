@@ -0,0 +1,29 @@
+#ifndef JACCALL_ASYNC_H
+#define JACCALL_ASYNC_H
+
+#include <jni.h>
+#include <stdint.h>
+
+struct async_pool;
+
+/*
+ * Create a pool of native worker threads that execute batches of calls, see batch.h. The worker threads are attached
+ * to the JVM as daemon threads for their whole lifetime, and invoke the given void(long) method on the given executor
+ * object after each batch, with the id of the batch.
+ *
+ * Returns NULL if a worker thread could not be started or attached to the JVM.
+ */
+struct async_pool *async_pool_create(JNIEnv *env, jobject executor, jmethodID complete, int32_t threads,
+                                     const char *name);
+
+/*
+ * Queue a batch of calls. The commands and results must stay valid until the batch is completed.
+ */
+void async_pool_submit(struct async_pool *pool, const int64_t *commands, int32_t count, int64_t *results, jlong id);
+
+/*
+ * Execute all queued batches, stop the worker threads and free the pool. Must not be called from a worker thread.
+ */
+void async_pool_destroy(JNIEnv *env, struct async_pool *pool);
+
+#endif //JACCALL_ASYNC_H
@@ -0,0 +1,144 @@
+#include <stdint.h>
+#include <stdlib.h>
+#include <string.h>
+#include <ffi.h>
+
+#include "batch.h"
+
+union batch_value {
+    int8_t s8;
+    uint8_t u8;
+    int16_t s16;
+    uint16_t u16;
+    int32_t s32;
+    uint32_t u32;
+    int64_t s64;
+    uint64_t u64;
+    float f;
+    double d;
+    void *p;
+    ffi_arg a;
+    ffi_sarg sa;
+};
+
+/*
+ * convert an argument slot to the C type of the argument, return the address of the converted value
+ */
+static inline
+void *batch_arg(const ffi_type *type, const int64_t *slot, union batch_value *value) {
+    switch (type->type) {
+        case FFI_TYPE_SINT8:
+            value->s8 = (int8_t) *slot;
+            break;
+        case FFI_TYPE_UINT8:
+            value->u8 = (uint8_t) *slot;
+            break;
+        case FFI_TYPE_SINT16:
+            value->s16 = (int16_t) *slot;
+            break;
+        case FFI_TYPE_UINT16:
+            value->u16 = (uint16_t) *slot;
+            break;
+        case FFI_TYPE_INT:
+        case FFI_TYPE_SINT32:
+            value->s32 = (int32_t) *slot;
+            break;
+        case FFI_TYPE_UINT32:
+            value->u32 = (uint32_t) *slot;
+            break;
+        case FFI_TYPE_FLOAT:
+            memcpy(&value->f, slot, sizeof(float));
+            break;
+        case FFI_TYPE_DOUBLE:
+            memcpy(&value->d, slot, sizeof(double));
+            break;
+        case FFI_TYPE_POINTER:
+            value->p = (void *) (intptr_t) *slot;
+            break;
+        case FFI_TYPE_STRUCT:
+            //struct by value, the slot holds the address of the struct
+            return (void *) (intptr_t) *slot;
+        default:
+            value->s64 = *slot;
+            break;
+    }
+    return value;
+}
+
+/*
+ * store a return value in a result slot
+ */
+static inline
+void batch_result(const ffi_type *type, const union batch_value *value, int64_t *slot) {
+    switch (type->type) {
+        case FFI_TYPE_SINT8:
+            *slot = (int8_t) value->sa;
+            break;
+        case FFI_TYPE_UINT8:
+            *slot = (uint8_t) value->a;
+            break;
+        case FFI_TYPE_SINT16:
+            *slot = (int16_t) value->sa;
+            break;
+        case FFI_TYPE_UINT16:
+            *slot = (uint16_t) value->a;
+            break;
+        case FFI_TYPE_INT:
+        case FFI_TYPE_SINT32:
+            *slot = (int32_t) value->sa;
+            break;
+        case FFI_TYPE_UINT32:
+            *slot = (uint32_t) value->a;
+            break;
+        case FFI_TYPE_FLOAT:
+            *slot = 0;
+            memcpy(slot, &value->f, sizeof(float));
+            break;
+        case FFI_TYPE_DOUBLE:
+            memcpy(slot, &value->d, sizeof(double));
+            break;
+        case FFI_TYPE_POINTER:
+            *slot = (intptr_t) value->p;
+            break;
+        case FFI_TYPE_VOID:
+            *slot = 0;
+            break;
+        default:
+            *slot = value->s64;
+            break;
+    }
+}
+
+void batch_call(const int64_t *commands, int32_t count, int64_t *results) {
+    int32_t i = 0;
+    for (; i < count; i++) {
+        ffi_cif *cif = (ffi_cif *) (intptr_t) commands[0];
+        void *symaddr = (void *) (intptr_t) commands[1];
+        const int64_t *slots = commands + 2;
+
+        union batch_value values[cif->nargs ? cif->nargs : 1];
+        void *args[cif->nargs ? cif->nargs : 1];
+        unsigned int arg = 0;
+        for (; arg < cif->nargs; arg++) {
+            args[arg] = batch_arg(cif->arg_types[arg], slots + arg, values + arg);
+        }
+
+        if (cif->rtype->type == FFI_TYPE_STRUCT) {
+            void *rval = malloc(cif->rtype->size);
+            ffi_call(cif, FFI_FN(symaddr), rval, args);
+            if (results) {
+                results[i] = (intptr_t) rval;
+            } else {
+                free(rval);
+            }
+        } else {
+            union batch_value rval;
+            ffi_call(cif, FFI_FN(symaddr), &rval, args);
+            if (results) {
+                batch_result(cif->rtype, &rval, results + i);
+            }
+        }
+
+        commands = slots + cif->nargs;
+    }
+}
@@ -0,0 +1,17 @@
+#ifndef JACCALL_BATCH_H
+#define JACCALL_BATCH_H
+
+#include <stdint.h>
+
+/*
+ * Execute a batch of native calls. A call is recorded as the address of its cif, the address of its symbol and one
+ * 64 bit slot per argument of the cif. Integers and pointers are stored as 64 bit integers, floats and doubles are
+ * stored as is at the start of their slot, and a struct by value is stored as the address of the struct.
+ *
+ * If results is not NULL, the return value of each call is stored in its own 64 bit slot, using the same encoding
+ * as the arguments. A struct returned by value is copied to newly allocated memory that has to be freed by the
+ * caller, and is discarded if results is NULL.
+ */
+void batch_call(const int64_t *commands, int32_t count, int64_t *results);
+
+#endif //JACCALL_BATCH_H
@@ -0,0 +1,256 @@
+#include <jni.h>
+#include <stdint.h>
+#include <string.h>
+#include <ffi.h>
+
+#include "fast_call.h"
+
+/*
+ * Trampolines are plain C functions with the exact jni signature of a native method. They call the native symbol
+ * directly, so both the libffi closure that would otherwise receive the jni call and the ffi_call to the symbol are
+ * skipped.
+ *
+ * A jni entry point receives no user data, so every trampoline reads the address of its symbol from a dedicated slot.
+ * Each supported jni signature has FAST_SLOTS trampolines. Symbols that do not fit a supported signature, or that
+ * arrive when all slots of their signature are taken, are linked through libffi as before.
+ *
+ * Arguments and return values are limited to:
+ * I: a 32 bit (unsigned) int.
+ * J: an integer or pointer with the size of a native pointer. Passed as intptr_t.
+ *    As a return value only 64 bit integers and pointers are supported.
+ * F: a float.
+ * D: a double.
+ * V: void, as a return value.
+ */
+
+#define FAST_SLOTS 16
+
+#define FAST_JTYPE_V void
+#define FAST_JTYPE_I jint
+#define FAST_JTYPE_J jlong
+#define FAST_JTYPE_F jfloat
+#define FAST_JTYPE_D jdouble
+
+#define FAST_CTYPE_V void
+#define FAST_CTYPE_I int32_t
+#define FAST_CTYPE_J intptr_t
+#define FAST_CTYPE_F float
+#define FAST_CTYPE_D double
+
+#define FAST_RETURN_V
+#define FAST_RETURN_I return (jint)
+#define FAST_RETURN_J return (jlong)
+#define FAST_RETURN_F return (jfloat)
+#define FAST_RETURN_D return (jdouble)
+
+#define FAST_FOR_EACH_SLOT(M, ...)                                                                  \
+    M(0, __VA_ARGS__) M(1, __VA_ARGS__) M(2, __VA_ARGS__) M(3, __VA_ARGS__)                         \
+    M(4, __VA_ARGS__) M(5, __VA_ARGS__) M(6, __VA_ARGS__) M(7, __VA_ARGS__)                         \
+    M(8, __VA_ARGS__) M(9, __VA_ARGS__) M(10, __VA_ARGS__) M(11, __VA_ARGS__)                       \
+    M(12, __VA_ARGS__) M(13, __VA_ARGS__) M(14, __VA_ARGS__) M(15, __VA_ARGS__)
+
+#define FAST_FN(slot, name) fast_##name##_##slot
+#define FAST_SYMADDR(slot, name) (fast_##name##_symaddr[slot])
+#define FAST_FNPTR(slot, name) (void *) &fast_##name##_##slot,
+
+#define FAST_TRAMPOLINE_0(slot, name, R)                                                            \
+static FAST_JTYPE_##R JNICALL                                                                       \
+FAST_FN(slot, name)(JNIEnv *env, jobject obj) {                                                     \
+    FAST_RETURN_##R ((FAST_CTYPE_##R (*)(void)) FAST_SYMADDR(slot, name))();                        \
+}
+
+#define FAST_TRAMPOLINE_1(slot, name, R, A0)                                                        \
+static FAST_JTYPE_##R JNICALL                                                                       \
+FAST_FN(slot, name)(JNIEnv *env, jobject obj,                                                       \
+                    FAST_JTYPE_##A0 a0) {                                                           \
+    FAST_RETURN_##R ((FAST_CTYPE_##R (*)(FAST_CTYPE_##A0)) FAST_SYMADDR(slot, name))(               \
+            (FAST_CTYPE_##A0) a0);                                                                  \
+}
+
+#define FAST_TRAMPOLINE_2(slot, name, R, A0, A1)                                                    \
+static FAST_JTYPE_##R JNICALL                                                                       \
+FAST_FN(slot, name)(JNIEnv *env, jobject obj,                                                       \
+                    FAST_JTYPE_##A0 a0, FAST_JTYPE_##A1 a1) {                                       \
+    FAST_RETURN_##R ((FAST_CTYPE_##R (*)(FAST_CTYPE_##A0, FAST_CTYPE_##A1))                         \
+            FAST_SYMADDR(slot, name))(                                                              \
+            (FAST_CTYPE_##A0) a0, (FAST_CTYPE_##A1) a1);                                            \
+}
+
+#define FAST_TRAMPOLINE_3(slot, name, R, A0, A1, A2)                                                \
+static FAST_JTYPE_##R JNICALL                                                                       \
+FAST_FN(slot, name)(JNIEnv *env, jobject obj,                                                       \
+                    FAST_JTYPE_##A0 a0, FAST_JTYPE_##A1 a1, FAST_JTYPE_##A2 a2) {                   \
+    FAST_RETURN_##R ((FAST_CTYPE_##R (*)(FAST_CTYPE_##A0, FAST_CTYPE_##A1, FAST_CTYPE_##A2))        \
+            FAST_SYMADDR(slot, name))(                                                              \
+            (FAST_CTYPE_##A0) a0, (FAST_CTYPE_##A1) a1, (FAST_CTYPE_##A2) a2);                      \
+}
+
+#define FAST_TRAMPOLINE_4(slot, name, R, A0, A1, A2, A3)                                            \
+static FAST_JTYPE_##R JNICALL                                                                       \
+FAST_FN(slot, name)(JNIEnv *env, jobject obj,                                                       \
+                    FAST_JTYPE_##A0 a0, FAST_JTYPE_##A1 a1, FAST_JTYPE_##A2 a2,                     \
+                    FAST_JTYPE_##A3 a3) {                                                           \
+    FAST_RETURN_##R ((FAST_CTYPE_##R (*)(FAST_CTYPE_##A0, FAST_CTYPE_##A1, FAST_CTYPE_##A2,         \
+                                         FAST_CTYPE_##A3))                                          \
+            FAST_SYMADDR(slot, name))(                                                              \
+            (FAST_CTYPE_##A0) a0, (FAST_CTYPE_##A1) a1, (FAST_CTYPE_##A2) a2,                       \
+            (FAST_CTYPE_##A3) a3);                                                                  \
+}
+
+#define FAST_TRAMPOLINE_5(slot, name, R, A0, A1, A2, A3, A4)                                        \
+static FAST_JTYPE_##R JNICALL                                                                       \
+FAST_FN(slot, name)(JNIEnv *env, jobject obj,                                                       \
+                    FAST_JTYPE_##A0 a0, FAST_JTYPE_##A1 a1, FAST_JTYPE_##A2 a2,                     \
+                    FAST_JTYPE_##A3 a3, FAST_JTYPE_##A4 a4) {                                       \
+    FAST_RETURN_##R ((FAST_CTYPE_##R (*)(FAST_CTYPE_##A0, FAST_CTYPE_##A1, FAST_CTYPE_##A2,         \
+                                         FAST_CTYPE_##A3, FAST_CTYPE_##A4))                         \
+            FAST_SYMADDR(slot, name))(                                                              \
+            (FAST_CTYPE_##A0) a0, (FAST_CTYPE_##A1) a1, (FAST_CTYPE_##A2) a2,                       \
+            (FAST_CTYPE_##A3) a3, (FAST_CTYPE_##A4) a4);                                            \
+}
+
+#define FAST_TRAMPOLINE_6(slot, name, R, A0, A1, A2, A3, A4, A5)                                    \
+static FAST_JTYPE_##R JNICALL                                                                       \
+FAST_FN(slot, name)(JNIEnv *env, jobject obj,                                                       \
+                    FAST_JTYPE_##A0 a0, FAST_JTYPE_##A1 a1, FAST_JTYPE_##A2 a2,                     \
+                    FAST_JTYPE_##A3 a3, FAST_JTYPE_##A4 a4, FAST_JTYPE_##A5 a5) {                   \
+    FAST_RETURN_##R ((FAST_CTYPE_##R (*)(FAST_CTYPE_##A0, FAST_CTYPE_##A1, FAST_CTYPE_##A2,         \
+                                         FAST_CTYPE_##A3, FAST_CTYPE_##A4, FAST_CTYPE_##A5))        \
+            FAST_SYMADDR(slot, name))(                                                              \
+            (FAST_CTYPE_##A0) a0, (FAST_CTYPE_##A1) a1, (FAST_CTYPE_##A2) a2,                       \
+            (FAST_CTYPE_##A3) a3, (FAST_CTYPE_##A4) a4, (FAST_CTYPE_##A5) a5);                      \
+}
+
+/*
+ * define the symbol slots, the trampolines and the trampoline table of a jni signature
+ */
+#define FAST_DEFINE(arity, name, sig, ...)                                                          \
+static void *fast_##name##_symaddr[FAST_SLOTS];                                                     \
+FAST_FOR_EACH_SLOT(FAST_TRAMPOLINE_##arity, name, __VA_ARGS__)                                      \
+static void *fast_##name##_fnptr[FAST_SLOTS] = { FAST_FOR_EACH_SLOT(FAST_FNPTR, name) };
+
+#define FAST_ENTRY(arity, name, sig, ...) { sig, fast_##name##_symaddr, fast_##name##_fnptr, 0 },
+
+#define FAST_RETURNS(X, arity, args, sig, ...)                                                      \
+    X(arity, args##_V, "(" sig ")V", V, ##__VA_ARGS__)                                              \
+    X(arity, args##_I, "(" sig ")I", I, ##__VA_ARGS__)                                              \
+    X(arity, args##_J, "(" sig ")J", J, ##__VA_ARGS__)                                              \
+    X(arity, args##_F, "(" sig ")F", F, ##__VA_ARGS__)                                              \
+    X(arity, args##_D, "(" sig ")D", D, ##__VA_ARGS__)
+
+/*
+ * all supported argument lists, each is combined with every supported return type
+ */
+#define FAST_SIGNATURES(X)                                                                          \
+    FAST_RETURNS(X, 0, NONE, "")                                                                    \
+    FAST_RETURNS(X, 1, I, "I", I)                                                                   \
+    FAST_RETURNS(X, 1, J, "J", J)                                                                   \
+    FAST_RETURNS(X, 1, F, "F", F)                                                                   \
+    FAST_RETURNS(X, 1, D, "D", D)                                                                   \
+    FAST_RETURNS(X, 2, II, "II", I, I)                                                              \
+    FAST_RETURNS(X, 2, JI, "JI", J, I)                                                              \
+    FAST_RETURNS(X, 2, JJ, "JJ", J, J)                                                              \
+    FAST_RETURNS(X, 2, JF, "JF", J, F)                                                              \
+    FAST_RETURNS(X, 2, JD, "JD", J, D)                                                              \
+    FAST_RETURNS(X, 3, JII, "JII", J, I, I)                                                         \
+    FAST_RETURNS(X, 3, JJI, "JJI", J, J, I)                                                         \
+    FAST_RETURNS(X, 3, JJJ, "JJJ", J, J, J)                                                         \
+    FAST_RETURNS(X, 3, JFF, "JFF", J, F, F)                                                         \
+    FAST_RETURNS(X, 3, JDD, "JDD", J, D, D)                                                         \
+    FAST_RETURNS(X, 4, JIII, "JIII", J, I, I, I)                                                    \
+    FAST_RETURNS(X, 4, JJJJ, "JJJJ", J, J, J, J)                                                    \
+    FAST_RETURNS(X, 4, JFFF, "JFFF", J, F, F, F)                                                    \
+    FAST_RETURNS(X, 5, JIIII, "JIIII", J, I, I, I, I)                                               \
+    FAST_RETURNS(X, 5, JJJJJ, "JJJJJ", J, J, J, J, J)                                               \
+    FAST_RETURNS(X, 6, JJJJJJ, "JJJJJJ", J, J, J, J, J, J)
+
+FAST_SIGNATURES(FAST_DEFINE)
+
+struct fast_signature {
+    /* jni signature of the trampolines */
+    const char *jni_sig;
+    /* symbol address of each slot */
+    void **symaddr;
+    /* trampoline of each slot */
+    void **fnptr;
+    /* number of slots handed out */
+    unsigned int used;
+};
+
+static struct fast_signature fast_signatures[] = {
+    FAST_SIGNATURES(FAST_ENTRY)
+};
+
+static inline
+int fast_integer_type(const ffi_type *type) {
+    switch (type->type) {
+        case FFI_TYPE_INT:
+        case FFI_TYPE_UINT32:
+        case FFI_TYPE_SINT32:
+        case FFI_TYPE_UINT64:
+        case FFI_TYPE_SINT64:
+        case FFI_TYPE_POINTER:
+            return 1;
+        default:
+            return 0;
+    }
+}
+
+/*
+ * check if the native type can be passed or returned as the given jni type by a trampoline
+ */
+static inline
+int fast_type(const ffi_type *type, char jni_sig_char, int is_return) {
+    switch (jni_sig_char) {
+        case 'V':
+            return type->type == FFI_TYPE_VOID;
+        case 'I':
+            return fast_integer_type(type) && type->size == sizeof(int32_t);
+        case 'J':
+            //a pointer sized value that is returned on a 32 bit platform would need sign or zero extension
+            return fast_integer_type(type) && type->size == (is_return ? sizeof(jlong) : sizeof(intptr_t));
+        case 'F':
+            return type->type == FFI_TYPE_FLOAT;
+        case 'D':
+            return type->type == FFI_TYPE_DOUBLE;
+        default:
+            return 0;
+    }
+}
+
+void *fast_call_trampoline(ffi_cif *cif, const char *jni_sig, void *symaddr) {
+    const size_t jni_sig_length = strlen(jni_sig);
+    if (jni_sig_length != cif->nargs + 3) {
+        return NULL;
+    }
+
+    //jni_sig is of the form (<args>)<return>
+    unsigned int i = 0;
+    for (; i < cif->nargs; i++) {
+        if (!fast_type(cif->arg_types[i], jni_sig[i + 1], 0)) {
+            return NULL;
+        }
+    }
+    if (!fast_type(cif->rtype, jni_sig[jni_sig_length - 1], 1)) {
+        return NULL;
+    }
+
+    const size_t nro_signatures = sizeof(fast_signatures) / sizeof(fast_signatures[0]);
+    size_t s = 0;
+    for (; s < nro_signatures; s++) {
+        struct fast_signature *signature = &fast_signatures[s];
+        if (strcmp(signature->jni_sig, jni_sig) != 0) {
+            continue;
+        }
+
+        const unsigned int slot = __sync_fetch_and_add(&signature->used, 1);
+        if (slot >= FAST_SLOTS) {
+            return NULL;
+        }
+
+        signature->symaddr[slot] = symaddr;
+        return signature->fnptr[slot];
+    }
+
+    return NULL;
+}
@@ -0,0 +1,16 @@
+#ifndef JACCALL_FAST_CALL_H
+#define JACCALL_FAST_CALL_H
+
+#include <jni.h>
+#include <ffi.h>
+
+/*
+ * Find a libffi free trampoline that can be registered as the native method of the given symbol. A trampoline is only
+ * available if all arguments and the return type of the symbol are plain integers, pointers or floating point values,
+ * and if there is a trampoline slot left for the jni signature of the symbol.
+ *
+ * Returns the address of the trampoline or NULL if the symbol has to be called through libffi.
+ */
+void *fast_call_trampoline(ffi_cif *cif, const char *jni_sig, void *symaddr);
+
+#endif //JACCALL_FAST_CALL_H
@@ -1,12 +1,22 @@
 #include <jni.h>
 #include <stdlib.h>
+#include <stdio.h>
 #include <string.h>
 #include <stdint.h>
 #include <dlfcn.h>
 #include <ffi.h>
 #include <assert.h>
+#include <pthread.h>
+#include <sched.h>
+#include <errno.h>
+#include <fcntl.h>
+#include <unistd.h>
+#include <sys/mman.h>
 
 #include "org_freedesktop_jaccall_JNI.h"
+#include "fast_call.h"
+#include "batch.h"
+#include "async.h"
 
 static JavaVM *jvm;
 
@@ -15,17 +25,42 @@ static JavaVM *jvm;
 #define RET_BYVAL 0x02
 #define BYVAL (ARG_BYVAL|RET_BYVAL)
 
-//TODO we can write out specific call back handlers for all cases instead of checking at runtime.
+/*
+ * Call plan of a native function. A call plan is resolved once when a symbol is linked or a closure is created, so
+ * call handlers never have to inspect the argument types of a cif on a per call basis.
+ */
+struct call_plan {
+    /* number of arguments */
+    unsigned int nargs;
+    /* number of struct by value arguments */
+    unsigned int nbyval;
+    /* indices of the struct by value arguments in ascending order, NULL if there are none */
+    unsigned int *byval;
+    /* size of the struct returned by value, 0 if no struct is returned by value */
+    size_t rsize;
+};
+
 struct jni_call_data {
     /* cif or one of ffi_type_... */
     ffi_cif *cif;
     /* address of the symbol */
     void *symaddr;
+    /* call plan of the symbol */
+    struct call_plan plan;
 };
 
 struct java_call_data {
     jmethodID mid;
+    /* global reference to the java object, NULL if the closure is not bound to an object */
     jobject object;
+    /* number of calls that are taking a local reference to the object, the global reference is not deleted until 0 */
+    int pinning;
+    /* call plan of the java method */
+    struct call_plan plan;
+    /* writable address of the closure */
+    ffi_closure *closure;
+    /* executable address of the closure */
+    void *code;
 };
 
 struct char_alignment {
@@ -96,6 +131,25 @@ void throwError( JNIEnv *env, char *message, ...)
     free(string);
 }
 
+void throwIOException( JNIEnv *env, char *message, ...)
+{
+    jclass exClass;
+    char *className = "java/io/IOException";
+
+    exClass = (*env)->FindClass( env, className);
+
+    va_list args;
+    va_start (args, message);
+
+    char* string;
+    vasprintf(&string, message, args);
+
+    (*env)->ThrowNew( env, exClass, string );
+
+    va_end(args);
+    free(string);
+}
+
 JNIEXPORT
 jlong
 JNICALL Java_org_freedesktop_jaccall_JNI_NewGlobalRef(JNIEnv *env, jclass clazz, jobject object){
@@ -233,6 +287,57 @@ void jni_call_handler_symbol(ffi_cif *cif, void *ret, void **jargs, void *user_d
     *((void **) ret) = call_data->symaddr;
 }
 
+/*
+ * resolve the call plan of the given cif and return how struct by value arguments and return values should be handled
+ */
+static inline
+int prep_call_plan(struct call_plan *plan, ffi_cif *cif) {
+    int call_type = NO_BYVAL;
+
+    plan->nargs = cif->nargs;
+    plan->nbyval = 0;
+    plan->byval = NULL;
+    plan->rsize = 0;
+
+    unsigned int i = 0;
+    for (; i < cif->nargs; i++) {
+        if (cif->arg_types[i]->type == FFI_TYPE_STRUCT) {
+            plan->nbyval++;
+        }
+    }
+
+    if (plan->nbyval) {
+        call_type |= ARG_BYVAL;
+        plan->byval = malloc(sizeof(unsigned int) * plan->nbyval);
+
+        unsigned int byval = 0;
+        for (i = 0; i < cif->nargs; i++) {
+            if (cif->arg_types[i]->type == FFI_TYPE_STRUCT) {
+                plan->byval[byval++] = i;
+            }
+        }
+    }
+
+    if (cif->rtype->type == FFI_TYPE_STRUCT) {
+        call_type |= RET_BYVAL;
+        plan->rsize = cif->rtype->size;
+    }
+
+    return call_type;
+}
+
+/*
+ * replace the pointers to struct by value addresses with the struct addresses themselves
+ */
+static inline
+void unpack_by_value_args(const struct call_plan *plan, void **args) {
+    unsigned int i = 0;
+    for (; i < plan->nbyval; i++) {
+        const unsigned int arg = plan->byval[i];
+        args[arg] = *((void **) args[arg]);
+    }
+}
+
 /*
  * call handler for functions that return a struct by value and accept a struct by value as one of its arguments
  */
@@ -240,24 +345,13 @@ static
 void jni_call_handler_ret_by_value_arg_by_value(ffi_cif *cif, void *ret, void **jargs, void *user_data){
     struct jni_call_data *call_data = user_data;
 
-    ffi_type **arg_types = call_data->cif->arg_types;
-    unsigned int nargs = call_data->cif->nargs;
-    ffi_type *rtype = call_data->cif->rtype;
-
-    void **args = (nargs ? jargs + 2 : NULL);
-
-    int i = 0;
-    for (; i < nargs; i++) {
-        if (arg_types[i]->type == FFI_TYPE_STRUCT) {
-            //struct by value
-            args[i] = *((void **) args[i]);
-        }
-    }
+    void **args = jargs + 2;
+    unpack_by_value_args(&call_data->plan, args);
 
     memset(ret, 0, cif->rtype->size);
 
     //struct by value
-    void *rval = malloc(rtype->size);
+    void *rval = malloc(call_data->plan.rsize);
     ffi_call(call_data->cif, FFI_FN(call_data->symaddr), rval, args);
     *((void **) ret) = rval;
 }
@@ -270,38 +364,59 @@ void jni_call_handler_ret_by_value(ffi_cif *cif, void *ret, void **jargs, void *
 
     struct jni_call_data *call_data = user_data;
 
-    ffi_type **arg_types = call_data->cif->arg_types;
-    unsigned int nargs = call_data->cif->nargs;
-    ffi_type *rtype = call_data->cif->rtype;
+    void **args = (call_data->plan.nargs ? jargs + 2 : NULL);
 
-    void **args = (nargs ? jargs + 2 : NULL);
+    memset(ret, 0, cif->rtype->size);
+
+    void *rval = malloc(call_data->plan.rsize);
+    ffi_call(call_data->cif, FFI_FN(call_data->symaddr), rval, args);
+    *((void **) ret) = rval;
+}
+
+/*
+ * call handler for functions that return a struct by value into the memory of their first jni argument and accept a
+ * struct by value as one of its arguments
+ */
+static
+void jni_call_handler_ret_into_buffer_arg_by_value(ffi_cif *cif, void *ret, void **jargs, void *user_data){
+    struct jni_call_data *call_data = user_data;
+
+    void *rval = *((void **) jargs[2]);
+    void **args = jargs + 3;
+    unpack_by_value_args(&call_data->plan, args);
 
     memset(ret, 0, cif->rtype->size);
 
-    void *rval = malloc(rtype->size);
     ffi_call(call_data->cif, FFI_FN(call_data->symaddr), rval, args);
     *((void **) ret) = rval;
 }
 
 /*
- * call handler for functions that do not return a struct by value but accept a struct by value as one of its arguments
+ * call handler for functions that return a struct by value into the memory of their first jni argument but none of
+ * its arguments are by value
  */
 static
-void jni_call_handler_arg_by_value(ffi_cif *cif, void *ret, void **jargs, void *user_data){
+void jni_call_handler_ret_into_buffer(ffi_cif *cif, void *ret, void **jargs, void *user_data){
     struct jni_call_data *call_data = user_data;
 
-    ffi_type **arg_types = call_data->cif->arg_types;
-    unsigned int nargs = call_data->cif->nargs;
+    void *rval = *((void **) jargs[2]);
+    void **args = (call_data->plan.nargs ? jargs + 3 : NULL);
 
-    void **args = (nargs ? jargs + 2 : NULL);
+    memset(ret, 0, cif->rtype->size);
 
-    int i = 0;
-    for (; i < nargs; i++) {
-        if (arg_types[i]->type == FFI_TYPE_STRUCT) {
-            //struct by value
-            args[i] = *((void **) args[i]);
-        }
-    }
+    ffi_call(call_data->cif, FFI_FN(call_data->symaddr), rval, args);
+    *((void **) ret) = rval;
+}
+
+/*
+ * call handler for functions that do not return a struct by value but accept a struct by value as one of its arguments
+ */
+static
+void jni_call_handler_arg_by_value(ffi_cif *cif, void *ret, void **jargs, void *user_data){
+    struct jni_call_data *call_data = user_data;
+
+    void **args = jargs + 2;
+    unpack_by_value_args(&call_data->plan, args);
 
     memset(ret, 0, cif->rtype->size);
     ffi_call(call_data->cif, FFI_FN(call_data->symaddr), ret, args);
@@ -315,7 +430,7 @@ void jni_call_handler_no_by_value(ffi_cif *cif, void *ret, void **jargs, void *u
 
     struct jni_call_data *call_data = user_data;
 
-    void **args = (call_data->cif->nargs ? jargs + 2 : NULL);
+    void **args = (call_data->plan.nargs ? jargs + 2 : NULL);
 
     memset(ret, 0, cif->rtype->size);
     ffi_call(call_data->cif, FFI_FN(call_data->symaddr), ret, args);
@@ -346,22 +461,10 @@ int create_closure(JNIEnv *env,
             //symbol is a function
             call_data->cif = cif;
 
-            //check for struct by value as argument
-            int jni_call_type= NO_BYVAL;
-            int i = 0;
-            for (; i < cif->nargs; i++) {
-                if (cif->arg_types[i]->type == FFI_TYPE_STRUCT) {
-                    jni_call_type |= ARG_BYVAL;
-                    break;
-                }
-            }
+            //a struct by value is returned into the memory of an extra first jni argument, see @Ret
+            const int ret_into_buffer = argSize == (jbyte) cif->nargs + 1;
 
-            //check for struct by value as return
-            if (cif->rtype->type == FFI_TYPE_STRUCT) {
-                jni_call_type |= RET_BYVAL;
-            }
-
-            switch(jni_call_type){
+            switch(prep_call_plan(&call_data->plan, cif)){
                 case NO_BYVAL:
                     jni_call_handler = &jni_call_handler_no_by_value;
                     break;
@@ -369,10 +472,10 @@ int create_closure(JNIEnv *env,
                     jni_call_handler = &jni_call_handler_arg_by_value;
                     break;
                 case RET_BYVAL:
-                    jni_call_handler = &jni_call_handler_ret_by_value;
+                    jni_call_handler = ret_into_buffer ? &jni_call_handler_ret_into_buffer : &jni_call_handler_ret_by_value;
                     break;
                 case BYVAL:
-                    jni_call_handler = &jni_call_handler_ret_by_value_arg_by_value;
+                    jni_call_handler = ret_into_buffer ? &jni_call_handler_ret_into_buffer_arg_by_value : &jni_call_handler_ret_by_value_arg_by_value;
                     break;
             }
         } else {
@@ -399,6 +502,36 @@ int create_closure(JNIEnv *env,
     }
 }
 
+static
+int link_symbol(JNIEnv *env,
+                void *libaddr,
+                const char *symstr,
+                const char *jni_sig,
+                jbyte argSize,
+                ffi_cif *cif,
+                JNINativeMethod *jniMethod) {
+    dlerror();
+    void *symaddr = dlsym(libaddr, symstr);
+    char *err = dlerror();
+    if (err) {
+        throwError(env, "dlsym failed: %s\n", err);
+        return -1;
+    }
+
+    if (cif) {
+        //try to avoid libffi altogether
+        void *trampoline = fast_call_trampoline(cif, jni_sig, symaddr);
+        if (trampoline) {
+            jniMethod->name = (char *) symstr;
+            jniMethod->signature = (char *) jni_sig;
+            jniMethod->fnPtr = trampoline;
+            return 0;
+        }
+    }
+
+    return create_closure(env, symstr, symaddr, jni_sig, argSize, cif, jniMethod);
+}
+
 JNIEXPORT
 void
 JNICALL Java_org_freedesktop_jaccall_JNI_link(JNIEnv *env, jclass clazz, jstring library,
@@ -422,27 +555,225 @@ JNICALL Java_org_freedesktop_jaccall_JNI_link(JNIEnv *env, jclass clazz, jstring
 
         jstring symbol = (jstring) (*env)->GetObjectArrayElement(env, symbols, i);
         const char *symstr = (*env)->GetStringUTFChars(env, symbol, 0);
+        jstring jniSignature = (jstring) (*env)->GetObjectArrayElement(env, jniSignatures, i);
+        const char *jni_sig = (*env)->GetStringUTFChars(env, jniSignature, 0);
 
-        void *symaddr = dlsym(libaddr, symstr);
-        char *err = dlerror();
-        if (err) {
-            throwError(env, "dlsym failed: %s\n", err);
-            return;
+        ret = link_symbol(env, libaddr, symstr, jni_sig, argSizes[i], (ffi_cif *) (intptr_t) ffi_cifs[i], &jniMethods[i]);
+        if(ret == -1){
+            (*env)->ReleaseStringUTFChars(env, symbol, symstr);
+            (*env)->ReleaseStringUTFChars(env, jniSignature, jni_sig);
+            break;
         }
+    }
+
+    if (i == symbolsCount) {
+        (*env)->RegisterNatives(env, headerClazz, jniMethods, symbolsCount);
+    }
 
+    //the names and signatures are only needed while registering
+    int linked = i;
+    for (i = 0; i < linked; i++) {
+        jstring symbol = (jstring) (*env)->GetObjectArrayElement(env, symbols, i);
+        jstring jniSignature = (jstring) (*env)->GetObjectArrayElement(env, jniSignatures, i);
+        (*env)->ReleaseStringUTFChars(env, symbol, jniMethods[i].name);
+        (*env)->ReleaseStringUTFChars(env, jniSignature, jniMethods[i].signature);
+        (*env)->DeleteLocalRef(env, symbol);
+        (*env)->DeleteLocalRef(env, jniSignature);
+    }
+    free(jniMethods);
+    (*env)->ReleaseByteArrayElements(env, argumentSizes, argSizes, JNI_ABORT);
+    (*env)->ReleaseLongArrayElements(env, ffiCallInterfaces, ffi_cifs, JNI_ABORT);
+}
+
+struct lazy_link_data {
+    /* the java symbols that resolve the method */
+    jobject resolver;
+    jmethodID resolve;
+    jint index;
+    ffi_cif jni_cif;
+};
+
+/*
+ * call handler of a method that is not linked yet. The method is linked and rebound by the java symbols, then the
+ * call is forwarded to the linked function.
+ */
+static
+void lazy_link_handler(ffi_cif *jni_cif, void *ret, void **args, void *user_data) {
+    struct lazy_link_data *link_data = user_data;
+    JNIEnv *env = *((JNIEnv **) args[0]);
+
+    void *fnPtr = (void *) (intptr_t) (*env)->CallLongMethod(env, link_data->resolver, link_data->resolve,
+                                                             link_data->index);
+    if ((*env)->ExceptionCheck(env)) {
+        memset(ret, 0, jni_cif->rtype->size);
+        return;
+    }
+
+    ffi_call(jni_cif, FFI_FN(fnPtr), ret, args);
+}
+
+JNIEXPORT
+void
+JNICALL Java_org_freedesktop_jaccall_JNI_linkLazy(JNIEnv *env, jclass clazz, jstring library,
+                                                    jclass headerClazz, jobjectArray symbols,
+                                                    jbyteArray argumentSizes,
+                                                    jobjectArray jniSignatures,
+                                                    jobject resolver) {
+    if(!find_libaddr(env, library)){
+        return;
+    }
+
+    jmethodID resolve = (*env)->GetMethodID(env, (*env)->GetObjectClass(env, resolver), "resolve", "(I)J");
+    if (!resolve) {
+        return;
+    }
+    //referenced by the closures for as long as the class is loaded, so it is never deleted
+    resolver = (*env)->NewGlobalRef(env, resolver);
+
+    jbyte *argSizes = (*env)->GetByteArrayElements(env, argumentSizes, 0);
+    int symbolsCount = (*env)->GetArrayLength(env, symbols);
+    JNINativeMethod *jniMethods = malloc(sizeof(JNINativeMethod) * symbolsCount);
+
+    int i = 0;
+    for (; i < symbolsCount; i++) {
         jstring jniSignature = (jstring) (*env)->GetObjectArrayElement(env, jniSignatures, i);
         const char *jni_sig = (*env)->GetStringUTFChars(env, jniSignature, 0);
-        jbyte argSize = argSizes[i];
-        ffi_cif *cif = (ffi_cif *) (intptr_t) ffi_cifs[i];
-        JNINativeMethod *jniMethods_i = &jniMethods[i];
 
-        ret = create_closure(env, symstr, symaddr, jni_sig, argSize, cif, jniMethods_i);
-        if(ret == -1){
-            return;
+        void *code;
+        ffi_closure *closure = ffi_closure_alloc(sizeof(ffi_closure), &code);
+        if (!closure) {
+            (*env)->ReleaseStringUTFChars(env, jniSignature, jni_sig);
+            throwError(env, "ffi_closure_alloc failed.\n");
+            break;
+        }
+
+        struct lazy_link_data *link_data = malloc(sizeof(struct lazy_link_data));
+        link_data->resolver = resolver;
+        link_data->resolve = resolve;
+        link_data->index = i;
+        prep_jni_cif(env, &link_data->jni_cif, jni_sig, argSizes[i]);
+
+        ffi_status status = ffi_prep_closure_loc(closure, &link_data->jni_cif, &lazy_link_handler, link_data, code);
+        if (status != FFI_OK) {
+            (*env)->ReleaseStringUTFChars(env, jniSignature, jni_sig);
+            free(link_data);
+            ffi_closure_free(closure);
+            throwError(env, "ffi_prep_closure_loc failed: %d\n", status);
+            break;
         }
+
+        jstring symbol = (jstring) (*env)->GetObjectArrayElement(env, symbols, i);
+        jniMethods[i].name = (char *) (*env)->GetStringUTFChars(env, symbol, 0);
+        jniMethods[i].signature = (char *) jni_sig;
+        jniMethods[i].fnPtr = code;
+    }
+
+    if (i == symbolsCount) {
+        (*env)->RegisterNatives(env, headerClazz, jniMethods, symbolsCount);
     }
 
-    (*env)->RegisterNatives(env, headerClazz, jniMethods, symbolsCount);
+    //the names and signatures are only needed while registering
+    int linked = i;
+    for (i = 0; i < linked; i++) {
+        jstring symbol = (jstring) (*env)->GetObjectArrayElement(env, symbols, i);
+        jstring jniSignature = (jstring) (*env)->GetObjectArrayElement(env, jniSignatures, i);
+        (*env)->ReleaseStringUTFChars(env, symbol, jniMethods[i].name);
+        (*env)->ReleaseStringUTFChars(env, jniSignature, jniMethods[i].signature);
+        (*env)->DeleteLocalRef(env, symbol);
+        (*env)->DeleteLocalRef(env, jniSignature);
+    }
+    free(jniMethods);
+    (*env)->ReleaseByteArrayElements(env, argumentSizes, argSizes, JNI_ABORT);
+}
+
+JNIEXPORT
+jlong
+JNICALL Java_org_freedesktop_jaccall_JNI_linkSymbol(JNIEnv *env, jclass clazz, jstring library,
+                                                      jclass headerClazz, jstring symbol,
+                                                      jbyte argumentSize,
+                                                      jstring jniSignature,
+                                                      jlong ffiCallInterface) {
+    void *libaddr = find_libaddr(env, library);
+    if(!libaddr){
+        return 0;
+    }
+
+    const char *symstr = (*env)->GetStringUTFChars(env, symbol, 0);
+    const char *jni_sig = (*env)->GetStringUTFChars(env, jniSignature, 0);
+
+    JNINativeMethod jniMethod;
+    jlong fnPtr = 0;
+    if (link_symbol(env, libaddr, symstr, jni_sig, argumentSize, (ffi_cif *) (intptr_t) ffiCallInterface,
+                    &jniMethod) == 0) {
+        (*env)->RegisterNatives(env, headerClazz, &jniMethod, 1);
+        fnPtr = (jlong) (intptr_t) jniMethod.fnPtr;
+    }
+
+    (*env)->ReleaseStringUTFChars(env, symbol, symstr);
+    (*env)->ReleaseStringUTFChars(env, jniSignature, jni_sig);
+
+    return fnPtr;
+}
+
+JNIEXPORT
+void
+JNICALL Java_org_freedesktop_jaccall_JNI_linkStubs(JNIEnv *env, jclass clazz, jstring library,
+                                                     jstring stubsLibrary, jclass headerClazz,
+                                                     jobjectArray symbols, jobjectArray jniSignatures,
+                                                     jobjectArray stubs) {
+    //the stubs are not linked against the library, so it has to be loaded globally before the stubs are loaded
+    if(!find_libaddr(env, library)){
+        return;
+    }
+    void *stubsaddr = find_libaddr(env, stubsLibrary);
+    if(!stubsaddr){
+        return;
+    }
+
+    int symbolsCount = (*env)->GetArrayLength(env, symbols);
+    JNINativeMethod *jniMethods = malloc(sizeof(JNINativeMethod) * symbolsCount);
+    char *err = NULL;
+
+    int i = 0;
+    for (; i < symbolsCount; i++) {
+        jstring stub = (jstring) (*env)->GetObjectArrayElement(env, stubs, i);
+        const char *stubstr = (*env)->GetStringUTFChars(env, stub, 0);
+
+        dlerror();
+        void *stubaddr = dlsym(stubsaddr, stubstr);
+        err = dlerror();
+        (*env)->ReleaseStringUTFChars(env, stub, stubstr);
+        if (err) {
+            break;
+        }
+
+        jstring symbol = (jstring) (*env)->GetObjectArrayElement(env, symbols, i);
+        jstring jniSignature = (jstring) (*env)->GetObjectArrayElement(env, jniSignatures, i);
+
+        jniMethods[i].name = (char *) (*env)->GetStringUTFChars(env, symbol, 0);
+        jniMethods[i].signature = (char *) (*env)->GetStringUTFChars(env, jniSignature, 0);
+        jniMethods[i].fnPtr = stubaddr;
+    }
+
+    if (i == symbolsCount) {
+        (*env)->RegisterNatives(env, headerClazz, jniMethods, symbolsCount);
+    }
+
+    //the names and signatures are only needed while registering
+    int linked = i;
+    for (i = 0; i < linked; i++) {
+        jstring symbol = (jstring) (*env)->GetObjectArrayElement(env, symbols, i);
+        jstring jniSignature = (jstring) (*env)->GetObjectArrayElement(env, jniSignatures, i);
+        (*env)->ReleaseStringUTFChars(env, symbol, jniMethods[i].name);
+        (*env)->ReleaseStringUTFChars(env, jniSignature, jniMethods[i].signature);
+        (*env)->DeleteLocalRef(env, symbol);
+        (*env)->DeleteLocalRef(env, jniSignature);
+    }
+    free(jniMethods);
+
+    if (err) {
+        throwError(env, "dlsym failed: %s\n", err);
+    }
 }
 
 JNIEXPORT
@@ -614,6 +945,130 @@ JNICALL Java_org_freedesktop_jaccall_JNI_ffi_1type_1struct_1size(JNIEnv *env, jc
     return (jint) struct_description->size;
 }
 
+JNIEXPORT
+jint
+JNICALL Java_org_freedesktop_jaccall_JNI_ffi_1type_1alignment(JNIEnv *env, jclass clazz,
+                                                                jlong ffi_type_address) {
+    ffi_type *type = (ffi_type *) (intptr_t) ffi_type_address;
+    return (jint) type->alignment;
+}
+
+JNIEXPORT
+jlongArray
+JNICALL Java_org_freedesktop_jaccall_JNI_ffi_1type_1elements(JNIEnv *env, jclass clazz,
+                                                               jlong ffi_type_address) {
+    ffi_type *type = (ffi_type *) (intptr_t) ffi_type_address;
+    if (type->type != FFI_TYPE_STRUCT) {
+        return NULL;
+    }
+
+    jsize nro_elements = 0;
+    while (type->elements[nro_elements]) {
+        nro_elements++;
+    }
+
+    jlongArray elements = (*env)->NewLongArray(env, nro_elements);
+    if (elements == NULL) {
+        return NULL;
+    }
+
+    jsize i = 0;
+    for (; i < nro_elements; i++) {
+        jlong element = (jlong) (intptr_t) type->elements[i];
+        (*env)->SetLongArrayRegion(env, elements, i, 1, &element);
+    }
+
+    return elements;
+}
+
+JNIEXPORT
+jlong
+JNICALL Java_org_freedesktop_jaccall_JNI_dlsym(JNIEnv *env, jclass clazz, jstring library, jstring symbol) {
+    void *libaddr = find_libaddr(env, library);
+    if (!libaddr) {
+        return 0;
+    }
+
+    const char *symstr = (*env)->GetStringUTFChars(env, symbol, 0);
+    void *symaddr = dlsym(libaddr, symstr);
+    char *err = dlerror();
+    (*env)->ReleaseStringUTFChars(env, symbol, symstr);
+    if (err) {
+        throwError(env, "dlsym failed: %s\n", err);
+        return 0;
+    }
+
+    return (jlong) (intptr_t) symaddr;
+}
+
+JNIEXPORT
+void
+JNICALL Java_org_freedesktop_jaccall_JNI_ffi_1call_1batch(JNIEnv *env, jclass clazz, jlong commands, jint count,
+                                                            jlong results) {
+    batch_call((const int64_t *) (intptr_t) commands, count, (int64_t *) (intptr_t) results);
+}
+
+JNIEXPORT
+jlong
+JNICALL Java_org_freedesktop_jaccall_JNI_async_1pool_1create(JNIEnv *env, jclass clazz, jobject executor, jint threads,
+                                                               jstring name) {
+    jclass executor_class = (*env)->GetObjectClass(env, executor);
+    jmethodID complete = (*env)->GetMethodID(env, executor_class, "complete", "(J)V");
+    if (!complete) {
+        return 0;
+    }
+
+    const char *name_str = (*env)->GetStringUTFChars(env, name, 0);
+    struct async_pool *pool = async_pool_create(env, executor, complete, threads, name_str);
+    (*env)->ReleaseStringUTFChars(env, name, name_str);
+    if (!pool) {
+        throwError(env, "Failed to start the native executor threads.\n");
+        return 0;
+    }
+
+    return (jlong) (intptr_t) pool;
+}
+
+JNIEXPORT
+void
+JNICALL Java_org_freedesktop_jaccall_JNI_async_1pool_1submit(JNIEnv *env, jclass clazz, jlong pool, jlong commands,
+                                                               jint count, jlong results, jlong id) {
+    async_pool_submit((struct async_pool *) (intptr_t) pool,
+                      (const int64_t *) (intptr_t) commands,
+                      count,
+                      (int64_t *) (intptr_t) results,
+                      id);
+}
+
+JNIEXPORT
+void
+JNICALL Java_org_freedesktop_jaccall_JNI_async_1pool_1destroy(JNIEnv *env, jclass clazz, jlong pool) {
+    async_pool_destroy(env, (struct async_pool *) (intptr_t) pool);
+}
+
+JNIEXPORT
+jlongArray
+JNICALL Java_org_freedesktop_jaccall_JNI_ffi_1cif_1types(JNIEnv *env, jclass clazz,
+                                                           jlong ffi_cif_address) {
+    ffi_cif *cif = (ffi_cif *) (intptr_t) ffi_cif_address;
+
+    jlongArray types = (*env)->NewLongArray(env, (jsize) cif->nargs + 1);
+    if (types == NULL) {
+        return NULL;
+    }
+
+    jlong rtype = (jlong) (intptr_t) cif->rtype;
+    (*env)->SetLongArrayRegion(env, types, 0, 1, &rtype);
+
+    jsize i = 0;
+    for (; i < (jsize) cif->nargs; i++) {
+        jlong arg_type = (jlong) (intptr_t) cif->arg_types[i];
+        (*env)->SetLongArrayRegion(env, types, i + 1, 1, &arg_type);
+    }
+
+    return types;
+}
+
 JNIEXPORT
 jlong
 JNICALL Java_org_freedesktop_jaccall_JNI_ffi_1callInterface(JNIEnv *env, jclass clazz,
@@ -638,38 +1093,74 @@ JNICALL Java_org_freedesktop_jaccall_JNI_ffi_1callInterface(JNIEnv *env, jclass
     return (jlong) (intptr_t) cif;
 }
 
+/*
+ * call handler for function pointers that return a struct by value and accept a struct by value as one of its arguments
+ */
 static
-void func_ptr_handler(ffi_cif *jni_cif, void *ret, void **jargs, void *user_data) {
+void func_ptr_handler_ret_by_value_arg_by_value(ffi_cif *jni_cif, void *ret, void **jargs, void *user_data) {
+    struct jni_call_data *call_data = user_data;
+
+    void *func_ptr = *((void **) jargs[2]);
 
-    ffi_cif *cif = user_data;
+    void **args = jargs + 3;
+    unpack_by_value_args(&call_data->plan, args);
+
+    memset(ret, 0, jni_cif->rtype->size);
+
+    //struct by value
+    void *rval = malloc(call_data->plan.rsize);
+    ffi_call(call_data->cif, FFI_FN(func_ptr), rval, args);
+    *((void **) ret) = rval;
+}
 
-    ffi_type **arg_types = cif->arg_types;
-    unsigned int nargs = cif->nargs;
-    ffi_type *rtype = cif->rtype;
+/*
+ * call handler for function pointers that return a struct by value but none of its arguments are by value
+ */
+static
+void func_ptr_handler_ret_by_value(ffi_cif *jni_cif, void *ret, void **jargs, void *user_data) {
+    struct jni_call_data *call_data = user_data;
 
     void *func_ptr = *((void **) jargs[2]);
 
-    void **args = nargs ? jargs + 3 : NULL;
+    void **args = call_data->plan.nargs ? jargs + 3 : NULL;
 
-    //TODO (optional speed improvement) analyse cif in advance and check for struct types, so we can avoid struct_type loops if not needed
-    int i = 0;
-    for (; i < nargs; i++) {
-        if (arg_types[i]->type == FFI_TYPE_STRUCT) {
-            //struct by value
-            args[i] = *((void **) args[i]);
-        }
-    }
+    memset(ret, 0, jni_cif->rtype->size);
+
+    //struct by value
+    void *rval = malloc(call_data->plan.rsize);
+    ffi_call(call_data->cif, FFI_FN(func_ptr), rval, args);
+    *((void **) ret) = rval;
+}
+
+/*
+ * call handler for function pointers that do not return a struct by value but accept a struct by value as one of its arguments
+ */
+static
+void func_ptr_handler_arg_by_value(ffi_cif *jni_cif, void *ret, void **jargs, void *user_data) {
+    struct jni_call_data *call_data = user_data;
+
+    void *func_ptr = *((void **) jargs[2]);
+
+    void **args = jargs + 3;
+    unpack_by_value_args(&call_data->plan, args);
 
     memset(ret, 0, jni_cif->rtype->size);
+    ffi_call(call_data->cif, FFI_FN(func_ptr), ret, args);
+}
 
-    if (rtype->type == FFI_TYPE_STRUCT) {
-        //struct by value
-        void *rval = malloc(rtype->size);
-        ffi_call(cif, FFI_FN(func_ptr), rval, args);
-        *((void **) ret) = rval;
-    } else {
-        ffi_call(cif, FFI_FN(func_ptr), ret, args);
-    }
+/*
+ * call handler for function pointers that do not return a struct by value and do not accept a struct by value as one of its arguments
+ */
+static
+void func_ptr_handler_no_by_value(ffi_cif *jni_cif, void *ret, void **jargs, void *user_data) {
+    struct jni_call_data *call_data = user_data;
+
+    void *func_ptr = *((void **) jargs[2]);
+
+    void **args = call_data->plan.nargs ? jargs + 3 : NULL;
+
+    memset(ret, 0, jni_cif->rtype->size);
+    ffi_call(call_data->cif, FFI_FN(func_ptr), ret, args);
 }
 
 static
@@ -688,7 +1179,29 @@ int create_func_ptr_closure(JNIEnv *env,
 
         prep_jni_cif(env, jni_cif, jni_sig, argSize);
 
-        ffi_status status = ffi_prep_closure_loc(closure, jni_cif, &func_ptr_handler, cif, jni_func);
+        struct jni_call_data *call_data = malloc(sizeof(struct jni_call_data));
+        call_data->cif = cif;
+        //the address of the function is passed as the first argument
+        call_data->symaddr = NULL;
+
+        void (*jni_call_handler) (ffi_cif *cif, void *ret, void **args, void *user_data);
+
+        switch(prep_call_plan(&call_data->plan, cif)){
+            case NO_BYVAL:
+                jni_call_handler = &func_ptr_handler_no_by_value;
+                break;
+            case ARG_BYVAL:
+                jni_call_handler = &func_ptr_handler_arg_by_value;
+                break;
+            case RET_BYVAL:
+                jni_call_handler = &func_ptr_handler_ret_by_value;
+                break;
+            case BYVAL:
+                jni_call_handler = &func_ptr_handler_ret_by_value_arg_by_value;
+                break;
+        }
+
+        ffi_status status = ffi_prep_closure_loc(closure, jni_cif, jni_call_handler, call_data, jni_func);
         if (status == FFI_OK) {
             jniMethods->name = (char *) symstr;
             jniMethods->signature = (char *) jni_sig;
@@ -727,106 +1240,448 @@ JNI_OnLoad(JavaVM *vm, void *reserved){
     return JNI_VERSION_1_6;
 }
 
-//TODO implement a func_ptr_handler for each specific arguments case (speed improvement)
+/*
+ * Attach configuration of native threads that call into java. By default a thread is attached for the duration of a
+ * single upcall. When attached threads are cached, a thread stays attached after its first upcall and is detached
+ * by the destructor of attached_env_key when the thread exits.
+ *
+ * A thread only holds attach_mutex to take a reference to the current configuration, so threads attach concurrently.
+ * A configuration that is replaced is kept in a retired list until no attaching thread refers to it anymore, and is
+ * freed by a later call to attachConfig, which can release its global group reference.
+ */
+struct attach_config {
+    int refs;
+    int cached;
+    int daemon;
+    char *name;
+    jobject group;
+    struct attach_config *next_retired;
+};
+
+static pthread_mutex_t attach_mutex = PTHREAD_MUTEX_INITIALIZER;
+static pthread_once_t attached_env_once = PTHREAD_ONCE_INIT;
+static pthread_key_t attached_env_key;
+static struct attach_config *attach_config = NULL;
+static struct attach_config *attach_retired = NULL;
+static volatile jlong attach_count = 0;
+
+static
+void detach_attached_env(void *attached_env) {
+    JNIEnv *env;
+    //the jvm might be gone or the thread detached by someone else
+    if ((*jvm)->GetEnv(jvm, (void **) &env, JNI_VERSION_1_6) == JNI_OK) {
+        (*jvm)->DetachCurrentThread(jvm);
+    }
+}
+
+static
+void create_attached_env_key(void) {
+    pthread_key_create(&attached_env_key, detach_attached_env);
+}
+
 static
+void free_attach_config(JNIEnv *env, struct attach_config *config) {
+    if (config->group) {
+        (*env)->DeleteGlobalRef(env, config->group);
+    }
+    free(config->name);
+    free(config);
+}
+
+JNIEXPORT
 void
-java_func_ptr_handler(ffi_cif *jni_cif, void *ret, void **jargs, void *user_data) {
+JNICALL Java_org_freedesktop_jaccall_JNI_attachConfig(JNIEnv *env, jclass clazz, jboolean cached, jboolean daemon,
+                                                        jstring name, jobject group) {
+    pthread_once(&attached_env_once, create_attached_env_key);
+
+    struct attach_config *config = calloc(1, sizeof(struct attach_config));
+    config->cached = cached;
+    config->daemon = daemon;
+    if (name) {
+        const char *namestr = (*env)->GetStringUTFChars(env, name, 0);
+        config->name = strdup(namestr);
+        (*env)->ReleaseStringUTFChars(env, name, namestr);
+    }
+    if (group) {
+        config->group = (*env)->NewGlobalRef(env, group);
+    }
 
-    struct java_call_data* call_data = user_data;
-    JNIEnv * env;
+    pthread_mutex_lock(&attach_mutex);
 
-    const int getEnvStat = (*jvm)->GetEnv(jvm, (void **)&env, JNI_VERSION_1_6);
-    if (getEnvStat == JNI_EDETACHED) {
-        if ((*jvm)->AttachCurrentThread(jvm, (void **) &env, NULL) != 0) {
+    if (attach_config) {
+        attach_config->next_retired = attach_retired;
+        attach_retired = attach_config;
+    }
+    attach_config = config;
+
+    //unlink the retired configurations that no thread is attaching with
+    struct attach_config *unused = NULL;
+    struct attach_config **retired = &attach_retired;
+    while (*retired) {
+        struct attach_config *next = *retired;
+        if (next->refs == 0) {
+            *retired = next->next_retired;
+            next->next_retired = unused;
+            unused = next;
+        } else {
+            retired = &next->next_retired;
+        }
+    }
+
+    pthread_mutex_unlock(&attach_mutex);
+
+    while (unused) {
+        struct attach_config *next = unused->next_retired;
+        free_attach_config(env, unused);
+        unused = next;
+    }
+}
+
+JNIEXPORT
+jlong
+JNICALL Java_org_freedesktop_jaccall_JNI_attachCount(JNIEnv *env, jclass clazz) {
+    return __sync_add_and_fetch(&attach_count, 0);
+}
+
+static
+jint attach_current_thread(JNIEnv **env, int *cached) {
+    jint ret;
+    char name[64];
+    JavaVMAttachArgs args;
+
+    //only take a reference under the lock, attaching can take a while
+    pthread_mutex_lock(&attach_mutex);
+    struct attach_config *config = attach_config;
+    if (config) {
+        config->refs++;
+    }
+    pthread_mutex_unlock(&attach_mutex);
+
+    jlong count = __sync_add_and_fetch(&attach_count, 1);
+    args.version = JNI_VERSION_1_6;
+    args.name = NULL;
+    args.group = NULL;
+    *cached = 0;
+    if (config) {
+        if (config->name) {
+            snprintf(name, sizeof(name), "%s-%lld", config->name, (long long) count);
+            args.name = name;
+        }
+        args.group = config->group;
+        *cached = config->cached;
+    }
+
+    if (config && config->daemon) {
+        ret = (*jvm)->AttachCurrentThreadAsDaemon(jvm, (void **) env, &args);
+    } else {
+        ret = (*jvm)->AttachCurrentThread(jvm, (void **) env, &args);
+    }
+
+    if (config) {
+        pthread_mutex_lock(&attach_mutex);
+        config->refs--;
+        pthread_mutex_unlock(&attach_mutex);
+    }
+
+    return ret;
+}
+
+/*
+ * get the JNIEnv of the current thread, attaching it to the jvm if needed
+ */
+static inline
+JNIEnv *java_call_enter(int *getEnvStat) {
+    JNIEnv *env;
+
+    *getEnvStat = (*jvm)->GetEnv(jvm, (void **)&env, JNI_VERSION_1_6);
+    if (*getEnvStat == JNI_EDETACHED) {
+        int cached;
+        if (attach_current_thread(&env, &cached) != 0) {
                 throwError(env, "Failed to attach java thread in native context.");
-                return;
+                return NULL;
+        }
+        if (cached) {
+            //keep the thread attached until it exits
+            pthread_setspecific(attached_env_key, env);
+            *getEnvStat = JNI_OK;
         }
-    } else if (getEnvStat == JNI_EVERSION) {
+    } else if (*getEnvStat == JNI_EVERSION) {
         throwError(env, "GetEnv: version not supported.");
-        return;
+        return NULL;
     }
 
-    //TODO (optional speed improvement) analyse cif in advance and check for struct types, so we can avoid this loop if not needed
-    unsigned int nargs = jni_cif->nargs;
-    jvalue arguments[nargs];
-    int i = 0;
-    for(; i < nargs; i++){
+    return env;
+}
+
+/*
+ * report any pending java exception and detach the current thread if it was attached by java_call_enter for this call
+ * only
+ */
+static inline
+void java_call_leave(JNIEnv *env, int getEnvStat) {
+    if ((*env)->ExceptionCheck(env)) {
+        (*env)->ExceptionDescribe(env);
+    }
+
+    if (getEnvStat == JNI_EDETACHED) {
+        (*jvm)->DetachCurrentThread(jvm);
+    }
+}
+
+/*
+ * convert the native arguments to java arguments, struct by value arguments are passed as their address
+ */
+static inline
+void java_call_args(const struct call_plan *plan, void **jargs, jvalue *arguments) {
+    unsigned int byval = 0;
+    unsigned int i = 0;
+    for (; i < plan->nargs; i++) {
         //TODO cast to the correct *native* pointer type or we risk reading too much data when dereferencing(?).
-        if(jni_cif->arg_types[i]->type == FFI_TYPE_STRUCT){
+        if (byval < plan->nbyval && plan->byval[byval] == i) {
             arguments[i].j = (jlong)(intptr_t)jargs[i];
+            byval++;
         } else {
             arguments[i] = *((jvalue*)jargs[i]);
         }
     }
+}
+
+/*
+ * get a local reference to the java object of a closure, it is published by java_closure_bind which can run on another
+ * thread. The global reference is pinned while the local reference is taken, so java_closure_bind can not delete it in
+ * between. Throw an error and return NULL if the closure is not bound to an object.
+ */
+static inline
+jobject java_call_object(JNIEnv *env, struct java_call_data *call_data) {
+    __atomic_add_fetch(&call_data->pinning, 1, __ATOMIC_SEQ_CST);
+    jobject object = __atomic_load_n(&call_data->object, __ATOMIC_SEQ_CST);
+    jobject local = object ? (*env)->NewLocalRef(env, object) : NULL;
+    __atomic_sub_fetch(&call_data->pinning, 1, __ATOMIC_SEQ_CST);
+
+    if (!local) {
+        throwError(env, "Function pointer was called after it was closed.");
+    }
+    return local;
+}
+
+/*
+ * wait until no call is taking a local reference to the old object of a closure. The wait is short, the object is only
+ * pinned while a local reference is created and never during the call itself.
+ */
+static inline
+void java_call_unpinned(struct java_call_data *call_data) {
+    while (__atomic_load_n(&call_data->pinning, __ATOMIC_SEQ_CST)) {
+        sched_yield();
+    }
+}
+
+/*
+ * define a call handler for java methods that return a primitive type
+ */
+#define JAVA_FUNC_PTR_HANDLER(name, jtype, call)                                                    \
+static                                                                                              \
+void                                                                                                \
+java_func_ptr_handler_##name(ffi_cif *jni_cif, void *ret, void **jargs, void *user_data) {          \
+    struct java_call_data* call_data = user_data;                                                   \
+    int getEnvStat;                                                                                 \
+    JNIEnv *env = java_call_enter(&getEnvStat);                                                     \
+    if (!env) {                                                                                     \
+        return;                                                                                     \
+    }                                                                                               \
+                                                                                                    \
+    jobject object = java_call_object(env, call_data);                                              \
+    if (object) {                                                                                   \
+        jvalue arguments[call_data->plan.nargs];                                                    \
+        java_call_args(&call_data->plan, jargs, arguments);                                         \
+        *((jtype*)ret) = (*env)->call(env, object, call_data->mid, arguments);                      \
+        (*env)->DeleteLocalRef(env, object);                                                        \
+    } else {                                                                                        \
+        *((jtype*)ret) = 0;                                                                         \
+    }                                                                                               \
+                                                                                                    \
+    java_call_leave(env, getEnvStat);                                                               \
+}
+
+JAVA_FUNC_PTR_HANDLER(byte, jbyte, CallByteMethodA)
+JAVA_FUNC_PTR_HANDLER(short, jshort, CallShortMethodA)
+JAVA_FUNC_PTR_HANDLER(int, jint, CallIntMethodA)
+JAVA_FUNC_PTR_HANDLER(long, jlong, CallLongMethodA)
+JAVA_FUNC_PTR_HANDLER(float, jfloat, CallFloatMethodA)
+JAVA_FUNC_PTR_HANDLER(double, jdouble, CallDoubleMethodA)
+
+/*
+ * call handler for java methods that do not return a value
+ */
+static
+void
+java_func_ptr_handler_void(ffi_cif *jni_cif, void *ret, void **jargs, void *user_data) {
+    struct java_call_data* call_data = user_data;
+    int getEnvStat;
+    JNIEnv *env = java_call_enter(&getEnvStat);
+    if (!env) {
+        return;
+    }
+
+    jobject object = java_call_object(env, call_data);
+    if (object) {
+        jvalue arguments[call_data->plan.nargs];
+        java_call_args(&call_data->plan, jargs, arguments);
+        (*env)->CallVoidMethodA(env, object, call_data->mid, arguments);
+        (*env)->DeleteLocalRef(env, object);
+    }
+
+    java_call_leave(env, getEnvStat);
+}
+
+/*
+ * call handler for java methods that return a struct by value
+ */
+static
+void
+java_func_ptr_handler_struct(ffi_cif *jni_cif, void *ret, void **jargs, void *user_data) {
+    struct java_call_data* call_data = user_data;
+    int getEnvStat;
+    JNIEnv *env = java_call_enter(&getEnvStat);
+    if (!env) {
+        return;
+    }
+
+    jobject object = java_call_object(env, call_data);
+    if (object) {
+        jvalue arguments[call_data->plan.nargs];
+        java_call_args(&call_data->plan, jargs, arguments);
+        memcpy(ret, (void *)(intptr_t)(*env)->CallLongMethodA(env, object, call_data->mid, arguments), call_data->plan.rsize);
+        (*env)->DeleteLocalRef(env, object);
+    } else {
+        memset(ret, 0, call_data->plan.rsize);
+    }
+
+    java_call_leave(env, getEnvStat);
+}
 
-    //TODO (optional speed improvement) analyse cif in advance and avoid this switch, instead use a different java_func_ptr_handler implementation
-    switch(jni_cif->rtype->type) {
+JNIEXPORT
+void
+JNICALL Java_org_freedesktop_jaccall_JNI_java_1closure_1free(JNIEnv *env, jclass clazz, jlong closure);
+
+/*
+ * create a closure that calls the java method with the given id on the given object, return NULL and throw an error if
+ * the closure could not be created
+ */
+static
+struct java_call_data *create_java_closure(JNIEnv *env, ffi_cif *target_cif, jobject object, jmethodID mid) {
+    void *target_func;
+    ffi_closure *closure = ffi_closure_alloc(sizeof(ffi_closure), &target_func);
+    if (!closure) {
+       throwError(env, "ffi_closure_alloc failed\n");
+       return NULL;
+    }
+
+    struct java_call_data *java_call = malloc(sizeof(struct java_call_data));
+    java_call->object = object ? (*env)->NewGlobalRef(env, object) : NULL;
+    java_call->pinning = 0;
+    java_call->mid = mid;
+    java_call->closure = closure;
+    java_call->code = target_func;
+    prep_call_plan(&java_call->plan, target_cif);
+
+    void (*java_call_handler) (ffi_cif *cif, void *ret, void **args, void *user_data);
+
+    switch(target_cif->rtype->type) {
         case FFI_TYPE_POINTER:
         case FFI_TYPE_UINT64:
         case FFI_TYPE_SINT64:
-            *((jlong*)ret) = (*env)->CallLongMethodA(env, call_data->object, call_data->mid, arguments);
-            break;
-        case FFI_TYPE_VOID:
-            (*env)->CallVoidMethodA(env, call_data->object, call_data->mid, arguments);
+            java_call_handler = &java_func_ptr_handler_long;
             break;
         case FFI_TYPE_UINT8:
         case FFI_TYPE_SINT8:
-            *((jbyte*)ret) = (*env)->CallByteMethodA(env, call_data->object, call_data->mid, arguments);
+            java_call_handler = &java_func_ptr_handler_byte;
             break;
         case FFI_TYPE_UINT16:
         case FFI_TYPE_SINT16:
-            *((jshort*)ret) = (*env)->CallShortMethodA(env, call_data->object, call_data->mid, arguments);
+            java_call_handler = &java_func_ptr_handler_short;
             break;
         case FFI_TYPE_INT:
         case FFI_TYPE_UINT32:
         case FFI_TYPE_SINT32:
-            *((jint*)ret) = (*env)->CallIntMethodA(env, call_data->object, call_data->mid, arguments);
+            java_call_handler = &java_func_ptr_handler_int;
             break;
         case FFI_TYPE_FLOAT:
-            *((jfloat*)ret) = (*env)->CallFloatMethodA(env, call_data->object, call_data->mid, arguments);
+            java_call_handler = &java_func_ptr_handler_float;
             break;
         case FFI_TYPE_DOUBLE:
-            *((jdouble*)ret) = (*env)->CallDoubleMethodA(env, call_data->object, call_data->mid, arguments);
+            java_call_handler = &java_func_ptr_handler_double;
             break;
-        case FFI_TYPE_STRUCT: {
-            memcpy(ret, (void *)(intptr_t)(*env)->CallLongMethodA(env, call_data->object, call_data->mid, arguments), jni_cif->rtype->size );
+        case FFI_TYPE_STRUCT:
+            java_call_handler = &java_func_ptr_handler_struct;
+            break;
+        case FFI_TYPE_VOID:
+        default:
+            java_call_handler = &java_func_ptr_handler_void;
             break;
-        }
     }
 
-    if ((*env)->ExceptionCheck(env)) {
-        (*env)->ExceptionDescribe(env);
+    ffi_status status = ffi_prep_closure_loc(closure, target_cif, java_call_handler, java_call, target_func);
+    if (status != FFI_OK) {
+        Java_org_freedesktop_jaccall_JNI_java_1closure_1free(env, NULL, (jlong)(intptr_t) java_call);
+        throwError(env, "ffi_prep_closure_loc failed: %d\n", status);
+        return NULL;
     }
 
-    if (getEnvStat == JNI_EDETACHED) {
-        (*jvm)->DetachCurrentThread(jvm);
-    }
+    return java_call;
 }
 
 JNIEXPORT
 jlong
 JNICALL Java_org_freedesktop_jaccall_JNI_ffi_1closure(JNIEnv *env, jclass clazz, jlong cif, jobject object, jlong methodId) {
-    ffi_cif *target_cif = (ffi_cif*)(intptr_t)cif;
+    struct java_call_data *java_call = create_java_closure(env,
+                                                           (ffi_cif*)(intptr_t)cif,
+                                                           object,
+                                                           (jmethodID)(intptr_t) methodId);
+    return java_call ? (jlong)(intptr_t)java_call->code : 0;
+}
 
-    void *target_func;
-    ffi_closure *closure = ffi_closure_alloc(sizeof(ffi_closure), &target_func);
-    if (closure) {
-        struct java_call_data *java_call = malloc(sizeof(struct java_call_data));
-        java_call->object = (*env)->NewGlobalRef(env, object);
-        java_call->mid = (jmethodID)(intptr_t) methodId;
+JNIEXPORT
+jlong
+JNICALL Java_org_freedesktop_jaccall_JNI_java_1closure(JNIEnv *env, jclass clazz, jlong cif, jobject object, jlong methodId) {
+    return (jlong)(intptr_t) create_java_closure(env,
+                                                 (ffi_cif*)(intptr_t)cif,
+                                                 object,
+                                                 (jmethodID)(intptr_t) methodId);
+}
 
-        ffi_status status = ffi_prep_closure_loc(closure, target_cif, &java_func_ptr_handler, java_call, target_func);
-        if (status != FFI_OK) {
-            throwError(env, "ffi_prep_closure_loc failed: %d\n", status);
-            return 0;
-        }
-    }
-    else {
-       throwError(env, "ffi_closure_alloc failed\n");
-       return 0;
+JNIEXPORT
+jlong
+JNICALL Java_org_freedesktop_jaccall_JNI_java_1closure_1code(JNIEnv *env, jclass clazz, jlong closure) {
+    struct java_call_data *java_call = (struct java_call_data *)(intptr_t) closure;
+    return (jlong)(intptr_t) java_call->code;
+}
+
+JNIEXPORT
+void
+JNICALL Java_org_freedesktop_jaccall_JNI_java_1closure_1bind(JNIEnv *env, jclass clazz, jlong closure, jobject object) {
+    struct java_call_data *java_call = (struct java_call_data *)(intptr_t) closure;
+    //publish the new object to threads that call the closure, it must not be called with the old object anymore
+    jobject old = __atomic_exchange_n(&java_call->object,
+                                      object ? (*env)->NewGlobalRef(env, object) : NULL,
+                                      __ATOMIC_SEQ_CST);
+    if (old) {
+        //calls that started before the exchange can still be taking a local reference to the old object
+        java_call_unpinned(java_call);
+        (*env)->DeleteGlobalRef(env, old);
     }
+}
 
-    return (jlong)(intptr_t)target_func;
+JNIEXPORT
+void
+JNICALL Java_org_freedesktop_jaccall_JNI_java_1closure_1free(JNIEnv *env, jclass clazz, jlong closure) {
+    struct java_call_data *java_call = (struct java_call_data *)(intptr_t) closure;
+    if (java_call->object) {
+        java_call_unpinned(java_call);
+        (*env)->DeleteGlobalRef(env, java_call->object);
+    }
+    ffi_closure_free(java_call->closure);
+    free(java_call->plan.byval);
+    free(java_call);
 }
 
 JNIEXPORT
@@ -920,26 +1775,81 @@ JNICALL Java_org_freedesktop_jaccall_JNI_doubleAlignment(JNIEnv *env, jclass cla
 
 /*
  * Class:     org_freedesktop_jaccall_JNI
- * Method:    getString
- * Signature: (JI)Ljava/lang/String{   }
+ * Method:    mmap
+ * Signature: (JJJI)J
  */
 JNIEXPORT
-jstring
-JNICALL Java_org_freedesktop_jaccall_JNI_getString(JNIEnv *env, jclass clazz, jlong address, jint index){
-    return (*env)->NewStringUTF(env, (const char *)(intptr_t)address);
+jlong
+JNICALL Java_org_freedesktop_jaccall_JNI_mmap(JNIEnv *env, jclass clazz, jlong path, jlong offset, jlong length, jint mode){
+    //0 is read only, 1 is read write, 2 is a private copy on write mapping
+    int open_flags = mode == 1 ? O_RDWR : O_RDONLY;
+    int prot = mode == 0 ? PROT_READ : PROT_READ | PROT_WRITE;
+    int map_flags = mode == 2 ? MAP_PRIVATE : MAP_SHARED;
+
+    int fd = open((const char *)(intptr_t)path, open_flags);
+    if (fd == -1) {
+        throwIOException(env, "open failed: %s", strerror(errno));
+        return 0;
+    }
+
+    void *address = mmap(NULL, (size_t)length, prot, map_flags, fd, (off_t)offset);
+    //the mapping keeps its own reference to the file
+    close(fd);
+    if (address == MAP_FAILED) {
+        throwIOException(env, "mmap failed: %s", strerror(errno));
+        return 0;
+    }
+
+    return (jlong)(intptr_t)address;
+}
+
+/*
+ * Class:     org_freedesktop_jaccall_JNI
+ * Method:    munmap
+ * Signature: (JJ)V
+ */
+JNIEXPORT
+void
+JNICALL Java_org_freedesktop_jaccall_JNI_munmap(JNIEnv *env, jclass clazz, jlong address, jlong length){
+    munmap((void*)(intptr_t)address, (size_t)length);
+}
+
+/*
+ * Class:     org_freedesktop_jaccall_JNI
+ * Method:    msync
+ * Signature: (JJ)V
+ */
+JNIEXPORT
+void
+JNICALL Java_org_freedesktop_jaccall_JNI_msync(JNIEnv *env, jclass clazz, jlong address, jlong length){
+    if (msync((void*)(intptr_t)address, (size_t)length, MS_SYNC) == -1) {
+        throwIOException(env, "msync failed: %s", strerror(errno));
+    }
 }
 
 /*
  * Class:     org_freedesktop_jaccall_JNI
- * Method:    writeString
- * Signature: (JILjava/lang/String{   })V
+ * Method:    madvise
+ * Signature: (JJI)V
  */
 JNIEXPORT
 void
-JNICALL Java_org_freedesktop_jaccall_JNI_setString(JNIEnv *env, jclass clazz, jlong address, jint index, jstring value){
-    //TODO check for NULL array in case of oom
-    const char *array = (*env)->GetStringUTFChars(env, value, 0);
-    jsize length = (*env)->GetStringUTFLength(env, value);
-    memcpy(((void*)(intptr_t)address)+index, (void*) array, (size_t)length+1);
-    (*env)->ReleaseStringUTFChars(env, value, array);
-}
\ No newline at end of file
+JNICALL Java_org_freedesktop_jaccall_JNI_madvise(JNIEnv *env, jclass clazz, jlong address, jlong length, jint advice){
+    //advice is the ordinal of org.freedesktop.jaccall.Advice
+    static const int advices[] = { MADV_NORMAL, MADV_SEQUENTIAL, MADV_RANDOM, MADV_WILLNEED, MADV_DONTNEED };
+
+    if (madvise((void*)(intptr_t)address, (size_t)length, advices[advice]) == -1) {
+        throwIOException(env, "madvise failed: %s", strerror(errno));
+    }
+}
+
+/*
+ * Class:     org_freedesktop_jaccall_JNI
+ * Method:    NewDirectByteBuffer
+ * Signature: (JJ)Ljava/nio/ByteBuffer;
+ */
+JNIEXPORT
+jobject
+JNICALL Java_org_freedesktop_jaccall_JNI_NewDirectByteBuffer(JNIEnv *env, jclass clazz, jlong address, jlong capacity){
+    return (*env)->NewDirectByteBuffer(env, (void*)(intptr_t)address, capacity);
+}
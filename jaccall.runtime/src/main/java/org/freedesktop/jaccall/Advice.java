@@ -0,0 +1,31 @@
+package org.freedesktop.jaccall;
+
+/**
+ * How memory mapped with {@link Pointer#mmap(java.nio.file.Path, long, long, java.nio.channels.FileChannel.MapMode, Class)}
+ * is going to be accessed, so the system can read ahead or drop pages accordingly.
+ *
+ * @see Pointer#madvise(long, Advice)
+ */
+public enum Advice {
+    /**
+     * No special treatment, {@code MADV_NORMAL}.
+     */
+    NORMAL,
+    /**
+     * Pages are accessed in order, read ahead aggressively and drop pages soon after they are read,
+     * {@code MADV_SEQUENTIAL}.
+     */
+    SEQUENTIAL,
+    /**
+     * Pages are accessed in random order, do not read ahead, {@code MADV_RANDOM}.
+     */
+    RANDOM,
+    /**
+     * Pages are accessed soon, read them ahead, {@code MADV_WILLNEED}.
+     */
+    WILLNEED,
+    /**
+     * Pages are not accessed soon, drop them, {@code MADV_DONTNEED}.
+     */
+    DONTNEED
+}
@@ -0,0 +1,428 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps track of live native allocations made by jaccall, grouped by call site. A call site is the allocation stack,
+ * starting at the first frame outside of jaccall, together with the type of the object that owns the memory.
+ * <p>
+ * Tracking is enabled by setting the {@code JACCALL_ALLOCATION_TRACKING} environment variable to {@code true}.
+ * Capturing a stack is expensive, so {@code JACCALL_ALLOCATION_SAMPLING} can be set to {@code n} to only track one out
+ * of every {@code n} allocations on average. All numbers reported by the tracker are numbers of tracked allocations.
+ * <p>
+ * When tracking is enabled, the tracker is also registered as the {@code org.freedesktop.jaccall:type=AllocationTracker}
+ * MXBean.
+ * <p>
+ * Tracked are the memory of {@code Pointer.malloc(..)}, {@code Pointer.calloc(..)}, {@code Pointer.nref(..)}, structs,
+ * arenas, frames and memory mapped files, and the global references of {@code Pointer.from(..)}. Memory that is
+ * allocated by native code, like a struct returned by value, can be tracked with {@link #track(long, long, Class)}.
+ */
+public final class AllocationTracker {
+
+    private static final Logger LOGGER = Logger.getLogger("jaccall");
+
+    static final boolean ENABLED         = ConfigVariables.JACCALL_ALLOCATION_TRACKING;
+    static final int     SAMPLE_INTERVAL = sampleInterval(ConfigVariables.JACCALL_ALLOCATION_SAMPLING);
+
+    static final String OBJECT_NAME = "org.freedesktop.jaccall:type=AllocationTracker";
+
+    private static final int STACK_DEPTH = 16;
+
+    /**
+     * The jaccall classes that allocate memory, or that call them on behalf of the caller. Their frames are not part
+     * of a call site.
+     */
+    private static final Set<String> INTERNAL_CLASSES = new HashSet<>(Arrays.asList(AllocationTracker.class.getName(),
+                                                                                    Arena.class.getName(),
+                                                                                    Frame.class.getName(),
+                                                                                    Pointer.class.getName(),
+                                                                                    PointerCursor.class.getName(),
+                                                                                    PointerStruct.class.getName(),
+                                                                                    PointerStructFactory.class.getName(),
+                                                                                    SlabPool.class.getName(),
+                                                                                    StructFactory.class.getName(),
+                                                                                    StructType.class.getName()));
+
+    private static final ConcurrentMap<Long, Allocation>      LIVE       = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, CallSiteStats> CALL_SITES = new ConcurrentHashMap<>();
+
+    static {
+        if (ENABLED) {
+            registerMXBean();
+        }
+    }
+
+    private AllocationTracker() {
+    }
+
+    private static int sampleInterval(final String sampling) {
+        if (sampling == null) {
+            return 1;
+        }
+        try {
+            return Math.max(1,
+                            Integer.parseInt(sampling));
+        }
+        catch (final NumberFormatException e) {
+            LOGGER.warning(String.format("JACCALL_ALLOCATION_SAMPLING=%s is not a number, tracking every allocation.",
+                                         sampling));
+            return 1;
+        }
+    }
+
+    static void registerMXBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                             .registerMBean(new MXBean(),
+                                            new ObjectName(OBJECT_NAME));
+        }
+        catch (InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException | MalformedObjectNameException e) {
+            LOGGER.log(Level.WARNING,
+                       "Failed to register the allocation tracker MXBean.",
+                       e);
+        }
+    }
+
+    /**
+     * Track native memory that was not allocated by jaccall. The memory is no longer tracked once it is freed by
+     * jaccall, e.g. with {@link Pointer#close()}. Does nothing if tracking is not enabled.
+     *
+     * @param address the address of the memory.
+     * @param bytes   the size of the memory.
+     * @param owner   the type of the object that owns the memory.
+     */
+    public static void track(final long address,
+                             @Nonnegative final long bytes,
+                             @Nonnull final Class<?> owner) {
+        allocated(address,
+                  bytes,
+                  owner);
+    }
+
+    /**
+     * Hook for every native allocation, cheap if tracking is not enabled.
+     */
+    static void allocated(final long address,
+                          final long bytes,
+                          @Nonnull final Class<?> owner) {
+        if (ENABLED && (SAMPLE_INTERVAL == 1 || ThreadLocalRandom.current()
+                                                                 .nextInt(SAMPLE_INTERVAL) == 0)) {
+            record(address,
+                   bytes,
+                   owner.getName());
+        }
+    }
+
+    /**
+     * Hook for every native release, cheap if tracking is not enabled.
+     */
+    static void freed(final long address) {
+        if (ENABLED) {
+            release(address);
+        }
+    }
+
+    static void record(final long address,
+                       final long bytes,
+                       @Nonnull final String owner) {
+        final StackTraceElement[] stackTrace = callerStackTrace();
+        final StringBuilder       key        = new StringBuilder(owner);
+        for (final StackTraceElement element : stackTrace) {
+            key.append('\n')
+               .append(element);
+        }
+        //counted while the call site is locked, so it can not be removed concurrently, see Allocation.release()
+        final CallSiteStats callSite = CALL_SITES.compute(key.toString(),
+                                                          (k, stats) -> (stats == null ? new CallSiteStats(k,
+                                                                                                           owner,
+                                                                                                           stackTrace) : stats).allocated(bytes));
+
+        final Allocation previous = LIVE.put(address,
+                                             new Allocation(callSite,
+                                                            bytes));
+        if (previous != null) {
+            //freed behind our back, e.g. by native code
+            previous.release();
+        }
+    }
+
+    static void release(final long address) {
+        final Allocation allocation = LIVE.remove(address);
+        if (allocation != null) {
+            allocation.release();
+        }
+    }
+
+    private static StackTraceElement[] callerStackTrace() {
+        final StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+        int                       first      = 0;
+        while (first < stackTrace.length - 1 && isInternal(stackTrace[first].getClassName())) {
+            first++;
+        }
+        return Arrays.copyOfRange(stackTrace,
+                                  first,
+                                  Math.min(stackTrace.length,
+                                           first + STACK_DEPTH));
+    }
+
+    private static boolean isInternal(final String className) {
+        //nested classes and lambdas belong to their top level class
+        final int nested = className.indexOf('$');
+        return INTERNAL_CLASSES.contains(nested < 0 ? className : className.substring(0,
+                                                                                       nested));
+    }
+
+    /**
+     * @return the number of tracked allocations that are not freed.
+     */
+    public static long liveCount() {
+        return LIVE.size();
+    }
+
+    /**
+     * @return the size in bytes of tracked allocations that are not freed.
+     */
+    public static long liveBytes() {
+        long liveBytes = 0L;
+        for (final Allocation allocation : LIVE.values()) {
+            liveBytes += allocation.bytes;
+        }
+        return liveBytes;
+    }
+
+    /**
+     * @return the number of call sites that are kept.
+     */
+    static int callSiteCount() {
+        return CALL_SITES.size();
+    }
+
+    /**
+     * @return the call sites with live allocations, most live bytes first.
+     */
+    @Nonnull
+    public static List<CallSite> callSites() {
+        final List<CallSite> callSites = new ArrayList<>();
+        for (final CallSiteStats stats : CALL_SITES.values()) {
+            final long liveCount = stats.liveCount.sum();
+            if (liveCount > 0) {
+                callSites.add(new CallSite(stats.owner,
+                                           stats.stackTrace,
+                                           liveCount,
+                                           stats.liveBytes.sum(),
+                                           stats.allocated.sum()));
+            }
+        }
+        callSites.sort((left, right) -> Long.compare(right.liveBytes,
+                                                     left.liveBytes));
+        return callSites;
+    }
+
+    /**
+     * @return a human readable report of all call sites with live allocations, most live bytes first.
+     */
+    @Nonnull
+    public static String leakReport() {
+        final List<CallSite> callSites = callSites();
+        final StringBuilder report = new StringBuilder(String.format("%d live allocations, %d bytes, in %d call sites, sampling 1/%d%n",
+                                                                     liveCount(),
+                                                                     liveBytes(),
+                                                                     callSites.size(),
+                                                                     SAMPLE_INTERVAL));
+        for (final CallSite callSite : callSites) {
+            report.append(String.format("%n%d bytes in %d of %d allocations of %s%n",
+                                        callSite.liveBytes,
+                                        callSite.liveCount,
+                                        callSite.allocatedCount,
+                                        callSite.owner));
+            for (final StackTraceElement element : callSite.stackTrace) {
+                report.append("\tat ")
+                      .append(element)
+                      .append(System.lineSeparator());
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Live allocations of a single call site.
+     */
+    public static final class CallSite {
+        private final String                  owner;
+        private final List<StackTraceElement> stackTrace;
+        private final long                    liveCount;
+        private final long                    liveBytes;
+        private final long                    allocatedCount;
+
+        private CallSite(final String owner,
+                         final StackTraceElement[] stackTrace,
+                         final long liveCount,
+                         final long liveBytes,
+                         final long allocatedCount) {
+            this.owner = owner;
+            this.stackTrace = Collections.unmodifiableList(Arrays.asList(stackTrace));
+            this.liveCount = liveCount;
+            this.liveBytes = liveBytes;
+            this.allocatedCount = allocatedCount;
+        }
+
+        /**
+         * @return the name of the type of the object that owns the memory.
+         */
+        @Nonnull
+        public String owner() {
+            return this.owner;
+        }
+
+        /**
+         * @return the allocation stack, starting at the first frame outside of jaccall.
+         */
+        @Nonnull
+        public List<StackTraceElement> stackTrace() {
+            return this.stackTrace;
+        }
+
+        /**
+         * @return the number of tracked allocations that are not freed.
+         */
+        public long liveCount() {
+            return this.liveCount;
+        }
+
+        /**
+         * @return the size in bytes of tracked allocations that are not freed.
+         */
+        public long liveBytes() {
+            return this.liveBytes;
+        }
+
+        /**
+         * @return the number of tracked allocations, freed or not, since the call site last had live allocations.
+         */
+        public long allocatedCount() {
+            return this.allocatedCount;
+        }
+
+        @Override
+        public String toString() {
+            return this.liveBytes + " bytes in " + this.liveCount + " allocations of " + this.owner + (this.stackTrace.isEmpty() ? "" : " at " + this.stackTrace.get(0));
+        }
+    }
+
+    /**
+     * The allocation tracker as seen through JMX.
+     */
+    public interface AllocationTrackerMXBean {
+        long getLiveCount();
+
+        long getLiveBytes();
+
+        int getSampleInterval();
+
+        /**
+         * @return a one line summary of every call site with live allocations, most live bytes first.
+         */
+        String[] getCallSites();
+
+        String leakReport();
+    }
+
+    private static final class MXBean implements AllocationTrackerMXBean {
+        @Override
+        public long getLiveCount() {
+            return liveCount();
+        }
+
+        @Override
+        public long getLiveBytes() {
+            return liveBytes();
+        }
+
+        @Override
+        public int getSampleInterval() {
+            return SAMPLE_INTERVAL;
+        }
+
+        @Override
+        public String[] getCallSites() {
+            final List<CallSite> callSites = callSites();
+            final String[]       summaries = new String[callSites.size()];
+            for (int i = 0; i < summaries.length; i++) {
+                summaries[i] = callSites.get(i)
+                                        .toString();
+            }
+            return summaries;
+        }
+
+        @Override
+        public String leakReport() {
+            return AllocationTracker.leakReport();
+        }
+    }
+
+    private static final class CallSiteStats {
+        private final LongAdder allocated = new LongAdder();
+        private final LongAdder liveCount = new LongAdder();
+        private final LongAdder liveBytes = new LongAdder();
+
+        private final String              key;
+        private final String              owner;
+        private final StackTraceElement[] stackTrace;
+
+        private CallSiteStats(final String key,
+                              final String owner,
+                              final StackTraceElement[] stackTrace) {
+            this.key = key;
+            this.owner = owner;
+            this.stackTrace = stackTrace;
+        }
+
+        private CallSiteStats allocated(final long bytes) {
+            this.allocated.increment();
+            this.liveCount.increment();
+            this.liveBytes.add(bytes);
+            return this;
+        }
+    }
+
+    private static final class Allocation {
+        private final CallSiteStats callSite;
+        private final long          bytes;
+
+        private Allocation(final CallSiteStats callSite,
+                           final long bytes) {
+            this.callSite = callSite;
+            this.bytes = bytes;
+        }
+
+        private void release() {
+            this.callSite.liveCount.decrement();
+            this.callSite.liveBytes.add(-this.bytes);
+            if (this.callSite.liveCount.sum() == 0) {
+                //forget call sites without live allocations, or every distinct stack is kept for the lifetime of the jvm
+                CALL_SITES.computeIfPresent(this.callSite.key,
+                                            (key, stats) -> stats.liveCount.sum() == 0 ? null : stats);
+            }
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Allocates memory by bumping an offset in large chunks of heap memory, and frees all of it at once when the arena is
+ * closed. Pointers and structs allocated by an arena are regular objects, but their memory is owned by the arena: they
+ * must not be closed, and must not be used after the arena is closed.
+ * <p>
+ * Java:<br>
+ * <pre>{@code
+ * try (final Arena arena = new Arena()) {
+ *     final Pointer<Integer> values = arena.nref(1, 2, 3);
+ *     final TestStruct testStruct = arena.struct(TestStruct.class);
+ *     ...
+ * }
+ * }</pre>
+ * An arena is not thread safe.
+ */
+public final class Arena implements AutoCloseable {
+
+    private static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    private static final int ALIGNMENT          = 16;
+
+    private final int chunkSize;
+
+    private long[] blocks = new long[4];
+    private int    blockCount;
+
+    private long chunk;
+    private int  offset;
+    private int  limit;
+
+    private boolean closed;
+
+    public Arena() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize the size in bytes of the chunks that allocations are made from. Allocations larger than half a
+     *                  chunk get a block of their own.
+     */
+    public Arena(@Nonnegative final int chunkSize) {
+        if (chunkSize < ALIGNMENT) {
+            throw new IllegalArgumentException("Chunk size must be at least " + ALIGNMENT + " bytes, got " + chunkSize + ".");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Allocate size bytes, aligned to 16 bytes. The memory is not initialized.
+     *
+     * @param size the size in bytes.
+     *
+     * @return the address of the allocated memory.
+     */
+    public long allocate(@Nonnegative final int size) {
+        if (this.closed) {
+            throw new IllegalStateException("Arena is closed.");
+        }
+        if (size < 0) {
+            throw new IllegalArgumentException("Given size argument is not a positive number.");
+        }
+
+        if (size > this.chunkSize / 2) {
+            return addBlock(size);
+        }
+
+        final int alignedOffset = (this.offset + ALIGNMENT - 1) & -ALIGNMENT;
+        if (this.chunk == 0L || alignedOffset + size > this.limit) {
+            this.chunk = addBlock(this.chunkSize);
+            this.limit = this.chunkSize;
+            this.offset = size;
+            return this.chunk;
+        }
+
+        this.offset = alignedOffset + size;
+        return this.chunk + alignedOffset;
+    }
+
+    /**
+     * @param size The size in bytes. Must be a positive number.
+     *
+     * @return a new untyped pointer to uninitialized memory of this arena.
+     *
+     * @see Pointer#malloc(int)
+     */
+    @Nonnull
+    public Pointer<Void> malloc(@Nonnegative final int size) {
+        return Pointer.wrap(allocate(size));
+    }
+
+    /**
+     * @param size The size in bytes. Must be a positive number.
+     * @param type The type of the pointer.
+     *
+     * @return a new typed pointer to uninitialized memory of this arena.
+     *
+     * @see Pointer#malloc(int, Class)
+     */
+    @Nonnull
+    public <U> Pointer<U> malloc(@Nonnegative final int size,
+                                 @Nonnull final Class<U> type) {
+        Objects.requireNonNull(type,
+                               "Argument type must not be null.");
+        return Pointer.wrap(type,
+                            allocate(size));
+    }
+
+    /**
+     * @param nmemb number of members
+     * @param size  size of an individual member
+     *
+     * @return a new untyped pointer to zeroed memory of this arena.
+     *
+     * @see Pointer#calloc(int, int)
+     */
+    @Nonnull
+    public Pointer<Void> calloc(@Nonnegative final int nmemb,
+                                @Nonnegative final int size) {
+        return Pointer.wrap(allocateZeroed(nmemb,
+                                           size));
+    }
+
+    /**
+     * @param nmemb number of members
+     * @param size  size of an individual member
+     * @param type  The type of the pointer.
+     *
+     * @return a new typed pointer to zeroed memory of this arena.
+     *
+     * @see Pointer#calloc(int, int, Class)
+     */
+    @Nonnull
+    public <U> Pointer<U> calloc(@Nonnegative final int nmemb,
+                                 @Nonnegative final int size,
+                                 @Nonnull final Class<U> type) {
+        Objects.requireNonNull(type,
+                               "Argument type must not be null.");
+        return Pointer.wrap(type,
+                            allocateZeroed(nmemb,
+                                           size));
+    }
+
+    /**
+     * @param structTypeClass the struct type.
+     * @param <T>             the struct type.
+     *
+     * @return a new struct with zeroed memory of this arena.
+     */
+    @Nonnull
+    public <T extends StructType> T struct(@Nonnull final Class<T> structTypeClass) {
+        final StructFactory<T> structFactory = StructFactory.of(structTypeClass);
+        return structFactory.create(allocateZeroed(1,
+                                                   structFactory.size()));
+    }
+
+    /**
+     * @see Pointer#nref(byte...)
+     */
+    @Nonnull
+    public Pointer<Byte> nref(@Nonnull final byte... val) {
+        final PointerByte pointer = (PointerByte) allocate(Byte.class,
+                                                           Size.sizeof((Byte) null),
+                                                           length(val));
+        pointer.set(val);
+        return pointer;
+    }
+
+    /**
+     * @see Pointer#nref(short...)
+     */
+    @Nonnull
+    public Pointer<Short> nref(@Nonnull final short... val) {
+        final PointerShort pointer = (PointerShort) allocate(Short.class,
+                                                             Size.sizeof((Short) null),
+                                                             length(val));
+        pointer.set(val);
+        return pointer;
+    }
+
+    /**
+     * @see Pointer#nref(int...)
+     */
+    @Nonnull
+    public Pointer<Integer> nref(@Nonnull final int... val) {
+        final PointerInt pointer = (PointerInt) allocate(Integer.class,
+                                                         Size.sizeof((Integer) null),
+                                                         length(val));
+        pointer.set(val);
+        return pointer;
+    }
+
+    /**
+     * @see Pointer#nref(long...)
+     */
+    @Nonnull
+    public Pointer<Long> nref(@Nonnull final long... val) {
+        final PointerLong pointer = (PointerLong) allocate(Long.class,
+                                                           Size.sizeof((Long) null),
+                                                           length(val));
+        pointer.set(val);
+        return pointer;
+    }
+
+    /**
+     * @see Pointer#nref(float...)
+     */
+    @Nonnull
+    public Pointer<Float> nref(@Nonnull final float... val) {
+        final PointerFloat pointer = (PointerFloat) allocate(Float.class,
+                                                             Size.sizeof((Float) null),
+                                                             length(val));
+        pointer.set(val);
+        return pointer;
+    }
+
+    /**
+     * @see Pointer#nref(double...)
+     */
+    @Nonnull
+    public Pointer<Double> nref(@Nonnull final double... val) {
+        final PointerDouble pointer = (PointerDouble) allocate(Double.class,
+                                                               Size.sizeof((Double) null),
+                                                               length(val));
+        pointer.set(val);
+        return pointer;
+    }
+
+    /**
+     * @see Pointer#nref(CLong...)
+     */
+    @Nonnull
+    public Pointer<CLong> nref(@Nonnull final CLong... val) {
+        final int length = length(val);
+        final Pointer<CLong> pointer = (Pointer<CLong>) allocate(val[0].getClass(),
+                                                                 Size.sizeof((CLong) null),
+                                                                 length);
+        pointer.set(val);
+        return pointer;
+    }
+
+    /**
+     * @see Pointer#nref(StructType[])
+     */
+    @SafeVarargs
+    @Nonnull
+    public final <U extends StructType> Pointer<U> nref(@Nonnull final U... val) {
+        final int length = length(val);
+        final Pointer<U> pointer = (Pointer<U>) allocate(val[0].getClass(),
+                                                         Size.sizeof(val[0]),
+                                                         length);
+        pointer.set(val);
+        return pointer;
+    }
+
+    /**
+     * @see Pointer#nref(Pointer[])
+     */
+    @SafeVarargs
+    @Nonnull
+    public final <U extends Pointer> Pointer<U> nref(@Nonnull final U... val) {
+        final int length = length(val);
+        final Pointer<U> pointer = (Pointer<U>) allocate(val[0].getClass(),
+                                                         Size.sizeof((Pointer) null),
+                                                         length);
+        pointer.set(val);
+        return pointer;
+    }
+
+    /**
+     * @see Pointer#nref(String)
+     */
+    @Nonnull
+    public Pointer<String> nref(@Nonnull final String val) {
+        final Pointer<String> pointer = allocate(String.class,
+                                                 Size.sizeof(Objects.requireNonNull(val,
+                                                                                    "Argument val must not be null")),
+                                                 1);
+        pointer.set(val);
+        return pointer;
+    }
+
+    /**
+     * Free all memory of this arena.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        for (int i = 0; i < this.blockCount; i++) {
+            AllocationTracker.freed(this.blocks[i]);
+            JNI.free(this.blocks[i]);
+        }
+        this.blocks = null;
+        this.chunk = 0L;
+    }
+
+    private <U> Pointer<U> allocate(final Class<U> type,
+                                    final int elementSize,
+                                    final int length) {
+        return Pointer.wrap(type,
+                            allocate(totalSize(length,
+                                               elementSize)));
+    }
+
+    private long allocateZeroed(final int nmemb,
+                                final int size) {
+        if (size < 0 || nmemb < 0) {
+            throw new IllegalArgumentException("Given size or nmemb argument is not a positive number.");
+        }
+        final int  totalSize = totalSize(nmemb,
+                                         size);
+        final long address   = allocate(totalSize);
+        JNI.memset(address,
+                   0,
+                   totalSize);
+        return address;
+    }
+
+    private long addBlock(final int size) {
+        if (this.blockCount == this.blocks.length) {
+            this.blocks = Arrays.copyOf(this.blocks,
+                                        this.blockCount * 2);
+        }
+        final long block = JNI.malloc(size);
+        AllocationTracker.allocated(block,
+                                    size,
+                                    Arena.class);
+        this.blocks[this.blockCount++] = block;
+        return block;
+    }
+
+    private static int totalSize(final int nmemb,
+                                 final int size) {
+        final long totalSize = (long) nmemb * size;
+        if (totalSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Given size and nmemb arguments exceed the maximum size of an allocation.");
+        }
+        return (int) totalSize;
+    }
+
+    private static int length(final Object val) {
+        final int length = Array.getLength(Objects.requireNonNull(val,
+                                                                  "Argument val must not be null"));
+        if (length == 0) {
+            throw new IllegalArgumentException("Cannot allocate zero length array.");
+        }
+        return length;
+    }
+}
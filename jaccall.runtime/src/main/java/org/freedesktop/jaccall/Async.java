@@ -0,0 +1,16 @@
+package org.freedesktop.jaccall;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a native method of a {@link Lib} class to get an asynchronous variant. The variant is generated in a class
+ * with the {@code _Async} suffix, and returns a {@link java.util.concurrent.CompletableFuture} of the boxed return
+ * type that completes after the call was executed by a {@link NativeExecutor}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Async {
+}
@@ -0,0 +1,329 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Records a sequence of native calls and executes them with a single transition to native code. Calls and their
+ * arguments are written to an off-heap command buffer, the native side then calls each function in order with libffi.
+ * <p>
+ * Java:<br>
+ * <pre>{@code
+ * final Batch.Function setField = new Foo_Symbols().function("set_field");
+ * final Batch.Function commit = new Foo_Symbols().function("commit");
+ *
+ * try (final Batch batch = new Batch()) {
+ *     batch.call(setField).arg(object).arg(1);
+ *     batch.call(setField).arg(object).arg(2);
+ *     batch.call(commit).arg(object);
+ *     batch.execute();
+ *     final int committed = (int) batch.result(2);
+ * }
+ * }</pre>
+ * A batch can be executed any number of times, the recorded calls are cleared after each execution. A batch can not be
+ * used after it is closed. A batch is not thread safe.
+ */
+public final class Batch implements AutoCloseable {
+
+    private static final int SLOT_SIZE        = 8;
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final boolean captureResults;
+
+    private long commands;
+    private int  commandsCapacity;
+    private int  commandsSize;
+    private long results;
+    private int  resultsCapacity;
+    private int  calls;
+    private int  executedCalls;
+
+    private Function function;
+    private int      arg;
+
+    private boolean closed;
+
+    /**
+     * Create a batch that captures the return value of every call.
+     */
+    public Batch() {
+        this(true);
+    }
+
+    /**
+     * @param captureResults true if the return value of each call should be available with {@link #result(int)} after
+     *                       the batch is executed.
+     */
+    public Batch(final boolean captureResults) {
+        this.captureResults = captureResults;
+        this.commandsCapacity = DEFAULT_CAPACITY;
+        this.commands = JNI.malloc(this.commandsCapacity * SLOT_SIZE);
+    }
+
+    /**
+     * Record a call to a native function. The arguments of the call are recorded with the {@code arg} methods, in
+     * the order of the function parameters.
+     *
+     * @param function the function to call.
+     *
+     * @return this batch.
+     */
+    @Nonnull
+    public Batch call(@Nonnull final Function function) {
+        checkOpen();
+        checkArguments();
+        ensureCommandsCapacity(2 + function.argTypes.length);
+
+        JNI.setLong(this.commands,
+                    this.commandsSize++,
+                    function.ffiCif);
+        JNI.setLong(this.commands,
+                    this.commandsSize++,
+                    function.address);
+
+        this.function = function;
+        this.arg = 0;
+        this.calls++;
+        return this;
+    }
+
+    /**
+     * Record an integer, pointer or struct by value argument. The value is converted to the C type of the parameter.
+     *
+     * @param value the argument value.
+     *
+     * @return this batch.
+     */
+    @Nonnull
+    public Batch arg(final long value) {
+        final long argType = nextArgType();
+        if (argType == JNI.FFI_TYPE_FLOAT || argType == JNI.FFI_TYPE_DOUBLE) {
+            throw new IllegalArgumentException("Argument " + this.arg + " of " + this.function.symbol + " is a floating point value.");
+        }
+        JNI.setLong(this.commands,
+                    this.commandsSize++,
+                    value);
+        this.arg++;
+        return this;
+    }
+
+    /**
+     * Record a float argument.
+     *
+     * @param value the argument value.
+     *
+     * @return this batch.
+     */
+    @Nonnull
+    public Batch arg(final float value) {
+        if (nextArgType() != JNI.FFI_TYPE_FLOAT) {
+            throw new IllegalArgumentException("Argument " + this.arg + " of " + this.function.symbol + " is not a float.");
+        }
+        //a float is stored at the start of its slot
+        JNI.setLong(this.commands,
+                    this.commandsSize,
+                    0L);
+        JNI.setFloat(this.commands + this.commandsSize * SLOT_SIZE,
+                     0,
+                     value);
+        this.commandsSize++;
+        this.arg++;
+        return this;
+    }
+
+    /**
+     * Record a double argument.
+     *
+     * @param value the argument value.
+     *
+     * @return this batch.
+     */
+    @Nonnull
+    public Batch arg(final double value) {
+        if (nextArgType() != JNI.FFI_TYPE_DOUBLE) {
+            throw new IllegalArgumentException("Argument " + this.arg + " of " + this.function.symbol + " is not a double.");
+        }
+        JNI.setDouble(this.commands + this.commandsSize * SLOT_SIZE,
+                      0,
+                      value);
+        this.commandsSize++;
+        this.arg++;
+        return this;
+    }
+
+    /**
+     * Execute all recorded calls in order, with a single transition to native code.
+     */
+    public void execute() {
+        prepare();
+        JNI.ffi_call_batch(this.commands,
+                           this.calls,
+                           resultsAddress());
+        executed();
+    }
+
+    /**
+     * Check the recorded calls and make room for their results before the batch is executed.
+     */
+    void prepare() {
+        checkOpen();
+        checkArguments();
+
+        if (this.captureResults && this.calls > this.resultsCapacity) {
+            this.results = JNI.realloc(this.results,
+                                       this.calls * SLOT_SIZE);
+            this.resultsCapacity = this.calls;
+        }
+    }
+
+    long commandsAddress() {
+        return this.commands;
+    }
+
+    int calls() {
+        return this.calls;
+    }
+
+    long resultsAddress() {
+        return this.captureResults ? this.results : 0L;
+    }
+
+    /**
+     * Clear the recorded calls after the batch was executed.
+     */
+    void executed() {
+        this.executedCalls = this.calls;
+        this.commandsSize = 0;
+        this.calls = 0;
+        this.function = null;
+    }
+
+    /**
+     * The integer or pointer return value of a call of the last execution. A struct returned by value is returned as
+     * the address of newly allocated memory, that has to be freed by the caller.
+     *
+     * @param call the index of the call, in the order of recording.
+     *
+     * @return the return value.
+     */
+    public long result(@Nonnegative final int call) {
+        return JNI.getLong(resultAddress(call),
+                           0);
+    }
+
+    /**
+     * The float return value of a call of the last execution.
+     *
+     * @param call the index of the call, in the order of recording.
+     *
+     * @return the return value.
+     */
+    public float resultFloat(@Nonnegative final int call) {
+        return JNI.getFloat(resultAddress(call),
+                            0);
+    }
+
+    /**
+     * The double return value of a call of the last execution.
+     *
+     * @param call the index of the call, in the order of recording.
+     *
+     * @return the return value.
+     */
+    public double resultDouble(@Nonnegative final int call) {
+        return JNI.getDouble(resultAddress(call),
+                             0);
+    }
+
+    /**
+     * Free the memory of this batch. Closing a batch that is already closed does nothing.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        JNI.free(this.commands);
+        this.commands = 0L;
+        if (this.results != 0L) {
+            JNI.free(this.results);
+            this.results = 0L;
+        }
+    }
+
+    private long resultAddress(final int call) {
+        checkOpen();
+        if (!this.captureResults) {
+            throw new IllegalStateException("Batch does not capture results.");
+        }
+        if (call < 0 || call >= this.executedCalls) {
+            throw new IndexOutOfBoundsException("No result for call " + call + ", last execution had " + this.executedCalls + " calls.");
+        }
+        return this.results + call * SLOT_SIZE;
+    }
+
+    private long nextArgType() {
+        checkOpen();
+        if (this.function == null) {
+            throw new IllegalStateException("No call recorded.");
+        }
+        if (this.arg >= this.function.argTypes.length) {
+            throw new IllegalStateException(this.function.symbol + " accepts " + this.function.argTypes.length + " arguments.");
+        }
+        return this.function.argTypes[this.arg];
+    }
+
+    private void checkOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("Batch is closed.");
+        }
+    }
+
+    private void checkArguments() {
+        if (this.function != null && this.arg != this.function.argTypes.length) {
+            throw new IllegalStateException(this.function.symbol + " expects " + this.function.argTypes.length + " arguments, got " + this.arg + ".");
+        }
+    }
+
+    private void ensureCommandsCapacity(final int slots) {
+        if (this.commandsSize + slots > this.commandsCapacity) {
+            this.commandsCapacity = Math.max(this.commandsCapacity * 2,
+                                             this.commandsSize + slots);
+            this.commands = JNI.realloc(this.commands,
+                                        this.commandsCapacity * SLOT_SIZE);
+        }
+    }
+
+    /**
+     * A native function that can be called in a batch.
+     *
+     * @see Symbols#function(String)
+     */
+    public static final class Function {
+
+        @Nonnull
+        final String symbol;
+        final long   address;
+        final long   ffiCif;
+        @Nonnull
+        final long[] argTypes;
+
+        Function(@Nonnull final String symbol,
+                 final long address,
+                 final long ffiCif) {
+            this.symbol = symbol;
+            this.address = address;
+            this.ffiCif = ffiCif;
+
+            final long[] types = JNI.ffi_cif_types(ffiCif);
+            this.argTypes = new long[types.length - 1];
+            System.arraycopy(types,
+                             1,
+                             this.argTypes,
+                             0,
+                             this.argTypes.length);
+        }
+    }
+}
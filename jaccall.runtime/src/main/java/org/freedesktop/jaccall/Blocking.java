@@ -0,0 +1,18 @@
+package org.freedesktop.jaccall;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a native method of a {@link Lib} class as a call that can block for a long time. When the method is called
+ * through the generated {@code _Downcalls} class on a virtual thread, the call is handed off to a platform thread so
+ * the carrier thread of the virtual thread is released while the call is executed.
+ *
+ * @see BlockingCalls
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Blocking {
+}
@@ -0,0 +1,139 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnull;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Support for native calls made from virtual threads. A virtual thread that calls into native code pins its carrier
+ * thread for the whole duration of the call. Calls of {@link Blocking} methods are handed off to a platform thread
+ * instead, so the virtual thread unmounts while it waits for the result. Every other call made from a virtual thread
+ * is counted as a pinned call of its symbol.
+ * <p>
+ * Used by the generated {@code _Downcalls} classes.
+ */
+public final class BlockingCalls {
+
+    private static final MethodHandle IS_VIRTUAL = isVirtualHandle();
+
+    private static final ConcurrentMap<String, LongAdder> PINNED_CALLS = new ConcurrentHashMap<>();
+
+    private static final Executor EXECUTOR = Executors.newCachedThreadPool(new Threads());
+
+    private BlockingCalls() {
+    }
+
+    private static MethodHandle isVirtualHandle() {
+        try {
+            return MethodHandles.publicLookup()
+                                .findVirtual(Thread.class,
+                                             "isVirtual",
+                                             MethodType.methodType(boolean.class));
+        }
+        catch (NoSuchMethodException | IllegalAccessException e) {
+            //no virtual threads on this jdk
+            return null;
+        }
+    }
+
+    /**
+     * @return true if the current thread is a virtual thread.
+     */
+    public static boolean isVirtualThread() {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+        }
+        catch (final Throwable t) {
+            throw new Error(t);
+        }
+    }
+
+    /**
+     * The counter of pinned calls of a symbol.
+     *
+     * @param library the class annotated with {@link Lib}.
+     * @param symbol  the name of the symbol.
+     *
+     * @return the counter, shared by all overloads of the symbol.
+     */
+    @Nonnull
+    public static LongAdder pinnedCounter(@Nonnull final Class<?> library,
+                                          @Nonnull final String symbol) {
+        return PINNED_CALLS.computeIfAbsent(library.getName() + '.' + symbol,
+                                            key -> new LongAdder());
+    }
+
+    /**
+     * @return the number of calls made from a virtual thread that pinned the carrier thread, for every symbol that was
+     * linked, by fully qualified method name.
+     */
+    @Nonnull
+    public static Map<String, Long> pinnedCalls() {
+        final Map<String, Long> pinnedCalls = new TreeMap<>();
+        PINNED_CALLS.forEach((symbol, counter) -> pinnedCalls.put(symbol,
+                                                                  counter.sum()));
+        return pinnedCalls;
+    }
+
+    /**
+     * Execute a call on a platform thread and wait for its result.
+     *
+     * @param call the call to execute.
+     * @param <T>  the boxed return type of the call.
+     *
+     * @return the result of the call.
+     *
+     * @throws Throwable anything thrown by the call.
+     */
+    public static <T> T offload(@Nonnull final Call<T> call) throws Throwable {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        EXECUTOR.execute(() -> {
+            try {
+                future.complete(call.call());
+            }
+            catch (final Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+
+        try {
+            return future.join();
+        }
+        catch (final CompletionException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws Throwable;
+    }
+
+    private static final class Threads implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@Nonnull final Runnable runnable) {
+            final Thread thread = new Thread(runnable,
+                                             "jaccall-blocking-" + this.count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Encodes and decodes zero terminated C strings. UTF-8 is the default charset, Latin-1 is supported as a fast path for
+ * strings that only use the lower 256 code points. Other charsets are supported as long as they never encode a
+ * character with a zero byte.
+ * <p>
+ * Java:<br>
+ * <pre>{@code
+ * final int length = CStrings.strlen(address);
+ * final String name = CStrings.decode(address);
+ * }</pre>
+ * C equivalent:<br>
+ * <pre>{@code
+ * size_t length = strlen(address);
+ * const char* name = address;
+ * }</pre>
+ * Strings are copied between the Java heap and native memory in bulk, through a small buffer that is reused by the
+ * calling thread. Malformed UTF-8 is decoded as the replacement character, characters that can not be encoded are
+ * encoded as {@code '?'}.
+ */
+public final class CStrings {
+
+    private static final long LOW_BITS  = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    //buffers larger than this are not kept around by their thread
+    private static final int MAX_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private CStrings() {
+    }
+
+    /**
+     * Java:<br>
+     * {@code CStrings.strlen(address)}
+     * <p>
+     * C equivalent:<br>
+     * {@code strlen(address)}
+     *
+     * @param address the address of a zero terminated C string.
+     *
+     * @return the number of bytes before the terminating zero.
+     */
+    @Nonnegative
+    public static int strlen(final long address) {
+        long position = address;
+        //a word aligned read never crosses a page boundary, so it can't fault past the terminating zero
+        while ((position & 7) != 0) {
+            if (JNI.getByte(position,
+                            0) == 0) {
+                return (int) (position - address);
+            }
+            position++;
+        }
+        while (true) {
+            final long word = JNI.getLong(position,
+                                          0);
+            if (((word - LOW_BITS) & ~word & HIGH_BITS) != 0) {
+                break;
+            }
+            position += 8;
+        }
+        while (JNI.getByte(position,
+                           0) != 0) {
+            position++;
+        }
+        return (int) (position - address);
+    }
+
+    /**
+     * @param address the address of a zero terminated UTF-8 string.
+     *
+     * @return the decoded string.
+     */
+    @Nonnull
+    public static String decode(final long address) {
+        return decode(address,
+                      StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param address the address of a zero terminated C string.
+     * @param charset the charset of the C string.
+     *
+     * @return the decoded string.
+     */
+    @Nonnull
+    public static String decode(final long address,
+                                @Nonnull final Charset charset) {
+        Objects.requireNonNull(charset,
+                               "Argument charset must not be null.");
+        final int    length = strlen(address);
+        final byte[] bytes  = read(address,
+                                   length);
+        return decode(bytes,
+                      length,
+                      charset);
+    }
+
+    /**
+     * @param val a Java string.
+     *
+     * @return the size in bytes of the given string as a zero terminated UTF-8 string.
+     */
+    @Nonnegative
+    public static int sizeof(@Nonnull final String val) {
+        return sizeof(val,
+                      StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param val     a Java string.
+     * @param charset the charset of the C string.
+     *
+     * @return the size in bytes of the given string as a zero terminated C string.
+     */
+    @Nonnegative
+    public static int sizeof(@Nonnull final String val,
+                             @Nonnull final Charset charset) {
+        Objects.requireNonNull(val,
+                               "Argument val must not be null.");
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return utf8Length(val) + 1;
+        }
+        if (StandardCharsets.ISO_8859_1.equals(Objects.requireNonNull(charset,
+                                                                      "Argument charset must not be null."))) {
+            return val.length() + 1;
+        }
+        return val.getBytes(charset).length + 1;
+    }
+
+    /**
+     * Write a Java string as a zero terminated UTF-8 string. The memory must be at least {@link #sizeof(String)}
+     * bytes.
+     *
+     * @param address the address to write to.
+     * @param val     a Java string.
+     */
+    public static void encode(final long address,
+                              @Nonnull final String val) {
+        encode(address,
+               val,
+               StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a Java string as a zero terminated C string. The memory must be at least
+     * {@link #sizeof(String, Charset)} bytes.
+     *
+     * @param address the address to write to.
+     * @param val     a Java string.
+     * @param charset the charset of the C string.
+     */
+    public static void encode(final long address,
+                              @Nonnull final String val,
+                              @Nonnull final Charset charset) {
+        Objects.requireNonNull(val,
+                               "Argument val must not be null.");
+        final int length = val.length();
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            if (isAscii(val)) {
+                writeLatin1(address,
+                            val);
+            }
+            else {
+                writeUtf8(address,
+                          val);
+            }
+        }
+        else if (StandardCharsets.ISO_8859_1.equals(Objects.requireNonNull(charset,
+                                                                           "Argument charset must not be null."))) {
+            if (isLatin1(val)) {
+                writeLatin1(address,
+                            val);
+            }
+            else {
+                for (int i = 0; i < length; i++) {
+                    final char c = val.charAt(i);
+                    JNI.setByte(address,
+                                i,
+                                (byte) (c <= 0xFF ? c : '?'));
+                }
+                JNI.setByte(address,
+                            length,
+                            (byte) 0);
+            }
+        }
+        else {
+            final byte[] bytes = val.getBytes(charset);
+            JNI.writeBytes(address,
+                           0,
+                           bytes,
+                           0,
+                           bytes.length);
+            JNI.setByte(address,
+                        bytes.length,
+                        (byte) 0);
+        }
+    }
+
+    private static byte[] buffer(final int size) {
+        if (size > MAX_BUFFER_SIZE) {
+            return new byte[size];
+        }
+        byte[] buffer = BUFFERS.get();
+        if (buffer.length < size) {
+            buffer = new byte[Math.max(size,
+                                       Math.min(buffer.length * 2,
+                                                MAX_BUFFER_SIZE))];
+            BUFFERS.set(buffer);
+        }
+        return buffer;
+    }
+
+    private static byte[] read(final long address,
+                               final int length) {
+        final byte[] bytes = buffer(length);
+        JNI.readBytes(address,
+                      0,
+                      bytes,
+                      0,
+                      length);
+        return bytes;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static String decode(final byte[] bytes,
+                                 final int length,
+                                 final Charset charset) {
+        if (StandardCharsets.ISO_8859_1.equals(charset)
+            || (StandardCharsets.UTF_8.equals(charset) && isAscii(bytes,
+                                                                   length))) {
+            //maps every byte to the char with the same value, a plain copy for compact strings
+            return new String(bytes,
+                              0,
+                              0,
+                              length);
+        }
+        return new String(bytes,
+                          0,
+                          length,
+                          charset);
+    }
+
+    private static boolean isAscii(final byte[] bytes,
+                                   final int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscii(final String val) {
+        for (int i = 0; i < val.length(); i++) {
+            if (val.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLatin1(final String val) {
+        for (int i = 0; i < val.length(); i++) {
+            if (val.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void writeLatin1(final long address,
+                                    final String val) {
+        final int    length = val.length();
+        final byte[] bytes  = buffer(length + 1);
+        //copies the low byte of every char, a plain copy for compact strings
+        val.getBytes(0,
+                     length,
+                     bytes,
+                     0);
+        bytes[length] = 0;
+        JNI.writeBytes(address,
+                       0,
+                       bytes,
+                       0,
+                       length + 1);
+    }
+
+    private static void writeUtf8(final long address,
+                                  final String val) {
+        final int    length = val.length();
+        final byte[] bytes  = buffer(utf8Length(val) + 1);
+        int          size   = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = val.charAt(i);
+            if (c < 0x80) {
+                bytes[size++] = (byte) c;
+            }
+            else if (c < 0x800) {
+                bytes[size++] = (byte) (0xC0 | (c >> 6));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isSurrogate(c)) {
+                if (isSurrogatePair(val,
+                                    i)) {
+                    final int codePoint = Character.toCodePoint(c,
+                                                                val.charAt(++i));
+                    bytes[size++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[size++] = (byte) (0x80 | (codePoint & 0x3F));
+                }
+                else {
+                    bytes[size++] = '?';
+                }
+            }
+            else {
+                bytes[size++] = (byte) (0xE0 | (c >> 12));
+                bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        bytes[size++] = 0;
+        JNI.writeBytes(address,
+                       0,
+                       bytes,
+                       0,
+                       size);
+    }
+
+    private static int utf8Length(final String val) {
+        final int length = val.length();
+        int       size   = length;
+        for (int i = 0; i < length; i++) {
+            final char c = val.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                size += 1;
+            }
+            else if (Character.isSurrogate(c)) {
+                if (isSurrogatePair(val,
+                                    i)) {
+                    //two chars, four bytes
+                    size += 2;
+                    i++;
+                }
+            }
+            else {
+                size += 2;
+            }
+        }
+        return size;
+    }
+
+    private static boolean isSurrogatePair(final String val,
+                                           final int index) {
+        return Character.isHighSurrogate(val.charAt(index))
+               && index + 1 < val.length()
+               && Character.isLowSurrogate(val.charAt(index + 1));
+    }
+
+    /**
+     * Decodes C strings that are read over and over, like enum names or keys, without creating a new Java string
+     * every time. A cache remembers the most recently decoded string for every slot of a fixed size table. Reading a
+     * string that is in the cache only compares its bytes. A cache can be shared between threads.
+     */
+    public static final class Cache {
+
+        private final Entry[] entries;
+        private final Charset charset;
+
+        /**
+         * @param capacity the number of slots, rounded up to a power of two.
+         */
+        public Cache(@Nonnegative final int capacity) {
+            this(capacity,
+                 StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @param capacity the number of slots, rounded up to a power of two.
+         * @param charset  the charset of the C strings.
+         */
+        public Cache(@Nonnegative final int capacity,
+                     @Nonnull final Charset charset) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Given capacity argument is not a positive number.");
+            }
+            this.entries = new Entry[capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1];
+            this.charset = Objects.requireNonNull(charset,
+                                                  "Argument charset must not be null.");
+        }
+
+        /**
+         * @param address the address of a zero terminated C string.
+         *
+         * @return the decoded string, the same string object as before if the C string is in the cache.
+         */
+        @Nonnull
+        public String decode(final long address) {
+            final int    length = strlen(address);
+            final byte[] bytes  = read(address,
+                                       length);
+
+            int hash = 1;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            final int slot = (hash ^ (hash >>> 16)) & (this.entries.length - 1);
+
+            final Entry entry = this.entries[slot];
+            if (entry != null && entry.matches(bytes,
+                                               length)) {
+                return entry.string;
+            }
+
+            final String string = CStrings.decode(bytes,
+                                                  length,
+                                                  this.charset);
+            //entries are immutable, a racing thread either sees the old or the new entry
+            this.entries[slot] = new Entry(Arrays.copyOf(bytes,
+                                                         length),
+                                           string);
+            return string;
+        }
+    }
+
+    private static final class Entry {
+        private final byte[] bytes;
+        private final String string;
+
+        private Entry(final byte[] bytes,
+                      final String string) {
+            this.bytes = bytes;
+            this.string = string;
+        }
+
+        private boolean matches(final byte[] bytes,
+                                final int length) {
+            if (this.bytes.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (this.bytes[i] != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
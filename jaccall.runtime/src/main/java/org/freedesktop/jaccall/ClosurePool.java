@@ -0,0 +1,100 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of closures that call a java functor from native code. All closures of a pool share the same call interface
+ * and method, so a released closure can be bound to a new functor object without allocating and preparing a new
+ * closure.
+ * <p>
+ * A closure that is not bound to a functor must not be called from native code. A reused closure keeps its code
+ * address, so native code that still holds the address of a released closure does not crash but silently calls the
+ * functor that the closure was bound to next. Native code must drop the address before the closure is released.
+ */
+public final class ClosurePool {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final ConcurrentLinkedQueue<Long> closures = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger               size     = new AtomicInteger();
+
+    private final long ffiCif;
+    private final long jniMethodId;
+    private final int  capacity;
+
+    public ClosurePool(final long ffiCif,
+                       final long jniMethodId) {
+        this(ffiCif,
+             jniMethodId,
+             defaultCapacity());
+    }
+
+    /**
+     * @param ffiCif      the call interface of the closures.
+     * @param jniMethodId the method that the closures invoke on their functor object.
+     * @param capacity    the maximum number of released closures that are kept for reuse.
+     */
+    public ClosurePool(final long ffiCif,
+                       final long jniMethodId,
+                       @Nonnegative final int capacity) {
+        this.ffiCif = ffiCif;
+        this.jniMethodId = jniMethodId;
+        this.capacity = capacity;
+    }
+
+    private static int defaultCapacity() {
+        final String capacity = ConfigVariables.JACCALL_CLOSURE_POOL_SIZE;
+        return capacity == null ? DEFAULT_CAPACITY : Integer.parseInt(capacity);
+    }
+
+    /**
+     * Take a closure from the pool, or create a new one if the pool is empty.
+     *
+     * @param function the functor object to bind the closure to.
+     *
+     * @return an opaque closure handle.
+     */
+    public long acquire(@Nonnull final Object function) {
+        final Long closure = this.closures.poll();
+        if (closure == null) {
+            return JNI.java_closure(this.ffiCif,
+                                    function,
+                                    this.jniMethodId);
+        }
+
+        this.size.decrementAndGet();
+        JNI.java_closure_bind(closure,
+                              function);
+        return closure;
+    }
+
+    /**
+     * @param closure a closure handle.
+     *
+     * @return the address of the closure that can be called from native code.
+     */
+    public static long address(final long closure) {
+        return JNI.java_closure_code(closure);
+    }
+
+    /**
+     * Give a closure back to the pool. The closure is unbound from its functor object, and freed if the pool is full.
+     *
+     * @param closure a closure handle.
+     */
+    public void release(final long closure) {
+        if (this.size.incrementAndGet() > this.capacity) {
+            this.size.decrementAndGet();
+            JNI.java_closure_free(closure);
+            return;
+        }
+
+        JNI.java_closure_bind(closure,
+                              null);
+        this.closures.offer(closure);
+    }
+}
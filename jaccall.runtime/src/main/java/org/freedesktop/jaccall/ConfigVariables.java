@@ -3,4 +3,15 @@ package org.freedesktop.jaccall;
 final class ConfigVariables {
     static final boolean JACCALL_DEBUG = Boolean.parseBoolean(System.getenv("JACCALL_DEBUG"));
     static final String JACCALL_ARCH = System.getenv("JACCALL_ARCH");
+    static final String JACCALL_BACKEND = System.getenv("JACCALL_BACKEND");
+    static final boolean JACCALL_ATTACH_CACHED = Boolean.parseBoolean(System.getenv("JACCALL_ATTACH_CACHED"));
+    static final boolean JACCALL_ATTACH_DAEMON = Boolean.parseBoolean(System.getenv("JACCALL_ATTACH_DAEMON"));
+    static final String JACCALL_ATTACH_NAME = System.getenv("JACCALL_ATTACH_NAME");
+    static final String JACCALL_CLOSURE_POOL_SIZE = System.getenv("JACCALL_CLOSURE_POOL_SIZE");
+    static final boolean JACCALL_LAZY_LINK = Boolean.parseBoolean(System.getenv("JACCALL_LAZY_LINK"));
+    static final String JACCALL_CACHE_DIR = System.getenv("JACCALL_CACHE_DIR");
+    static final boolean JACCALL_SLAB_POOL = Boolean.parseBoolean(System.getenv("JACCALL_SLAB_POOL"));
+    static final boolean JACCALL_CACHE_STRUCT_VIEWS = Boolean.parseBoolean(System.getenv("JACCALL_CACHE_STRUCT_VIEWS"));
+    static final boolean JACCALL_ALLOCATION_TRACKING = Boolean.parseBoolean(System.getenv("JACCALL_ALLOCATION_TRACKING"));
+    static final String JACCALL_ALLOCATION_SAMPLING = System.getenv("JACCALL_ALLOCATION_SAMPLING");
 }
@@ -0,0 +1,32 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnull;
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Links symbols to downcall method handles of the Foreign Function and Memory API. This is the Java 8 version, which
+ * is replaced by the versioned class of the multi-release jar on JDKs that ship java.lang.foreign. It does not link
+ * any symbol, so every downcall falls back to the native method that is linked with libffi.
+ */
+final class ForeignLinker {
+
+    private ForeignLinker() {
+    }
+
+    static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * @return a null method handle for every symbol, as no symbol can be described with the Foreign Function and Memory
+     * API on this JDK.
+     */
+    @Nonnull
+    static MethodHandle[] link(@Nonnull final String library,
+                               @Nonnull final String[] symbols,
+                               @Nonnull final String[] jniSignatures,
+                               @Nonnull final long[] ffiCallInterfaces) {
+        return new MethodHandle[symbols.length];
+    }
+}
@@ -0,0 +1,171 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * A frame of the native stack of the calling thread. While a frame is pushed, {@code Pointer.nref(..)} allocates its
+ * memory on the native stack instead of the heap, and that memory is released when the frame is closed. This mimics
+ * C's stack allocated memory: there is no malloc, no free and no garbage collector involved.
+ * <p>
+ * Java:<br>
+ * <pre>{@code
+ * for (final String arg : args) {
+ *     try (final Frame frame = Frame.push()) {
+ *         foo.bar(Pointer.nref(arg).address);
+ *     }
+ * }
+ * }</pre>
+ * Closing a pointer allocated in a frame does nothing, and it must not be used after the frame is closed. Frames can be
+ * nested and must be closed in reverse order of push, on the thread that pushed them.
+ * <p>
+ * The native stack of a thread grows in chunks of 64 KiB and is kept for reuse. Its memory is released when the thread
+ * ends.
+ */
+public final class Frame implements AutoCloseable {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int ALIGNMENT  = 16;
+
+    private static final ThreadLocal<Stack> STACKS = new ThreadLocal<>();
+
+    @Nonnull
+    private final Stack stack;
+    @Nullable
+    private final Frame parent;
+    private final int   chunk;
+    private final int   offset;
+
+    private boolean closed;
+
+    private Frame(@Nonnull final Stack stack,
+                  @Nullable final Frame parent,
+                  final int chunk,
+                  final int offset) {
+        this.stack = stack;
+        this.parent = parent;
+        this.chunk = chunk;
+        this.offset = offset;
+    }
+
+    /**
+     * Push a new frame on the native stack of the calling thread.
+     *
+     * @return the new top frame.
+     */
+    @Nonnull
+    public static Frame push() {
+        Stack stack = STACKS.get();
+        if (stack == null) {
+            stack = new Stack();
+            STACKS.set(stack);
+        }
+        final Frame frame = new Frame(stack,
+                                      stack.top,
+                                      stack.chunk,
+                                      stack.offset);
+        stack.top = frame;
+        return frame;
+    }
+
+    /**
+     * @param size the size in bytes.
+     *
+     * @return the address of memory in the top frame of the calling thread, or {@code 0} if no frame is pushed.
+     */
+    static long allocate(@Nonnegative final int size) {
+        final Stack stack = STACKS.get();
+        if (stack == null || stack.top == null) {
+            return 0L;
+        }
+        return stack.allocate(size);
+    }
+
+    /**
+     * Pop this frame and release all memory allocated in it.
+     *
+     * @throws IllegalStateException if this frame is not the top frame.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        if (this.stack.top != this) {
+            throw new IllegalStateException("Frames must be closed in reverse order of push, on the thread that pushed them.");
+        }
+        this.closed = true;
+        this.stack.top = this.parent;
+        this.stack.chunk = this.chunk;
+        this.stack.offset = this.offset;
+    }
+
+    private static final class Stack {
+
+        private long[]                   addresses     = new long[2];
+        private int[]                    sizes         = new int[2];
+        private Reclaimer.Registration[] registrations = new Reclaimer.Registration[2];
+        private int                      chunkCount;
+
+        @Nullable
+        private Frame top;
+        private int   chunk = -1;
+        private int   offset;
+
+        private long allocate(final int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("Given size argument is not a positive number.");
+            }
+
+            if (this.chunk >= 0) {
+                final int alignedOffset = (this.offset + ALIGNMENT - 1) & -ALIGNMENT;
+                if (alignedOffset + size <= this.sizes[this.chunk]) {
+                    this.offset = alignedOffset + size;
+                    return this.addresses[this.chunk] + alignedOffset;
+                }
+            }
+
+            this.chunk++;
+            if (this.chunk == this.chunkCount) {
+                addChunk(size);
+            }
+            else if (this.sizes[this.chunk] < size) {
+                //chunks after the current one are not in use by any frame
+                for (int i = this.chunk; i < this.chunkCount; i++) {
+                    this.registrations[i].clean();
+                }
+                this.chunkCount = this.chunk;
+                addChunk(size);
+            }
+            this.offset = size;
+            return this.addresses[this.chunk];
+        }
+
+        private void addChunk(final int size) {
+            if (this.chunkCount == this.addresses.length) {
+                this.addresses = Arrays.copyOf(this.addresses,
+                                               this.chunkCount * 2);
+                this.sizes = Arrays.copyOf(this.sizes,
+                                           this.chunkCount * 2);
+                this.registrations = Arrays.copyOf(this.registrations,
+                                                   this.chunkCount * 2);
+            }
+            final int  chunkSize = Math.max(CHUNK_SIZE,
+                                            size);
+            final long address   = JNI.malloc(chunkSize);
+            AllocationTracker.allocated(address,
+                                        chunkSize,
+                                        Frame.class);
+            this.addresses[this.chunkCount] = address;
+            this.sizes[this.chunkCount] = chunkSize;
+            //the stack is collected once its thread ends
+            this.registrations[this.chunkCount] = Reclaimer.register(this,
+                                                                     Reclaimer.free(address),
+                                                                     chunkSize);
+            this.chunkCount++;
+        }
+    }
+}
@@ -5,39 +5,24 @@ import sun.misc.Unsafe;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
-import java.io.File;
-import java.io.FileOutputStream;
+import javax.annotation.Nullable;
 import java.io.IOException;
-import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.logging.Logger;
+import java.util.Objects;
 
 public final class JNI {
 
-    private static final Logger LOGGER = Logger.getLogger("jaccall");
-
-    //TODO add android
-    private static final String[] ARCHS = {"linux-aarch64",
-                                           "linux-armv7hf",
-                                           "linux-armv7sf",
-                                           "linux-armv6hf",
-                                           "linux-x86_64",
-                                           "linux-i686",
-                                           //last resort
-                                           "native"};
-    private static final String   LIB   = "libjaccall.so";
-
-    private static Unsafe         UNSAFE;
-    private static Constructor<?> DIRECT_BB_CONST;
-    private static Field          DIRECT_BB_ADR_FLD;
+    private static Unsafe UNSAFE;
+    private static long   DIRECT_BB_ADR_OFFSET;
 
+    //null if java.nio is not open to us, buffers are then created with NewDirectByteBuffer
+    @Nullable
+    private static final MethodHandle DIRECT_BB_CONST = directBbConstructor();
 
     private static void initConsts() {
         //get instance of Unsafe
@@ -46,108 +31,52 @@ public final class JNI {
             theUnsafe.setAccessible(true);
             UNSAFE = (Unsafe) theUnsafe.get(null);
 
-            final Class<?> directBbCls = JNI.class.getClassLoader()
-                                                  .loadClass("java.nio.DirectByteBuffer");
-
-            //get hidden constructors
-            DIRECT_BB_CONST = directBbCls.getDeclaredConstructor(long.class,
-                                                                 int.class);
-            DIRECT_BB_CONST.setAccessible(true);
-
-
-            DIRECT_BB_ADR_FLD = Buffer.class.getDeclaredField("address");
-            DIRECT_BB_ADR_FLD.setAccessible(true);
+            DIRECT_BB_ADR_OFFSET = UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
         }
-        catch (NoSuchMethodException | ClassNotFoundException | NoSuchFieldException | IllegalAccessException e) {
+        catch (NoSuchFieldException | IllegalAccessException e) {
             throw new Error(e);
         }
     }
 
-    static {
-        //there is no real good or correct way to determine the userland+os+architecture in Java :(
-        if (ConfigVariables.JACCALL_ARCH == null) {
-            LOGGER.info(String.format("Jaccall might not work correctly, arch not specified by JACCALL_ARCH environment variable, please specify it. Supported values are: %s",
-                                      Arrays.toString(ARCHS)));
-
-            Map<String, LinkageError> failures = new HashMap<>();
-
-            boolean libLoaded  = false;
-            String  loadedArch = "";
-
-            for (String arch : ARCHS) {
-
-                try {
-                    loadLibrary(arch);
-                }
-                catch (LinkageError e) {
-                    LOGGER.info(String.format("Loading lib for arch %s failed. Trying next arch.",
-                                              arch));
-                    failures.put(arch,
-                                 e);
-                    continue;
-                }
-
-                loadedArch = arch;
-                libLoaded = true;
-                break;
-            }
-
-            if (!libLoaded) {
-                for (Map.Entry<String, LinkageError> errorEntry : failures.entrySet()) {
-                    System.err.println("Could not load lib for arch " + errorEntry.getKey());
-                    errorEntry.getValue()
-                              .printStackTrace();
-                }
+    @Nullable
+    private static MethodHandle directBbConstructor() {
+        try {
+            final Class<?> directBbCls = JNI.class.getClassLoader()
+                                                  .loadClass("java.nio.DirectByteBuffer");
 
-                throw new Error("Failed to load any of the libs for ARCHS: " + Arrays.toString(ARCHS));
+            //get hidden constructor, newer JDKs take a long capacity
+            Constructor<?> directBbConst;
+            try {
+                directBbConst = directBbCls.getDeclaredConstructor(long.class,
+                                                                   int.class);
             }
-            else {
-                LOGGER.info(String.format("Successfully loaded lib for arch %s.",
-                                          loadedArch));
+            catch (final NoSuchMethodException e) {
+                directBbConst = directBbCls.getDeclaredConstructor(long.class,
+                                                                   long.class);
             }
+            directBbConst.setAccessible(true);
 
+            return MethodHandles.lookup()
+                                .unreflectConstructor(directBbConst)
+                                .asType(MethodType.methodType(ByteBuffer.class,
+                                                              long.class,
+                                                              int.class));
         }
-        else {
-            loadLibrary(ConfigVariables.JACCALL_ARCH);
+        catch (final ReflectiveOperationException | RuntimeException e) {
+            return null;
         }
-
-        initConsts();
     }
 
-    private static void loadLibrary(String arch) throws LinkageError {
-        try {
-            final InputStream libStream = JNI.class.getClassLoader()
-                                                   .getResourceAsStream(arch + "/" + LIB);
-            if (libStream == null) {
-                //lib not found
-                throw new LinkageError(String.format("Lib for arch %s not found.",
-                                                     arch));
-            }
+    static {
+        LibraryLoader.load();
 
-            final File tempFile = File.createTempFile(LIB,
-                                                      null);
-            tempFile.deleteOnExit();
-            unpack(libStream,
-                   tempFile);
-            System.load(tempFile.getAbsolutePath());
-        }
-        catch (IOException e) {
-            throw new Error(e);
-        }
-    }
+        initConsts();
 
-    private static void unpack(final InputStream libStream,
-                               final File tempFile) throws IOException {
-        final FileOutputStream fos    = new FileOutputStream(tempFile);
-        final byte[]           buffer = new byte[4096];
-        int                    read;
-        while ((read = libStream.read(buffer)) != -1) {
-            fos.write(buffer,
-                      0,
-                      read);
+        if (ConfigVariables.JACCALL_ATTACH_CACHED) {
+            cacheAttachedThreads(ConfigVariables.JACCALL_ATTACH_DAEMON,
+                                 ConfigVariables.JACCALL_ATTACH_NAME,
+                                 null);
         }
-        fos.close();
-        libStream.close();
     }
 
     private JNI() {
@@ -158,24 +87,29 @@ public final class JNI {
      */
     public static ByteBuffer wrap(long address,
                                   @Nonnegative int size) {
+        final MethodHandle directBbConst = DIRECT_BB_CONST;
+        if (directBbConst == null) {
+            return NewDirectByteBuffer(address,
+                                       size);
+        }
         try {
-            return (ByteBuffer) DIRECT_BB_CONST.newInstance(address,
-                                                            size);
+            return (ByteBuffer) directBbConst.invokeExact(address,
+                                                          size);
         }
-        catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-            throw new Error(e);
+        catch (final Throwable throwable) {
+            throw new Error(throwable);
         }
     }
 
     public static long unwrap(@Nonnull Buffer byteBuffer) {
-        try {
-            return (long) DIRECT_BB_ADR_FLD.get(byteBuffer);
-        }
-        catch (IllegalAccessException e) {
-            throw new Error(e);
-        }
+        return UNSAFE.getLong(Objects.requireNonNull(byteBuffer,
+                                                     "Argument byteBuffer must not be null."),
+                              DIRECT_BB_ADR_OFFSET);
     }
 
+    static native ByteBuffer NewDirectByteBuffer(long address,
+                                                 long capacity);
+
     public static native long NewGlobalRef(@Nonnull final Object object);
 
     public static native void DeleteGlobalRef(final long object);
@@ -204,18 +138,73 @@ public final class JNI {
 
     public static long calloc(@Nonnegative int nmemb,
                               @Nonnegative int size) {
-        final int  totalSize = nmemb * size;
+        final long totalSize = (long) nmemb * size;
         final long malloc    = malloc(totalSize);
-        UNSAFE.setMemory(malloc,
-                         totalSize,
-                         (byte) 0);
+        memset(malloc,
+               0,
+               totalSize);
         return malloc;
     }
 
+    public static void memset(long address,
+                              int value,
+                              @Nonnegative long size) {
+        UNSAFE.setMemory(address,
+                         size,
+                         (byte) value);
+    }
+
+    static void memcpy(long targetAddress,
+                       long sourceAddress,
+                       @Nonnegative long size) {
+        UNSAFE.copyMemory(sourceAddress,
+                          targetAddress,
+                          size);
+    }
+
+    /**
+     * @return the size in bytes of a page of memory.
+     */
+    static int pageSize() {
+        return UNSAFE.pageSize();
+    }
+
+    /**
+     * @param path   address of the zero terminated path of the file to map.
+     * @param offset page aligned offset in the file.
+     * @param length size in bytes of the mapping.
+     * @param mode   0 for read only, 1 for read write, 2 for private copy on write.
+     *
+     * @return the address of the mapping.
+     */
+    static native long mmap(long path,
+                            long offset,
+                            long length,
+                            int mode) throws IOException;
+
+    static native void munmap(long address,
+                              long length);
+
+    static native void msync(long address,
+                             long length) throws IOException;
+
+    static native void madvise(long address,
+                               long length,
+                               int advice) throws IOException;
+
     public static void free(long address) {
         UNSAFE.freeMemory(address);
     }
 
+    static Object allocateInstance(@Nonnull final Class<?> clazz) {
+        try {
+            return UNSAFE.allocateInstance(clazz);
+        }
+        catch (final InstantiationException e) {
+            throw new Error(e);
+        }
+    }
+
     public static int sizeOfPointer() {
         return UNSAFE.addressSize();
     }
@@ -328,6 +317,20 @@ public final class JNI {
     @Nonnegative
     public static native int ffi_type_struct_size(long ffiStructType);
 
+    @Nonnegative
+    static native int ffi_type_alignment(long ffiType);
+
+    /*
+     * the member types of a struct or union type, or null if the type is not a struct
+     */
+    static native long[] ffi_type_elements(long ffiType);
+
+    /*
+     * the return type followed by the argument types of a call interface
+     */
+    @Nonnull
+    static native long[] ffi_cif_types(long ffiCallInterface);
+
     public static native long ffi_callInterface(long return_type,
                                                 long... arg_types);
 
@@ -336,6 +339,48 @@ public final class JNI {
                                           final long jniMethodId);
 
     public static native void ffi_closure_free(final long address);
+
+    /*
+     * a closure that can be freed and rebound to another object, see ClosurePool
+     */
+    static native long java_closure(final long ffiCif,
+                                    @Nullable final Object function,
+                                    final long jniMethodId);
+
+    static native long java_closure_code(final long closure);
+
+    static native void java_closure_bind(final long closure,
+                                         @Nullable final Object function);
+
+    static native void java_closure_free(final long closure);
+
+    /*
+     * the address of a symbol of a library
+     */
+    static native long dlsym(@Nonnull final String library,
+                             @Nonnull final String symbol);
+
+    /*
+     * execute a batch of calls recorded by Batch, results is 0 if the return values are not needed
+     */
+    static native void ffi_call_batch(final long commands,
+                                      final int count,
+                                      final long results);
+
+    /*
+     * a pool of native worker threads that execute batches, see NativeExecutor
+     */
+    static native long async_pool_create(@Nonnull final Object executor,
+                                         final int threads,
+                                         @Nonnull final String name);
+
+    static native void async_pool_submit(final long pool,
+                                         final long commands,
+                                         final int count,
+                                         final long results,
+                                         final long id);
+
+    static native void async_pool_destroy(final long pool);
     /*
      * <- ffi
      */
@@ -351,6 +396,33 @@ public final class JNI {
                             @Nonnull String[] jniSignatures,/*jni method signatures*/
                             @Nonnull long[] ffiCallInterfaces/*array of ffi type pointers*/);
 
+    /*
+     * register a stub for every method that calls resolver.resolve(int) on the first call
+     */
+    static native void linkLazy(@Nonnull String library, /* library path */
+                                @Nonnull Class<?> header,/*class with native methods*/
+                                @Nonnull String[] symbols,/*method names*/
+                                @Nonnull byte[] argumentSizes,/*number of arguments for each method*/
+                                @Nonnull String[] jniSignatures,/*jni method signatures*/
+                                @Nonnull Object resolver/*symbols that link a method on its first call*/);
+
+    /*
+     * link a single method, returns the address of the registered native function
+     */
+    static native long linkSymbol(@Nonnull String library, /* library path */
+                                  @Nonnull Class<?> header,/*class with native methods*/
+                                  @Nonnull String symbol,/*method name*/
+                                  byte argumentSize,/*number of arguments of the method*/
+                                  @Nonnull String jniSignature,/*jni method signature*/
+                                  long ffiCallInterface/*ffi type pointer*/);
+
+    static native void linkStubs(@Nonnull String library, /* library path */
+                                 @Nonnull String stubsLibrary, /* stubs library path */
+                                 @Nonnull Class<?> header,/*class with native methods*/
+                                 @Nonnull String[] symbols,/*method names*/
+                                 @Nonnull String[] jniSignatures,/*jni method signatures*/
+                                 @Nonnull String[] stubs/*stub function names*/);
+
     public static native void linkFuncPtr(@Nonnull Class<?> wrapper,/*class with native method*/
                                           @Nonnull String symbol,/*method name*/
                                           @Nonnegative int argumentSize,/*number of arguments for the method*/
@@ -361,6 +433,56 @@ public final class JNI {
      * <- linker
      */
 
+    /*
+     * upcalls ->
+     */
+
+    /**
+     * Keep native threads attached to the JVM after their first call into Java, instead of attaching and detaching
+     * them for every call. A cached thread is detached when it exits. Threads that are already attached keep their
+     * current mode.
+     * <p>
+     * This can also be enabled with the {@code JACCALL_ATTACH_CACHED}, {@code JACCALL_ATTACH_DAEMON} and
+     * {@code JACCALL_ATTACH_NAME} environment variables.
+     *
+     * @param daemon attach native threads as daemon threads, so they don't keep the JVM alive.
+     * @param name   prefix of the name of attached threads, or null to let the JVM choose a name.
+     * @param group  thread group of attached threads, or null for the main thread group.
+     */
+    public static void cacheAttachedThreads(final boolean daemon,
+                                            @Nullable final String name,
+                                            @Nullable final ThreadGroup group) {
+        attachConfig(true,
+                     daemon,
+                     name,
+                     group);
+    }
+
+    /**
+     * Attach native threads for the duration of a single call into Java. This is the default.
+     */
+    public static void detachAttachedThreads() {
+        attachConfig(false,
+                     false,
+                     null,
+                     null);
+    }
+
+    private static native void attachConfig(boolean cached,
+                                             boolean daemon,
+                                             @Nullable String name,
+                                             @Nullable ThreadGroup group);
+
+    /**
+     * @return the number of times a native thread was attached to the JVM to call into Java.
+     */
+    @Nonnegative
+    public static native long attachCount();
+
+    /*
+     * <- upcalls
+     */
+
     /*
      * raw io ->
      */
@@ -378,10 +500,11 @@ public final class JNI {
 
     public static void setBytes(final long address,
                                 final byte[] val) {
-        for (int i = 0; i < val.length; i++) {
-            UNSAFE.putByte(address + i,
-                           val[i]);
-        }
+        writeBytes(address,
+                   0,
+                   val,
+                   0,
+                   val.length);
     }
 
     public static long getCLong(final long address,
@@ -410,11 +533,11 @@ public final class JNI {
 
     public static void setDoubles(final long address,
                                   final double[] val) {
-        for (int i = 0; i < val.length; i++) {
-            setDouble(address,
-                      i,
-                      val[i]);
-        }
+        writeDoubles(address,
+                     0,
+                     val,
+                     0,
+                     val.length);
     }
 
     public static void setFloat(final long address,
@@ -426,11 +549,11 @@ public final class JNI {
 
     public static void setFloats(final long address,
                                  final float[] val) {
-        for (int i = 0; i < val.length; i++) {
-            setFloat(address,
-                     i,
-                     val[i]);
-        }
+        writeFloats(address,
+                    0,
+                    val,
+                    0,
+                    val.length);
     }
 
     public static int getInt(final long address,
@@ -447,11 +570,11 @@ public final class JNI {
 
     public static void setInts(final long address,
                                final int[] val) {
-        for (int i = 0; i < val.length; i++) {
-            setInt(address,
-                   i,
-                   val[i]);
-        }
+        writeInts(address,
+                  0,
+                  val,
+                  0,
+                  val.length);
     }
 
     public static long getLong(final long address,
@@ -468,11 +591,11 @@ public final class JNI {
 
     public static void setLongs(final long address,
                                 final long[] val) {
-        for (int i = 0; i < val.length; i++) {
-            setLong(address,
-                    i,
-                    val[i]);
-        }
+        writeLongs(address,
+                   0,
+                   val,
+                   0,
+                   val.length);
     }
 
     public static long getPointer(final long address,
@@ -501,19 +624,24 @@ public final class JNI {
 
     public static void setShorts(final long address,
                                  final short[] val) {
-        for (int i = 0; i < val.length; i++) {
-            setShort(address,
-                     i,
-                     val[i]);
-        }
+        writeShorts(address,
+                    0,
+                    val,
+                    0,
+                    val.length);
     }
 
-    public static native String getString(final long address,
-                                          final int index);
+    public static String getString(final long address,
+                                   final int index) {
+        return CStrings.decode(address + index);
+    }
 
-    public static native void setString(final long address,
-                                        final int index,
-                                        final String val);
+    public static void setString(final long address,
+                                 final int index,
+                                 final String val) {
+        CStrings.encode(address + index,
+                        val);
+    }
 
     public static void setStruct(final long targetAddress,
                                  final long sourceAddress,
@@ -527,6 +655,202 @@ public final class JNI {
                                  final int index) {
         return UNSAFE.getFloat(address + index * 4);
     }
+
+    public static void readBytes(final long address,
+                                 final int index,
+                                 @Nonnull final byte[] dst,
+                                 final int offset,
+                                 final int length) {
+        checkBounds(dst.length,
+                    offset,
+                    length);
+        UNSAFE.copyMemory(null,
+                          address + index,
+                          dst,
+                          Unsafe.ARRAY_BYTE_BASE_OFFSET + offset,
+                          length);
+    }
+
+    public static void writeBytes(final long address,
+                                  final int index,
+                                  @Nonnull final byte[] src,
+                                  final int offset,
+                                  final int length) {
+        checkBounds(src.length,
+                    offset,
+                    length);
+        UNSAFE.copyMemory(src,
+                          Unsafe.ARRAY_BYTE_BASE_OFFSET + offset,
+                          null,
+                          address + index,
+                          length);
+    }
+
+    public static void readShorts(final long address,
+                                  final int index,
+                                  @Nonnull final short[] dst,
+                                  final int offset,
+                                  final int length) {
+        checkBounds(dst.length,
+                    offset,
+                    length);
+        UNSAFE.copyMemory(null,
+                          address + index * 2L,
+                          dst,
+                          Unsafe.ARRAY_SHORT_BASE_OFFSET + offset * 2L,
+                          length * 2L);
+    }
+
+    public static void writeShorts(final long address,
+                                   final int index,
+                                   @Nonnull final short[] src,
+                                   final int offset,
+                                   final int length) {
+        checkBounds(src.length,
+                    offset,
+                    length);
+        UNSAFE.copyMemory(src,
+                          Unsafe.ARRAY_SHORT_BASE_OFFSET + offset * 2L,
+                          null,
+                          address + index * 2L,
+                          length * 2L);
+    }
+
+    public static void readInts(final long address,
+                                final int index,
+                                @Nonnull final int[] dst,
+                                final int offset,
+                                final int length) {
+        checkBounds(dst.length,
+                    offset,
+                    length);
+        UNSAFE.copyMemory(null,
+                          address + index * 4L,
+                          dst,
+                          Unsafe.ARRAY_INT_BASE_OFFSET + offset * 4L,
+                          length * 4L);
+    }
+
+    public static void writeInts(final long address,
+                                 final int index,
+                                 @Nonnull final int[] src,
+                                 final int offset,
+                                 final int length) {
+        checkBounds(src.length,
+                    offset,
+                    length);
+        UNSAFE.copyMemory(src,
+                          Unsafe.ARRAY_INT_BASE_OFFSET + offset * 4L,
+                          null,
+                          address + index * 4L,
+                          length * 4L);
+    }
+
+    public static void readLongs(final long address,
+                                 final int index,
+                                 @Nonnull final long[] dst,
+                                 final int offset,
+                                 final int length) {
+        checkBounds(dst.length,
+                    offset,
+                    length);
+        UNSAFE.copyMemory(null,
+                          address + index * 8L,
+                          dst,
+                          Unsafe.ARRAY_LONG_BASE_OFFSET + offset * 8L,
+                          length * 8L);
+    }
+
+    public static void writeLongs(final long address,
+                                  final int index,
+                                  @Nonnull final long[] src,
+                                  final int offset,
+                                  final int length) {
+        checkBounds(src.length,
+                    offset,
+                    length);
+        UNSAFE.copyMemory(src,
+                          Unsafe.ARRAY_LONG_BASE_OFFSET + offset * 8L,
+                          null,
+                          address + index * 8L,
+                          length * 8L);
+    }
+
+    public static void readFloats(final long address,
+                                  final int index,
+                                  @Nonnull final float[] dst,
+                                  final int offset,
+                                  final int length) {
+        checkBounds(dst.length,
+                    offset,
+                    length);
+        UNSAFE.copyMemory(null,
+                          address + index * 4L,
+                          dst,
+                          Unsafe.ARRAY_FLOAT_BASE_OFFSET + offset * 4L,
+                          length * 4L);
+    }
+
+    public static void writeFloats(final long address,
+                                   final int index,
+                                   @Nonnull final float[] src,
+                                   final int offset,
+                                   final int length) {
+        checkBounds(src.length,
+                    offset,
+                    length);
+        UNSAFE.copyMemory(src,
+                          Unsafe.ARRAY_FLOAT_BASE_OFFSET + offset * 4L,
+                          null,
+                          address + index * 4L,
+                          length * 4L);
+    }
+
+    public static void readDoubles(final long address,
+                                   final int index,
+                                   @Nonnull final double[] dst,
+                                   final int offset,
+                                   final int length) {
+        checkBounds(dst.length,
+                    offset,
+                    length);
+        UNSAFE.copyMemory(null,
+                          address + index * 8L,
+                          dst,
+                          Unsafe.ARRAY_DOUBLE_BASE_OFFSET + offset * 8L,
+                          length * 8L);
+    }
+
+    public static void writeDoubles(final long address,
+                                    final int index,
+                                    @Nonnull final double[] src,
+                                    final int offset,
+                                    final int length) {
+        checkBounds(src.length,
+                    offset,
+                    length);
+        UNSAFE.copyMemory(src,
+                          Unsafe.ARRAY_DOUBLE_BASE_OFFSET + offset * 8L,
+                          null,
+                          address + index * 8L,
+                          length * 8L);
+    }
+
+    public static void copy(final long sourceAddress,
+                            final long targetAddress,
+                            @Nonnegative final long size) {
+        UNSAFE.copyMemory(sourceAddress,
+                          targetAddress,
+                          size);
+    }
+
+    private static void checkBounds(final int arrayLength,
+                                    final int offset,
+                                    final int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new ArrayIndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + arrayLength + ".");
+        }
+    }
     /*
      * <- raw io
      */
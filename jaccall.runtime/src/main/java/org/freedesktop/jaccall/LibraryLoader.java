@@ -0,0 +1,389 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads the jaccall library that is bundled for every supported arch. The arch is detected from the ELF header of
+ * the running JVM, and the library is extracted once to a cache directory, in a file named after the hash of its
+ * content. Other JVMs, and later runs, load the same file.
+ * <p>
+ * The cache directory is {@code jaccall-<user>} in the temporary directory, unless the {@code JACCALL_CACHE_DIR}
+ * environment variable is set. It is only used if it's owned by the current user and can not be written by other
+ * users, and a cached file is only loaded if its content matches its hash.
+ */
+final class LibraryLoader {
+
+    private static final Logger LOGGER = Logger.getLogger("jaccall");
+
+    //TODO add android
+    static final String[] ARCHS = {"linux-aarch64",
+                                   "linux-armv7hf",
+                                   "linux-armv7sf",
+                                   "linux-armv6hf",
+                                   "linux-x86_64",
+                                   "linux-i686",
+                                   //last resort
+                                   "native"};
+
+    private static final String ARCH_NATIVE = "native";
+
+    private static final String LIB = "libjaccall.so";
+
+    private static final String ELF_FILE = "/proc/self/exe";
+
+    private static final int EM_386     = 3;
+    private static final int EM_ARM     = 40;
+    private static final int EM_X86_64  = 62;
+    private static final int EM_AARCH64 = 183;
+
+    private static final int EF_ARM_ABI_FLOAT_HARD = 0x400;
+
+    private LibraryLoader() {
+    }
+
+    static void load() {
+        if (ConfigVariables.JACCALL_ARCH != null) {
+            loadLibrary(ConfigVariables.JACCALL_ARCH);
+            return;
+        }
+
+        final List<String> archs = detectArchs();
+        if (archs.isEmpty()) {
+            //there is no real good or correct way to determine the userland+os+architecture in Java :(
+            LOGGER.info(String.format("Jaccall might not work correctly, arch could not be detected and is not specified by JACCALL_ARCH environment variable, please specify it. Supported values are: %s",
+                                      Arrays.toString(ARCHS)));
+            archs.addAll(Arrays.asList(ARCHS));
+        }
+        else {
+            archs.add(ARCH_NATIVE);
+        }
+
+        final Map<String, LinkageError> failures = new LinkedHashMap<>();
+        for (final String arch : archs) {
+            try {
+                loadLibrary(arch);
+                LOGGER.fine(String.format("Successfully loaded lib for arch %s.",
+                                          arch));
+                return;
+            }
+            catch (final LinkageError e) {
+                LOGGER.info(String.format("Loading lib for arch %s failed. Trying next arch.",
+                                          arch));
+                failures.put(arch,
+                             e);
+            }
+        }
+
+        for (final Map.Entry<String, LinkageError> errorEntry : failures.entrySet()) {
+            System.err.println("Could not load lib for arch " + errorEntry.getKey());
+            errorEntry.getValue()
+                      .printStackTrace();
+        }
+        throw new Error("Failed to load any of the libs for ARCHS: " + archs);
+    }
+
+    /**
+     * @return the archs that match the running JVM, most specific first, or an empty list if the arch is unknown.
+     */
+    @Nonnull
+    static List<String> detectArchs() {
+        final List<String> archs = new ArrayList<>();
+        if (!System.getProperty("os.name")
+                   .toLowerCase(Locale.ROOT)
+                   .startsWith("linux")) {
+            return archs;
+        }
+
+        int machine = -1;
+        int flags   = 0;
+        try (final RandomAccessFile elf = new RandomAccessFile(ELF_FILE,
+                                                               "r")) {
+            final byte[] header = new byte[52];
+            elf.readFully(header);
+            if (header[0] == 0x7f && header[1] == 'E' && header[2] == 'L' && header[3] == 'F') {
+                final boolean littleEndian = header[5] == 1;
+                machine = readInt(header,
+                                  18,
+                                  2,
+                                  littleEndian);
+                //e_flags is only used on arm, which is always 32-bit
+                flags = readInt(header,
+                                36,
+                                4,
+                                littleEndian);
+            }
+        }
+        catch (final IOException e) {
+            LOGGER.log(Level.FINE,
+                       "Could not read ELF header of the JVM.",
+                       e);
+        }
+
+        if (machine == -1) {
+            machine = machine(System.getProperty("os.arch"));
+        }
+
+        switch (machine) {
+            case EM_X86_64:
+                archs.add("linux-x86_64");
+                break;
+            case EM_AARCH64:
+                archs.add("linux-aarch64");
+                break;
+            case EM_386:
+                archs.add("linux-i686");
+                break;
+            case EM_ARM:
+                if ((flags & EF_ARM_ABI_FLOAT_HARD) != 0) {
+                    archs.add("linux-armv7hf");
+                    archs.add("linux-armv6hf");
+                }
+                else {
+                    archs.add("linux-armv7sf");
+                }
+                break;
+            default:
+                break;
+        }
+        return archs;
+    }
+
+    private static int machine(@Nullable final String osArch) {
+        if (osArch == null) {
+            return -1;
+        }
+        switch (osArch) {
+            case "amd64":
+            case "x86_64":
+                return EM_X86_64;
+            case "aarch64":
+                return EM_AARCH64;
+            case "x86":
+            case "i386":
+            case "i686":
+                return EM_386;
+            case "arm":
+                return EM_ARM;
+            default:
+                return -1;
+        }
+    }
+
+    private static int readInt(final byte[] bytes,
+                               final int offset,
+                               final int size,
+                               final boolean littleEndian) {
+        int value = 0;
+        for (int i = 0; i < size; i++) {
+            final int b = bytes[offset + (littleEndian ? size - 1 - i : i)] & 0xff;
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    private static void loadLibrary(final String arch) throws LinkageError {
+        final byte[] lib;
+        try (final InputStream libStream = JNI.class.getClassLoader()
+                                                    .getResourceAsStream(arch + "/" + LIB)) {
+            if (libStream == null) {
+                //lib not found
+                throw new LinkageError(String.format("Lib for arch %s not found.",
+                                                     arch));
+            }
+            lib = read(libStream);
+        }
+        catch (final IOException e) {
+            throw new Error(e);
+        }
+
+        System.load(extract(lib).getAbsolutePath());
+    }
+
+    private static byte[] read(final InputStream libStream) throws IOException {
+        final ByteArrayOutputStream bytes  = new ByteArrayOutputStream(256 * 1024);
+        final byte[]                buffer = new byte[8192];
+        int                         read;
+        while ((read = libStream.read(buffer)) != -1) {
+            bytes.write(buffer,
+                        0,
+                        read);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static File extract(final byte[] lib) {
+        return extract(lib,
+                       cacheDir());
+    }
+
+    /**
+     * @return the cached file with the given library content, written if it does not exist yet.
+     */
+    static File extract(final byte[] lib,
+                        final File cacheDir) {
+        final String hash = hash(lib);
+        final File libFile = new File(cacheDir,
+                                      "libjaccall-" + hash + ".so");
+        try {
+            secureCacheDir(cacheDir.toPath());
+            if (isCached(libFile.toPath(),
+                         hash)) {
+                return libFile;
+            }
+
+            //write next to the cached file and move it in place, so other JVMs never see a partial file
+            final Path tempFile = Files.createTempFile(cacheDir.toPath(),
+                                                       LIB,
+                                                       ".tmp");
+            try {
+                Files.write(tempFile,
+                            lib);
+                try {
+                    Files.move(tempFile,
+                               libFile.toPath(),
+                               StandardCopyOption.ATOMIC_MOVE);
+                }
+                catch (final AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile,
+                               libFile.toPath(),
+                               StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            finally {
+                Files.deleteIfExists(tempFile);
+            }
+            return libFile;
+        }
+        catch (final IOException e) {
+            LOGGER.log(Level.WARNING,
+                       String.format("Could not cache lib in %s, extracting to a temporary file instead.",
+                                     cacheDir),
+                       e);
+            return extractTemporary(lib);
+        }
+    }
+
+    /**
+     * Create the cache directory so only the current user can access it, or check that an existing cache directory
+     * is owned by the current user and can not be written by other users. Otherwise another user could plant a library
+     * in it that is loaded by this JVM.
+     */
+    private static void secureCacheDir(final Path cacheDir) throws IOException {
+        final boolean posix = cacheDir.getFileSystem()
+                                      .supportedFileAttributeViews()
+                                      .contains("posix");
+        if (!Files.exists(cacheDir,
+                          LinkOption.NOFOLLOW_LINKS)) {
+            if (posix) {
+                Files.createDirectories(cacheDir,
+                                        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            }
+            else {
+                Files.createDirectories(cacheDir);
+            }
+        }
+        if (!Files.isDirectory(cacheDir,
+                               LinkOption.NOFOLLOW_LINKS)) {
+            throw new IOException(String.format("Cache directory %s is not a directory.",
+                                                cacheDir));
+        }
+        if (!posix) {
+            return;
+        }
+
+        final PosixFileAttributes attributes = Files.readAttributes(cacheDir,
+                                                                    PosixFileAttributes.class,
+                                                                    LinkOption.NOFOLLOW_LINKS);
+        final UserPrincipal user = cacheDir.getFileSystem()
+                                           .getUserPrincipalLookupService()
+                                           .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!attributes.owner()
+                       .equals(user)) {
+            throw new IOException(String.format("Cache directory %s is owned by %s instead of %s.",
+                                                cacheDir,
+                                                attributes.owner()
+                                                          .getName(),
+                                                user.getName()));
+        }
+        final Set<PosixFilePermission> permissions = attributes.permissions();
+        if (permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+            throw new IOException(String.format("Cache directory %s can be written by other users.",
+                                                cacheDir));
+        }
+    }
+
+    /**
+     * @return true if the cached file exists and its content still has the given hash.
+     */
+    private static boolean isCached(final Path libFile,
+                                    final String hash) throws IOException {
+        return Files.isRegularFile(libFile,
+                                   LinkOption.NOFOLLOW_LINKS) && hash(Files.readAllBytes(libFile)).equals(hash);
+    }
+
+    private static File extractTemporary(final byte[] lib) {
+        try {
+            final File tempFile = File.createTempFile(LIB,
+                                                      null);
+            tempFile.deleteOnExit();
+            Files.write(tempFile.toPath(),
+                        lib);
+            return tempFile;
+        }
+        catch (final IOException e) {
+            throw new Error(e);
+        }
+    }
+
+    private static File cacheDir() {
+        final String cacheDir = ConfigVariables.JACCALL_CACHE_DIR;
+        if (cacheDir != null) {
+            return new File(cacheDir);
+        }
+        return new File(System.getProperty("java.io.tmpdir"),
+                        "jaccall-" + System.getProperty("user.name"));
+    }
+
+    private static String hash(final byte[] lib) {
+        try {
+            final byte[]        digest = MessageDigest.getInstance("SHA-256")
+                                                      .digest(lib);
+            final StringBuilder hash   = new StringBuilder(digest.length * 2);
+            for (final byte b : digest) {
+                hash.append(String.format("%02x",
+                                          b));
+            }
+            return hash.toString();
+        }
+        catch (final NoSuchAlgorithmException e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executes batches of native calls on a pool of native worker threads, so blocking C functions do not block the
+ * calling java thread. The worker threads live inside the jaccall library and stay attached to the JVM, the future of
+ * a batch is completed on the worker thread that executed it.
+ * <p>
+ * Java:<br>
+ * <pre>{@code
+ * final Batch.Function compress = new Foo_Symbols().function("compress");
+ * final NativeExecutor executor = new NativeExecutor(4, 256);
+ *
+ * final Batch batch = new Batch();
+ * batch.call(compress).arg(src).arg(dst).arg(size);
+ * executor.submit(batch)
+ *         .thenApply(done -> done.result(0))
+ *         .whenComplete((result, throwable) -> batch.close());
+ * }</pre>
+ * The number of submitted batches that are not completed is bounded by the queue capacity. When the queue is full, a
+ * batch is rejected right away instead of blocking the submitting thread, its future completes with a
+ * {@link RejectedExecutionException}.
+ * <p>
+ * Generated {@code _Async} classes submit the calls of {@link Async} methods to an executor.
+ */
+public final class NativeExecutor implements AutoCloseable {
+
+    private static final String NAME = "jaccall-async";
+
+    private final ConcurrentMap<Long, Submission> submissions = new ConcurrentHashMap<>();
+    private final AtomicLong                      ids         = new AtomicLong();
+    private final AtomicBoolean                   closed      = new AtomicBoolean();
+
+    private final int       queueCapacity;
+    private final Semaphore permits;
+    private final long      pool;
+
+    /**
+     * Start the native worker threads.
+     *
+     * @param threads       the number of native worker threads.
+     * @param queueCapacity the maximum number of submitted batches that are not completed.
+     */
+    public NativeExecutor(@Nonnegative final int threads,
+                          @Nonnegative final int queueCapacity) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Expected at least one thread, got " + threads + ".");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Expected a queue capacity of at least one, got " + queueCapacity + ".");
+        }
+        this.queueCapacity = queueCapacity;
+        this.permits = new Semaphore(queueCapacity);
+        this.pool = JNI.async_pool_create(this,
+                                          threads,
+                                          NAME);
+    }
+
+    /**
+     * Execute all recorded calls of a batch on a native worker thread. The batch must not be used until the returned
+     * future is completed.
+     *
+     * @param batch the batch to execute.
+     *
+     * @return a future that completes with the executed batch, so the results of the calls can be read.
+     */
+    @Nonnull
+    public CompletableFuture<Batch> submit(@Nonnull final Batch batch) {
+        final CompletableFuture<Batch> future = new CompletableFuture<>();
+
+        if (!this.permits.tryAcquire()) {
+            future.completeExceptionally(new RejectedExecutionException("Native executor queue is full."));
+            return future;
+        }
+        if (this.closed.get()) {
+            this.permits.release();
+            future.completeExceptionally(new RejectedExecutionException("Native executor is closed."));
+            return future;
+        }
+
+        try {
+            batch.prepare();
+        }
+        catch (final RuntimeException e) {
+            this.permits.release();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        final long id = this.ids.incrementAndGet();
+        this.submissions.put(id,
+                             new Submission(batch,
+                                            future));
+        JNI.async_pool_submit(this.pool,
+                              batch.commandsAddress(),
+                              batch.calls(),
+                              batch.resultsAddress(),
+                              id);
+        return future;
+    }
+
+    /**
+     * Called from a native worker thread after a batch was executed.
+     */
+    private void complete(final long id) {
+        final Submission submission = this.submissions.remove(id);
+        submission.batch.executed();
+        this.permits.release();
+        submission.future.complete(submission.batch);
+    }
+
+    /**
+     * Wait for all submitted batches to complete and stop the native worker threads. Must not be called from the
+     * completion of a future of this executor.
+     */
+    @Override
+    public void close() {
+        if (this.closed.getAndSet(true)) {
+            return;
+        }
+        this.permits.acquireUninterruptibly(this.queueCapacity);
+        JNI.async_pool_destroy(this.pool);
+    }
+
+    private static final class Submission {
+        private final Batch                    batch;
+        private final CompletableFuture<Batch> future;
+
+        private Submission(final Batch batch,
+                           final CompletableFuture<Batch> future) {
+            this.batch = batch;
+            this.future = future;
+        }
+    }
+}
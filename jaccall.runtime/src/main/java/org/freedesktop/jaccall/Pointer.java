@@ -4,9 +4,20 @@ import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -30,8 +41,16 @@ public abstract class Pointer<T> implements Closeable {
     static final boolean ENABLE_LOG = Logger.getLogger("jaccall")
                                             .isLoggable(Level.FINE);
 
+    //only read after class initialization, lookups go through FACTORIES
     protected static final Map<Class, PointerFactory<?>> POINTER_FACTORIES = new HashMap<>(32);
 
+    private static final ClassValue<PointerFactory<?>> FACTORIES = new ClassValue<PointerFactory<?>>() {
+        @Override
+        protected PointerFactory<?> computeValue(final Class<?> rawType) {
+            return findFactory(rawType);
+        }
+    };
+
     static {
         final PointerByteFactory pointerByteFactory = new PointerByteFactory();
         POINTER_FACTORIES.put(Byte.class,
@@ -174,9 +193,16 @@ public abstract class Pointer<T> implements Closeable {
                                                           address));
         }
 
-        final Class<?> rawType = toClass(type);
-        final Class<?> lookupType;
+        final PointerFactory<?> pointerFactory = FACTORIES.get(toClass(type));
 
+        return (Pointer<U>) pointerFactory.create(type,
+                                                  address,
+                                                  autoFree);
+    }
+
+    @Nonnull
+    private static PointerFactory<?> findFactory(@Nonnull final Class<?> rawType) {
+        final Class<?> lookupType;
         if (StructType.class.isAssignableFrom(rawType)) {
             lookupType = StructType.class;
         }
@@ -187,29 +213,24 @@ public abstract class Pointer<T> implements Closeable {
             lookupType = rawType;
         }
 
-        PointerFactory<?> pointerFactory = POINTER_FACTORIES.get(lookupType);
-        if (pointerFactory == null) {
-            //check if we're dealing with an unregistered functor type
-            if (rawType.getAnnotation(Functor.class) != null) {
-                try {
-                    final Class<?> functorPointerFactory = rawType.getClassLoader()
-                                                                  .loadClass(rawType.getName() + "_PointerFactory");
-                    pointerFactory = (PointerFactory<?>) functorPointerFactory.newInstance();
-                    POINTER_FACTORIES.put(lookupType,
-                                          pointerFactory);
-                }
-                catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
-                    throw new Error(e);
-                }
+        final PointerFactory<?> pointerFactory = POINTER_FACTORIES.get(lookupType);
+        if (pointerFactory != null) {
+            return pointerFactory;
+        }
+
+        //check if we're dealing with an unregistered functor type
+        if (rawType.getAnnotation(Functor.class) != null) {
+            try {
+                final Class<?> functorPointerFactory = rawType.getClassLoader()
+                                                              .loadClass(rawType.getName() + "_PointerFactory");
+                return (PointerFactory<?>) functorPointerFactory.newInstance();
             }
-            else {
-                throw new IllegalArgumentException("Type " + rawType + " does not have a known mapping.");
+            catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+                throw new Error(e);
             }
         }
 
-        return (Pointer<U>) pointerFactory.create(type,
-                                                  address,
-                                                  autoFree);
+        throw new IllegalArgumentException("Type " + rawType + " does not have a known mapping.");
     }
 
     /**
@@ -235,8 +256,12 @@ public abstract class Pointer<T> implements Closeable {
             throw new IllegalArgumentException("Given size argument is not a positive number.");
         }
 
-        final long address = JNI.realloc(pointer.address,
-                                         size);
+        final long address = SlabPool.realloc(pointer.address,
+                                              size);
+        AllocationTracker.freed(pointer.address);
+        AllocationTracker.allocated(address,
+                                    size,
+                                    Void.class);
 
         if (ENABLE_LOG) {
             Logger.getLogger("jaccall")
@@ -275,8 +300,12 @@ public abstract class Pointer<T> implements Closeable {
         Objects.requireNonNull(type,
                                "Argument type must not be null.");
 
-        final long address = JNI.realloc(pointer.address,
-                                         size);
+        final long address = SlabPool.realloc(pointer.address,
+                                              size);
+        AllocationTracker.freed(pointer.address);
+        AllocationTracker.allocated(address,
+                                    size,
+                                    type);
 
         if (ENABLE_LOG) {
             Logger.getLogger("jaccall")
@@ -305,7 +334,10 @@ public abstract class Pointer<T> implements Closeable {
         if (size < 0) {
             throw new IllegalArgumentException("Given size argument is not a positive number.");
         }
-        final long address = JNI.malloc(size);
+        final long address = SlabPool.malloc(size);
+        AllocationTracker.allocated(address,
+                                    size,
+                                    Void.class);
         if (ENABLE_LOG) {
             Logger.getLogger("jaccall")
                   .log(Level.FINE,
@@ -335,9 +367,13 @@ public abstract class Pointer<T> implements Closeable {
             throw new IllegalArgumentException("Given size argument is not a positive number.");
         }
 
-        return wrap(Objects.requireNonNull(type,
-                                           "Argument type must not be null."),
-                    JNI.malloc(size));
+        final long address = SlabPool.malloc(size);
+        AllocationTracker.allocated(address,
+                                    size,
+                                    Objects.requireNonNull(type,
+                                                           "Argument type must not be null."));
+        return wrap(type,
+                    address);
     }
 
     /**
@@ -359,8 +395,12 @@ public abstract class Pointer<T> implements Closeable {
             throw new IllegalArgumentException("Given size argument is not a positive number.");
         }
 
-        return wrap(JNI.calloc(nmemb,
-                               size));
+        final long address = SlabPool.calloc(nmemb,
+                                             size);
+        AllocationTracker.allocated(address,
+                                    (long) nmemb * size,
+                                    Void.class);
+        return wrap(address);
     }
 
     /**
@@ -384,18 +424,39 @@ public abstract class Pointer<T> implements Closeable {
             throw new IllegalArgumentException("Given size or nmemb argument is not a positive number.");
         }
 
-        return wrap(Objects.requireNonNull(type,
-                                           "Argument type must not be null"),
-                    JNI.calloc(nmemb,
-                               size));
+        final long address = SlabPool.calloc(nmemb,
+                                             size);
+        AllocationTracker.allocated(address,
+                                    (long) nmemb * size,
+                                    Objects.requireNonNull(type,
+                                                           "Argument type must not be null"));
+        return wrap(type,
+                    address);
     }
 
     private static <U> Pointer<U> createStack(final Class<U> type,
                                               final int elementSize,
                                               final int length) {
-        return wrap(type,
-                    JNI.malloc(elementSize * length),
-                    true);
+        final int  size         = elementSize * length;
+        final long frameAddress = Frame.allocate(size);
+        if (frameAddress != 0L) {
+            //released when the frame is closed
+            final Pointer<U> pointer = wrap(type,
+                                            frameAddress,
+                                            false);
+            pointer.frameOwned = true;
+            return pointer;
+        }
+
+        final Pointer<U> pointer = wrap(type,
+                                        SlabPool.malloc(size),
+                                        false);
+        AllocationTracker.allocated(pointer.address,
+                                    size,
+                                    type);
+        pointer.reclaim(Reclaimer.free(pointer.address),
+                        size);
+        return pointer;
     }
 
     /**
@@ -427,8 +488,12 @@ public abstract class Pointer<T> implements Closeable {
     }
 
     public static Pointer<Object> from(@Nonnull final Object val) {
+        final long globalRef = JNI.NewGlobalRef(val);
+        AllocationTracker.allocated(globalRef,
+                                    0L,
+                                    val.getClass());
         return wrap(Object.class,
-                    JNI.NewGlobalRef(val));
+                    globalRef);
     }
 
     /**
@@ -692,8 +757,110 @@ public abstract class Pointer<T> implements Closeable {
         return pointer;
     }
 
-    public final  long    address;
-    private final boolean autoFree;
+    /**
+     * Map a region of a file into memory. Reading and writing the memory reads and writes the file through the page
+     * cache, without copying it to or from the Java heap. The region is unmapped when the returned pointer is closed
+     * or garbage collected.
+     * <p>
+     * Java:<br>
+     * {@code Pointer<Foo> foos = Pointer.mmap(path, 0, Foo.SIZE * count, MapMode.READ_ONLY, Foo.class);}
+     * <p>
+     * C equivalent:<br>
+     * {@code struct foo* foos = mmap(NULL, sizeof(struct foo) * count, PROT_READ, MAP_SHARED, fd, 0);}
+     *
+     * @param path   the file to map.
+     * @param offset the offset in bytes of the region in the file, does not have to be page aligned.
+     * @param length the size in bytes of the region.
+     * @param mode   {@link FileChannel.MapMode#READ_WRITE} to write changes back to the file,
+     *               {@link FileChannel.MapMode#PRIVATE} to keep changes private. A read write mapping grows the file
+     *               if it is smaller than the region, other mappings must fit in the file.
+     * @param type   the type of the pointer.
+     * @param <U>    the type of the pointer.
+     *
+     * @return a new typed pointer object to the mapped region.
+     *
+     * @throws IOException if the file can not be opened or mapped, or if the region of a read only or private mapping
+     *                     does not fit in the file.
+     */
+    @Nonnull
+    public static <U> Pointer<U> mmap(@Nonnull final Path path,
+                                      @Nonnegative final long offset,
+                                      @Nonnegative final long length,
+                                      @Nonnull final FileChannel.MapMode mode,
+                                      @Nonnull final Class<U> type) throws IOException {
+        Objects.requireNonNull(path,
+                               "Argument path must not be null.");
+        Objects.requireNonNull(type,
+                               "Argument type must not be null.");
+        if (offset < 0 || length <= 0) {
+            throw new IllegalArgumentException("Given offset or length argument is not a positive number.");
+        }
+
+        final int modeIndex;
+        if (FileChannel.MapMode.READ_ONLY.equals(Objects.requireNonNull(mode,
+                                                                        "Argument mode must not be null."))) {
+            modeIndex = 0;
+        }
+        else if (FileChannel.MapMode.READ_WRITE.equals(mode)) {
+            modeIndex = 1;
+            if (Files.size(path) < offset + length) {
+                try (final RandomAccessFile file = new RandomAccessFile(path.toFile(),
+                                                                        "rw")) {
+                    file.setLength(offset + length);
+                }
+            }
+        }
+        else {
+            modeIndex = 2;
+        }
+        //pages past the end of the file raise SIGBUS when they are accessed
+        if (modeIndex != 1 && Files.size(path) < offset + length) {
+            throw new IOException(String.format("Region of %d bytes at offset %d does not fit in file %s of %d bytes.",
+                                                length,
+                                                offset,
+                                                path,
+                                                Files.size(path)));
+        }
+
+        //mmap only maps whole pages
+        final long alignedOffset = offset & -JNI.pageSize();
+        final long mapLength     = length + (offset - alignedOffset);
+
+        final String pathString = path.toString();
+        final long   cPath      = JNI.malloc(CStrings.sizeof(pathString));
+        final long   mapAddress;
+        try {
+            CStrings.encode(cPath,
+                            pathString);
+            mapAddress = JNI.mmap(cPath,
+                                  alignedOffset,
+                                  mapLength,
+                                  modeIndex);
+        }
+        finally {
+            JNI.free(cPath);
+        }
+
+        final Pointer<U> pointer = wrap(type,
+                                        mapAddress + (offset - alignedOffset));
+        AllocationTracker.allocated(mapAddress,
+                                    mapLength,
+                                    type);
+        pointer.reclaim(() -> {
+                            AllocationTracker.freed(mapAddress);
+                            JNI.munmap(mapAddress,
+                                       mapLength);
+                        },
+                        mapLength);
+        return pointer;
+    }
+
+    public final long address;
+
+    @Nullable
+    private Reclaimer.Registration registration;
+    //memory of a frame is released when the frame is closed, not when the pointer is closed
+    private boolean                frameOwned;
 
     @Nonnull
     final Type type;
@@ -705,8 +872,24 @@ public abstract class Pointer<T> implements Closeable {
             final int typeSize) {
         this.type = type;
         this.address = address;
-        this.autoFree = autoFree;
         this.typeSize = typeSize;
+        if (autoFree) {
+            reclaim(Reclaimer.free(address),
+                    typeSize);
+        }
+    }
+
+    /**
+     * Release a resource owned by this pointer once this pointer is garbage collected, or when it is closed.
+     *
+     * @param release releases the resource, must not refer to this pointer.
+     * @param bytes   the size of the resource in bytes.
+     */
+    final void reclaim(@Nonnull final Runnable release,
+                       @Nonnegative final long bytes) {
+        this.registration = Reclaimer.register(this,
+                                               release,
+                                               bytes);
     }
 
     @Override
@@ -723,16 +906,26 @@ public abstract class Pointer<T> implements Closeable {
     public int hashCode() { return (int) (this.address ^ (this.address >>> 32)); }
 
     /**
-     * Free the memory pointed to by this pointer.
+     * Free the memory pointed to by this pointer. Does nothing if the memory was allocated in a {@link Frame}, as that
+     * memory is released when the frame is closed.
      */
     public void close() {
+        if (this.frameOwned) {
+            return;
+        }
         if (ENABLE_LOG) {
             Logger.getLogger("jaccall")
                   .log(Level.FINE,
                        "Call to free for Pointer POJO of type=" + this.type + " with address=0x" + String.format("%016X",
                                                                                                                  this.address));
         }
-        JNI.free(this.address);
+        final Reclaimer.Registration registration = this.registration;
+        if (registration == null) {
+            SlabPool.free(this.address);
+        }
+        else {
+            registration.clean();
+        }
     }
 
     /**
@@ -833,6 +1026,509 @@ public abstract class Pointer<T> implements Closeable {
                     false);
     }
 
+    /**
+     * Bulk copy elements of this pointer to an array. Unlike {@link #get(int)}, the index counts elements of the
+     * array type, regardless of the type of this pointer.
+     * <p>
+     * Java:<br>
+     * {@code foo.read(i, dst, offset, length);}
+     * <p>
+     * C equivalent:<br>
+     * {@code memcpy(dst+offset, foo+i, length*sizeof(*dst));}
+     *
+     * @param index  the index of the first element to read.
+     * @param dst    the array to copy to.
+     * @param offset the index in the array of the first element to write.
+     * @param length the number of elements to copy.
+     *
+     * @throws ArrayIndexOutOfBoundsException Thrown if the range does not fit in the array.
+     */
+    public final void read(@Nonnegative final int index,
+                           @Nonnull final byte[] dst,
+                           @Nonnegative final int offset,
+                           @Nonnegative final int length) {
+        JNI.readBytes(this.address,
+                      index,
+                      dst,
+                      offset,
+                      length);
+    }
+
+    /**
+     * @see #read(int, byte[], int, int)
+     */
+    public final void read(@Nonnegative final int index,
+                           @Nonnull final short[] dst,
+                           @Nonnegative final int offset,
+                           @Nonnegative final int length) {
+        JNI.readShorts(this.address,
+                       index,
+                       dst,
+                       offset,
+                       length);
+    }
+
+    /**
+     * @see #read(int, byte[], int, int)
+     */
+    public final void read(@Nonnegative final int index,
+                           @Nonnull final int[] dst,
+                           @Nonnegative final int offset,
+                           @Nonnegative final int length) {
+        JNI.readInts(this.address,
+                     index,
+                     dst,
+                     offset,
+                     length);
+    }
+
+    /**
+     * @see #read(int, byte[], int, int)
+     */
+    public final void read(@Nonnegative final int index,
+                           @Nonnull final long[] dst,
+                           @Nonnegative final int offset,
+                           @Nonnegative final int length) {
+        JNI.readLongs(this.address,
+                      index,
+                      dst,
+                      offset,
+                      length);
+    }
+
+    /**
+     * @see #read(int, byte[], int, int)
+     */
+    public final void read(@Nonnegative final int index,
+                           @Nonnull final float[] dst,
+                           @Nonnegative final int offset,
+                           @Nonnegative final int length) {
+        JNI.readFloats(this.address,
+                       index,
+                       dst,
+                       offset,
+                       length);
+    }
+
+    /**
+     * @see #read(int, byte[], int, int)
+     */
+    public final void read(@Nonnegative final int index,
+                           @Nonnull final double[] dst,
+                           @Nonnegative final int offset,
+                           @Nonnegative final int length) {
+        JNI.readDoubles(this.address,
+                        index,
+                        dst,
+                        offset,
+                        length);
+    }
+
+    /**
+     * Bulk copy elements of an array to the memory of this pointer. Unlike {@link #set(int, Object)}, the index counts
+     * elements of the array type, regardless of the type of this pointer.
+     * <p>
+     * Java:<br>
+     * {@code foo.write(i, src, offset, length);}
+     * <p>
+     * C equivalent:<br>
+     * {@code memcpy(foo+i, src+offset, length*sizeof(*src));}
+     *
+     * @param index  the index of the first element to write.
+     * @param src    the array to copy from.
+     * @param offset the index in the array of the first element to read.
+     * @param length the number of elements to copy.
+     *
+     * @throws ArrayIndexOutOfBoundsException Thrown if the range does not fit in the array.
+     */
+    public final void write(@Nonnegative final int index,
+                            @Nonnull final byte[] src,
+                            @Nonnegative final int offset,
+                            @Nonnegative final int length) {
+        JNI.writeBytes(this.address,
+                       index,
+                       src,
+                       offset,
+                       length);
+    }
+
+    /**
+     * @see #write(int, byte[], int, int)
+     */
+    public final void write(@Nonnegative final int index,
+                            @Nonnull final short[] src,
+                            @Nonnegative final int offset,
+                            @Nonnegative final int length) {
+        JNI.writeShorts(this.address,
+                        index,
+                        src,
+                        offset,
+                        length);
+    }
+
+    /**
+     * @see #write(int, byte[], int, int)
+     */
+    public final void write(@Nonnegative final int index,
+                            @Nonnull final int[] src,
+                            @Nonnegative final int offset,
+                            @Nonnegative final int length) {
+        JNI.writeInts(this.address,
+                      index,
+                      src,
+                      offset,
+                      length);
+    }
+
+    /**
+     * @see #write(int, byte[], int, int)
+     */
+    public final void write(@Nonnegative final int index,
+                            @Nonnull final long[] src,
+                            @Nonnegative final int offset,
+                            @Nonnegative final int length) {
+        JNI.writeLongs(this.address,
+                       index,
+                       src,
+                       offset,
+                       length);
+    }
+
+    /**
+     * @see #write(int, byte[], int, int)
+     */
+    public final void write(@Nonnegative final int index,
+                            @Nonnull final float[] src,
+                            @Nonnegative final int offset,
+                            @Nonnegative final int length) {
+        JNI.writeFloats(this.address,
+                        index,
+                        src,
+                        offset,
+                        length);
+    }
+
+    /**
+     * @see #write(int, byte[], int, int)
+     */
+    public final void write(@Nonnegative final int index,
+                            @Nonnull final double[] src,
+                            @Nonnegative final int offset,
+                            @Nonnegative final int length) {
+        JNI.writeDoubles(this.address,
+                         index,
+                         src,
+                         offset,
+                         length);
+    }
+
+    /**
+     * Copy elements of this pointer to the memory of another pointer. The memory areas must not overlap.
+     * <p>
+     * Java:<br>
+     * {@code foo.copyTo(bar, count);}
+     * <p>
+     * C equivalent:<br>
+     * {@code memcpy(bar, foo, count*sizeof(*foo));}
+     *
+     * @param target the pointer to copy to.
+     * @param count  the number of elements of the type of this pointer to copy.
+     */
+    public final void copyTo(@Nonnull final Pointer<?> target,
+                             @Nonnegative final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Given count argument is not a positive number.");
+        }
+        JNI.copy(this.address,
+                 Objects.requireNonNull(target,
+                                        "Argument target must not be null.").address,
+                 (long) count * this.typeSize);
+    }
+
+    /**
+     * Read a primitive value without boxing it. Unlike {@link #get(int)}, the index counts elements of the primitive
+     * type, regardless of the type of this pointer.
+     * <p>
+     * Java:<br>
+     * {@code int value = foo.getInt(i);}
+     * <p>
+     * C equivalent:<br>
+     * {@code int value = ((int*)foo)[i];}
+     *
+     * @param index the index of the element.
+     *
+     * @return the value of the element.
+     */
+    public final byte getByte(final int index) {
+        return JNI.getByte(this.address,
+                           index);
+    }
+
+    /**
+     * @see #getInt(int)
+     */
+    public final short getShort(final int index) {
+        return JNI.getShort(this.address,
+                            index);
+    }
+
+    /**
+     * @see #getInt(int)
+     */
+    public final int getInt(final int index) {
+        return JNI.getInt(this.address,
+                          index);
+    }
+
+    /**
+     * @see #getInt(int)
+     */
+    public final long getLong(final int index) {
+        return JNI.getLong(this.address,
+                           index);
+    }
+
+    /**
+     * @see #getInt(int)
+     */
+    public final float getFloat(final int index) {
+        return JNI.getFloat(this.address,
+                            index);
+    }
+
+    /**
+     * @see #getInt(int)
+     */
+    public final double getDouble(final int index) {
+        return JNI.getDouble(this.address,
+                             index);
+    }
+
+    /**
+     * @see #getInt(int)
+     */
+    public final long getCLongValue(final int index) {
+        return JNI.getCLong(this.address,
+                            index);
+    }
+
+    /**
+     * Write a primitive value without boxing it. Unlike {@link #set(int, Object)}, the index counts elements of the
+     * primitive type, regardless of the type of this pointer.
+     * <p>
+     * Java:<br>
+     * {@code foo.setInt(i, value);}
+     * <p>
+     * C equivalent:<br>
+     * {@code ((int*)foo)[i] = value;}
+     *
+     * @param index the index of the element.
+     * @param value the new value of the element.
+     */
+    public final void setByte(final int index,
+                              final byte value) {
+        JNI.setByte(this.address,
+                    index,
+                    value);
+    }
+
+    /**
+     * @see #setInt(int, int)
+     */
+    public final void setShort(final int index,
+                               final short value) {
+        JNI.setShort(this.address,
+                     index,
+                     value);
+    }
+
+    /**
+     * @see #setInt(int, int)
+     */
+    public final void setInt(final int index,
+                             final int value) {
+        JNI.setInt(this.address,
+                   index,
+                   value);
+    }
+
+    /**
+     * @see #setInt(int, int)
+     */
+    public final void setLong(final int index,
+                              final long value) {
+        JNI.setLong(this.address,
+                    index,
+                    value);
+    }
+
+    /**
+     * @see #setInt(int, int)
+     */
+    public final void setFloat(final int index,
+                               final float value) {
+        JNI.setFloat(this.address,
+                     index,
+                     value);
+    }
+
+    /**
+     * @see #setInt(int, int)
+     */
+    public final void setDouble(final int index,
+                                final double value) {
+        JNI.setDouble(this.address,
+                      index,
+                      value);
+    }
+
+    /**
+     * @see #setInt(int, int)
+     */
+    public final void setCLongValue(final int index,
+                                    final long value) {
+        JNI.setCLong(this.address,
+                     index,
+                     value);
+    }
+
+    /**
+     * @return a new cursor at the address of this pointer, that walks over elements of the type of this pointer.
+     *
+     * @see PointerCursor
+     */
+    @Nonnull
+    public final PointerCursor cursor() {
+        return new PointerCursor(this.address,
+                                 this.typeSize);
+    }
+
+    /**
+     * Create a direct byte buffer that refers to the memory of this pointer, without copying it. The buffer uses the
+     * native byte order. The buffer does not keep the memory alive, so this pointer must not be closed or collected
+     * while the buffer is in use.
+     *
+     * @param bytes the size in bytes of the buffer.
+     *
+     * @return a new direct byte buffer of the memory of this pointer.
+     *
+     * @throws IllegalArgumentException if the size is negative or larger than a byte buffer can be.
+     */
+    @Nonnull
+    public final ByteBuffer asByteBuffer(@Nonnegative final long bytes) {
+        if (bytes < 0 || bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Given bytes argument is not a valid byte buffer size.");
+        }
+        return JNI.wrap(this.address,
+                        (int) bytes)
+                  .order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * @param count the number of shorts in the buffer.
+     *
+     * @return a new direct shortBuffer of the memory of this pointer, in native byte order.
+     *
+     * @see #asByteBuffer(long)
+     */
+    @Nonnull
+    public final ShortBuffer asShortBuffer(@Nonnegative final int count) {
+        return asByteBuffer((long) count * Size.sizeof((Short) null)).asShortBuffer();
+    }
+
+    /**
+     * @param count the number of ints in the buffer.
+     *
+     * @return a new direct intBuffer of the memory of this pointer, in native byte order.
+     *
+     * @see #asByteBuffer(long)
+     */
+    @Nonnull
+    public final IntBuffer asIntBuffer(@Nonnegative final int count) {
+        return asByteBuffer((long) count * Size.sizeof((Integer) null)).asIntBuffer();
+    }
+
+    /**
+     * @param count the number of longs in the buffer.
+     *
+     * @return a new direct longBuffer of the memory of this pointer, in native byte order.
+     *
+     * @see #asByteBuffer(long)
+     */
+    @Nonnull
+    public final LongBuffer asLongBuffer(@Nonnegative final int count) {
+        return asByteBuffer((long) count * Size.sizeof((Long) null)).asLongBuffer();
+    }
+
+    /**
+     * @param count the number of floats in the buffer.
+     *
+     * @return a new direct floatBuffer of the memory of this pointer, in native byte order.
+     *
+     * @see #asByteBuffer(long)
+     */
+    @Nonnull
+    public final FloatBuffer asFloatBuffer(@Nonnegative final int count) {
+        return asByteBuffer((long) count * Size.sizeof((Float) null)).asFloatBuffer();
+    }
+
+    /**
+     * @param count the number of doubles in the buffer.
+     *
+     * @return a new direct doubleBuffer of the memory of this pointer, in native byte order.
+     *
+     * @see #asByteBuffer(long)
+     */
+    @Nonnull
+    public final DoubleBuffer asDoubleBuffer(@Nonnegative final int count) {
+        return asByteBuffer((long) count * Size.sizeof((Double) null)).asDoubleBuffer();
+    }
+
+    /**
+     * Write changes to mapped memory back to the file, and wait until they are written.
+     * <p>
+     * Java:<br>
+     * {@code foos.msync(Foo.SIZE * count);}
+     * <p>
+     * C equivalent:<br>
+     * {@code msync(foos, sizeof(struct foo) * count, MS_SYNC);}
+     *
+     * @param bytes the size in bytes of the memory, starting at the address of this pointer.
+     *
+     * @throws IOException if the memory is not mapped, or the changes could not be written.
+     * @see #mmap(Path, long, long, FileChannel.MapMode, Class)
+     */
+    public final void msync(@Nonnegative final long bytes) throws IOException {
+        final long pageAddress = this.address & -JNI.pageSize();
+        JNI.msync(pageAddress,
+                  bytes + (this.address - pageAddress));
+    }
+
+    /**
+     * Tell the system how mapped memory is going to be accessed.
+     * <p>
+     * Java:<br>
+     * {@code foos.madvise(Foo.SIZE * count, Advice.SEQUENTIAL);}
+     * <p>
+     * C equivalent:<br>
+     * {@code madvise(foos, sizeof(struct foo) * count, MADV_SEQUENTIAL);}
+     *
+     * @param bytes  the size in bytes of the memory, starting at the address of this pointer.
+     * @param advice the expected access pattern.
+     *
+     * @throws IOException if the memory is not mapped.
+     * @see #mmap(Path, long, long, FileChannel.MapMode, Class)
+     */
+    public final void madvise(@Nonnegative final long bytes,
+                              @Nonnull final Advice advice) throws IOException {
+        final long pageAddress = this.address & -JNI.pageSize();
+        JNI.madvise(pageAddress,
+                    bytes + (this.address - pageAddress),
+                    Objects.requireNonNull(advice,
+                                           "Argument advice must not be null.")
+                           .ordinal());
+    }
+
     /**
      * Pointer type cast. Cast this pointer to a pointer of a different type.
      *
@@ -873,7 +1569,7 @@ public abstract class Pointer<T> implements Closeable {
     public abstract void set(@Nonnegative final int index,
                              @Nonnull final T val);
 
-    private void set(final T[] vals) {
+    void set(final T[] vals) {
         for (int i = 0; i < vals.length; i++) {
             set(i,
                 vals[i]);
@@ -895,18 +1591,4 @@ public abstract class Pointer<T> implements Closeable {
 
         return rawType;
     }
-
-    @Override
-    protected void finalize() throws Throwable {
-        super.finalize();
-        if (ENABLE_LOG) {
-            Logger.getLogger("jaccall")
-                  .log(Level.FINE,
-                       "Pointer POJO of type=" + this.type + " with address=0x" + String.format("%016X",
-                                                                                                this.address) + " garbage collected.");
-        }
-        if (this.autoFree) {
-            close();
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,328 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A mutable position in native memory that can be moved, rebased and retyped in place. Unlike {@link Pointer#plus(int)}
+ * and friends, moving a cursor does not create a new object, so walking a native array does not produce any garbage.
+ * <p>
+ * Java:<br>
+ * <pre>{@code
+ * final PointerCursor cursor = samples.cursor();
+ * long sum = 0;
+ * for (int i = 0; i < length; i++) {
+ *     sum += cursor.getShort();
+ *     cursor.next();
+ * }
+ * }</pre>
+ * C equivalent:<br>
+ * <pre>{@code
+ * short* cursor = samples;
+ * long sum = 0;
+ * for (int i = 0; i < length; i++) {
+ *     sum += *cursor;
+ *     cursor++;
+ * }
+ * }</pre>
+ * The stride of a cursor is the size of the elements it walks over. A cursor is not thread safe.
+ */
+public final class PointerCursor {
+
+    private static final Map<Class<?>, Integer> STRIDES = new HashMap<>();
+
+    static {
+        STRIDES.put(byte.class,
+                    Size.sizeof((Byte) null));
+        STRIDES.put(Byte.class,
+                    Size.sizeof((Byte) null));
+        STRIDES.put(short.class,
+                    Size.sizeof((Short) null));
+        STRIDES.put(Short.class,
+                    Size.sizeof((Short) null));
+        STRIDES.put(char.class,
+                    Size.sizeof((Character) null));
+        STRIDES.put(Character.class,
+                    Size.sizeof((Character) null));
+        STRIDES.put(int.class,
+                    Size.sizeof((Integer) null));
+        STRIDES.put(Integer.class,
+                    Size.sizeof((Integer) null));
+        STRIDES.put(long.class,
+                    Size.sizeof((Long) null));
+        STRIDES.put(Long.class,
+                    Size.sizeof((Long) null));
+        STRIDES.put(float.class,
+                    Size.sizeof((Float) null));
+        STRIDES.put(Float.class,
+                    Size.sizeof((Float) null));
+        STRIDES.put(double.class,
+                    Size.sizeof((Double) null));
+        STRIDES.put(Double.class,
+                    Size.sizeof((Double) null));
+        STRIDES.put(CLong.class,
+                    Size.sizeof((CLong) null));
+        STRIDES.put(Pointer.class,
+                    Size.sizeof((Pointer) null));
+    }
+
+    private long address;
+    private int  stride;
+
+    /**
+     * @param address the start position.
+     * @param stride  the size in bytes of the elements to walk over.
+     */
+    public PointerCursor(final long address,
+                         @Nonnegative final int stride) {
+        this.address = address;
+        stride(stride);
+    }
+
+    /**
+     * @return the current position.
+     */
+    public long address() {
+        return this.address;
+    }
+
+    /**
+     * @return the size in bytes of the elements to walk over.
+     */
+    public int stride() {
+        return this.stride;
+    }
+
+    /**
+     * Move this cursor to a new position, keeping its stride.
+     *
+     * @param address the new position.
+     *
+     * @return this cursor.
+     */
+    @Nonnull
+    public PointerCursor rebase(final long address) {
+        this.address = address;
+        return this;
+    }
+
+    /**
+     * Move this cursor to the address of a pointer, and walk over elements of the pointer type.
+     *
+     * @param pointer the pointer to walk over.
+     *
+     * @return this cursor.
+     */
+    @Nonnull
+    public PointerCursor rebase(@Nonnull final Pointer<?> pointer) {
+        this.address = Objects.requireNonNull(pointer,
+                                              "Argument pointer must not be null.").address;
+        this.stride = pointer.typeSize;
+        return this;
+    }
+
+    /**
+     * Walk over elements of a different size, keeping the current position.
+     *
+     * @param stride the size in bytes of the elements to walk over.
+     *
+     * @return this cursor.
+     */
+    @Nonnull
+    public PointerCursor stride(@Nonnegative final int stride) {
+        if (stride < 0) {
+            throw new IllegalArgumentException("Given stride argument is not a positive number.");
+        }
+        this.stride = stride;
+        return this;
+    }
+
+    /**
+     * Walk over elements of a different type, keeping the current position. Use {@link #stride(int)} for structs.
+     *
+     * @param type a primitive type, its boxed type, {@link CLong} or {@link Pointer}.
+     *
+     * @return this cursor.
+     */
+    @Nonnull
+    public PointerCursor retype(@Nonnull final Class<?> type) {
+        final Integer stride = STRIDES.get(Objects.requireNonNull(type,
+                                                                  "Argument type must not be null."));
+        if (stride == null) {
+            throw new IllegalArgumentException("Type " + type + " does not have a known size.");
+        }
+        this.stride = stride;
+        return this;
+    }
+
+    /**
+     * Java:<br>
+     * {@code cursor.next();}
+     * <p>
+     * C equivalent:<br>
+     * {@code cursor++;}
+     *
+     * @return this cursor.
+     */
+    @Nonnull
+    public PointerCursor next() {
+        this.address += this.stride;
+        return this;
+    }
+
+    /**
+     * Java:<br>
+     * {@code cursor.previous();}
+     * <p>
+     * C equivalent:<br>
+     * {@code cursor--;}
+     *
+     * @return this cursor.
+     */
+    @Nonnull
+    public PointerCursor previous() {
+        this.address -= this.stride;
+        return this;
+    }
+
+    /**
+     * Java:<br>
+     * {@code cursor.advance(i);}
+     * <p>
+     * C equivalent:<br>
+     * {@code cursor += i;}
+     *
+     * @param count the number of elements to move, negative to move back.
+     *
+     * @return this cursor.
+     */
+    @Nonnull
+    public PointerCursor advance(final int count) {
+        this.address += (long) count * this.stride;
+        return this;
+    }
+
+    /**
+     * Point a struct object to the memory at the current position, so the struct can be reused as a view while
+     * walking an array of structs. The struct must not be one that owns its memory.
+     *
+     * @param structType the struct object to point to the current position.
+     * @param <T>        the struct type.
+     *
+     * @return the given struct.
+     */
+    @Nonnull
+    public <T extends StructType> T view(@Nonnull final T structType) {
+        Objects.requireNonNull(structType,
+                               "Argument structType must not be null.")
+               .address(this.address);
+        return structType;
+    }
+
+    /**
+     * @param type the pointer type.
+     * @param <U>  the pointer type.
+     *
+     * @return a new pointer to the current position.
+     */
+    @Nonnull
+    public <U> Pointer<U> pointer(@Nonnull final Class<U> type) {
+        return Pointer.wrap(type,
+                            this.address);
+    }
+
+    public byte getByte() {
+        return JNI.getByte(this.address,
+                           0);
+    }
+
+    public void setByte(final byte value) {
+        JNI.setByte(this.address,
+                    0,
+                    value);
+    }
+
+    public short getShort() {
+        return JNI.getShort(this.address,
+                            0);
+    }
+
+    public void setShort(final short value) {
+        JNI.setShort(this.address,
+                     0,
+                     value);
+    }
+
+    public int getInt() {
+        return JNI.getInt(this.address,
+                          0);
+    }
+
+    public void setInt(final int value) {
+        JNI.setInt(this.address,
+                   0,
+                   value);
+    }
+
+    public long getLong() {
+        return JNI.getLong(this.address,
+                           0);
+    }
+
+    public void setLong(final long value) {
+        JNI.setLong(this.address,
+                    0,
+                    value);
+    }
+
+    public float getFloat() {
+        return JNI.getFloat(this.address,
+                            0);
+    }
+
+    public void setFloat(final float value) {
+        JNI.setFloat(this.address,
+                     0,
+                     value);
+    }
+
+    public double getDouble() {
+        return JNI.getDouble(this.address,
+                             0);
+    }
+
+    public void setDouble(final double value) {
+        JNI.setDouble(this.address,
+                      0,
+                      value);
+    }
+
+    public long getCLongValue() {
+        return JNI.getCLong(this.address,
+                            0);
+    }
+
+    public void setCLongValue(final long value) {
+        JNI.setCLong(this.address,
+                     0,
+                     value);
+    }
+
+    /**
+     * @return the address stored at the current position.
+     */
+    public long getAddress() {
+        return JNI.getPointer(this.address,
+                              0);
+    }
+
+    public void setAddress(final long value) {
+        JNI.setPointer(this.address,
+                       0,
+                       value);
+    }
+}
@@ -2,14 +2,69 @@ package org.freedesktop.jaccall;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class PointerFunc<T> extends Pointer<T> {
+
+    @Nullable
+    private final ClosurePool   closurePool;
+    private final long          closure;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
     protected PointerFunc(@Nonnull final Class<T> type,
                           final long address) {
         super(type,
               address,
               false,
               Size.sizeof((Pointer) null));
+        this.closurePool = null;
+        this.closure = 0L;
+    }
+
+    /**
+     * Create a function pointer to a java functor. The closure is owned by this pointer and is only given back to the
+     * pool when this pointer is closed. It is not released when this pointer is garbage collected, as native code can
+     * still hold its address.
+     *
+     * @param type        the functor type.
+     * @param closurePool the closures of the functor type.
+     * @param function    the functor object to call.
+     */
+    protected PointerFunc(@Nonnull final Class<T> type,
+                          @Nonnull final ClosurePool closurePool,
+                          @Nonnull final Object function) {
+        this(type,
+             closurePool,
+             closurePool.acquire(function));
+    }
+
+    private PointerFunc(@Nonnull final Class<T> type,
+                        @Nonnull final ClosurePool closurePool,
+                        final long closure) {
+        super(type,
+              ClosurePool.address(closure),
+              false,
+              Size.sizeof((Pointer) null));
+        this.closurePool = closurePool;
+        this.closure = closure;
+    }
+
+    /**
+     * Give the closure of this function pointer back to its pool. Native code must not call this function pointer
+     * after it is closed: the pool can hand the same address out to a new function pointer, in which case a stale
+     * native caller calls the new functor instead of failing. Calls that are in progress when this pointer is closed
+     * still complete on the old functor.
+     */
+    @Override
+    public void close() {
+        if (this.closurePool == null) {
+            super.close();
+        }
+        else if (this.closed.compareAndSet(false,
+                                           true)) {
+            this.closurePool.release(this.closure);
+        }
     }
 
     @Nonnull
@@ -45,6 +45,7 @@ final class PointerJObject extends Pointer<Object> {
                        "Explicit call to free for Pointer POJO of type=" + this.type + " with address=0x" + String.format("%016X",
                                                                                                                           this.address));
         }
+        AllocationTracker.freed(this.address);
         JNI.DeleteGlobalRef(this.address);
     }
 }
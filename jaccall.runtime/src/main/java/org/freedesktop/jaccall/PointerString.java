@@ -3,13 +3,9 @@ package org.freedesktop.jaccall;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
-import java.nio.charset.CharsetEncoder;
-import java.nio.charset.StandardCharsets;
 
 final class PointerString extends Pointer<String> {
 
-    private static final CharsetEncoder CHARSET_ENCODER = StandardCharsets.US_ASCII.newEncoder();
-
     PointerString(final long address,
                   final boolean autoFree) {
         super(String.class,
@@ -26,8 +22,7 @@ final class PointerString extends Pointer<String> {
     @Nonnull
     @Override
     public String get(@Nonnegative final int index) {
-        return JNI.getString(this.address,
-                             index);
+        return CStrings.decode(this.address + index);
     }
 
     @Override
@@ -39,8 +34,7 @@ final class PointerString extends Pointer<String> {
     @Override
     public void set(@Nonnegative final int index,
                     @Nonnull final String val) {
-        JNI.setString(this.address,
-                      index,
-                      val);
+        CStrings.encode(this.address + index,
+                        val);
     }
 }
@@ -6,16 +6,26 @@ import java.lang.reflect.Type;
 
 final class PointerStruct extends Pointer<StructType> {
 
-    private final Class<? extends StructType> structClass;
+    private final StructFactory<? extends StructType> structFactory;
 
     PointerStruct(@Nonnull final Type type,
                   final long address,
-                  final boolean autoFree) throws IllegalAccessException, InstantiationException {
+                  final boolean autoFree) {
+        this(type,
+             address,
+             autoFree,
+             StructFactory.of((Class<? extends StructType>) toClass(type)));
+    }
+
+    private PointerStruct(@Nonnull final Type type,
+                          final long address,
+                          final boolean autoFree,
+                          @Nonnull final StructFactory<? extends StructType> structFactory) {
         super(type,
               address,
               autoFree,
-              Size.sizeof(((Class<? extends StructType>) toClass(type)).newInstance()));
-        this.structClass = (Class<? extends StructType>) toClass(type);
+              structFactory.size());
+        this.structFactory = structFactory;
     }
 
     @Nonnull
@@ -27,14 +37,7 @@ final class PointerStruct extends Pointer<StructType> {
     @Nonnull
     @Override
     public StructType get(@Nonnegative final int index) {
-        try {
-            final StructType structType = this.structClass.newInstance();
-            structType.address(this.address + (index * this.typeSize));
-            return structType;
-        }
-        catch (InstantiationException | IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
+        return this.structFactory.create(this.address + (index * this.typeSize));
     }
 
     public void set(@Nonnull final StructType val) {
@@ -8,13 +8,8 @@ final class PointerStructFactory implements PointerFactory<PointerStruct> {
     public PointerStruct create(final Type type,
                                 final long address,
                                 final boolean autoFree) {
-        try {
-            return new PointerStruct(type,
-                                     address,
-                                     autoFree);
-        }
-        catch (IllegalAccessException | InstantiationException e) {
-            throw new Error(e);
-        }
+        return new PointerStruct(type,
+                                 address,
+                                 autoFree);
     }
 }
@@ -0,0 +1,173 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Releases the memory of garbage collected pointers and structs that own it. Only objects that own
+ * memory are registered, with a phantom reference that is drained by a single daemon thread, so pointer and struct
+ * objects that merely refer to memory are as cheap to allocate and collect as any other object.
+ * <p>
+ * Memory that is released explicitly, e.g. with {@link Pointer#close()}, is not released a second time when its owner
+ * is garbage collected.
+ */
+public final class Reclaimer {
+
+    private static final Logger LOGGER = Logger.getLogger("jaccall");
+
+    private static final String NAME = "jaccall-reclaimer";
+
+    private static final ReferenceQueue<Object> QUEUE         = new ReferenceQueue<>();
+    //keeps the registrations reachable until their owner is collected or they are released explicitly
+    private static final Set<Registration>      REGISTRATIONS = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private static final LongAdder PENDING_BYTES   = new LongAdder();
+    private static final LongAdder RECLAIMED_BYTES = new LongAdder();
+    private static final LongAdder RECLAIMED       = new LongAdder();
+    private static final LongAdder RELEASED        = new LongAdder();
+
+    static {
+        final Thread thread = new Thread(Reclaimer::drain,
+                                         NAME);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private Reclaimer() {
+    }
+
+    /**
+     * Release a resource once its owner is garbage collected.
+     *
+     * @param owner   the object that owns the resource.
+     * @param release releases the resource. Must not refer to the owner, or the owner is never collected.
+     * @param bytes   the size of the resource in bytes, for metrics only.
+     *
+     * @return a registration that can release the resource before its owner is collected.
+     */
+    @Nonnull
+    static Registration register(@Nonnull final Object owner,
+                                 @Nonnull final Runnable release,
+                                 @Nonnegative final long bytes) {
+        final Registration registration = new Registration(owner,
+                                                           release,
+                                                           bytes);
+        REGISTRATIONS.add(registration);
+        PENDING_BYTES.add(bytes);
+        return registration;
+    }
+
+    /**
+     * @param address the address of heap memory.
+     *
+     * @return a release action that frees the given memory.
+     */
+    @Nonnull
+    static Runnable free(final long address) {
+        return () -> SlabPool.free(address);
+    }
+
+    /**
+     * @return the number of registered objects that are neither collected nor released explicitly.
+     */
+    public static long pendingCount() {
+        return REGISTRATIONS.size();
+    }
+
+    /**
+     * @return the size in bytes of the memory owned by registered objects that are neither collected nor released
+     * explicitly.
+     */
+    public static long pendingBytes() {
+        return PENDING_BYTES.sum();
+    }
+
+    /**
+     * @return the number of garbage collected objects of which the memory was released.
+     */
+    public static long reclaimedCount() {
+        return RECLAIMED.sum();
+    }
+
+    /**
+     * @return the size in bytes of the memory that was released after its owner was garbage collected.
+     */
+    public static long reclaimedBytes() {
+        return RECLAIMED_BYTES.sum();
+    }
+
+    /**
+     * @return the number of registered objects of which the memory was released explicitly.
+     */
+    public static long releasedCount() {
+        return RELEASED.sum();
+    }
+
+    private static void drain() {
+        while (true) {
+            try {
+                final Registration registration = (Registration) QUEUE.remove();
+                if (registration.release()) {
+                    RECLAIMED.increment();
+                    RECLAIMED_BYTES.add(registration.bytes);
+                }
+            }
+            catch (final InterruptedException e) {
+                //daemon thread, keep draining
+            }
+            catch (final RuntimeException | Error e) {
+                LOGGER.log(Level.SEVERE,
+                           "Failed to release the memory of a garbage collected object.",
+                           e);
+            }
+        }
+    }
+
+    static final class Registration extends PhantomReference<Object> {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private final Runnable release;
+        private final long     bytes;
+
+        private Registration(final Object owner,
+                             final Runnable release,
+                             final long bytes) {
+            super(owner,
+                  QUEUE);
+            this.release = release;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Release the resource right away. Does nothing if it was already released.
+         */
+        void clean() {
+            if (release()) {
+                RELEASED.increment();
+            }
+        }
+
+        private boolean release() {
+            if (!this.released.compareAndSet(false,
+                                             true)) {
+                return false;
+            }
+            clear();
+            REGISTRATIONS.remove(this);
+            PENDING_BYTES.add(-this.bytes);
+            this.release.run();
+            return true;
+        }
+    }
+}
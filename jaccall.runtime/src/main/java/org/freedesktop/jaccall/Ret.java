@@ -0,0 +1,15 @@
+package org.freedesktop.jaccall;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the first parameter of a method that returns a struct by value as the address of the memory where the struct
+ * is returned, instead of newly allocated memory. The method returns this same address.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Ret {
+}
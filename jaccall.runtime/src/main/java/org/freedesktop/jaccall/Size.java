@@ -43,7 +43,7 @@ public final class Size {
 
     public static int sizeof(@Nullable final CLong cLong) { return CLONG_SIZE; }
 
-    public static int sizeof(@Nonnull final String val) { return val.length() + 1; }
+    public static int sizeof(@Nonnull final String val) { return CStrings.sizeof(val); }
 
     public static int sizeof(@Nullable final Void val) { throw new IllegalArgumentException(); }
 
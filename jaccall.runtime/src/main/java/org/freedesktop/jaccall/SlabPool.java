@@ -0,0 +1,348 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Allocates small blocks of heap memory from slabs, with a free list for every size class. Size classes are powers of
+ * two from 16 up to 1024 bytes, larger allocations are passed on to malloc.
+ * <p>
+ * Every thread caches a magazine of free blocks per size class, so most allocations and frees do not touch any shared
+ * state. Full and partially used magazines are exchanged through a lock-free depot per size class, new slabs are only
+ * allocated when the depot is empty. Slabs are never given back to the system.
+ * <p>
+ * The pool is used for {@code Pointer.malloc(..)}, {@code Pointer.calloc(..)}, {@code Pointer.nref(..)} and the memory
+ * of structs, when the {@code JACCALL_SLAB_POOL} environment variable is set to {@code true}.
+ * <p>
+ * A pooled block lies inside a slab and is not a block of the system allocator. It must never be handed to native code
+ * that calls {@code free()} or {@code realloc()} on it, which corrupts the heap. {@code Pointer.close()} and
+ * {@code Pointer.realloc(..)} handle pooled blocks.
+ */
+public final class SlabPool {
+
+    static final boolean ENABLED = ConfigVariables.JACCALL_SLAB_POOL;
+
+    private static final int MIN_SIZE_SHIFT = 4;
+    private static final int MAX_SIZE_SHIFT = 10;
+    private static final int MAX_SIZE       = 1 << MAX_SIZE_SHIFT;
+    private static final int SLAB_SIZE      = 64 * 1024;
+    private static final int MAGAZINE_SIZE  = 64;
+
+    private static final SizeClass[] SIZE_CLASSES = new SizeClass[MAX_SIZE_SHIFT - MIN_SIZE_SHIFT + 1];
+    //slab address to size class index
+    private static final ConcurrentSkipListMap<Long, Integer> SLABS = new ConcurrentSkipListMap<>();
+
+    private static final ThreadLocal<Cache> CACHES = ThreadLocal.withInitial(Cache::new);
+
+    static {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            SIZE_CLASSES[i] = new SizeClass(i,
+                                            1 << (MIN_SIZE_SHIFT + i));
+        }
+    }
+
+    private SlabPool() {
+    }
+
+    /**
+     * @param size the size in bytes.
+     *
+     * @return the address of uninitialized memory, from the pool if it is enabled and the size is small enough.
+     */
+    static long malloc(@Nonnegative final long size) {
+        if (!ENABLED || size > MAX_SIZE) {
+            return JNI.malloc(size);
+        }
+        return allocate((int) size);
+    }
+
+    /**
+     * @param nmemb number of members
+     * @param size  size of an individual member
+     *
+     * @return the address of zeroed memory, from the pool if it is enabled and the size is small enough.
+     */
+    static long calloc(@Nonnegative final int nmemb,
+                       @Nonnegative final int size) {
+        if (!ENABLED || !fits(nmemb,
+                              size)) {
+            return JNI.calloc(nmemb,
+                              size);
+        }
+        final int  totalSize = nmemb * size;
+        final long address   = allocate(totalSize);
+        JNI.memset(address,
+                   0,
+                   totalSize);
+        return address;
+    }
+
+    /**
+     * @return true if an array of nmemb elements of size bytes each fits in a block of the pool.
+     */
+    static boolean fits(final int nmemb,
+                        final int size) {
+        //the size of the array does not fit in an int for large arrays
+        final long totalSize = (long) nmemb * size;
+        return totalSize >= 0 && totalSize <= MAX_SIZE;
+    }
+
+    /**
+     * Resize memory that was allocated with {@link #malloc(long)} or {@link #calloc(int, int)}. A pooled block can not
+     * be resized by the system allocator, so its content is copied to a new block instead.
+     *
+     * @param address the address of heap memory.
+     * @param size    the new size in bytes.
+     *
+     * @return the address of the resized memory.
+     */
+    static long realloc(final long address,
+                        @Nonnegative final long size) {
+        //cheap if the pool has no slabs
+        final int blockSize = blockSize(address);
+        if (blockSize < 0) {
+            return JNI.realloc(address,
+                               size);
+        }
+        final long resized = malloc(size);
+        JNI.memcpy(resized,
+                   address,
+                   Math.min(blockSize,
+                            size));
+        release(address);
+        return resized;
+    }
+
+    /**
+     * Give memory back to the pool if it was allocated from the pool, or free it otherwise.
+     *
+     * @param address the address of heap memory.
+     */
+    static void free(final long address) {
+        AllocationTracker.freed(address);
+        if (!ENABLED || !release(address)) {
+            JNI.free(address);
+        }
+    }
+
+    /**
+     * @param size the size in bytes, at most 1024.
+     *
+     * @return the address of an uninitialized block of the pool.
+     */
+    static long allocate(@Nonnegative final int size) {
+        return CACHES.get().magazines.allocate(sizeClass(size));
+    }
+
+    /**
+     * @param address the address of heap memory.
+     *
+     * @return true if the memory was allocated from the pool and is given back, false otherwise.
+     */
+    static boolean release(final long address) {
+        final Map.Entry<Long, Integer> slab = slab(address);
+        if (slab == null) {
+            return false;
+        }
+        CACHES.get().magazines.free(slab.getValue(),
+                                    address);
+        return true;
+    }
+
+    /**
+     * @param address the address of heap memory.
+     *
+     * @return the size in bytes of the size class of a pooled block, or -1 if the memory was not allocated from the pool.
+     */
+    static int blockSize(final long address) {
+        final Map.Entry<Long, Integer> slab = slab(address);
+        return slab == null ? -1 : SIZE_CLASSES[slab.getValue()].size;
+    }
+
+    @Nullable
+    private static Map.Entry<Long, Integer> slab(final long address) {
+        final Map.Entry<Long, Integer> slab = SLABS.floorEntry(address);
+        if (slab == null || address >= slab.getKey() + SLAB_SIZE) {
+            return null;
+        }
+        return slab;
+    }
+
+    /**
+     * @return the occupancy of every size class, smallest size first.
+     */
+    @Nonnull
+    public static List<Occupancy> occupancy() {
+        final List<Occupancy> occupancy = new ArrayList<>(SIZE_CLASSES.length);
+        for (final SizeClass sizeClass : SIZE_CLASSES) {
+            occupancy.add(new Occupancy(sizeClass.size,
+                                        sizeClass.inUse.sum(),
+                                        sizeClass.capacity.sum()));
+        }
+        return occupancy;
+    }
+
+    private static int sizeClass(final int size) {
+        if (size <= (1 << MIN_SIZE_SHIFT)) {
+            return 0;
+        }
+        return Integer.SIZE - Integer.numberOfLeadingZeros(size - 1) - MIN_SIZE_SHIFT;
+    }
+
+    /**
+     * The number of blocks of a size class that are allocated, out of all blocks in its slabs.
+     */
+    public static final class Occupancy {
+        private final int  size;
+        private final long inUse;
+        private final long capacity;
+
+        private Occupancy(final int size,
+                          final long inUse,
+                          final long capacity) {
+            this.size = size;
+            this.inUse = inUse;
+            this.capacity = capacity;
+        }
+
+        /**
+         * @return the size in bytes of the blocks of the size class.
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * @return the number of allocated blocks.
+         */
+        public long inUse() {
+            return this.inUse;
+        }
+
+        /**
+         * @return the number of blocks in all slabs of the size class.
+         */
+        public long capacity() {
+            return this.capacity;
+        }
+
+        @Override
+        public String toString() {
+            return this.size + " bytes: " + this.inUse + "/" + this.capacity;
+        }
+    }
+
+    private static final class SizeClass {
+        private final ConcurrentLinkedQueue<Magazine> depot    = new ConcurrentLinkedQueue<>();
+        private final LongAdder                       inUse    = new LongAdder();
+        private final LongAdder                       capacity = new LongAdder();
+
+        private final int index;
+        private final int size;
+
+        private SizeClass(final int index,
+                          final int size) {
+            this.index = index;
+            this.size = size;
+        }
+
+        /**
+         * @return a magazine with at least one free block.
+         */
+        private Magazine take() {
+            final Magazine magazine = this.depot.poll();
+            if (magazine != null) {
+                return magazine;
+            }
+            return carve();
+        }
+
+        private Magazine carve() {
+            final long slab   = JNI.malloc(SLAB_SIZE);
+            final int  blocks = SLAB_SIZE / this.size;
+            SLABS.put(slab,
+                      this.index);
+            this.capacity.add(blocks);
+
+            Magazine magazine = new Magazine();
+            for (int i = blocks - 1; i >= 0; i--) {
+                if (magazine.count == MAGAZINE_SIZE) {
+                    this.depot.offer(magazine);
+                    magazine = new Magazine();
+                }
+                magazine.blocks[magazine.count++] = slab + (long) i * this.size;
+            }
+            return magazine;
+        }
+    }
+
+    private static final class Magazine {
+        private final long[] blocks = new long[MAGAZINE_SIZE];
+        private int count;
+    }
+
+    private static final class Magazines {
+        private final Magazine[] current = new Magazine[SIZE_CLASSES.length];
+
+        private long allocate(final int index) {
+            final SizeClass sizeClass = SIZE_CLASSES[index];
+            Magazine        magazine  = this.current[index];
+            if (magazine == null || magazine.count == 0) {
+                magazine = sizeClass.take();
+                this.current[index] = magazine;
+            }
+            sizeClass.inUse.increment();
+            return magazine.blocks[--magazine.count];
+        }
+
+        private void free(final int index,
+                          final long address) {
+            final SizeClass sizeClass = SIZE_CLASSES[index];
+            Magazine        magazine  = this.current[index];
+            if (magazine == null) {
+                magazine = new Magazine();
+                this.current[index] = magazine;
+            }
+            else if (magazine.count == MAGAZINE_SIZE) {
+                sizeClass.depot.offer(magazine);
+                magazine = new Magazine();
+                this.current[index] = magazine;
+            }
+            magazine.blocks[magazine.count++] = address;
+            sizeClass.inUse.decrement();
+        }
+
+        /**
+         * Give all cached blocks back to the depots.
+         */
+        private void flush() {
+            for (int i = 0; i < this.current.length; i++) {
+                final Magazine magazine = this.current[i];
+                if (magazine != null && magazine.count > 0) {
+                    SIZE_CLASSES[i].depot.offer(magazine);
+                }
+                this.current[i] = null;
+            }
+        }
+    }
+
+    private static final class Cache {
+        private final Magazines magazines = new Magazines();
+
+        private Cache() {
+            //the cache is collected once its thread ends
+            final Magazines magazines = this.magazines;
+            Reclaimer.register(this,
+                               magazines::flush,
+                               0L);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.lang.reflect.Field;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Creates struct objects of a single struct type. Generated struct types keep a factory that calls the struct
+ * constructor directly in their static {@code FACTORY} field, so creating a struct object for a pointer element or an
+ * embedded struct does not go through reflection. The field is only looked up once per struct type.
+ * <p>
+ * Struct types without a factory of their own fall back to a factory that uses reflection.
+ *
+ * @param <T> the struct type.
+ */
+public final class StructFactory<T extends StructType> {
+
+    private static final String                      FACTORY_FIELD = "FACTORY";
+    private static final ClassValue<StructFactory<?>> FACTORIES     = new ClassValue<StructFactory<?>>() {
+        @Override
+        protected StructFactory<?> computeValue(final Class<?> type) {
+            return findFactory((Class<? extends StructType>) type);
+        }
+    };
+
+    private final Class<T>    type;
+    private final Supplier<T> constructor;
+    private final int         size;
+
+    private StructFactory(@Nonnull final Class<T> type,
+                          @Nonnull final Supplier<T> constructor,
+                          @Nonnegative final int size) {
+        this.type = type;
+        this.constructor = constructor;
+        this.size = size;
+    }
+
+    /**
+     * Create the factory of a struct type. Called by generated struct types to initialize their {@code FACTORY} field.
+     *
+     * @param structTypeClass the struct type.
+     * @param size            the size in bytes of the struct type.
+     * @param constructor     creates a new, unbound struct object.
+     * @param <T>             the struct type.
+     *
+     * @return the factory.
+     */
+    @Nonnull
+    public static <T extends StructType> StructFactory<T> register(@Nonnull final Class<T> structTypeClass,
+                                                                   @Nonnegative final int size,
+                                                                   @Nonnull final Supplier<T> constructor) {
+        return new StructFactory<>(Objects.requireNonNull(structTypeClass,
+                                                          "Argument structTypeClass must not be null."),
+                                   Objects.requireNonNull(constructor,
+                                                          "Argument constructor must not be null."),
+                                   size);
+    }
+
+    /**
+     * @param structTypeClass the struct type.
+     * @param <T>             the struct type.
+     *
+     * @return the factory of the given struct type.
+     */
+    @Nonnull
+    public static <T extends StructType> StructFactory<T> of(@Nonnull final Class<T> structTypeClass) {
+        return (StructFactory<T>) FACTORIES.get(Objects.requireNonNull(structTypeClass,
+                                                                       "Argument structTypeClass must not be null."));
+    }
+
+    private static <T extends StructType> StructFactory<T> findFactory(final Class<T> structTypeClass) {
+        try {
+            //reading the field initializes the struct type. A subclass of a struct type inherits the field, so the
+            //factory is only used if it creates objects of the requested type.
+            final Field factoryField = structTypeClass.getField(FACTORY_FIELD);
+            factoryField.setAccessible(true);
+            final Object factory = factoryField.get(null);
+            if (factory instanceof StructFactory && ((StructFactory<?>) factory).type == structTypeClass) {
+                return (StructFactory<T>) factory;
+            }
+        }
+        catch (final NoSuchFieldException e) {
+            //not a generated struct type
+        }
+        catch (final IllegalAccessException e) {
+            throw new Error(e);
+        }
+
+        final Supplier<T> constructor = () -> {
+            try {
+                return structTypeClass.newInstance();
+            }
+            catch (InstantiationException | IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        };
+        return new StructFactory<>(structTypeClass,
+                                   constructor,
+                                   constructor.get().size);
+    }
+
+    /**
+     * @return the size in bytes of the struct type.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return a new struct object that allocates its own memory once it is used.
+     */
+    @Nonnull
+    public T create() {
+        return this.constructor.get();
+    }
+
+    /**
+     * @param address the address of the struct memory.
+     *
+     * @return a new struct object that refers to the given memory.
+     */
+    @Nonnull
+    public T create(final long address) {
+        final T structType = this.constructor.get();
+        structType.address(address);
+        return structType;
+    }
+}
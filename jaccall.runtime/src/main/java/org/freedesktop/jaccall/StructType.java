@@ -3,14 +3,19 @@ package org.freedesktop.jaccall;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 
 public abstract class StructType {
 
+    private static final boolean      CACHE_VIEWS = ConfigVariables.JACCALL_CACHE_STRUCT_VIEWS;
+    private static final StructType[] NO_VIEWS    = new StructType[0];
+
     final int size;
-    private long    address  = 0L;
-    private boolean autoFree = false;
+    private long address = 0L;
+    //embedded struct objects, reused while this struct refers to the same memory
+    private StructType[] views = NO_VIEWS;
 
     protected StructType(@Nonnegative final int size) {
         this.size = size;
@@ -18,14 +23,34 @@ public abstract class StructType {
 
     final long address() {
         if (this.address == 0L) {
-            this.autoFree = true;
-            address(JNI.malloc(this.size));
+            address(SlabPool.malloc(this.size));
+            AllocationTracker.allocated(this.address,
+                                        this.size,
+                                        getClass());
+            Reclaimer.register(this,
+                               Reclaimer.free(this.address),
+                               this.size);
         }
         return this.address;
     }
 
+    /**
+     * Create a direct byte buffer that refers to the memory of this struct, without copying it. The buffer uses the
+     * native byte order. The buffer does not keep the memory alive, so this struct must stay reachable while the
+     * buffer is in use.
+     *
+     * @return a new direct byte buffer of the size of this struct.
+     */
+    @Nonnull
+    public final ByteBuffer asByteBuffer() {
+        return JNI.wrap(address(),
+                        this.size)
+                  .order(ByteOrder.nativeOrder());
+    }
+
     final void address(final long address) {
         this.address = address;
+        this.views = NO_VIEWS;
     }
 
     //Byte
@@ -70,15 +95,25 @@ public abstract class StructType {
     //c long
     @Nonnull
     protected final CLong getCLong(@Nonnegative final int offset) {
-        return new CLong(JNI.getCLong(address() + offset,
-                                      0));
+        return new CLong(getCLongValue(offset));
     }
 
     protected final void setCLong(@Nonnegative final int offset,
                                   @Nonnull final CLong value) {
+        setCLongValue(offset,
+                      value.longValue());
+    }
+
+    protected final long getCLongValue(@Nonnegative final int offset) {
+        return JNI.getCLong(address() + offset,
+                            0);
+    }
+
+    protected final void setCLongValue(@Nonnegative final int offset,
+                                       final long value) {
         JNI.setCLong(address() + offset,
                      0,
-                     value.longValue());
+                     value);
     }
 
     //long long
@@ -140,14 +175,25 @@ public abstract class StructType {
     @Nonnull
     protected final <T extends StructType> T getStructType(@Nonnegative final int offset,
                                                            @Nonnull final Class<T> structTypeClass) {
-        try {
-            final T structType = structTypeClass.newInstance();
-            structType.address(address() + offset);
-            return structType;
+        final long address = address() + offset;
+        if (!CACHE_VIEWS) {
+            return StructFactory.of(structTypeClass)
+                                .create(address);
         }
-        catch (InstantiationException | IllegalAccessException e) {
-            throw new RuntimeException(e);
+
+        //embedded structs are few, a linear search beats a map
+        final StructType[] views = this.views;
+        for (final StructType view : views) {
+            if (view.getClass() == structTypeClass && view.address == address) {
+                return (T) view;
+            }
         }
+        final T view = StructFactory.of(structTypeClass)
+                                    .create(address);
+        this.views = Arrays.copyOf(views,
+                                   views.length + 1);
+        this.views[views.length] = view;
+        return view;
     }
 
     protected final void setStructType(@Nonnegative final int offset,
@@ -164,18 +210,4 @@ public abstract class StructType {
         return Pointer.wrap(arrayType,
                             address() + offset);
     }
-
-    @Override
-    protected void finalize() throws Throwable {
-        super.finalize();
-        if (this.autoFree) {
-            if (Pointer.ENABLE_LOG) {
-                Logger.getLogger("jaccall")
-                      .log(Level.FINE,
-                           "Call to free for StructType of type=" + getClass() + " with address=0x" + String.format("%016X",
-                                                                                                                    this.address));
-            }
-            JNI.free(this.address);
-        }
-    }
 }
@@ -1,6 +1,21 @@
 package org.freedesktop.jaccall;
 
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 public class Symbols {
 
     private static final String OS_NAME = System.getProperty("os.name")
@@ -11,11 +26,29 @@ public class Symbols {
     private static final String OS_MAC     = "mac";
     private static final String OS_FREEBSD = "freebsd";
 
+    private static final String BACKEND_FFM    = "ffm";
+    private static final String BACKEND_LIBFFI = "libffi";
+
+    private static final boolean FOREIGN_DOWNCALLS = foreignDowncalls();
+
+    private static final ConcurrentMap<Class<?>, String> LINKED_LIBRARIES = new ConcurrentHashMap<>();
+
+    /**
+     * Marks a call interface that is not created yet.
+     */
+    private static final long NO_CALL_INTERFACE = -1L;
+
     private final Class<?> javaLibrary;
     private final String[] symbols;
     private final byte[]   argumentSizes;
     private final long[]   ffiCallInterfaces;
     private final String[] jniSignatures;
+    private final boolean  lazy;
+    //only set for lazy symbols, the call interfaces of eager symbols are all created up front
+    @Nullable
+    private final IntToLongFunction ffiCallInterfaceFactory;
+
+    private long[] resolved;
 
     public Symbols(final Class<?> javaLibrary,
                    final String[] symbols,
@@ -27,19 +60,366 @@ public class Symbols {
         this.argumentSizes = argumentSizes;
         this.ffiCallInterfaces = ffiCallInterfaces;
         this.jniSignatures = jniSignatures;
+        this.lazy = ConfigVariables.JACCALL_LAZY_LINK;
+        this.ffiCallInterfaceFactory = null;
+    }
+
+    /**
+     * Symbols that are linked lazily. Every native method is linked on its first call, and its call interface is
+     * created with the given factory when it's needed. Used by the generated symbols when the annotation processor runs
+     * with {@code -Ajaccall.lazy=true}.
+     *
+     * @param javaLibrary             the class with the native methods.
+     * @param symbols                 the method names.
+     * @param argumentSizes           the number of arguments for each method.
+     * @param jniSignatures           the jni method signatures.
+     * @param ffiCallInterfaceFactory creates the call interface of the symbol with the given index, or returns 0 if the
+     *                                symbol is not a function.
+     */
+    protected Symbols(final Class<?> javaLibrary,
+                      final String[] symbols,
+                      final byte[] argumentSizes,
+                      final String[] jniSignatures,
+                      @Nonnull final IntToLongFunction ffiCallInterfaceFactory) {
+        this.javaLibrary = javaLibrary;
+        this.symbols = symbols;
+        this.argumentSizes = argumentSizes;
+        this.ffiCallInterfaces = new long[symbols.length];
+        Arrays.fill(this.ffiCallInterfaces,
+                    NO_CALL_INTERFACE);
+        this.jniSignatures = jniSignatures;
+        this.lazy = true;
+        this.ffiCallInterfaceFactory = ffiCallInterfaceFactory;
     }
 
     public void link() {
         link(nativeLibraryPath());
     }
 
+    /**
+     * Link all native methods of this library. When the symbols are lazy, or the {@code JACCALL_LAZY_LINK}
+     * environment variable is set to true, every native method is registered with a stub that links the method on its
+     * first call instead, so linking does not scale with the number of native methods.
+     *
+     * @param nativeLibraryPath the library that implements the native methods.
+     */
     public void link(final String nativeLibraryPath) {
-        JNI.link(nativeLibraryPath,
-                 this.javaLibrary,
-                 this.symbols,
-                 this.argumentSizes,
-                 this.jniSignatures,
-                 this.ffiCallInterfaces);
+        final String stubsLibraryPath = stubsLibraryPath();
+        if (stubsLibraryPath == null && this.lazy) {
+            //the library has to be known before the first method is resolved
+            LINKED_LIBRARIES.put(this.javaLibrary,
+                                 nativeLibraryPath);
+            JNI.linkLazy(nativeLibraryPath,
+                         this.javaLibrary,
+                         this.symbols,
+                         this.argumentSizes,
+                         this.jniSignatures,
+                         this);
+        }
+        else if (stubsLibraryPath == null) {
+            JNI.link(nativeLibraryPath,
+                     this.javaLibrary,
+                     this.symbols,
+                     this.argumentSizes,
+                     this.jniSignatures,
+                     this.ffiCallInterfaces);
+        }
+        else {
+            link(nativeLibraryPath,
+                 stubsLibraryPath);
+        }
+        LINKED_LIBRARIES.put(this.javaLibrary,
+                             nativeLibraryPath);
+    }
+
+    /**
+     * Link all native methods to the ahead-of-time compiled stubs of a companion library instead of libffi closures.
+     *
+     * @param nativeLibraryPath the library that implements the native methods.
+     * @param stubsLibraryPath  the companion library, built from the stubs that are generated when the annotation
+     *                          processor runs with {@code -Ajaccall.stubs=true}.
+     */
+    public void link(@Nonnull final String nativeLibraryPath,
+                     @Nonnull final String stubsLibraryPath) {
+        final String[] stubs = new String[this.symbols.length];
+        for (int i = 0; i < stubs.length; i++) {
+            boolean overloaded = false;
+            for (int j = 0; j < this.symbols.length && !overloaded; j++) {
+                overloaded = j != i && this.symbols[j].equals(this.symbols[i]);
+            }
+            stubs[i] = stubName(this.javaLibrary.getName(),
+                                this.symbols[i],
+                                this.jniSignatures[i],
+                                overloaded);
+        }
+
+        JNI.linkStubs(nativeLibraryPath,
+                      stubsLibraryPath,
+                      this.javaLibrary,
+                      this.symbols,
+                      this.jniSignatures,
+                      stubs);
+        LINKED_LIBRARIES.put(this.javaLibrary,
+                             nativeLibraryPath);
+    }
+
+    /**
+     * Method handles that call the native methods of this library, matching on array index with the symbols. The
+     * handles have the signature of their native method without the receiver, and are used by the generated
+     * {@code Foo_Downcalls} class.
+     * <p>
+     * On a JDK with the Foreign Function and Memory API the handles call the library directly, unless the
+     * {@code JACCALL_BACKEND} environment variable is set to {@code libffi}. Otherwise, or for symbols that can
+     * not be described with the Foreign Function and Memory API, the handles invoke the linked native methods.
+     * <p>
+     * The library is linked with {@link #link()} if it was not linked before.
+     *
+     * @return the method handles of all symbols.
+     */
+    @Nonnull
+    public MethodHandle[] downcalls() {
+        final String nativeLibraryPath = linkedLibraryPath();
+
+        final MethodHandle[] handles;
+        if (FOREIGN_DOWNCALLS) {
+            final long[] ffiCallInterfaces = new long[this.symbols.length];
+            for (int i = 0; i < ffiCallInterfaces.length; i++) {
+                ffiCallInterfaces[i] = callInterface(i);
+            }
+            handles = ForeignLinker.link(nativeLibraryPath,
+                                         this.symbols,
+                                         this.jniSignatures,
+                                         ffiCallInterfaces);
+        }
+        else {
+            handles = new MethodHandle[this.symbols.length];
+        }
+
+        for (int i = 0; i < handles.length; i++) {
+            if (handles[i] == null) {
+                handles[i] = nativeMethodHandle(i);
+            }
+        }
+
+        return handles;
+    }
+
+    /**
+     * A function of this library that can be called in a {@link Batch}. If a method is overloaded, the first
+     * declared method with a call interface is used.
+     * <p>
+     * The library is linked with {@link #link()} if it was not linked before.
+     *
+     * @param symbol the name of the function.
+     *
+     * @return the function.
+     */
+    @Nonnull
+    public Batch.Function function(@Nonnull final String symbol) {
+        return function(symbol,
+                        null);
+    }
+
+    /**
+     * A function of this library that can be called in a {@link Batch}, for an overloaded method.
+     * <p>
+     * The library is linked with {@link #link()} if it was not linked before.
+     *
+     * @param symbol       the name of the function.
+     * @param jniSignature the jni signature of the method, or null to use the first declared method.
+     *
+     * @return the function.
+     */
+    @Nonnull
+    public Batch.Function function(@Nonnull final String symbol,
+                                   @Nullable final String jniSignature) {
+        for (int i = 0; i < this.symbols.length; i++) {
+            if (this.symbols[i].equals(symbol)
+                && (jniSignature == null || this.jniSignatures[i].equals(jniSignature))
+                && callInterface(i) != 0L) {
+                return new Batch.Function(symbol,
+                                          JNI.dlsym(linkedLibraryPath(),
+                                                    symbol),
+                                          callInterface(i));
+            }
+        }
+        throw new IllegalArgumentException("Library " + this.javaLibrary.getName() + " has no function " + symbol + ".");
+    }
+
+    private synchronized long callInterface(final int index) {
+        if (this.ffiCallInterfaces[index] == NO_CALL_INTERFACE) {
+            //only lazy symbols have call interfaces that are not created yet
+            this.ffiCallInterfaces[index] = this.ffiCallInterfaceFactory.applyAsLong(index);
+        }
+        return this.ffiCallInterfaces[index];
+    }
+
+    /**
+     * Called from native code on the first call of a lazily linked method.
+     *
+     * @return the address of the native function the method is linked to.
+     */
+    private synchronized long resolve(final int index) {
+        if (this.resolved == null) {
+            this.resolved = new long[this.symbols.length];
+        }
+        if (this.resolved[index] == 0L) {
+            this.resolved[index] = JNI.linkSymbol(LINKED_LIBRARIES.get(this.javaLibrary),
+                                                  this.javaLibrary,
+                                                  this.symbols[index],
+                                                  this.argumentSizes[index],
+                                                  this.jniSignatures[index],
+                                                  callInterface(index));
+        }
+        return this.resolved[index];
+    }
+
+    private String linkedLibraryPath() {
+        String nativeLibraryPath = LINKED_LIBRARIES.get(this.javaLibrary);
+        if (nativeLibraryPath == null) {
+            nativeLibraryPath = nativeLibraryPath();
+            link(nativeLibraryPath);
+        }
+        return nativeLibraryPath;
+    }
+
+    private MethodHandle nativeMethodHandle(final int index) {
+        final MethodType methodType = MethodType.fromMethodDescriptorString(this.jniSignatures[index],
+                                                                            this.javaLibrary.getClassLoader());
+        try {
+            final Method method = this.javaLibrary.getDeclaredMethod(this.symbols[index],
+                                                                     methodType.parameterArray());
+            method.setAccessible(true);
+            final MethodHandle methodHandle = MethodHandles.lookup()
+                                                           .unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                return methodHandle;
+            }
+            //native methods of a library do not use their instance
+            return methodHandle.bindTo(JNI.allocateInstance(this.javaLibrary));
+        }
+        catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new Error(e);
+        }
+    }
+
+    private static boolean foreignDowncalls() {
+        final String backend = ConfigVariables.JACCALL_BACKEND;
+        if (BACKEND_LIBFFI.equals(backend)) {
+            return false;
+        }
+
+        boolean supported;
+        try {
+            supported = ForeignLinker.isSupported();
+        }
+        catch (final LinkageError e) {
+            //eg. the jdk 21 version of the linker is used without --enable-preview
+            Logger.getLogger("jaccall")
+                  .log(Level.FINE,
+                       "Foreign Function and Memory API not available.",
+                       e);
+            supported = false;
+        }
+
+        if (!supported && BACKEND_FFM.equals(backend)) {
+            Logger.getLogger("jaccall")
+                  .warning(String.format("JACCALL_BACKEND=%s requested but the Foreign Function and Memory API is not available, using %s instead.",
+                                         BACKEND_FFM,
+                                         BACKEND_LIBFFI));
+        }
+        return supported;
+    }
+
+    /**
+     * The name of the companion library with ahead-of-time compiled stubs. Overridden by generated symbols when
+     * the annotation processor runs with {@code -Ajaccall.stubs=true}.
+     *
+     * @return a library name without prefix or suffix, or null if there is no companion library.
+     */
+    @Nullable
+    protected String stubsLibrary() {
+        return null;
+    }
+
+    @Nullable
+    private String stubsLibraryPath() {
+        final String stubsLibrary = stubsLibrary();
+        if (stubsLibrary == null) {
+            return null;
+        }
+
+        final String fileName = System.mapLibraryName(stubsLibrary);
+        for (final String libraryPath : System.getProperty("java.library.path",
+                                                           "")
+                                              .split(File.pathSeparator)) {
+            final File stubsLibraryFile = new File(libraryPath,
+                                                   fileName);
+            if (stubsLibraryFile.isFile()) {
+                return stubsLibraryFile.getAbsolutePath();
+            }
+        }
+
+        Logger.getLogger("jaccall")
+              .log(Level.FINE,
+                   String.format("Stubs library %s not found on java.library.path, linking %s with libffi.",
+                                 fileName,
+                                 this.javaLibrary.getName()));
+        return null;
+    }
+
+    /**
+     * The name of the function that implements a native method, as defined by the JNI specification. An overloaded
+     * method has the long name, which ends with its mangled argument signature. Used for the ahead-of-time compiled
+     * stubs, both when they are generated and when they are linked.
+     *
+     * @param className    the fully qualified name of the class that declares the method.
+     * @param methodName   the name of the method.
+     * @param jniSignature the jni signature of the method.
+     * @param overloaded   if the class declares other native methods with the same name.
+     *
+     * @return the name of the native function.
+     */
+    @Nonnull
+    public static String stubName(@Nonnull final String className,
+                                  @Nonnull final String methodName,
+                                  @Nonnull final String jniSignature,
+                                  final boolean overloaded) {
+        final String shortName = "Java_" + mangle(className) + "_" + mangle(methodName);
+        if (!overloaded) {
+            return shortName;
+        }
+        return shortName + "__" + mangle(jniSignature.substring(1,
+                                                               jniSignature.indexOf(')')));
+    }
+
+    /*
+     * mangle a class or method name as defined by the JNI specification
+     */
+    private static String mangle(final String name) {
+        final StringBuilder mangled = new StringBuilder();
+        for (final char c : name.toCharArray()) {
+            if (c == '.' || c == '/') {
+                mangled.append('_');
+            }
+            else if (c == '_') {
+                mangled.append("_1");
+            }
+            else if (c == ';') {
+                mangled.append("_2");
+            }
+            else if (c == '[') {
+                mangled.append("_3");
+            }
+            else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                mangled.append(c);
+            }
+            else {
+                mangled.append(String.format("_0%04x",
+                                             (int) c));
+            }
+        }
+        return mangled.toString();
     }
 
     private String nativeLibraryPath() {
@@ -0,0 +1,262 @@
+package org.freedesktop.jaccall;
+
+
+import javax.annotation.Nonnull;
+import java.lang.foreign.AddressLayout;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.GroupLayout;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SegmentAllocator;
+import java.lang.foreign.SymbolLookup;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Links symbols to downcall method handles of the Foreign Function and Memory API. The memory layouts are derived
+ * from the same libffi call interfaces that the JNI linker uses, so both backends agree on the native signature.
+ * <p>
+ * Method handles use the JNI signature of the symbol. Pointers and structs are passed as addresses, and a struct
+ * returned by value is copied to heap memory that has to be freed by the caller, just like with the libffi backend,
+ * unless the symbol has a {@link Ret} parameter with the address of the memory to return the struct in.
+ */
+final class ForeignLinker {
+
+    private static final Logger LOGGER = Logger.getLogger("jaccall");
+
+    private static final Linker LINKER = Linker.nativeLinker();
+
+    private static final SegmentAllocator MALLOC = (byteSize, byteAlignment) -> MemorySegment.ofAddress(JNI.malloc(byteSize))
+                                                                                            .reinterpret(byteSize);
+
+    private static final MethodHandle OF_ADDRESS;
+    private static final MethodHandle REINTERPRET;
+    private static final MethodHandle ADDRESS;
+    private static final MethodHandle PREFIX_ALLOCATOR;
+
+    static {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            OF_ADDRESS = lookup.findStatic(MemorySegment.class,
+                                           "ofAddress",
+                                           MethodType.methodType(MemorySegment.class,
+                                                                 long.class));
+            REINTERPRET = lookup.findVirtual(MemorySegment.class,
+                                             "reinterpret",
+                                             MethodType.methodType(MemorySegment.class,
+                                                                   long.class));
+            ADDRESS = lookup.findVirtual(MemorySegment.class,
+                                         "address",
+                                         MethodType.methodType(long.class));
+            PREFIX_ALLOCATOR = lookup.findStatic(SegmentAllocator.class,
+                                                 "prefixAllocator",
+                                                 MethodType.methodType(SegmentAllocator.class,
+                                                                       MemorySegment.class));
+        }
+        catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new Error(e);
+        }
+    }
+
+    private ForeignLinker() {
+    }
+
+    static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * @return a method handle for every symbol, matching on array index. A handle is null if the symbol can not be
+     * described with the Foreign Function and Memory API.
+     */
+    @Nonnull
+    static MethodHandle[] link(@Nonnull final String library,
+                               @Nonnull final String[] symbols,
+                               @Nonnull final String[] jniSignatures,
+                               @Nonnull final long[] ffiCallInterfaces) {
+        final SymbolLookup           symbolLookup = SymbolLookup.libraryLookup(library,
+                                                                               Arena.global());
+        final Map<Long, MemoryLayout> layouts      = new HashMap<>();
+        final MethodHandle[]          handles      = new MethodHandle[symbols.length];
+
+        for (int i = 0; i < symbols.length; i++) {
+            final String symbol = symbols[i];
+            final MemorySegment symbolAddress = symbolLookup.find(symbol)
+                                                            .orElseThrow(() -> new Error("dlsym failed: " + symbol));
+            final long ffiCallInterface = ffiCallInterfaces[i];
+            if (ffiCallInterface == 0L) {
+                //symbol
+                handles[i] = MethodHandles.constant(long.class,
+                                                    symbolAddress.address());
+                continue;
+            }
+
+            try {
+                handles[i] = downcall(symbolAddress,
+                                      ffiCallInterface,
+                                      MethodType.fromMethodDescriptorString(jniSignatures[i],
+                                                                            ForeignLinker.class.getClassLoader()),
+                                      layouts);
+            }
+            catch (final IllegalArgumentException e) {
+                LOGGER.log(Level.FINE,
+                           String.format("Symbol %s can not be linked with the Foreign Function and Memory API, using libffi instead.",
+                                         symbol),
+                           e);
+            }
+        }
+
+        return handles;
+    }
+
+    private static MethodHandle downcall(final MemorySegment symbolAddress,
+                                         final long ffiCallInterface,
+                                         final MethodType jniType,
+                                         final Map<Long, MemoryLayout> layouts) {
+        final long[]         ffiTypes   = JNI.ffi_cif_types(ffiCallInterface);
+        final MemoryLayout[] argLayouts = new MemoryLayout[ffiTypes.length - 1];
+        for (int i = 0; i < argLayouts.length; i++) {
+            argLayouts[i] = layout(ffiTypes[i + 1],
+                                   layouts);
+        }
+        final FunctionDescriptor functionDescriptor;
+        if (ffiTypes[0] == JNI.FFI_TYPE_VOID) {
+            functionDescriptor = FunctionDescriptor.ofVoid(argLayouts);
+        }
+        else {
+            functionDescriptor = FunctionDescriptor.of(layout(ffiTypes[0],
+                                                              layouts),
+                                                       argLayouts);
+        }
+
+        MethodHandle handle = LINKER.downcallHandle(symbolAddress,
+                                                    functionDescriptor);
+
+        final MemoryLayout returnLayout = functionDescriptor.returnLayout()
+                                                            .orElse(null);
+        //a struct by value is returned into the memory of an extra first argument, see Ret
+        final int firstArg;
+        if (returnLayout instanceof GroupLayout && jniType.parameterCount() == argLayouts.length + 1) {
+            handle = MethodHandles.filterArguments(handle,
+                                                   0,
+                                                   MethodHandles.filterReturnValue(segment(returnLayout.byteSize()),
+                                                                                   PREFIX_ALLOCATOR));
+            firstArg = 1;
+        }
+        else if (returnLayout instanceof GroupLayout) {
+            handle = MethodHandles.insertArguments(handle,
+                                                   0,
+                                                   MALLOC);
+            firstArg = 0;
+        }
+        else {
+            firstArg = 0;
+        }
+        if (returnLayout instanceof GroupLayout || returnLayout instanceof AddressLayout) {
+            handle = MethodHandles.filterReturnValue(handle,
+                                                     ADDRESS);
+        }
+
+        for (int i = 0; i < argLayouts.length; i++) {
+            final MemoryLayout argLayout = argLayouts[i];
+            if (argLayout instanceof GroupLayout) {
+                handle = MethodHandles.filterArguments(handle,
+                                                       firstArg + i,
+                                                       segment(argLayout.byteSize()));
+            }
+            else if (argLayout instanceof AddressLayout) {
+                handle = MethodHandles.filterArguments(handle,
+                                                       firstArg + i,
+                                                       OF_ADDRESS);
+            }
+        }
+
+        //widen or narrow C types that do not match their java type, eg a 32-bit C long
+        return MethodHandles.explicitCastArguments(handle,
+                                                   jniType);
+    }
+
+    /**
+     * @return a method handle that turns an address into a memory segment of the given size.
+     */
+    private static MethodHandle segment(final long byteSize) {
+        return MethodHandles.filterReturnValue(OF_ADDRESS,
+                                               MethodHandles.insertArguments(REINTERPRET,
+                                                                             1,
+                                                                             byteSize));
+    }
+
+    private static MemoryLayout layout(final long ffiType,
+                                       final Map<Long, MemoryLayout> layouts) {
+        MemoryLayout layout = layouts.get(ffiType);
+        if (layout == null) {
+            layout = createLayout(ffiType,
+                                  layouts);
+            layouts.put(ffiType,
+                        layout);
+        }
+        return layout;
+    }
+
+    private static MemoryLayout createLayout(final long ffiType,
+                                             final Map<Long, MemoryLayout> layouts) {
+        if (ffiType == JNI.FFI_TYPE_POINTER) {
+            return ValueLayout.ADDRESS;
+        }
+        if (ffiType == JNI.FFI_TYPE_FLOAT) {
+            return ValueLayout.JAVA_FLOAT;
+        }
+        if (ffiType == JNI.FFI_TYPE_DOUBLE) {
+            return ValueLayout.JAVA_DOUBLE;
+        }
+
+        final int    size     = JNI.ffi_type_struct_size(ffiType);
+        final long[] elements = JNI.ffi_type_elements(ffiType);
+        if (elements == null) {
+            //signed or unsigned integer
+            switch (size) {
+                case 1:
+                    return ValueLayout.JAVA_BYTE;
+                case 2:
+                    return ValueLayout.JAVA_SHORT;
+                case 4:
+                    return ValueLayout.JAVA_INT;
+                case 8:
+                    return ValueLayout.JAVA_LONG;
+                default:
+                    throw new IllegalArgumentException("Unsupported ffi type of size " + size);
+            }
+        }
+
+        //struct or union, lay out the members the same way libffi does
+        final List<MemoryLayout> members = new ArrayList<>(elements.length);
+        long                     offset  = 0;
+        for (final long element : elements) {
+            final int  alignment     = JNI.ffi_type_alignment(element);
+            final long alignedOffset = (offset + alignment - 1) / alignment * alignment;
+            if (alignedOffset > offset) {
+                members.add(MemoryLayout.paddingLayout(alignedOffset - offset));
+            }
+            final MemoryLayout member = layout(element,
+                                               layouts);
+            members.add(member);
+            offset = alignedOffset + member.byteSize();
+        }
+        if (size > offset) {
+            members.add(MemoryLayout.paddingLayout(size - offset));
+        }
+
+        return MemoryLayout.structLayout(members.toArray(new MemoryLayout[0]))
+                           .withByteAlignment(JNI.ffi_type_alignment(ffiType));
+    }
+}
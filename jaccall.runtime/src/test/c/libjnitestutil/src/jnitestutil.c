@@ -2,6 +2,7 @@
 #include <stdlib.h>
 #include <stdint.h>
 #include <string.h>
+#include <pthread.h>
 
 #include "org_freedesktop_jaccall_JNITestUtil.h"
 
@@ -169,6 +170,39 @@ JNICALL Java_org_freedesktop_jaccall_JNITestUtil_execIntTest(JNIEnv *env, jclass
     return ((int(*)(int))(intptr_t)func_ptr)((int)value);
 }
 
+struct int_test_thread {
+    int (*func)(int);
+    int value;
+    int times;
+};
+
+static
+void *int_test_thread_run(void *data) {
+    struct int_test_thread *int_test = data;
+    int i = 0;
+    for (; i < int_test->times; i++) {
+        int_test->value = int_test->func(int_test->value);
+    }
+    return NULL;
+}
+
+/*
+ * Class:     org_freedesktop_jaccall_JNITestUtil
+ * Method:    execIntTestInThread
+ * Signature: (JII)I
+ */
+JNIEXPORT
+jint
+JNICALL Java_org_freedesktop_jaccall_JNITestUtil_execIntTestInThread(JNIEnv *env, jclass clazz, jlong func_ptr, jint value, jint times){
+    pthread_t thread;
+    struct int_test_thread int_test = {(int(*)(int))(intptr_t)func_ptr, (int) value, (int) times};
+
+    pthread_create(&thread, NULL, int_test_thread_run, &int_test);
+    pthread_join(thread, NULL);
+
+    return int_test.value;
+}
+
 /*
  * Class:     org_freedesktop_jaccall_JNITestUtil
  * Method:    execIntTest
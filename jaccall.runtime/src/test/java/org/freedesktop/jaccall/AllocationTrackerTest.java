@@ -0,0 +1,107 @@
+package org.freedesktop.jaccall;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class AllocationTrackerTest {
+
+    @Test
+    public void testRecordRelease() throws Exception {
+        //given
+        final long liveCount = AllocationTracker.liveCount();
+        final long liveBytes = AllocationTracker.liveBytes();
+
+        //when
+        AllocationTracker.record(0x1000L,
+                                 64,
+                                 "foo");
+        AllocationTracker.record(0x2000L,
+                                 32,
+                                 "foo");
+        AllocationTracker.release(0x2000L);
+
+        //then
+        assertThat(AllocationTracker.liveCount()).isEqualTo(liveCount + 1);
+        assertThat(AllocationTracker.liveBytes()).isEqualTo(liveBytes + 64);
+        AllocationTracker.release(0x1000L);
+        assertThat(AllocationTracker.liveCount()).isEqualTo(liveCount);
+    }
+
+    @Test
+    public void testCallSites() throws Exception {
+        //given, two allocations at the same call site
+        for (long address = 0x3000L; address <= 0x4000L; address += 0x1000L) {
+            AllocationTracker.record(address,
+                                     128,
+                                     "bar");
+        }
+
+        //when
+        final List<AllocationTracker.CallSite> callSites = AllocationTracker.callSites();
+        final String                           report    = AllocationTracker.leakReport();
+
+        //then
+        final AllocationTracker.CallSite callSite = callSites.get(0);
+        assertThat(callSite.owner()).isEqualTo("bar");
+        assertThat(callSite.liveCount()).isEqualTo(2L);
+        assertThat(callSite.liveBytes()).isEqualTo(256L);
+        //the stack starts at the caller of the tracker
+        assertThat(callSite.stackTrace()
+                           .get(0)
+                           .getMethodName()).isEqualTo("testCallSites");
+        assertThat(report).contains("256 bytes in 2 of 2 allocations of bar");
+        assertThat(report).contains("testCallSites");
+        AllocationTracker.release(0x3000L);
+        AllocationTracker.release(0x4000L);
+        assertThat(AllocationTracker.callSites()).isEmpty();
+    }
+
+    @Test
+    public void testCallSiteRemoved() throws Exception {
+        //given
+        final int callSiteCount = AllocationTracker.callSiteCount();
+        AllocationTracker.record(0x6000L,
+                                 8,
+                                 "qux");
+        assertThat(AllocationTracker.callSiteCount()).isEqualTo(callSiteCount + 1);
+
+        //when
+        AllocationTracker.release(0x6000L);
+
+        //then, a call site without live allocations is forgotten
+        assertThat(AllocationTracker.callSiteCount()).isEqualTo(callSiteCount);
+    }
+
+    @Test
+    public void testMXBean() throws Exception {
+        //given
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName  objectName  = new ObjectName(AllocationTracker.OBJECT_NAME);
+        if (!mBeanServer.isRegistered(objectName)) {
+            AllocationTracker.registerMXBean();
+        }
+        AllocationTracker.record(0x5000L,
+                                 16,
+                                 "baz");
+
+        //when
+        final Object liveBytes = mBeanServer.getAttribute(objectName,
+                                                          "LiveBytes");
+        final Object callSites = mBeanServer.getAttribute(objectName,
+                                                          "CallSites");
+
+        //then
+        assertThat(liveBytes).isEqualTo(AllocationTracker.liveBytes());
+        assertThat(((String[]) callSites)[0]).startsWith("16 bytes in 1 allocations of baz at ");
+        AllocationTracker.release(0x5000L);
+    }
+}
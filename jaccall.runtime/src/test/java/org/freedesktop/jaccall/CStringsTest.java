@@ -0,0 +1,95 @@
+package org.freedesktop.jaccall;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class CStringsTest {
+
+    @Test
+    public void testUtf8() throws Exception {
+        //given
+        final String s = "h\u00e9llo w\u00f6rld \u20ac \ud83d\ude00";
+
+        try (final Pointer<String> pointer = Pointer.nref(s)) {
+            //when
+            final String decoded = pointer.get();
+
+            //then
+            assertThat(Size.sizeof(s)).isEqualTo(s.getBytes(StandardCharsets.UTF_8).length + 1);
+            assertThat(CStrings.strlen(pointer.address)).isEqualTo(s.getBytes(StandardCharsets.UTF_8).length);
+            assertThat(decoded).isEqualTo(s);
+            assertThat(JNITestUtil.getByte(pointer.address + 1)).isEqualTo((byte) 0xC3);
+            assertThat(JNITestUtil.getByte(pointer.address + 2)).isEqualTo((byte) 0xA9);
+        }
+    }
+
+    @Test
+    public void testLatin1() throws Exception {
+        //given
+        final String s = "gr\u00fc\u00dfe \u20ac";
+
+        try (final Pointer<Byte> pointer = Pointer.malloc(CStrings.sizeof(s,
+                                                                          StandardCharsets.ISO_8859_1))
+                                                  .castp(Byte.class)) {
+            //when
+            CStrings.encode(pointer.address,
+                            s,
+                            StandardCharsets.ISO_8859_1);
+
+            //then
+            assertThat(CStrings.strlen(pointer.address)).isEqualTo(s.length());
+            assertThat(pointer.get(2)).isEqualTo((byte) 0xFC);
+            assertThat(CStrings.decode(pointer.address,
+                                       StandardCharsets.ISO_8859_1)).isEqualTo("gr\u00fc\u00dfe ?");
+        }
+    }
+
+    @Test
+    public void testStrlen() throws Exception {
+        //given
+        final byte[] bytes = new byte[64];
+        for (int i = 0; i < bytes.length - 1; i++) {
+            bytes[i] = 'a';
+        }
+
+        try (final Pointer<Byte> pointer = Pointer.nref(bytes)) {
+            for (int length = 3; length < bytes.length - 1; length++) {
+                //when
+                pointer.set(length,
+                            (byte) 0);
+
+                //then, every alignment of the terminating zero
+                assertThat(CStrings.strlen(pointer.address)).isEqualTo(length);
+                assertThat(CStrings.strlen(pointer.address + 3)).isEqualTo(length - 3);
+                pointer.set(length,
+                            (byte) 'a');
+            }
+        }
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        //given
+        final CStrings.Cache cache = new CStrings.Cache(16);
+
+        try (final Pointer<String> foo0 = Pointer.nref("foo");
+             final Pointer<String> foo1 = Pointer.nref("foo");
+             final Pointer<String> bar = Pointer.nref("bar")) {
+            //when
+            final String decoded0 = cache.decode(foo0.address);
+            final String decoded1 = cache.decode(foo1.address);
+            final String decoded2 = cache.decode(bar.address);
+
+            //then
+            assertThat(decoded0).isEqualTo("foo");
+            assertThat(decoded1).isSameAs(decoded0);
+            assertThat(decoded2).isEqualTo("bar");
+        }
+    }
+}
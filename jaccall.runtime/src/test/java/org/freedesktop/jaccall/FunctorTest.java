@@ -330,6 +330,182 @@ public class FunctorTest {
 
     public int intTest(final int value) { return value; }
 
+    @Test
+    public void testIntFunctionPointerClose() {
+        //given
+        final Pointer<IntFunc> pointerIntTest = nref(new IntFunc() {
+            @Override
+            public int invoke(final int value) {
+                return value;
+            }
+        });
+        final int retVal = JNITestUtil.execIntTest(pointerIntTest.address,
+                                                   123);
+
+        //when
+        pointerIntTest.close();
+        pointerIntTest.close();
+
+        //then
+        assertThat(retVal).isEqualTo(123);
+    }
+
+    @Test
+    public void testIntFunctionPointerCollected() throws Exception {
+        //given
+        final long address   = intFunctionPointerAddress();
+        final long reclaimed = Reclaimer.reclaimedBytes();
+
+        //when, the function pointer object is collected
+        Pointer.nref(new long[128]);
+        for (int i = 0; i < 100 && Reclaimer.reclaimedBytes() - reclaimed < 1024; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        final int retVal = JNITestUtil.execIntTest(address,
+                                                   123);
+
+        //then, its closure is only released when it is closed
+        assertThat(retVal).isEqualTo(124);
+    }
+
+    private long intFunctionPointerAddress() {
+        return nref(new IntFunc() {
+            @Override
+            public int invoke(final int value) {
+                return value + 1;
+            }
+        }).address;
+    }
+
+    @Test
+    public void testClosurePoolReuse() {
+        //given
+        final ClosurePool closurePool = new ClosurePool(JNI.ffi_callInterface(JNI.FFI_TYPE_SINT32,
+                                                                              JNI.FFI_TYPE_SINT32),
+                                                        JNI.GetMethodID(IntFunc.class,
+                                                                        "invoke",
+                                                                        "(I)I"),
+                                                        1);
+        final long closure = closurePool.acquire(new IntFunc() {
+            @Override
+            public int invoke(final int value) {
+                return value + 1;
+            }
+        });
+        final int retVal = JNITestUtil.execIntTest(ClosurePool.address(closure),
+                                                   10);
+        closurePool.release(closure);
+
+        //when
+        final long reusedClosure = closurePool.acquire(new IntFunc() {
+            @Override
+            public int invoke(final int value) {
+                return value * 2;
+            }
+        });
+        final int reusedRetVal = JNITestUtil.execIntTest(ClosurePool.address(reusedClosure),
+                                                         10);
+        closurePool.release(reusedClosure);
+
+        //then
+        assertThat(reusedClosure).isEqualTo(closure);
+        assertThat(retVal).isEqualTo(11);
+        assertThat(reusedRetVal).isEqualTo(20);
+    }
+
+    @Test
+    public void testClosurePoolReleaseDuringCall() {
+        //given
+        final ClosurePool closurePool = new ClosurePool(JNI.ffi_callInterface(JNI.FFI_TYPE_SINT32,
+                                                                              JNI.FFI_TYPE_SINT32),
+                                                        JNI.GetMethodID(IntFunc.class,
+                                                                        "invoke",
+                                                                        "(I)I"),
+                                                        1);
+        final long[] closure = new long[1];
+        closure[0] = closurePool.acquire(new IntFunc() {
+            @Override
+            public int invoke(final int value) {
+                //the closure is rebound while this call is in progress
+                closurePool.release(closure[0]);
+                closurePool.acquire(new IntFunc() {
+                    @Override
+                    public int invoke(final int value) {
+                        return value * 2;
+                    }
+                });
+                return value + 1;
+            }
+        });
+
+        //when
+        final int retVal = JNITestUtil.execIntTest(ClosurePool.address(closure[0]),
+                                                   10);
+        final int reboundRetVal = JNITestUtil.execIntTest(ClosurePool.address(closure[0]),
+                                                          10);
+        closurePool.release(closure[0]);
+
+        //then
+        assertThat(retVal).isEqualTo(11);
+        assertThat(reboundRetVal).isEqualTo(20);
+    }
+
+    @Test
+    public void testIntFunctionPointerFromNativeThread() {
+        //given
+        final Pointer<IntFunc> pointerIntTest = nref(new IntFunc() {
+            @Override
+            public int invoke(final int value) {
+                return value + 1;
+            }
+        });
+        final long attachCount = JNI.attachCount();
+
+        //when
+        final int retVal = JNITestUtil.execIntTestInThread(pointerIntTest.address,
+                                                           0,
+                                                           10);
+
+        //then
+        assertThat(retVal).isEqualTo(10);
+        assertThat(JNI.attachCount() - attachCount).isEqualTo(10L);
+    }
+
+    @Test
+    public void testIntFunctionPointerFromCachedNativeThread() {
+        //given
+        final Thread[] callingThread = new Thread[1];
+        final Pointer<IntFunc> pointerIntTest = nref(new IntFunc() {
+            @Override
+            public int invoke(final int value) {
+                callingThread[0] = Thread.currentThread();
+                return value + 1;
+            }
+        });
+        final long attachCount = JNI.attachCount();
+
+        //when
+        JNI.cacheAttachedThreads(true,
+                                 "jaccall-test",
+                                 null);
+        final int retVal;
+        try {
+            retVal = JNITestUtil.execIntTestInThread(pointerIntTest.address,
+                                                     0,
+                                                     10);
+        }
+        finally {
+            JNI.detachAttachedThreads();
+        }
+
+        //then
+        assertThat(retVal).isEqualTo(10);
+        assertThat(JNI.attachCount() - attachCount).isEqualTo(1L);
+        assertThat(callingThread[0].isDaemon()).isTrue();
+        assertThat(callingThread[0].getName()).startsWith("jaccall-test-");
+    }
+
     @Test
     public void testUnsignedIntFunctionPointerFromJava() {
         //given
@@ -72,6 +72,10 @@ public class JNITestUtil {
     public static native int execIntTest(long functionPointer,
                                          int value);
 
+    public static native int execIntTestInThread(long functionPointer,
+                                                 int value,
+                                                 int times);
+
     public static native int execUnsignedIntTest(long functionPointer,
                                                  int value);
 
@@ -0,0 +1,96 @@
+package org.freedesktop.jaccall;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class LibraryLoaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testDetectArchs() {
+        assumeTrue(System.getProperty("os.name")
+                         .toLowerCase()
+                         .startsWith("linux"));
+        //given
+        final String osArch = System.getProperty("os.arch");
+
+        //when
+        final List<String> archs = LibraryLoader.detectArchs();
+
+        //then
+        if ("amd64".equals(osArch)) {
+            assertThat(archs).containsExactly("linux-x86_64");
+        }
+        else if ("aarch64".equals(osArch)) {
+            assertThat(archs).containsExactly("linux-aarch64");
+        }
+        assertThat(LibraryLoader.ARCHS).asList()
+                                       .containsAllIn(archs);
+    }
+
+    @Test
+    public void testExtractCreatesPrivateCacheDir() throws Exception {
+        //given
+        final File   cacheDir = new File(this.temporaryFolder.getRoot(),
+                                         "cache");
+        final byte[] lib      = {1, 2, 3};
+
+        //when
+        final File libFile = LibraryLoader.extract(lib,
+                                                   cacheDir);
+
+        //then
+        assertThat(libFile.getParentFile()).isEqualTo(cacheDir);
+        assertThat(Files.readAllBytes(libFile.toPath())).isEqualTo(lib);
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(cacheDir.toPath()))).isEqualTo("rwx------");
+    }
+
+    @Test
+    public void testExtractReplacesTamperedLib() throws Exception {
+        //given
+        final File   cacheDir = new File(this.temporaryFolder.getRoot(),
+                                         "cache");
+        final byte[] lib      = {1, 2, 3};
+        final File   libFile  = LibraryLoader.extract(lib,
+                                                      cacheDir);
+        Files.write(libFile.toPath(),
+                    new byte[]{4, 5, 6});
+
+        //when
+        final File extracted = LibraryLoader.extract(lib,
+                                                     cacheDir);
+
+        //then
+        assertThat(extracted).isEqualTo(libFile);
+        assertThat(Files.readAllBytes(extracted.toPath())).isEqualTo(lib);
+    }
+
+    @Test
+    public void testExtractRejectsSharedCacheDir() throws Exception {
+        //given
+        final File   cacheDir = this.temporaryFolder.newFolder("cache");
+        final byte[] lib      = {1, 2, 3};
+        Files.setPosixFilePermissions(cacheDir.toPath(),
+                                      PosixFilePermissions.fromString("rwxrwxrwx"));
+
+        //when
+        final File libFile = LibraryLoader.extract(lib,
+                                                   cacheDir);
+
+        //then
+        assertThat(libFile.getParentFile()).isNotEqualTo(cacheDir);
+        assertThat(Files.readAllBytes(libFile.toPath())).isEqualTo(lib);
+        assertThat(cacheDir.list()).isEmpty();
+    }
+}
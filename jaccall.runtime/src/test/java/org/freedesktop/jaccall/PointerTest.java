@@ -3,12 +3,22 @@ package org.freedesktop.jaccall;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.google.common.truth.Truth.assertThat;
 import static java.nio.ByteBuffer.allocateDirect;
@@ -24,8 +34,12 @@ import static org.freedesktop.jaccall.Size.sizeof;
 @RunWith(JUnit4.class)
 public class PointerTest {
 
+    private static final int CHUNK_OVERFLOW = 128 * 1024;
+
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
+    @Rule
+    public TemporaryFolder   temporaryFolder   = new TemporaryFolder();
 
     @Test
     public void testWrapByteBuffer() throws Exception {
@@ -901,4 +915,494 @@ public class PointerTest {
         assertThat(stringsFromPointer.get(0)).isSameAs(elm0);
         assertThat(strings).isSameAs(stringsFromPointer);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testArenaNref() throws Exception {
+        try (final Arena arena = new Arena()) {
+            //when
+            final Pointer<Integer> intPointer    = arena.nref(1, 2, 3);
+            final Pointer<Double>  doublePointer = arena.nref(4.5, 6.7);
+            final Pointer<String>  stringPointer = arena.nref("foo");
+            final Pointer<Pointer<Integer>> pointerPointer = arena.nref(intPointer);
+
+            //then
+            assertThat(intPointer.address % 16).isEqualTo(0);
+            assertThat(doublePointer.address % 16).isEqualTo(0);
+            assertThat(doublePointer.address).isNotEqualTo(intPointer.address);
+            assertThat(intPointer.get(2)).isEqualTo(3);
+            assertThat(doublePointer.get(1)).isEqualTo(6.7);
+            assertThat(stringPointer.get()).isEqualTo("foo");
+            assertThat(pointerPointer.get().address).isEqualTo(intPointer.address);
+        }
+    }
+
+    @Test
+    public void testArenaChunks() throws Exception {
+        try (final Arena arena = new Arena(64)) {
+            //when
+            final Pointer<Void> pointer0 = arena.calloc(4,
+                                                        8);
+            final Pointer<Void> pointer1 = arena.calloc(4,
+                                                        8);
+            final Pointer<Void> large    = arena.calloc(1,
+                                                        1024);
+
+            //then
+            assertThat(pointer1.address - pointer0.address).isEqualTo(32);
+            for (int i = 0; i < 1024; i++) {
+                assertThat(JNITestUtil.getByte(large.address + i)).isEqualTo((byte) 0);
+            }
+            //a new chunk is allocated when the current one is full
+            assertThat(arena.malloc(32).address).isNotEqualTo(pointer1.address + 32);
+        }
+    }
+
+    @Test
+    public void testArenaClosed() throws Exception {
+        //given
+        final Arena arena = new Arena();
+        arena.nref(1);
+        arena.close();
+
+        //then
+        this.expectedException.expect(IllegalStateException.class);
+
+        //when
+        arena.malloc(1);
+    }
+
+    @Test
+    public void testArenaNrefEmpty() throws Exception {
+        try (final Arena arena = new Arena()) {
+            //then
+            this.expectedException.expect(IllegalArgumentException.class);
+
+            //when
+            arena.nref(new CLong[0]);
+        }
+    }
+
+    @Test
+    public void testArenaCallocOverflow() throws Exception {
+        try (final Arena arena = new Arena()) {
+            //then
+            this.expectedException.expect(IllegalArgumentException.class);
+
+            //when
+            arena.calloc(65536,
+                         65536);
+        }
+    }
+
+    @Test
+    public void testNrefClose() throws Exception {
+        //given
+        final Pointer<Long> pointer  = nref(1L, 2L);
+        final long          released = Reclaimer.releasedCount();
+
+        //when
+        pointer.close();
+        pointer.close();
+
+        //then
+        assertThat(Reclaimer.releasedCount() - released).isEqualTo(1L);
+    }
+
+    @Test
+    public void testNrefReclaimed() throws Exception {
+        //given
+        final long reclaimed = Reclaimer.reclaimedBytes();
+
+        //when
+        nref(new long[128]);
+
+        //then
+        for (int i = 0; i < 100 && Reclaimer.reclaimedBytes() - reclaimed < 1024; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(Reclaimer.reclaimedBytes() - reclaimed).isAtLeast(1024L);
+    }
+
+    @Test
+    public void testWrapNotReclaimed() throws Exception {
+        //given
+        final long pending = Reclaimer.pendingCount();
+
+        //when
+        final Pointer<Integer> pointer = wrap(Integer.class,
+                                              123456L);
+
+        //then
+        assertThat(Reclaimer.pendingCount()).isAtMost(pending);
+        assertThat(pointer.address).isEqualTo(123456L);
+    }
+
+    @Test
+    public void testFrameNref() throws Exception {
+        //given
+        final long address;
+        try (final Frame frame = Frame.push()) {
+            final Pointer<Integer> pointer0 = nref(1, 2, 3);
+            final Pointer<String>  pointer1 = nref("foo");
+            address = pointer0.address;
+
+            //then
+            assertThat(pointer1.address).isEqualTo(pointer0.address + 16);
+            assertThat(pointer0.get(2)).isEqualTo(3);
+            assertThat(pointer1.get()).isEqualTo("foo");
+        }
+
+        //when
+        try (final Frame frame = Frame.push()) {
+            //then
+            assertThat(nref(4).address).isEqualTo(address);
+
+            try (final Frame nested = Frame.push()) {
+                assertThat(nref(5).address).isEqualTo(address + 16);
+            }
+            assertThat(nref(new byte[CHUNK_OVERFLOW]).get()).isEqualTo((byte) 0);
+        }
+        try (final Frame frame = Frame.push()) {
+            assertThat(nref(6).address).isEqualTo(address);
+        }
+    }
+
+    @Test
+    public void testFrameNrefClose() throws Exception {
+        try (final Frame frame = Frame.push()) {
+            //given
+            final Pointer<Integer> pointer0 = nref(1,
+                                                   2,
+                                                   3);
+            final Pointer<Integer> pointer1;
+            try (final Pointer<Integer> closed = nref(4)) {
+                pointer1 = closed;
+            }
+
+            //when
+            pointer1.close();
+            final Pointer<Integer> pointer2 = nref(5);
+
+            //then, the memory is still owned by the frame
+            assertThat(pointer1.address).isEqualTo(pointer0.address + 16);
+            assertThat(pointer2.address).isEqualTo(pointer1.address + 16);
+            assertThat(pointer0.get(2)).isEqualTo(3);
+            assertThat(pointer1.get()).isEqualTo(4);
+            assertThat(pointer2.get()).isEqualTo(5);
+        }
+    }
+
+    @Test
+    public void testFrameCloseOrder() throws Exception {
+        //given
+        final Frame frame  = Frame.push();
+        final Frame nested = Frame.push();
+
+        //then
+        this.expectedException.expect(IllegalStateException.class);
+
+        //when
+        try {
+            frame.close();
+        }
+        finally {
+            nested.close();
+            frame.close();
+        }
+    }
+
+    @Test
+    public void testBulkReadWrite() throws Exception {
+        //given
+        final Pointer<Integer> intPointer = calloc(8,
+                                                   sizeof((Integer) null),
+                                                   Integer.class);
+        final int[] src = {1, 2, 3, 4, 5};
+        final int[] dst = new int[6];
+
+        //when
+        intPointer.write(2,
+                         src,
+                         1,
+                         4);
+        intPointer.read(1,
+                        dst,
+                        1,
+                        5);
+
+        //then
+        assertThat(intPointer.get(1)).isEqualTo(0);
+        assertThat(intPointer.get(2)).isEqualTo(2);
+        assertThat(intPointer.get(5)).isEqualTo(5);
+        assertThat(dst).isEqualTo(new int[]{0, 0, 2, 3, 4, 5});
+        intPointer.close();
+    }
+
+    @Test
+    public void testBulkReadWriteTypes() throws Exception {
+        //given
+        final Pointer<Void> pointer = malloc(64);
+        final double[]      doubles = new double[2];
+        final short[]       shorts  = new short[2];
+        final byte[]        bytes   = new byte[2];
+
+        //when
+        pointer.write(1,
+                      new double[]{1.5, 2.5},
+                      0,
+                      2);
+        pointer.read(1,
+                     doubles,
+                     0,
+                     2);
+        pointer.write(0,
+                      new short[]{-1, 258},
+                      0,
+                      2);
+        pointer.read(0,
+                     shorts,
+                     0,
+                     2);
+        pointer.read(2,
+                     bytes,
+                     0,
+                     2);
+
+        //then
+        assertThat(doubles).isEqualTo(new double[]{1.5, 2.5});
+        assertThat(shorts).isEqualTo(new short[]{-1, 258});
+        assertThat(bytes).isEqualTo(nativeOrder() == ByteOrder.LITTLE_ENDIAN ? new byte[]{2, 1} : new byte[]{1, 2});
+        pointer.close();
+    }
+
+    @Test
+    public void testBulkReadOutOfBounds() throws Exception {
+        //given
+        final Pointer<Long> pointer = nref(1L, 2L);
+
+        //then
+        this.expectedException.expect(ArrayIndexOutOfBoundsException.class);
+
+        //when
+        pointer.read(0,
+                     new long[2],
+                     1,
+                     2);
+    }
+
+    @Test
+    public void testCopyTo() throws Exception {
+        //given
+        final Pointer<Float> source = nref(1.5F, 2.5F, 3.5F);
+        final Pointer<Float> target = nref(0F, 0F, 0F);
+
+        //when
+        source.copyTo(target.plus(1),
+                      2);
+
+        //then
+        assertThat(target.get(0)).isEqualTo(0F);
+        assertThat(target.get(1)).isEqualTo(1.5F);
+        assertThat(target.get(2)).isEqualTo(2.5F);
+    }
+
+    @Test
+    public void testPrimitiveAccessors() throws Exception {
+        //given
+        final Pointer<Integer> intPointer   = nref(1, 2, 3);
+        final Pointer<CLong>   cLongPointer = nref(new CLong(4),
+                                                   new CLong(5));
+        final Pointer<Void>    voidPointer  = malloc(16);
+
+        //when
+        intPointer.setInt(1,
+                          20);
+        cLongPointer.setCLongValue(1,
+                                   50L);
+        voidPointer.setDouble(1,
+                              1.5);
+        voidPointer.setShort(0,
+                             (short) 7);
+
+        //then
+        assertThat(intPointer.getInt(1)).isEqualTo(20);
+        assertThat(intPointer.get(1)).isEqualTo(20);
+        assertThat(intPointer.getInt(2)).isEqualTo(3);
+        assertThat(cLongPointer.getCLongValue(0)).isEqualTo(4L);
+        assertThat(cLongPointer.get(1)
+                               .longValue()).isEqualTo(50L);
+        assertThat(voidPointer.getDouble(1)).isEqualTo(1.5);
+        assertThat(voidPointer.getShort(0)).isEqualTo((short) 7);
+        voidPointer.close();
+    }
+
+    @Test
+    public void testCursor() throws Exception {
+        //given
+        final Pointer<Integer> pointer = nref(1, 2, 3, 4);
+        final PointerCursor    cursor  = pointer.cursor();
+
+        //when
+        int sum = 0;
+        for (int i = 0; i < 4; i++) {
+            sum += cursor.getInt();
+            cursor.setInt(-1);
+            cursor.next();
+        }
+
+        //then
+        assertThat(sum).isEqualTo(10);
+        assertThat(cursor.address()).isEqualTo(pointer.address + 16);
+        assertThat(cursor.previous()
+                         .getInt()).isEqualTo(-1);
+        assertThat(cursor.rebase(pointer)
+                         .retype(Short.class)
+                         .advance(2)
+                         .getShort()).isEqualTo((short) -1);
+        assertThat(cursor.stride()).isEqualTo(2);
+        assertThat(cursor.pointer(Integer.class)
+                         .get()).isEqualTo(-1);
+    }
+
+    @Test
+    public void testWrapConcurrent() throws Exception {
+        //given
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+        final List<Future<Pointer<?>>> pointers = new LinkedList<>();
+
+        //when
+        for (int i = 0; i < 64; i++) {
+            final Class<?> type = i % 2 == 0 ? Integer.class : Pointer.class;
+            pointers.add(executorService.submit(() -> wrap(type,
+                                                           123456L)));
+        }
+
+        //then
+        for (int i = 0; i < pointers.size(); i++) {
+            final Pointer<?> pointer = pointers.get(i)
+                                               .get();
+            assertThat(pointer).isInstanceOf(i % 2 == 0 ? PointerInt.class : PointerPointer.class);
+            assertThat(pointer.address).isEqualTo(123456L);
+        }
+        executorService.shutdown();
+    }
+
+    @Test
+    public void testWrapUnknownType() throws Exception {
+        //then
+        this.expectedException.expect(IllegalArgumentException.class);
+
+        //when
+        wrap(Thread.class,
+             123456L);
+    }
+
+    @Test
+    public void testMmap() throws Exception {
+        //given
+        final Path       file   = this.temporaryFolder.newFile()
+                                                      .toPath();
+        final ByteBuffer buffer = ByteBuffer.allocate(8192)
+                                            .order(nativeOrder());
+        for (int i = 0; i < 2048; i++) {
+            buffer.putInt(i);
+        }
+        Files.write(file,
+                    buffer.array());
+
+        //when, an offset that is not page aligned
+        try (final Pointer<Integer> pointer = Pointer.mmap(file,
+                                                           4100,
+                                                           40,
+                                                           FileChannel.MapMode.READ_WRITE,
+                                                           Integer.class)) {
+            pointer.madvise(40,
+                            Advice.SEQUENTIAL);
+
+            //then
+            assertThat(pointer.get()).isEqualTo(1025);
+            assertThat(pointer.get(9)).isEqualTo(1034);
+
+            pointer.set(9,
+                        -1);
+            pointer.msync(40);
+        }
+        assertThat(ByteBuffer.wrap(Files.readAllBytes(file))
+                             .order(nativeOrder())
+                             .getInt(4136)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testMmapReadOnlyMissingFile() throws Exception {
+        //then
+        this.expectedException.expect(IOException.class);
+
+        //when
+        Pointer.mmap(this.temporaryFolder.getRoot()
+                                         .toPath()
+                                         .resolve("missing"),
+                     0,
+                     8,
+                     FileChannel.MapMode.READ_ONLY,
+                     Byte.class);
+    }
+
+    @Test
+    public void testMmapPrivatePastEndOfFile() throws Exception {
+        //given
+        final Path file = this.temporaryFolder.newFile()
+                                              .toPath();
+        Files.write(file,
+                    new byte[16]);
+
+        //then
+        this.expectedException.expect(IOException.class);
+
+        //when
+        Pointer.mmap(file,
+                     8,
+                     16,
+                     FileChannel.MapMode.PRIVATE,
+                     Byte.class);
+    }
+
+    @Test
+    public void testAsByteBuffer() throws Exception {
+        //given
+        final Pointer<Integer> pointer = nref(1,
+                                              2,
+                                              3);
+
+        //when
+        final ByteBuffer byteBuffer = pointer.asByteBuffer(12);
+        final IntBuffer  intBuffer  = pointer.asIntBuffer(3);
+        byteBuffer.putInt(4,
+                          -2);
+
+        //then
+        assertThat(byteBuffer.isDirect()).isTrue();
+        assertThat(byteBuffer.order()).isEqualTo(nativeOrder());
+        assertThat(byteBuffer.capacity()).isEqualTo(12);
+        assertThat(JNI.unwrap(byteBuffer)).isEqualTo(pointer.address);
+        assertThat(intBuffer.get(0)).isEqualTo(1);
+        assertThat(intBuffer.get(1)).isEqualTo(-2);
+        assertThat(pointer.get(1)).isEqualTo(-2);
+    }
+
+    @Test
+    public void testNewDirectByteBuffer() throws Exception {
+        //given
+        final Pointer<Long> pointer = nref(1234567890L);
+
+        //when
+        final ByteBuffer byteBuffer = JNI.NewDirectByteBuffer(pointer.address,
+                                                              8);
+
+        //then
+        assertThat(byteBuffer.capacity()).isEqualTo(8);
+        assertThat(JNI.unwrap(byteBuffer)).isEqualTo(pointer.address);
+        assertThat(byteBuffer.order(nativeOrder())
+                             .getLong(0)).isEqualTo(1234567890L);
+    }
+}
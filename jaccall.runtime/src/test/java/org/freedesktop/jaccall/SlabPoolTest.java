@@ -0,0 +1,110 @@
+package org.freedesktop.jaccall;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class SlabPoolTest {
+
+    @Test
+    public void testAllocateRelease() throws Exception {
+        //given
+        final long address0 = SlabPool.allocate(24);
+        final long address1 = SlabPool.allocate(32);
+        final long inUse    = SlabPool.occupancy()
+                                      .get(1)
+                                      .inUse();
+
+        //when
+        final boolean released = SlabPool.release(address1);
+
+        //then
+        assertThat(released).isTrue();
+        assertThat(address0 % 16).isEqualTo(0);
+        assertThat(Math.abs(address1 - address0)).isAtLeast(32L);
+        assertThat(SlabPool.occupancy()
+                           .get(1)
+                           .inUse()).isEqualTo(inUse - 1);
+        //released blocks are reused first
+        assertThat(SlabPool.allocate(17)).isEqualTo(address1);
+    }
+
+    @Test
+    public void testOccupancy() throws Exception {
+        //given
+        final long address = SlabPool.allocate(1024);
+
+        //when
+        final List<SlabPool.Occupancy> occupancy = SlabPool.occupancy();
+
+        //then
+        assertThat(occupancy).hasSize(7);
+        assertThat(occupancy.get(0)
+                            .size()).isEqualTo(16);
+        assertThat(occupancy.get(6)
+                            .size()).isEqualTo(1024);
+        assertThat(occupancy.get(6)
+                            .inUse()).isAtLeast(1L);
+        assertThat(occupancy.get(6)
+                            .capacity()).isEqualTo(64L);
+        SlabPool.release(address);
+    }
+
+    @Test
+    public void testReleaseNotPooled() throws Exception {
+        //given
+        final long address = JNI.malloc(16);
+
+        //when
+        final boolean released = SlabPool.release(address);
+
+        //then
+        assertThat(released).isFalse();
+        JNI.free(address);
+    }
+
+    @Test
+    public void testReallocPooled() throws Exception {
+        //given
+        final long address = SlabPool.allocate(16);
+        JNI.memset(address,
+                   0x5a,
+                   16);
+        final long inUse = SlabPool.occupancy()
+                                   .get(0)
+                                   .inUse();
+
+        //when
+        final long resized = SlabPool.realloc(address,
+                                              4096);
+
+        //then, the pooled block is copied instead of resized by the system allocator
+        assertThat(SlabPool.blockSize(resized)).isEqualTo(-1);
+        assertThat(JNI.getByte(resized,
+                               15)).isEqualTo((byte) 0x5a);
+        assertThat(SlabPool.occupancy()
+                           .get(0)
+                           .inUse()).isEqualTo(inUse - 1);
+        JNI.free(resized);
+    }
+
+    @Test
+    public void testCallocOverflow() throws Exception {
+        //then
+        assertThat(SlabPool.fits(64,
+                                 16)).isTrue();
+        assertThat(SlabPool.fits(65,
+                                 16)).isFalse();
+        //wraps to 0 as an int
+        assertThat(SlabPool.fits(65536,
+                                 65536)).isFalse();
+        //wraps to a negative int
+        assertThat(SlabPool.fits(65536,
+                                 32768)).isFalse();
+    }
+}
@@ -2,6 +2,7 @@ package org.freedesktop.jaccall;
 
 
 import org.freedesktop.libtest.FieldsTestStruct;
+import org.freedesktop.libtest.TestStruct;
 import org.freedesktop.libtest.TestStructEmbedded;
 import org.freedesktop.libtest.Testing;
 import org.freedesktop.libtest.Testing_Symbols;
@@ -12,6 +13,8 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import static com.google.common.truth.Truth.assertThat;
 
@@ -123,6 +126,7 @@ public class StructTest {
         assertThat(fieldsTestStruct.charField()).isEqualTo(charField);
         assertThat(fieldsTestStruct.intField()).isEqualTo(intField);
         assertThat(fieldsTestStruct.longField()).isEqualTo(longField);
+        assertThat(fieldsTestStruct.longFieldValue()).isEqualTo(longField.longValue());
         assertThat(fieldsTestStruct.longLongField()).isEqualTo(longLongField);
         assertThat(fieldsTestStruct.floatField()).isEqualTo(floatField);
         assertThat(fieldsTestStruct.doubleField()).isEqualTo(doubleField);
@@ -161,4 +165,115 @@ public class StructTest {
     public void testWriteStructFieldTypes() {
 
     }
+
+    @Test
+    public void testArenaStruct() {
+        try (final Arena arena = new Arena()) {
+            //when
+            final TestStructEmbedded struct0 = arena.struct(TestStructEmbedded.class);
+            final TestStructEmbedded struct1 = arena.struct(TestStructEmbedded.class);
+            struct1.field0(9876543210L);
+            struct1.field1(9876.5432F);
+
+            //then
+            assertThat(struct0.field0()).isEqualTo(0L);
+            assertThat(struct0.field1()).isEqualTo(0F);
+            assertThat(struct1.field0()).isEqualTo(9876543210L);
+            assertThat(struct1.field1()).isEqualTo(9876.5432F);
+            assertThat(Pointer.ref(struct1).address).isNotEqualTo(Pointer.ref(struct0).address);
+            assertThat(arena.nref(struct0,
+                                  struct1)
+                            .get(1)
+                            .field0()).isEqualTo(9876543210L);
+        }
+    }
+
+    @Test
+    public void testCursorView() {
+        //given
+        final TestStructEmbedded struct0 = new TestStructEmbedded();
+        final TestStructEmbedded struct1 = new TestStructEmbedded();
+        struct0.field0(1L);
+        struct1.field0(2L);
+        final Pointer<TestStructEmbedded> structs = Pointer.nref(struct0,
+                                                                 struct1);
+        final PointerCursor               cursor  = structs.cursor();
+        final TestStructEmbedded          view    = cursor.view(new TestStructEmbedded());
+
+        //when
+        cursor.next();
+        cursor.view(view);
+
+        //then
+        assertThat(cursor.stride()).isEqualTo(TestStructEmbedded.SIZE);
+        assertThat(view.field0()).isEqualTo(2L);
+    }
+
+    @Test
+    public void testStructFactory() {
+        //given
+        final TestStructEmbedded struct = new TestStructEmbedded();
+        struct.field0(1234567890L);
+        final TestStruct parent = new TestStruct();
+        parent.field4(struct);
+
+        //when
+        final StructFactory<TestStructEmbedded> structFactory = StructFactory.of(TestStructEmbedded.class);
+        final TestStructEmbedded                view          = structFactory.create(Pointer.ref(struct).address);
+
+        //then
+        assertThat(structFactory).isSameAs(TestStructEmbedded.FACTORY);
+        assertThat(structFactory.size()).isEqualTo(TestStructEmbedded.SIZE);
+        assertThat(view.field0()).isEqualTo(1234567890L);
+        assertThat(parent.field4()
+                         .field0()).isEqualTo(1234567890L);
+        assertThat(Pointer.ref(struct)
+                          .get()
+                          .field0()).isEqualTo(1234567890L);
+    }
+
+    @Test
+    public void testMmapStruct() throws Exception {
+        //given
+        final File file = File.createTempFile("structs",
+                                              null);
+        file.deleteOnExit();
+        try (final Pointer<TestStructEmbedded> structs = Pointer.mmap(file.toPath(),
+                                                                      0,
+                                                                      TestStructEmbedded.SIZE * 3,
+                                                                      FileChannel.MapMode.READ_WRITE,
+                                                                      TestStructEmbedded.class)) {
+            structs.get(2)
+                   .field0(1234567890L);
+        }
+
+        //when
+        try (final Pointer<TestStructEmbedded> structs = Pointer.mmap(file.toPath(),
+                                                                      0,
+                                                                      TestStructEmbedded.SIZE * 3,
+                                                                      FileChannel.MapMode.READ_ONLY,
+                                                                      TestStructEmbedded.class)) {
+            //then
+            assertThat(file.length()).isEqualTo(TestStructEmbedded.SIZE * 3L);
+            assertThat(structs.get(2)
+                              .field0()).isEqualTo(1234567890L);
+        }
+    }
+
+    @Test
+    public void testAsByteBuffer() {
+        //given
+        final TestStructEmbedded struct = new TestStructEmbedded();
+        struct.field0(1234567890L);
+
+        //when
+        final ByteBuffer byteBuffer = struct.asByteBuffer();
+        byteBuffer.putFloat(8,
+                            12.5F);
+
+        //then
+        assertThat(byteBuffer.capacity()).isEqualTo(TestStructEmbedded.SIZE);
+        assertThat(byteBuffer.getLong(0)).isEqualTo(1234567890L);
+        assertThat(struct.field1()).isEqualTo(12.5F);
+    }
 }
@@ -1,6 +1,8 @@
 package org.freedesktop.jaccall;
 
 
+import org.freedesktop.libtest.LazyTesting;
+import org.freedesktop.libtest.LazyTesting_Symbols;
 import org.freedesktop.libtest.ReadGlobalVarFunc;
 import org.freedesktop.libtest.TestStruct;
 import org.freedesktop.libtest.TestUnion;
@@ -14,6 +16,12 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.freedesktop.jaccall.Pointer.malloc;
@@ -275,6 +283,261 @@ public class SymbolsTest {
         testStruct.close();
     }
 
+    @Test
+    public void testBatch() {
+        //given
+        final Testing_Symbols testingSymbols    = new Testing_Symbols();
+        final Batch.Function  charTest          = testingSymbols.function("charTest");
+        final Batch.Function  unsignedShortTest = testingSymbols.function("unsignedShortTest");
+        final Batch.Function  intTest           = testingSymbols.function("intTest");
+        final Batch.Function  floatTest         = testingSymbols.function("floatTest");
+        final Batch.Function  doubleTest        = testingSymbols.function("doubleTest");
+        final Batch.Function  noArgsTest        = testingSymbols.function("noArgsTest");
+
+        try (final Batch batch = new Batch()) {
+            //when
+            batch.call(charTest)
+                 .arg(-12);
+            batch.call(unsignedShortTest)
+                 .arg(0xFFFE);
+            batch.call(intTest)
+                 .arg(Integer.MIN_VALUE);
+            batch.call(floatTest)
+                 .arg(123.456F);
+            batch.call(doubleTest)
+                 .arg(789.012D);
+            batch.call(noArgsTest);
+            batch.execute();
+
+            //then
+            assertThat(batch.result(0)).isEqualTo(-12L);
+            assertThat(batch.result(1)).isEqualTo(0xFFFEL);
+            assertThat(batch.result(2)).isEqualTo((long) Integer.MIN_VALUE);
+            assertThat(batch.resultFloat(3)).isEqualTo(123.456F);
+            assertThat(batch.resultDouble(4)).isEqualTo(789.012D);
+
+            //when
+            for (int i = 0; i < 100; i++) {
+                batch.call(intTest)
+                     .arg(i);
+            }
+            batch.execute();
+
+            //then
+            for (int i = 0; i < 100; i++) {
+                assertThat(batch.result(i)).isEqualTo((long) i);
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBatchMissingArgument() {
+        //given
+        final Batch.Function intTest = new Testing_Symbols().function("intTest");
+
+        try (final Batch batch = new Batch()) {
+            //when
+            batch.call(intTest);
+            batch.execute();
+        }
+
+        //then
+        //exception is thrown
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBatchClosed() {
+        //given
+        final Batch.Function intTest = new Testing_Symbols().function("intTest");
+        final Batch          batch   = new Batch();
+        batch.close();
+
+        //when
+        batch.call(intTest);
+
+        //then
+        //exception is thrown
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBatchClosedResult() {
+        //given
+        final Batch.Function intTest = new Testing_Symbols().function("intTest");
+        final Batch          batch   = new Batch();
+        batch.call(intTest)
+             .arg(1);
+        batch.execute();
+        batch.close();
+
+        //when
+        batch.result(0);
+
+        //then
+        //exception is thrown
+    }
+
+    @Test
+    public void testBatchCloseTwice() {
+        //given
+        final Batch batch = new Batch();
+
+        //when
+        batch.close();
+        batch.close();
+
+        //then
+        //no crash
+    }
+
+    @Test
+    public void testNativeExecutor() throws Exception {
+        //given
+        final Batch.Function intTest = new Testing_Symbols().function("intTest");
+        final List<Batch>                    batches = new ArrayList<>();
+        final List<CompletableFuture<Batch>> futures = new ArrayList<>();
+
+        try (final NativeExecutor executor = new NativeExecutor(2,
+                                                                16)) {
+            //when
+            for (int i = 0; i < 10; i++) {
+                final Batch batch = new Batch();
+                batch.call(intTest)
+                     .arg(i);
+                batches.add(batch);
+                futures.add(executor.submit(batch));
+            }
+
+            //then
+            for (int i = 0; i < 10; i++) {
+                assertThat(futures.get(i)
+                                  .get(5,
+                                       TimeUnit.SECONDS)
+                                  .result(0)).isEqualTo((long) i);
+                batches.get(i)
+                       .close();
+            }
+        }
+    }
+
+    @Test
+    public void testNativeExecutorClosed() throws Exception {
+        //given
+        final Batch.Function intTest  = new Testing_Symbols().function("intTest");
+        final NativeExecutor executor = new NativeExecutor(1,
+                                                           1);
+        executor.close();
+
+        try (final Batch batch = new Batch()) {
+            batch.call(intTest)
+                 .arg(1);
+
+            //when
+            final CompletableFuture<Batch> future = executor.submit(batch);
+
+            //then
+            assertThat(future.isCompletedExceptionally()).isTrue();
+        }
+    }
+
+    @Test
+    public void testBlockingCallsOffload() throws Throwable {
+        //when
+        final String thread = BlockingCalls.offload(() -> Thread.currentThread()
+                                                                .getName());
+
+        //then
+        assertThat(thread).startsWith("jaccall-blocking-");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBlockingCallsOffloadThrows() throws Throwable {
+        //when
+        BlockingCalls.offload(() -> {
+            throw new IllegalStateException();
+        });
+
+        //then
+        //exception is thrown
+    }
+
+    @Test
+    public void testBlockingCallsPinnedCounter() {
+        //given
+        BlockingCalls.pinnedCounter(Testing.class,
+                                    "intTest")
+                     .add(3);
+
+        //when
+        final Map<String, Long> pinnedCalls = BlockingCalls.pinnedCalls();
+
+        //then
+        assertThat(pinnedCalls).containsEntry(Testing.class.getName() + ".intTest",
+                                              3L);
+    }
+
+    @Test
+    public void testStubName() {
+        //when
+        final String stubName           = Symbols.stubName("org.freedesktop.libtest.Testing",
+                                                           "some_global",
+                                                           "()J",
+                                                           false);
+        final String overloadedStubName = Symbols.stubName("org.freedesktop.libtest.Testing",
+                                                           "intTest",
+                                                           "(IJ)I",
+                                                           true);
+
+        //then
+        assertThat(stubName).isEqualTo("Java_org_freedesktop_libtest_Testing_some_1global");
+        assertThat(overloadedStubName).isEqualTo("Java_org_freedesktop_libtest_Testing_intTest__IJ");
+    }
+
+    @Test
+    public void testDowncalls() throws Throwable {
+        //given
+        final MethodHandle[] downcalls = new Testing_Symbols().downcalls();
+
+        //when
+        final int    returned       = (int) downcalls[4].invokeExact(Integer.MIN_VALUE);
+        final double returnedDouble = (double) downcalls[11].invokeExact(123.456D);
+
+        //then
+        assertThat(ForeignLinker.isSupported()).isEqualTo(Boolean.getBoolean("jaccall.test.ffm"));
+        assertThat(returned).isEqualTo(Integer.MIN_VALUE);
+        assertThat(returnedDouble).isEqualTo(123.456D);
+    }
+
+    @Test
+    public void testLazyLink() {
+        //given
+        new LazyTesting_Symbols().link(libFilePath());
+        final LazyTesting lazyTesting = new LazyTesting();
+
+        //when
+        final int    first    = lazyTesting.intTest(123);
+        final int    second   = lazyTesting.intTest(-456);
+        final double returned = lazyTesting.doubleTest(789.012D);
+        final long   symbol   = LazyTesting.globalvar();
+
+        //then
+        assertThat(first).isEqualTo(123);
+        assertThat(second).isEqualTo(-456);
+        assertThat(returned).isEqualTo(789.012D);
+        assertThat(symbol).isNotEqualTo(0L);
+    }
+
+    @Test(expected = Error.class)
+    public void testLazyLinkMissingSymbol() {
+        //given
+        new LazyTesting_Symbols().link(libFilePath());
+
+        //when
+        new LazyTesting().missingTest(1);
+
+        //then
+        //exception is thrown
+    }
+
     @Test
     public void testStructReturnByValuePassByReference() {
         //given
@@ -350,6 +613,53 @@ public class SymbolsTest {
         testStructByValue.close();
     }
 
+    @Test
+    public void testStructReturnByValueIntoBuffer() {
+        //given
+        final Pointer<TestStruct> testStructPointer = malloc(TestStruct.SIZE).castp(TestStruct.class);
+        final Pointer<TestStruct> rval              = malloc(TestStruct.SIZE).castp(TestStruct.class);
+
+        final byte             newField0       = 'b';
+        final short            newField1       = 33;
+        final Pointer<Integer> newField2       = nref(321,
+                                                      654,
+                                                      987);
+        final Pointer<Integer> newField3       = nref(55);
+        final long             embedded_field0 = 987654321L;
+        final float            embedded_field1 = 1234.5F;
+
+        //when
+        final long address = Testing.structTest(rval.address,
+                                                testStructPointer.address,
+                                                newField0,
+                                                newField1,
+                                                newField2.address,
+                                                newField3.address,
+                                                embedded_field0,
+                                                embedded_field1);
+
+        //then
+        assertThat(address).isEqualTo(rval.address);
+
+        final TestStruct testStruct = rval.get();
+        assertThat(testStruct.field0()).isEqualTo(newField0);
+        assertThat(testStruct.field1()).isEqualTo(newField1);
+        assertThat(testStruct.field2()
+                             .get(0)).isEqualTo(321);
+        assertThat(testStruct.field2()
+                             .get(1)).isEqualTo(654);
+        assertThat(testStruct.field2()
+                             .get(2)).isEqualTo(987);
+        assertThat(testStruct.field3()).isEqualTo(newField3);
+        assertThat(testStruct.field4()
+                             .field0()).isEqualTo(embedded_field0);
+        assertThat(testStruct.field4()
+                             .field1()).isEqualTo(embedded_field1);
+
+        rval.close();
+        testStructPointer.close();
+    }
+
     @Test
     public void testUnionReturnByValuePassByReference() {
         //given
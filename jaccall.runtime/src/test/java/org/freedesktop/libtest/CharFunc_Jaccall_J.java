@@ -1,5 +1,6 @@
 package org.freedesktop.libtest;
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 
 import javax.annotation.Generated;
@@ -10,13 +11,14 @@ final class CharFunc_Jaccall_J extends PointerCharFunc {
     private static final long JNI_METHOD_ID = JNI.GetMethodID(CharFunc.class,
                                                               "invoke",
                                                               "(B)B");
+    private static final ClosurePool CLOSURE_POOL = new ClosurePool(FFI_CIF,
+                                                                    JNI_METHOD_ID);
 
     private final CharFunc function;
 
     public CharFunc_Jaccall_J(final CharFunc function) {
-        super(JNI.ffi_closure(FFI_CIF,
-                              function,
-                              JNI_METHOD_ID));
+        super(CLOSURE_POOL,
+              function);
         this.function = function;
     }
 
@@ -1,5 +1,6 @@
 package org.freedesktop.libtest;
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 
 import javax.annotation.Generated;
@@ -10,12 +11,13 @@ final class DoubleFunc_Jaccall_J extends PointerDoubleFunc {
     private static final long JNI_METHOD_ID = JNI.GetMethodID(DoubleFunc.class,
                                                               "invoke",
                                                               "(D)D");
+    private static final ClosurePool CLOSURE_POOL = new ClosurePool(FFI_CIF,
+                                                                    JNI_METHOD_ID);
     private final DoubleFunc function;
 
     public DoubleFunc_Jaccall_J(final DoubleFunc function) {
-        super(JNI.ffi_closure(FFI_CIF,
-                              function,
-                              JNI_METHOD_ID));
+        super(CLOSURE_POOL,
+              function);
         this.function = function;
     }
 
@@ -4,6 +4,7 @@ import org.freedesktop.jaccall.CLong;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.Size;
+import org.freedesktop.jaccall.StructFactory;
 import org.freedesktop.jaccall.StructType;
 import org.freedesktop.jaccall.Types;
 
@@ -61,6 +62,10 @@ abstract class FieldsTestStruct_Jaccall_StructType extends StructType {
     private static final int OFFSET_10 = Types.newOffset(Types.alignment((Long) null),
                                                          OFFSET_9 + (TestStructEmbedded.SIZE * 1));
 
+    public static final StructFactory<FieldsTestStruct> FACTORY = StructFactory.register(FieldsTestStruct.class,
+                                                                                         SIZE,
+                                                                                         FieldsTestStruct::new);
+
     FieldsTestStruct_Jaccall_StructType() {
         super(SIZE);
     }
@@ -101,6 +106,15 @@ abstract class FieldsTestStruct_Jaccall_StructType extends StructType {
                  longField);
     }
 
+    public final long longFieldValue() {
+        return getCLongValue(OFFSET_3);
+    }
+
+    public final void longFieldValue(final long longField) {
+        setCLongValue(OFFSET_3,
+                      longField);
+    }
+
     public final long longLongField() {
         return getLong(OFFSET_4);
     }
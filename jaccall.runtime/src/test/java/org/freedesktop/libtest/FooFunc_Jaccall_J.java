@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 import org.freedesktop.jaccall.ByVal;
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Ptr;
 import org.freedesktop.jaccall.Unsigned;
@@ -14,14 +15,15 @@ final class FooFunc_Jaccall_J extends PointerFooFunc {
     private static final long JNI_METHOD_ID = JNI.GetMethodID(FooFunc.class,
                                                               "invoke",
                                                               "(JIJ)B");
+    private static final ClosurePool CLOSURE_POOL = new ClosurePool(FFI_CIF,
+                                                                    JNI_METHOD_ID);
 
     @Nonnull
     private final FooFunc fooFunction;
 
     FooFunc_Jaccall_J(@Nonnull final FooFunc fooFunction) {
-        super(JNI.ffi_closure(FFI_CIF,
-                              fooFunction,
-                              JNI_METHOD_ID));
+        super(CLOSURE_POOL,
+              fooFunction);
         this.fooFunction = fooFunction;
     }
 
@@ -0,0 +1,19 @@
+package org.freedesktop.libtest;
+
+import org.freedesktop.jaccall.Lib;
+import org.freedesktop.jaccall.Ptr;
+import org.freedesktop.jaccall.Symbol;
+
+@Lib("testing")
+public class LazyTesting {
+
+    public native int intTest(int value);
+
+    public native double doubleTest(double value);
+
+    public native int missingTest(int value);
+
+    @Symbol
+    @Ptr(int.class)
+    public static native long globalvar();
+}
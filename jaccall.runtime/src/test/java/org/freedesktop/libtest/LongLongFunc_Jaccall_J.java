@@ -1,5 +1,6 @@
 package org.freedesktop.libtest;
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 
 import javax.annotation.Generated;
@@ -10,12 +11,13 @@ final class LongLongFunc_Jaccall_J extends PointerLongLongFunc {
     private static final long JNI_METHOD_ID = JNI.GetMethodID(LongLongFunc.class,
                                                               "invoke",
                                                               "(J)J");
+    private static final ClosurePool CLOSURE_POOL = new ClosurePool(FFI_CIF,
+                                                                    JNI_METHOD_ID);
     private final LongLongFunc function;
 
     public LongLongFunc_Jaccall_J(final LongLongFunc function) {
-        super(JNI.ffi_closure(FFI_CIF,
-                              function,
-                              JNI_METHOD_ID));
+        super(CLOSURE_POOL,
+              function);
         this.function = function;
     }
 
@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -20,6 +21,13 @@ public abstract class PointerCharFunc extends PointerFunc<CharFunc> implements C
               address);
     }
 
+    PointerCharFunc(final ClosurePool closurePool,
+                    final CharFunc function) {
+        super(CharFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<CharFunc> nref(@Nonnull final CharFunc function) {
         if (function instanceof PointerCharFunc) {
@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.PointerFunc;
 
@@ -18,6 +19,13 @@ public abstract class PointerDoubleFunc extends PointerFunc<PointerDoubleFunc> i
               address);
     }
 
+    PointerDoubleFunc(final ClosurePool closurePool,
+                      final DoubleFunc function) {
+        super(PointerDoubleFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static PointerDoubleFunc nref(@Nonnull final DoubleFunc function) {
         if (function instanceof PointerDoubleFunc) {
@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.PointerFunc;
 
@@ -18,6 +19,13 @@ public abstract class PointerFloatFunc extends PointerFunc<PointerFloatFunc> imp
               address);
     }
 
+    PointerFloatFunc(final ClosurePool closurePool,
+                     final FloatFunc function) {
+        super(PointerFloatFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static PointerFloatFunc nref(@Nonnull final FloatFunc function) {
         if (function instanceof PointerFloatFunc) {
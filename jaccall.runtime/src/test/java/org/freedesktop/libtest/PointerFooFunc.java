@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.PointerFunc;
 
@@ -20,6 +21,13 @@ public abstract class PointerFooFunc extends PointerFunc<PointerFooFunc> impleme
               address);
     }
 
+    PointerFooFunc(final ClosurePool closurePool,
+                   final FooFunc function) {
+        super(PointerFooFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static PointerFooFunc nref(@Nonnull final FooFunc function) {
         if (function instanceof FooFunc_Jaccall_J) {
@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -19,6 +20,13 @@ public abstract class PointerIntFunc extends PointerFunc<IntFunc> implements Int
               address);
     }
 
+    PointerIntFunc(final ClosurePool closurePool,
+                   final IntFunc function) {
+        super(IntFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<IntFunc> nref(@Nonnull final IntFunc function) {
         if (function instanceof PointerIntFunc) {
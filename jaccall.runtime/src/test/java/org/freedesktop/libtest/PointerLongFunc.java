@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -19,6 +20,13 @@ public abstract class PointerLongFunc extends PointerFunc<LongFunc> implements L
               address);
     }
 
+    PointerLongFunc(final ClosurePool closurePool,
+                    final LongFunc function) {
+        super(LongFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<LongFunc> nref(@Nonnull final LongFunc function) {
         if (function instanceof PointerLongFunc) {
@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -19,6 +20,13 @@ public abstract class PointerLongLongFunc extends PointerFunc<LongLongFunc> impl
               address);
     }
 
+    PointerLongLongFunc(final ClosurePool closurePool,
+                        final LongLongFunc function) {
+        super(LongLongFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<LongLongFunc> nref(@Nonnull final LongLongFunc function) {
         if (function instanceof PointerLongLongFunc) {
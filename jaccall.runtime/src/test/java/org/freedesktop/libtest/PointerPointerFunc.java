@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 
@@ -18,6 +19,13 @@ public abstract class PointerPointerFunc extends org.freedesktop.jaccall.Pointer
               address);
     }
 
+    PointerPointerFunc(final ClosurePool closurePool,
+                       final PointerFunc function) {
+        super(PointerFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<PointerFunc> nref(@Nonnull final PointerFunc function) {
         if (function instanceof PointerPointerFunc) {
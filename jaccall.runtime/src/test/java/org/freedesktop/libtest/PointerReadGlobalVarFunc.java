@@ -1,5 +1,6 @@
 package org.freedesktop.libtest;
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -15,6 +16,13 @@ public abstract class PointerReadGlobalVarFunc extends PointerFunc<ReadGlobalVar
               address);
     }
 
+    PointerReadGlobalVarFunc(final ClosurePool closurePool,
+                             final ReadGlobalVarFunc function) {
+        super(ReadGlobalVarFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<ReadGlobalVarFunc> nref(@Nonnull ReadGlobalVarFunc func) {
         if (func instanceof PointerReadGlobalVarFunc) {
@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -19,6 +20,13 @@ public abstract class PointerShortFunc extends PointerFunc<ShortFunc> implements
               address);
     }
 
+    PointerShortFunc(final ClosurePool closurePool,
+                     final ShortFunc function) {
+        super(ShortFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<ShortFunc> nref(@Nonnull final ShortFunc function) {
         if (function instanceof PointerShortFunc) {
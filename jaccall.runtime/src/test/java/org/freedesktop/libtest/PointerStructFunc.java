@@ -1,5 +1,6 @@
 package org.freedesktop.libtest;
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -24,6 +25,13 @@ public abstract class PointerStructFunc extends PointerFunc<StructFunc> implemen
               address);
     }
 
+    PointerStructFunc(final ClosurePool closurePool,
+                      final StructFunc function) {
+        super(StructFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<StructFunc> nref(@Nonnull final StructFunc function) {
         if (function instanceof PointerStructFunc) {
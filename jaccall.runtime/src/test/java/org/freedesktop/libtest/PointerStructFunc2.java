@@ -1,5 +1,6 @@
 package org.freedesktop.libtest;
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -24,6 +25,13 @@ public abstract class PointerStructFunc2 extends PointerFunc<StructFunc2> implem
               address);
     }
 
+    PointerStructFunc2(final ClosurePool closurePool,
+                       final StructFunc2 function) {
+        super(StructFunc2.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<StructFunc2> nref(@Nonnull final StructFunc2 function) {
         if (function instanceof PointerStructFunc2) {
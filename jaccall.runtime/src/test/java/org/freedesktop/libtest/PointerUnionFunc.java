@@ -1,5 +1,6 @@
 package org.freedesktop.libtest;
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -20,6 +21,13 @@ public abstract class PointerUnionFunc extends PointerFunc<UnionFunc> implements
               address);
     }
 
+    PointerUnionFunc(final ClosurePool closurePool,
+                     final UnionFunc function) {
+        super(UnionFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<UnionFunc> nref(@Nonnull final UnionFunc function) {
         if (function instanceof PointerUnionFunc) {
@@ -1,5 +1,6 @@
 package org.freedesktop.libtest;
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -19,6 +20,13 @@ public abstract class PointerUnionFunc2 extends PointerFunc<UnionFunc2> implemen
               address);
     }
 
+    PointerUnionFunc2(final ClosurePool closurePool,
+                      final UnionFunc2 function) {
+        super(UnionFunc2.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<UnionFunc2> nref(@Nonnull final UnionFunc2 function) {
         if (function instanceof PointerUnionFunc2) {
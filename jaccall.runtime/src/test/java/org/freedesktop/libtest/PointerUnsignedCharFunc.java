@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -19,6 +20,13 @@ public abstract class PointerUnsignedCharFunc extends PointerFunc<UnsignedCharFu
               address);
     }
 
+    PointerUnsignedCharFunc(final ClosurePool closurePool,
+                            final UnsignedCharFunc function) {
+        super(UnsignedCharFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<UnsignedCharFunc> nref(@Nonnull final UnsignedCharFunc function) {
         if (function instanceof PointerUnsignedCharFunc) {
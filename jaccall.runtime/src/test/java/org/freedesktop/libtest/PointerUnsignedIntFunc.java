@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -19,6 +20,13 @@ public abstract class PointerUnsignedIntFunc extends PointerFunc<UnsignedIntFunc
               address);
     }
 
+    PointerUnsignedIntFunc(final ClosurePool closurePool,
+                           final UnsignedIntFunc function) {
+        super(UnsignedIntFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<UnsignedIntFunc> nref(@Nonnull final UnsignedIntFunc function) {
         if (function instanceof PointerUnsignedIntFunc) {
@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -19,6 +20,13 @@ public abstract class PointerUnsignedLongFunc extends PointerFunc<UnsignedLongFu
               address);
     }
 
+    PointerUnsignedLongFunc(final ClosurePool closurePool,
+                            final UnsignedLongFunc function) {
+        super(UnsignedLongFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<UnsignedLongFunc> nref(@Nonnull final UnsignedLongFunc function) {
         if (function instanceof PointerUnsignedLongFunc) {
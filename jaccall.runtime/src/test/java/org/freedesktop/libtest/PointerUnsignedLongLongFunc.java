@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -19,6 +20,13 @@ public abstract class PointerUnsignedLongLongFunc extends PointerFunc<UnsignedLo
               address);
     }
 
+    PointerUnsignedLongLongFunc(final ClosurePool closurePool,
+                                final UnsignedLongLongFunc function) {
+        super(UnsignedLongLongFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<UnsignedLongLongFunc> nref(@Nonnull final UnsignedLongLongFunc function) {
         if (function instanceof PointerUnsignedLongLongFunc) {
@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -19,6 +20,13 @@ public abstract class PointerUnsignedShortFunc extends PointerFunc<UnsignedShort
               address);
     }
 
+    PointerUnsignedShortFunc(final ClosurePool closurePool,
+                             final UnsignedShortFunc function) {
+        super(UnsignedShortFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<UnsignedShortFunc> nref(@Nonnull final UnsignedShortFunc function) {
         if (function instanceof UnsignedShortFunc_Jaccall_J) {
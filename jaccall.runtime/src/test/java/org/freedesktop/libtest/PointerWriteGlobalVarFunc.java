@@ -1,5 +1,6 @@
 package org.freedesktop.libtest;
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.PointerFunc;
@@ -16,6 +17,13 @@ public abstract class PointerWriteGlobalVarFunc extends PointerFunc<WriteGlobalV
               address);
     }
 
+    PointerWriteGlobalVarFunc(final ClosurePool closurePool,
+                              final WriteGlobalVarFunc function) {
+        super(WriteGlobalVarFunc.class,
+              closurePool,
+              function);
+    }
+
     @Nonnull
     public static Pointer<WriteGlobalVarFunc> nref(@Nonnull final WriteGlobalVarFunc func) {
         if (func instanceof PointerWriteGlobalVarFunc) {
@@ -1,5 +1,6 @@
 package org.freedesktop.libtest;
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 
 import javax.annotation.Generated;
@@ -10,12 +11,13 @@ final class StructFunc_Jaccall_J extends PointerStructFunc {
     private static final long JNI_METHOD_ID = JNI.GetMethodID(StructFunc.class,
                                                               "invoke",
                                                               "(JBSJJJF)J");
+    private static final ClosurePool CLOSURE_POOL = new ClosurePool(FFI_CIF,
+                                                                    JNI_METHOD_ID);
     private final StructFunc function;
 
     public StructFunc_Jaccall_J(final StructFunc function) {
-        super(JNI.ffi_closure(FFI_CIF,
-                              function,
-                              JNI_METHOD_ID));
+        super(CLOSURE_POOL,
+              function);
         this.function = function;
     }
 
@@ -3,6 +3,7 @@ package org.freedesktop.libtest;
 
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Size;
+import org.freedesktop.jaccall.StructFactory;
 import org.freedesktop.jaccall.StructType;
 import org.freedesktop.jaccall.Types;
 
@@ -21,6 +22,10 @@ abstract class TestStructEmbedded_Jaccall_StructType extends StructType {
     private static final int OFFSET_1 = Types.newOffset(Types.alignment((Float) null),
                                                         OFFSET_0 + (Size.sizeof((Long) null) * 1));
 
+    public static final StructFactory<TestStructEmbedded> FACTORY = StructFactory.register(TestStructEmbedded.class,
+                                                                                           SIZE,
+                                                                                           TestStructEmbedded::new);
+
     TestStructEmbedded_Jaccall_StructType() {
         super(SIZE);
     }
@@ -4,6 +4,7 @@ package org.freedesktop.libtest;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.Size;
+import org.freedesktop.jaccall.StructFactory;
 import org.freedesktop.jaccall.StructType;
 import org.freedesktop.jaccall.Types;
 
@@ -16,6 +17,10 @@ abstract class TestStructFunctionPointer_Jaccall_StructType extends StructType {
     private static final int OFFSET_1 = Types.newOffset(Types.alignment((Pointer) null),
                                                         OFFSET_0 + Size.sizeof((Pointer) null));
 
+    public static final StructFactory<TestStructFunctionPointer> FACTORY = StructFactory.register(TestStructFunctionPointer.class,
+                                                                                                  SIZE,
+                                                                                                  TestStructFunctionPointer::new);
+
     TestStructFunctionPointer_Jaccall_StructType() {
         super(SIZE);
     }
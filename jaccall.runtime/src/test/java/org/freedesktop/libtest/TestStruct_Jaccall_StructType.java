@@ -3,6 +3,7 @@ package org.freedesktop.libtest;
 import org.freedesktop.jaccall.JNI;
 import org.freedesktop.jaccall.Pointer;
 import org.freedesktop.jaccall.Size;
+import org.freedesktop.jaccall.StructFactory;
 import org.freedesktop.jaccall.StructType;
 import org.freedesktop.jaccall.Types;
 
@@ -34,6 +35,10 @@ abstract class TestStruct_Jaccall_StructType extends StructType {
     private static final int OFFSET_4 = Types.newOffset(Types.alignment((Long) null),
                                                         OFFSET_3 + (Size.sizeof((Pointer) null) * 1));
 
+    public static final StructFactory<TestStruct> FACTORY = StructFactory.register(TestStruct.class,
+                                                                                   SIZE,
+                                                                                   TestStruct::new);
+
     TestStruct_Jaccall_StructType() {
         super(SIZE);
     }
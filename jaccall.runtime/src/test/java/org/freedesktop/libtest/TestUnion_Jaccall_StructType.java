@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 import org.freedesktop.jaccall.JNI;
+import org.freedesktop.jaccall.StructFactory;
 import org.freedesktop.jaccall.StructType;
 
 import javax.annotation.Generated;
@@ -12,6 +13,10 @@ abstract class TestUnion_Jaccall_StructType extends StructType {
                                                            JNI.FFI_TYPE_FLOAT);
     public static final int  SIZE     = JNI.ffi_type_struct_size(FFI_TYPE);
 
+    public static final StructFactory<TestUnion> FACTORY = StructFactory.register(TestUnion.class,
+                                                                                  SIZE,
+                                                                                  TestUnion::new);
+
     TestUnion_Jaccall_StructType() {
         super(SIZE);
     }
@@ -4,6 +4,7 @@ import org.freedesktop.jaccall.ByVal;
 import org.freedesktop.jaccall.Lib;
 import org.freedesktop.jaccall.Lng;
 import org.freedesktop.jaccall.Ptr;
+import org.freedesktop.jaccall.Ret;
 import org.freedesktop.jaccall.Symbol;
 import org.freedesktop.jaccall.Unsigned;
 
@@ -126,6 +127,16 @@ public class Testing {
                                          @Lng long embedded_field0,
                                          float embedded_field1);
 
+    @ByVal(TestStruct.class)
+    public static native long structTest(@Ret long rval,
+                                         @Ptr(TestStruct.class) long tst,
+                                         byte field0,
+                                         @Unsigned short field1,
+                                         @Ptr(int.class) long field2,
+                                         @Ptr(int.class) long field3,
+                                         @Lng long embedded_field0,
+                                         float embedded_field1);
+
     @Ptr(TestStruct.class)
     public static native long structTest2(@ByVal(TestStruct.class) long tst,
                                           byte field0,
@@ -51,7 +51,8 @@ public final class Testing_Symbols extends Symbols {
                            "writeFieldsTestStruct",
                            "readGlobalVar",
                            "writeGlobalVar",
-                           "globalvar"
+                           "globalvar",
+                           "structTest"
               },
               new byte[]{1,
                          1,
@@ -94,7 +95,8 @@ public final class Testing_Symbols extends Symbols {
                          13,
                          0,
                          0,
-                         0
+                         0,
+                         8
               },
               new long[]{JNI.ffi_callInterface(JNI.FFI_TYPE_SINT8,
                                                JNI.FFI_TYPE_SINT8),
@@ -186,7 +188,15 @@ public final class Testing_Symbols extends Symbols {
                                                JNI.FFI_TYPE_SINT32),
                          0,
                          0,
-                         0
+                         0,
+                         JNI.ffi_callInterface(TestStruct.FFI_TYPE,
+                                               JNI.FFI_TYPE_POINTER,
+                                               JNI.FFI_TYPE_SINT8,
+                                               JNI.FFI_TYPE_UINT16,
+                                               JNI.FFI_TYPE_POINTER,
+                                               JNI.FFI_TYPE_POINTER,
+                                               JNI.FFI_TYPE_SINT64,
+                                               JNI.FFI_TYPE_FLOAT)
               },
               new String[]{"(B)B",
                            "(B)B",
@@ -229,7 +239,8 @@ public final class Testing_Symbols extends Symbols {
                            "(JBSIJJFDJJJJI)V",
                            "()J",
                            "()J",
-                           "()J"
+                           "()J",
+                           "(JJBSJJJF)J"
               });
     }
 }
@@ -1,5 +1,6 @@
 package org.freedesktop.libtest;
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 
 import javax.annotation.Generated;
@@ -10,12 +11,13 @@ final class UnionFunc2_Jaccall_J extends PointerUnionFunc2 {
     private static final long JNI_METHOD_ID = JNI.GetMethodID(UnionFunc2.class,
                                                               "invoke",
                                                               "(JI)J");
+    private static final ClosurePool CLOSURE_POOL = new ClosurePool(FFI_CIF,
+                                                                    JNI_METHOD_ID);
     private final UnionFunc2 function;
 
     public UnionFunc2_Jaccall_J(final UnionFunc2 function) {
-        super(JNI.ffi_closure(FFI_CIF,
-                              function,
-                              JNI_METHOD_ID));
+        super(CLOSURE_POOL,
+              function);
         this.function = function;
     }
 
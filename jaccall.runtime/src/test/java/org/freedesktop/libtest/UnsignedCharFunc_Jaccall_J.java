@@ -1,5 +1,6 @@
 package org.freedesktop.libtest;
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 
 import javax.annotation.Generated;
@@ -10,12 +11,13 @@ final class UnsignedCharFunc_Jaccall_J extends PointerUnsignedCharFunc {
     private static final long JNI_METHOD_ID = JNI.GetMethodID(UnsignedCharFunc.class,
                                                               "invoke",
                                                               "(B)B");
+    private static final ClosurePool CLOSURE_POOL = new ClosurePool(FFI_CIF,
+                                                                    JNI_METHOD_ID);
     private final UnsignedCharFunc function;
 
     public UnsignedCharFunc_Jaccall_J(final UnsignedCharFunc function) {
-        super(JNI.ffi_closure(FFI_CIF,
-                              function,
-                              JNI_METHOD_ID));
+        super(CLOSURE_POOL,
+              function);
         this.function = function;
     }
 
@@ -1,5 +1,6 @@
 package org.freedesktop.libtest;
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 
 import javax.annotation.Generated;
@@ -10,12 +11,13 @@ final class UnsignedIntFunc_Jaccall_J extends PointerUnsignedIntFunc {
     private static final long JNI_METHOD_ID = JNI.GetMethodID(UnsignedIntFunc.class,
                                                               "invoke",
                                                               "(I)I");
+    private static final ClosurePool CLOSURE_POOL = new ClosurePool(FFI_CIF,
+                                                                    JNI_METHOD_ID);
     private final UnsignedIntFunc function;
 
     public UnsignedIntFunc_Jaccall_J(final UnsignedIntFunc function) {
-        super(JNI.ffi_closure(FFI_CIF,
-                              function,
-                              JNI_METHOD_ID));
+        super(CLOSURE_POOL,
+              function);
         this.function = function;
     }
 
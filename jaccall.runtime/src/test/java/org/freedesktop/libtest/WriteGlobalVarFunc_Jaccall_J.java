@@ -1,6 +1,7 @@
 package org.freedesktop.libtest;
 
 
+import org.freedesktop.jaccall.ClosurePool;
 import org.freedesktop.jaccall.JNI;
 
 final class WriteGlobalVarFunc_Jaccall_J extends PointerWriteGlobalVarFunc {
@@ -8,12 +9,13 @@ final class WriteGlobalVarFunc_Jaccall_J extends PointerWriteGlobalVarFunc {
     private static final long JNI_METHOD_ID = JNI.GetMethodID(WriteGlobalVarFunc.class,
                                                               "invoke",
                                                               "()I");
+    private static final ClosurePool CLOSURE_POOL = new ClosurePool(FFI_CIF,
+                                                                    JNI_METHOD_ID);
     private final WriteGlobalVarFunc function;
 
     WriteGlobalVarFunc_Jaccall_J(final WriteGlobalVarFunc function) {
-        super(JNI.ffi_closure(FFI_CIF,
-                              function,
-                              JNI_METHOD_ID));
+        super(CLOSURE_POOL,
+              function);
         this.function = function;
     }
 